@@ -0,0 +1,127 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.datasource.ReadYourWritesFilter;
+import com.openclassrooms.paymybuddy.datasource.ReadYourWritesTracker;
+import com.openclassrooms.paymybuddy.datasource.ReplicaLagMonitor;
+import com.openclassrooms.paymybuddy.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration des accès à la base avec réplica en lecture.
+ * Activée par {@code paymybuddy.datasource.replica.enabled=true} ; sinon Spring Boot crée
+ * l'unique pool de connexions décrit par {@code spring.datasource.*}.
+ * <p>
+ * Le {@code DataSource} exposé à JPA route les transactions en lecture seule (historique,
+ * relations, versions des pages) vers le réplica et tout le reste vers la base principale,
+ * qui ne traite plus que les écritures et les lectures devant voir les dernières écritures.
+ * <p>
+ * Le routage se décide à chaque transaction : il suppose {@code spring.jpa.open-in-view=false},
+ * sinon la première connexion obtenue dans une requête servirait toute la requête.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "paymybuddy.datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    /**
+     * Pool de la base principale, configuré par {@code spring.datasource.*} et {@code spring.datasource.hikari.*}.
+     * Non injectable par type : seul le {@code DataSource} routé est visible du reste de l'application.
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Pool du réplica, configuré par {@code paymybuddy.datasource.replica.*}.
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties(prefix = "paymybuddy.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${paymybuddy.datasource.replica.url}") String url,
+                                              @Value("${paymybuddy.datasource.replica.username}") String username,
+                                              @Value("${paymybuddy.datasource.replica.password}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${paymybuddy.datasource.replica.max-lag:PT5S}") Duration maxLag) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), maxLag);
+        // Première mesure avant de servir des requêtes : le réplica n'est utilisé qu'une fois jugé à jour
+        monitor.checkLag();
+        return monitor;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${paymybuddy.datasource.replica.max-lag:PT5S}") Duration maxLag,
+            @Value("${paymybuddy.datasource.replica.lag-check-interval:PT2S}") Duration lagCheckInterval,
+            @Value("${paymybuddy.datasource.replica.read-your-writes-window:PT10S}") Duration window) {
+        // Au-delà de max-lag (+ le délai de détection), le réplica est de toute façon écarté
+        Duration minimum = maxLag.plus(lagCheckInterval);
+        if (window.compareTo(minimum) < 0) {
+            log.warn("Fenêtre de lecture de ses écritures ({}) portée à {} (max-lag + lag-check-interval)", window, minimum);
+            window = minimum;
+        }
+        return new ReadYourWritesTracker(window);
+    }
+
+    /**
+     * Filtre placé après celui de Spring Session (la session partagée est alors accessible)
+     * et avant la sécurité et les contrôleurs, dont les lectures sont routées.
+     */
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWritesTracker readYourWritesTracker) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(readYourWritesTracker, List.of(WebConfig.STATIC_RESOURCE_PATTERNS)));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    /**
+     * {@code DataSource} utilisé par JPA, JDBC et les sessions HTTP.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, replicaLagMonitor, readYourWritesTracker);
+        routingDataSource.afterPropertiesSet();
+        // Connexion obtenue à la première requête SQL : le caractère lecture seule de la transaction est alors connu
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.migration.SchemaMigrator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration des migrations de schéma versionnées ({@link SchemaMigrator}).
+ * Les migrations sont appliquées à la création du bean, et JPA n'est initialisé qu'ensuite :
+ * la validation du schéma par Hibernate ({@code ddl-auto=validate}) porte donc toujours sur le schéma à jour.
+ * Désactivable par {@code paymybuddy.migration.enabled=false}.
+ * <p>
+ * Avec {@code paymybuddy.transactions.partitioning.enabled=true}, les migrations de {@code db/partitioning}
+ * (partitionnement mensuel de {@code Transactions}, MySQL uniquement) sont appliquées en plus.
+ */
+@Configuration
+@ConditionalOnProperty(name = "paymybuddy.migration.enabled", havingValue = "true", matchIfMissing = true)
+@Import(MigrationConfig.SchemaMigratorEntityManagerFactoryDependsOnPostProcessor.class)
+public class MigrationConfig {
+
+    static final String PARTITIONING_LOCATION = "classpath:db/partitioning";
+
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(
+            DataSource dataSource,
+            @Value("${paymybuddy.migration.locations:classpath:db/migration}") List<String> locations,
+            @Value("${paymybuddy.migration.baseline-version:1}") String baselineVersion,
+            @Value("${paymybuddy.migration.lock-wait-timeout:10}") int lockWaitTimeoutSeconds,
+            @Value("${paymybuddy.transactions.partitioning.enabled:false}") boolean partitioning) {
+        List<String> allLocations = new ArrayList<>(locations);
+        if (partitioning) {
+            allLocations.add(PARTITIONING_LOCATION);
+        }
+        return new SchemaMigrator(dataSource, allLocations, baselineVersion, "Users", lockWaitTimeoutSeconds);
+    }
+
+    /**
+     * Fait dépendre l'{@code EntityManagerFactory} du {@link SchemaMigrator}.
+     */
+    static class SchemaMigratorEntityManagerFactoryDependsOnPostProcessor extends EntityManagerFactoryDependsOnPostProcessor {
+
+        SchemaMigratorEntityManagerFactoryDependsOnPostProcessor() {
+            super("schemaMigrator");
+        }
+    }
+}
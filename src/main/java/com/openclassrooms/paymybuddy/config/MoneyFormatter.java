@@ -0,0 +1,33 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.springframework.format.Formatter;
+
+import java.util.Locale;
+
+/**
+ * Formateur Spring MVC des montants {@link Money}.
+ * Utilisé par Thymeleaf pour les expressions à double accolade ({@code ${{balance}}}) :
+ * le montant est formaté directement depuis ses centimes ({@code "1,234.50"}), sans passer par
+ * {@code #numbers.formatDecimal} et ses conversions en {@code BigDecimal}.
+ * <p>
+ * La lecture accepte ce format : un texte qui contient un point décimal a ses virgules lues comme
+ * séparateurs de milliers, sinon la virgule est la virgule décimale ({@code "12,50"}).
+ */
+public class MoneyFormatter implements Formatter<Money> {
+
+    @Override
+    public String print(Money money, Locale locale) {
+        return money.format();
+    }
+
+    @Override
+    public Money parse(String text, Locale locale) {
+        String amount = text.replace(" ", "");
+        if (amount.indexOf('.') >= 0) {
+            // Format de print : "1,234.50"
+            amount = amount.replace(",", "");
+        }
+        return Money.parse(amount);
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.monitoring.MonitoredDataSource;
+import com.openclassrooms.paymybuddy.monitoring.QueryBudgetFilter;
+import com.openclassrooms.paymybuddy.monitoring.QueryMonitor;
+import com.openclassrooms.paymybuddy.monitoring.RepositoryMethodInterceptor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Surveillance des requêtes SQL : temps, requêtes et lignes par méthode de repository, requêtes lentes,
+ * détection des N+1 par requête HTTP et statistiques Hibernate.
+ * Activée par {@code paymybuddy.query-monitoring.enabled=true}, qui active aussi
+ * {@code hibernate.generate_statistics} (voir {@code application.properties}).
+ * <p>
+ * Le {@code DataSource} principal (bean {@code dataSource}, routé ou non vers un réplica) est enveloppé
+ * dans un {@link MonitoredDataSource}, et chaque repository Spring Data reçoit un
+ * {@link RepositoryMethodInterceptor} à sa création.
+ */
+@Configuration
+@ConditionalOnProperty(name = "paymybuddy.query-monitoring.enabled", havingValue = "true")
+public class QueryMonitoringConfig {
+
+    @Bean
+    public QueryMonitor queryMonitor(
+            @Value("${paymybuddy.query-monitoring.slow-query-threshold:PT0.2S}") Duration slowQueryThreshold,
+            @Value("${paymybuddy.query-monitoring.similar-statements-threshold:10}") int similarStatementsThreshold,
+            @Value("${paymybuddy.query-monitoring.summary-top-methods:10}") int summaryTopMethods,
+            ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new QueryMonitor(slowQueryThreshold, similarStatementsThreshold, summaryTopMethods,
+                () -> entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics());
+    }
+
+    /**
+     * Enveloppe le {@code DataSource} principal et ajoute l'intercepteur aux repositories.
+     * Méthode statique : les {@code BeanPostProcessor} sont créés avant les autres beans.
+     */
+    @Bean
+    public static BeanPostProcessor queryMonitoringPostProcessor(ObjectProvider<QueryMonitor> queryMonitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(new RepositoryMethodInterceptor(
+                                    queryMonitor.getObject(), repository.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new MonitoredDataSource(dataSource, queryMonitor.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Filtre placé avant tous les autres, pour compter aussi les requêtes des sessions HTTP et de la sécurité.
+     */
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(QueryMonitor queryMonitor) {
+        FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(new QueryBudgetFilter(queryMonitor));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
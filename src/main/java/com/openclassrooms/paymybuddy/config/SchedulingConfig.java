@@ -0,0 +1,13 @@
+package com.openclassrooms.paymybuddy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active l'exécution des tâches planifiées ({@code @Scheduled}) de l'application,
+ * comme le nettoyage des sessions expirées.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -25,12 +26,19 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    // Ressources statiques publiques et immuables (URL avec empreinte) : aucune chaîne de filtres,
+    // donc ni chargement du SecurityContext ni accès à la session pour chaque CSS/JS
+    @Bean
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers(WebConfig.STATIC_RESOURCE_PATTERNS);
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 // .csrf(csrf -> csrf.disable()) // Désactiver CSRF pour la simplicité du proto (NON RECOMMANDÉ en prod)
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/login", "/register", "/css/**", "/js/**", "/webjars/**", "/error").permitAll() // Autoriser l'accès public
+                        .requestMatchers("/login", "/register", "/error").permitAll() // Autoriser l'accès public
                         .anyRequest().authenticated() // Toutes les autres requêtes nécessitent une authentification
                 )
                 .formLogin(form -> form
@@ -44,7 +52,7 @@ public class SecurityConfig {
                         .logoutUrl("/logout") // URL pour déclencher la déconnexion
                         .logoutSuccessUrl("/login?logout=true") // Rediriger après déconnexion
                         .invalidateHttpSession(true) // Invalider la session
-                        .deleteCookies("JSESSIONID") // Supprimer les cookies
+                        .deleteCookies("JSESSIONID", "SESSION") // Supprimer les cookies (Tomcat ou Spring Session)
                         .permitAll() // Autoriser l'accès à l'URL de déconnexion
                 )
                 .userDetailsService(userDetailsService); // Utiliser notre service custom pour charger les users
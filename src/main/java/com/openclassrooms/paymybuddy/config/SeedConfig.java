@@ -0,0 +1,75 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.seed.DatasetSeeder;
+import com.openclassrooms.paymybuddy.seed.SeedSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration du chargement de jeux de données de test ({@link DatasetSeeder}).
+ * Activée par {@code paymybuddy.seed.enabled=true}, positionné par le profil {@code seed}
+ * ({@code application-seed.properties}) : l'application démarre sans serveur web, applique les migrations,
+ * charge le jeu de données puis s'arrête.
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.profiles=seed \
+ *     -Dspring-boot.run.arguments="--paymybuddy.seed.users=1000000 --paymybuddy.seed.transactions=100000000"
+ * </pre>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "paymybuddy.seed.enabled", havingValue = "true")
+public class SeedConfig {
+
+    @Bean
+    public DatasetSeeder datasetSeeder(
+            JdbcTemplate jdbcTemplate,
+            @Value("${paymybuddy.seed.users:100000}") int users,
+            @Value("${paymybuddy.seed.users-file:}") String usersFile,
+            @Value("${paymybuddy.seed.mean-connections:20}") double meanConnections,
+            @Value("${paymybuddy.seed.degree-exponent:2.5}") double degreeExponent,
+            @Value("${paymybuddy.seed.max-connections:5000}") int maxConnections,
+            @Value("${paymybuddy.seed.transactions:1000000}") long transactions,
+            @Value("${paymybuddy.seed.history:P365D}") Duration history,
+            @Value("${paymybuddy.seed.random-seed:42}") long randomSeed,
+            @Value("${paymybuddy.seed.threads:0}") int threads,
+            @Value("${paymybuddy.seed.rows-per-statement:1000}") int rowsPerStatement,
+            @Value("${paymybuddy.seed.chunk-rows:20000}") int chunkRows,
+            @Value("${paymybuddy.seed.index-search:true}") boolean indexSearch,
+            @Value("${paymybuddy.seed.disable-foreign-key-checks:true}") boolean disableForeignKeyChecks) {
+        return new DatasetSeeder(jdbcTemplate, new SeedSpec(users, usersFile.isBlank() ? null : Path.of(usersFile),
+                meanConnections, degreeExponent, maxConnections, transactions, history, randomSeed,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), rowsPerStatement, chunkRows,
+                indexSearch, disableForeignKeyChecks));
+    }
+
+    /**
+     * Lance le chargement au démarrage puis arrête l'application (code de sortie 1 en cas d'échec).
+     */
+    @Bean
+    public ApplicationRunner datasetSeederRunner(DatasetSeeder datasetSeeder, ConfigurableApplicationContext context,
+                                                 @Value("${paymybuddy.seed.exit-when-done:true}") boolean exitWhenDone) {
+        return args -> {
+            int exitCode = 0;
+            try {
+                datasetSeeder.seed();
+            } catch (Exception e) {
+                log.error("Chargement du jeu de données interrompu : {}", e.getMessage(), e);
+                exitCode = 1;
+            }
+            if (exitWhenDone) {
+                int status = exitCode;
+                System.exit(SpringApplication.exit(context, () -> status));
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.session.JdbcSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Configuration Spring Session : les sessions HTTP sont stockées en base (table {@code Http_Sessions})
+ * au lieu de la mémoire de Tomcat, ce qui permet de répartir la charge sur plusieurs nœuds
+ * sans affinité de session.
+ * Activée par {@code paymybuddy.session.store=jdbc} ; avec toute autre valeur, les sessions
+ * restent en mémoire dans Tomcat.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "paymybuddy.session.store", havingValue = "jdbc")
+public class SessionConfig {
+
+    @Bean
+    public JdbcSessionRepository sessionRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout,
+            @Value("${paymybuddy.session.jdbc.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        return new JdbcSessionRepository(jdbcTemplate, sessionTimeout, cleanupBatchSize);
+    }
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.pipeline.TransferPipeline;
+import com.openclassrooms.paymybuddy.pipeline.TransferWriteAheadLog;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration du pipeline de transferts groupés ({@link TransferPipeline}).
+ * Activée par {@code paymybuddy.transfers.pipeline.enabled=true} ; sinon, chaque transfert
+ * est enregistré dans sa propre transaction par {@link TransactionService#transferMoney}.
+ * <p>
+ * Le journal local et l'identifiant du nœud vont ensemble : un nœud redémarré doit retrouver
+ * son fichier de journal pour rejouer les transferts acceptés mais pas encore appliqués.
+ * L'identifiant n'a donc pas de valeur par défaut : deux nœuds partageant le même identifiant
+ * écraseraient mutuellement leur point de reprise ({@code Transfer_Pipeline_Checkpoints}), et un
+ * identifiant dérivé du nom d'hôte changerait avec le conteneur. Le démarrage échoue s'il n'est pas défini.
+ */
+@Configuration
+@ConditionalOnProperty(name = "paymybuddy.transfers.pipeline.enabled", havingValue = "true")
+public class TransferPipelineConfig {
+
+    @Bean
+    public TransferWriteAheadLog transferWriteAheadLog(
+            @Value("${paymybuddy.transfers.pipeline.wal-file:data/transfers.wal}") Path file,
+            @Value("${paymybuddy.transfers.pipeline.wal-size:64MB}") DataSize size) throws IOException {
+        return new TransferWriteAheadLog(file, Math.toIntExact(size.toBytes()));
+    }
+
+    @Bean
+    public TransferPipeline transferPipeline(
+            TransactionService transactionService, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, TransferWriteAheadLog transferWriteAheadLog,
+            @Value("${paymybuddy.transfers.pipeline.node-id:}") String nodeId,
+            @Value("${paymybuddy.transfers.pipeline.queue-capacity:10000}") int queueCapacity,
+            @Value("${paymybuddy.transfers.pipeline.group-size:100}") int groupSize,
+            @Value("${paymybuddy.transfers.pipeline.response-timeout:PT10S}") Duration responseTimeout) {
+        if (nodeId.isBlank()) {
+            throw new IllegalStateException("paymybuddy.transfers.pipeline.node-id doit être défini "
+                    + "(identifiant unique par nœud, stable entre redémarrages) pour activer le pipeline de transferts");
+        }
+        return new TransferPipeline(transactionService, jdbcTemplate, transactionManager, transferWriteAheadLog,
+                nodeId, queueCapacity, groupSize, responseTimeout);
+    }
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.paymybuddy.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration Spring MVC des ressources statiques (CSS, JS) et des formateurs.
+ * <ul>
+ *     <li>Les URL générées par Thymeleaf ({@code @{/css/style.css}}) contiennent une empreinte
+ *     du contenu ({@code /css/style-<md5>.css}) : toute modification du fichier change l'URL.</li>
+ *     <li>Seules ces URL avec empreinte sont servies avec {@code Cache-Control: public, max-age=1 an, immutable}
+ *     et ne sont jamais revalidées par le navigateur.</li>
+ *     <li>Les URL sans empreinte ({@code /css/style.css}, liens externes, anciens favoris) restent servies
+ *     en {@code no-cache} : le navigateur revalide à chaque usage ({@code Last-Modified}) et voit donc
+ *     toujours la version déployée.</li>
+ *     <li>Les variantes pré-compressées ({@code .gz}), générées au build par Maven (phase
+ *     {@code process-resources}), sont servies telles quelles aux clients qui acceptent l'encodage,
+ *     sans compression à la volée.</li>
+ * </ul>
+ * Ces chemins sont exclus de la chaîne de filtres Spring Security (voir {@link SecurityConfig}).
+ * <p>
+ * Les montants ({@link com.openclassrooms.paymybuddy.model.Money}) sont formatés par {@link MoneyFormatter}.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Chemins des ressources statiques, exclus de la chaîne de filtres Spring Security.
+     */
+    static final String[] STATIC_RESOURCE_PATTERNS = {"/css/**", "/js/**", "/webjars/**", "/favicon.ico"};
+
+    /**
+     * Nom de fichier portant l'empreinte MD5 ajoutée par {@link VersionResourceResolver} ({@code style-<md5>.css}).
+     */
+    private static final String FINGERPRINTED_FILE = "{file:[\\w.-]+-[0-9a-f]{32}\\.\\w+}";
+
+    private final boolean cacheResourceResolution;
+
+    /**
+     * Construit la configuration web.
+     *
+     * @param cacheResourceResolution Met en cache la résolution des ressources et le calcul des empreintes
+     *                                (désactivé en développement pour voir les modifications CSS sans redémarrer).
+     */
+    public WebConfig(@Value("${spring.web.resources.chain.cache:true}") boolean cacheResourceResolution) {
+        this.cacheResourceResolution = cacheResourceResolution;
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addFormatter(new MoneyFormatter());
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        addStaticLocation(registry, "css");
+        addStaticLocation(registry, "js");
+    }
+
+    /**
+     * Enregistre deux handlers pour un répertoire statique : le plus spécifique (URL avec empreinte)
+     * est mis en cache un an, l'autre (URL nue) est revalidé à chaque requête.
+     */
+    private void addStaticLocation(ResourceHandlerRegistry registry, String directory) {
+        addResourceChain(registry.addResourceHandler("/" + directory + "/" + FINGERPRINTED_FILE), directory,
+                CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+        addResourceChain(registry.addResourceHandler("/" + directory + "/**"), directory,
+                CacheControl.noCache());
+    }
+
+    private void addResourceChain(ResourceHandlerRegistration registration, String directory, CacheControl cacheControl) {
+        registration.addResourceLocations("classpath:/static/" + directory + "/")
+                .setCacheControl(cacheControl)
+                .resourceChain(cacheResourceResolution)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import com.openclassrooms.paymybuddy.push.SseSubscriptionRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Flux Server-Sent Events de la page d'accueil : nouveau solde et transferts reçus de l'utilisateur connecté,
+ * poussés dès la validation du transfert. La page n'a plus besoin d'être rechargée pour les voir.
+ */
+@RestController
+public class BalanceEventsController {
+
+    private final SseSubscriptionRegistry registry;
+
+    /**
+     * Construit une instance de {@code BalanceEventsController}.
+     *
+     * @param registry Le registre des connexions SSE.
+     */
+    public BalanceEventsController(SseSubscriptionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Gère les requêtes GET vers "/home/events" : ouvre le flux de l'utilisateur connecté.
+     * La requête est traitée en asynchrone et ne bloque pas de thread du serveur.
+     *
+     * @return L'émetteur SSE de la connexion.
+     */
+    @GetMapping(value = "/home/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return registry.subscribe(userEmail);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 /**
@@ -39,17 +40,25 @@ public class ConnectionController {
      * Récupère l'utilisateur actuellement authentifié, charge ses connexions et les prépare
      * pour l'affichage. Un DTO vide {@link AddConnectionDto} est également ajouté au modèle
      * pour le formulaire d'ajout de connexion.
+     * Une réponse 304 Not Modified est renvoyée si les relations n'ont pas changé depuis le dernier affichage.
      *
      * @param model L'objet Model de Spring pour passer des données à la vue (liste des connexions, DTO pour l'ajout).
-     * @return Le nom de la vue (template Thymeleaf) pour la page des connexions ("connections").
+     * @param webRequest La requête courante, utilisée pour le GET conditionnel (ETag).
+     * @return Le nom de la vue (template Thymeleaf) pour la page des connexions ("connections"),
+     *         ou {@code null} si une réponse 304 a été envoyée.
      * @throws RuntimeException si l'utilisateur actuellement authentifié n'est pas trouvé dans la base de données.
      */
     @GetMapping("/connections")
-    public String connectionsPage(Model model) {
+    public String connectionsPage(Model model, ServletWebRequest webRequest) {
         log.debug("Accès à la page des connexions");
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
 
+        if (PageETags.checkNotModified(webRequest, "connections", userService.getDataVersion(userEmail))) {
+            log.debug("Page des connexions inchangée pour {}, réponse 304", userEmail);
+            return null;
+        }
+
         User currentUser = userService.findByEmailWithConnections(userEmail)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
@@ -0,0 +1,233 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import com.openclassrooms.paymybuddy.dto.ExpenseGroupDto;
+import com.openclassrooms.paymybuddy.dto.GroupExpenseDto;
+import com.openclassrooms.paymybuddy.model.ExpenseGroup;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.service.GroupExpenseService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Contrôleur Spring MVC des groupes de dépenses partagées : liste et création des groupes, invitations,
+ * détail d'un groupe, saisie des dépenses et règlement.
+ */
+@Slf4j
+@Controller
+public class ExpenseGroupController {
+
+    private final GroupExpenseService groupExpenseService;
+    private final UserService userService;
+
+    /**
+     * Construit une instance de {@code ExpenseGroupController}.
+     *
+     * @param groupExpenseService Le service des groupes de dépenses.
+     * @param userService         Le service utilisateur (relations proposées comme membres).
+     */
+    public ExpenseGroupController(GroupExpenseService groupExpenseService, UserService userService) {
+        this.groupExpenseService = groupExpenseService;
+        this.userService = userService;
+    }
+
+    /**
+     * Gère les requêtes GET vers "/groups" : groupes de l'utilisateur et formulaire de création.
+     *
+     * @param model L'objet Model de Spring pour passer des données à la vue.
+     * @return Le nom de la vue ("groups").
+     */
+    @GetMapping("/groups")
+    public String groupsPage(Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        populateGroups(model, userEmail);
+        model.addAttribute("expenseGroupDto", new ExpenseGroupDto());
+        return "groups";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/groups" pour créer un groupe.
+     *
+     * @param expenseGroupDto    Le DTO {@link ExpenseGroupDto} du formulaire, validé.
+     * @param result             Les résultats de la validation.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @param model              Le modèle, pour réafficher la page en cas d'erreur de validation.
+     * @return Une redirection vers le groupe créé, ou la vue "groups" en cas d'erreur.
+     */
+    @PostMapping("/groups")
+    public String createGroup(@Valid @ModelAttribute("expenseGroupDto") ExpenseGroupDto expenseGroupDto,
+                              BindingResult result, RedirectAttributes redirectAttributes, Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (result.hasErrors()) {
+            log.warn("Echec de validation du groupe de {}: {}", userEmail, result.getAllErrors());
+            populateGroups(model, userEmail);
+            return "groups";
+        }
+        try {
+            ExpenseGroup group = groupExpenseService.createGroup(userEmail, expenseGroupDto.getName(),
+                    expenseGroupDto.getMemberEmails());
+            redirectAttributes.addFlashAttribute("groupSuccess", "Groupe créé !");
+            return "redirect:/groups/" + group.getGroupId();
+        } catch (Exception e) {
+            log.error("Erreur lors de la création d'un groupe par {}: {}", userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", "Erreur lors de la création du groupe : " + e.getMessage());
+            return "redirect:/groups";
+        }
+    }
+
+    /**
+     * Gère les requêtes POST vers "/groups/{id}/join" : l'utilisateur accepte l'invitation au groupe.
+     *
+     * @param id                 L'identifiant du groupe.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers le groupe.
+     */
+    @PostMapping("/groups/{id}/join")
+    public String join(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            groupExpenseService.join(userEmail, id);
+            redirectAttributes.addFlashAttribute("groupSuccess", "Vous avez rejoint le groupe !");
+        } catch (Exception e) {
+            log.error("Erreur lors de l'acceptation de l'invitation au groupe {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", e.getMessage());
+        }
+        return "redirect:/groups/" + id;
+    }
+
+    /**
+     * Gère les requêtes POST vers "/groups/{id}/decline" : l'utilisateur refuse l'invitation au groupe.
+     *
+     * @param id                 L'identifiant du groupe.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers la liste des groupes.
+     */
+    @PostMapping("/groups/{id}/decline")
+    public String decline(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            groupExpenseService.decline(userEmail, id);
+            redirectAttributes.addFlashAttribute("groupSuccess", "Invitation refusée.");
+        } catch (Exception e) {
+            log.error("Erreur lors du refus de l'invitation au groupe {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", e.getMessage());
+        }
+        return "redirect:/groups";
+    }
+
+    /**
+     * Gère les requêtes GET vers "/groups/{id}" : membres, dépenses non réglées et règlement proposé.
+     *
+     * @param id                 L'identifiant du groupe.
+     * @param model              L'objet Model de Spring pour passer des données à la vue.
+     * @param redirectAttributes Les attributs flash (message d'erreur si le groupe n'est pas accessible).
+     * @return Le nom de la vue ("group"), ou une redirection vers "/groups".
+     */
+    @GetMapping("/groups/{id}")
+    public String groupPage(@PathVariable Integer id, Model model, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!populateGroup(model, userEmail, id, redirectAttributes)) {
+            return "redirect:/groups";
+        }
+        model.addAttribute("groupExpenseDto", new GroupExpenseDto());
+        return "group";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/groups/{id}/expenses" pour enregistrer une dépense avancée par l'utilisateur.
+     *
+     * @param id                 L'identifiant du groupe.
+     * @param groupExpenseDto    Le DTO {@link GroupExpenseDto} du formulaire, validé.
+     * @param result             Les résultats de la validation.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @param model              Le modèle, pour réafficher la page en cas d'erreur de validation.
+     * @return Une redirection vers le groupe, ou la vue "group" en cas d'erreur de validation.
+     */
+    @PostMapping("/groups/{id}/expenses")
+    public String addExpense(@PathVariable Integer id,
+                             @Valid @ModelAttribute("groupExpenseDto") GroupExpenseDto groupExpenseDto,
+                             BindingResult result, RedirectAttributes redirectAttributes, Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (result.hasErrors()) {
+            log.warn("Echec de validation de la dépense de {} pour le groupe {}: {}", userEmail, id, result.getAllErrors());
+            return populateGroup(model, userEmail, id, redirectAttributes) ? "group" : "redirect:/groups";
+        }
+        try {
+            groupExpenseService.addExpense(userEmail, id, Money.of(groupExpenseDto.getAmount()),
+                    groupExpenseDto.getDescription());
+            redirectAttributes.addFlashAttribute("groupSuccess", "Dépense enregistrée !");
+        } catch (Exception e) {
+            log.error("Erreur lors de l'ajout d'une dépense au groupe {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", "Erreur lors de l'ajout de la dépense : " + e.getMessage());
+        }
+        return "redirect:/groups/" + id;
+    }
+
+    /**
+     * Gère les requêtes POST vers "/groups/{id}/settle" : l'utilisateur paie ses dettes,
+     * les autres débiteurs reçoivent une demande de paiement.
+     *
+     * @param id                 L'identifiant du groupe.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers le groupe.
+     */
+    @PostMapping("/groups/{id}/settle")
+    public String settle(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            GroupExpenseService.Settlement settlement = groupExpenseService.settle(userEmail, id);
+            redirectAttributes.addFlashAttribute("groupSuccess", "Groupe réglé : " + settlement.paid().size()
+                    + " transfert(s) effectué(s), " + settlement.requested().size() + " demande(s) de paiement envoyée(s).");
+        } catch (Exception e) {
+            log.error("Erreur lors du règlement du groupe {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", "Erreur lors du règlement : " + e.getMessage());
+        }
+        return "redirect:/groups/" + id;
+    }
+
+    private void populateGroups(Model model, String userEmail) {
+        User currentUser = userService.findByEmailWithConnections(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        List<ExpenseGroup> groups = Collections.emptyList();
+        Set<Integer> invitationIds = Collections.emptySet();
+        try {
+            groups = groupExpenseService.findGroups(userEmail);
+            invitationIds = groupExpenseService.findInvitationIds(userEmail);
+        } catch (Exception e) {
+            model.addAttribute("groupError", "Erreur récupération des groupes.");
+        }
+        model.addAttribute("connections", currentUser.getConnections());
+        model.addAttribute("groups", groups);
+        model.addAttribute("invitationIds", invitationIds);
+    }
+
+    private boolean populateGroup(Model model, String userEmail, Integer groupId, RedirectAttributes redirectAttributes) {
+        try {
+            GroupExpenseService.GroupDetails details = groupExpenseService.getGroup(userEmail, groupId);
+            model.addAttribute("group", details.group());
+            model.addAttribute("joinedMemberIds", details.joinedMemberIds());
+            model.addAttribute("joined", details.hasJoined(userEmail));
+            model.addAttribute("expenses", details.expenses());
+            model.addAttribute("settlement", details.settlement());
+            return true;
+        } catch (Exception e) {
+            log.error("Erreur lors de l'affichage du groupe {} pour {}: {}", groupId, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("groupError", e.getMessage());
+            return false;
+        }
+    }
+}
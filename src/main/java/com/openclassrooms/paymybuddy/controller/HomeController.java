@@ -2,12 +2,19 @@ package com.openclassrooms.paymybuddy.controller;
 
 
 import com.openclassrooms.paymybuddy.dto.TransferDto;
+import com.openclassrooms.paymybuddy.model.Money;
 import com.openclassrooms.paymybuddy.model.Transaction;
 import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.pipeline.TransferPipeline;
+import com.openclassrooms.paymybuddy.service.FragmentCacheService;
+import com.openclassrooms.paymybuddy.service.HotAccountStripes;
+import com.openclassrooms.paymybuddy.service.PaymentRequestService;
 import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferLimitService;
 import com.openclassrooms.paymybuddy.service.UserService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -16,9 +23,10 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 
@@ -34,16 +42,34 @@ public class HomeController {
 
     private final UserService userService;
     private final TransactionService transactionService;
+    private final FragmentCacheService fragmentCacheService;
+    private final ObjectProvider<TransferPipeline> transferPipeline;
+    private final PaymentRequestService paymentRequestService;
+    private final TransferLimitService transferLimitService;
+    private final HotAccountStripes hotAccountStripes;
 
     /**
      * Construit une instance de {@code HomeController} avec les services requis.
      *
-     * @param userService        Le service pour les opérations liées aux utilisateurs.
-     * @param transactionService Le service pour gérer les transactions financières.
+     * @param userService          Le service pour les opérations liées aux utilisateurs.
+     * @param transactionService   Le service pour gérer les transactions financières.
+     * @param fragmentCacheService Le cache des fragments HTML rendus par utilisateur.
+     * @param transferPipeline     Le pipeline de transferts groupés, s'il est activé.
+     * @param paymentRequestService Le service des demandes de paiement (nombre de demandes non lues).
+     * @param transferLimitService Le service des plafonds de transferts (montants restants du jour et du mois).
+     * @param hotAccountStripes    Les comptes chauds, dont les crédits ne changent pas le tampon de version.
      */
-    public HomeController(UserService userService, TransactionService transactionService) {
+    public HomeController(UserService userService, TransactionService transactionService,
+                          FragmentCacheService fragmentCacheService, ObjectProvider<TransferPipeline> transferPipeline,
+                          PaymentRequestService paymentRequestService, TransferLimitService transferLimitService,
+                          HotAccountStripes hotAccountStripes) {
         this.userService = userService;
         this.transactionService = transactionService;
+        this.fragmentCacheService = fragmentCacheService;
+        this.transferPipeline = transferPipeline;
+        this.paymentRequestService = paymentRequestService;
+        this.transferLimitService = transferLimitService;
+        this.hotAccountStripes = hotAccountStripes;
     }
 
     /**
@@ -52,17 +78,32 @@ public class HomeController {
      * et son historique de transactions. Ces informations sont ajoutées au modèle
      * pour être affichées dans la vue. Un {@link TransferDto} vide est également
      * préparé pour le formulaire de transfert.
+     * <p>
+     * Si la page n'a pas changé depuis le dernier affichage (ETag identique au tampon de version
+     * des données de l'utilisateur), une réponse 304 Not Modified est renvoyée sans charger
+     * les connexions ni l'historique. L'ETag inclut la date du jour : le plafond restant affiché
+     * change à minuit sans que les données de l'utilisateur changent. La page d'un compte chaud
+     * ({@link HotAccountStripes}) est toujours rendue : ses crédits n'incrémentent pas le tampon de version.
      *
-     * @param model L'objet Model de Spring pour passer des données à la vue.
-     * @return Le nom de la vue (template Thymeleaf) pour la page d'accueil ("home").
+     * @param model      L'objet Model de Spring pour passer des données à la vue.
+     * @param webRequest La requête courante, utilisée pour le GET conditionnel (ETag).
+     * @return Le nom de la vue (template Thymeleaf) pour la page d'accueil ("home"),
+     *         ou {@code null} si une réponse 304 a été envoyée.
      * @throws RuntimeException si l'utilisateur actuellement authentifié n'est pas trouvé.
      */
     @GetMapping(value = {"/", "/home"})
-    public String homePage(Model model) {
+    public String homePage(Model model, ServletWebRequest webRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
         log.debug("Affichage de la page home pour {}", userEmail);
 
+        long dataVersion = userService.getDataVersion(userEmail);
+        if (!hotAccountStripes.isHot(userEmail)
+                && PageETags.checkNotModified(webRequest, "home-" + LocalDate.now(), dataVersion)) {
+            log.debug("Page home inchangée pour {}, réponse 304", userEmail);
+            return null;
+        }
+
         // Charger l'utilisateur avec ses connexions ET ses transactions
         User currentUser = userService.findByEmailWithConnections(userEmail)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
@@ -79,9 +120,16 @@ public class HomeController {
 
         model.addAttribute("user", currentUser);
         model.addAttribute("connections", currentUser.getConnections()); // Liste des amis
+        // Options du sélecteur d'amis pré-rendues (cache de fragments indexé par la version des données)
+        model.addAttribute("connectionOptions",
+                fragmentCacheService.getConnectionOptions(userEmail, dataVersion, currentUser.getConnections()));
         model.addAttribute("transactions", transactions);
         model.addAttribute("transferDto", new TransferDto()); // Pour le formulaire de transfert
-        model.addAttribute("balance", currentUser.getBalance().setScale(2, BigDecimal.ROUND_HALF_UP));
+        model.addAttribute("balance", transactionService.getBalance(currentUser));
+        // Compteur en cache indexé par la version des données (incrémentée à chaque nouvelle demande)
+        model.addAttribute("unreadPaymentRequests", paymentRequestService.countUnread(userEmail, dataVersion));
+        // Plafonds restants en cache, indexés par la version des données (incrémentée à chaque débit) et le jour
+        model.addAttribute("transferAllowance", transferLimitService.getAllowance(currentUser.getUserId(), dataVersion));
         log.debug("Historique chargé pour {}: {} transactions", userEmail, transactions.size());
 
         return "home"; // Retourne home.html
@@ -91,7 +139,8 @@ public class HomeController {
      * Gère les requêtes POST vers "/transfer" pour traiter une demande de transfert d'argent.
      * Valide les données du transfert. Si la validation échoue, les informations nécessaires
      * sont rechargées et l'utilisateur est retourné à la page d'accueil avec les erreurs.
-     * Si la validation réussit, le service de transaction est appelé pour effectuer le transfert.
+     * Si la validation réussit, le service de transaction est appelé pour effectuer le transfert
+     * (ou le pipeline de transferts groupés, s'il est activé : la réponse attend alors la validation du groupe).
      * L'utilisateur est ensuite redirigé vers la page d'accueil avec un message de succès ou d'erreur.
      *
      * @param transferDto        Le DTO {@link TransferDto} contenant les détails du transfert, validé.
@@ -128,18 +177,21 @@ public class HomeController {
             model.addAttribute("user", currentUser);
             model.addAttribute("connections", currentUser.getConnections());
             model.addAttribute("transactions", transactions);
-            model.addAttribute("balance", currentUser.getBalance().setScale(2, BigDecimal.ROUND_HALF_UP));
+            model.addAttribute("balance", transactionService.getBalance(currentUser));
             // Le transferDto avec les erreurs est déjà dans le modèle grâce à @ModelAttribute
             return "home"; // Retourne à la page home avec les erreurs de validation affichées
         }
 
         try {
-            transactionService.transferMoney(
-                    senderEmail,
-                    transferDto.getReceiverEmail(),
-                    transferDto.getAmount(),
-                    transferDto.getDescription()
-            );
+            Money amount = Money.of(transferDto.getAmount()); // exact : le DTO est validé au centime près (@Digits)
+            TransferPipeline pipeline = transferPipeline.getIfAvailable();
+            if (pipeline != null) {
+                // Appliqué avec d'autres transferts dans une même transaction ; on attend sa validation en base
+                pipeline.transfer(senderEmail, transferDto.getReceiverEmail(), amount, transferDto.getDescription());
+            } else {
+                transactionService.transferMoney(senderEmail, transferDto.getReceiverEmail(), amount,
+                        transferDto.getDescription());
+            }
             log.info("Transfert réussi de {} vers {} par {}", senderEmail, transferDto.getReceiverEmail(), senderEmail);
             redirectAttributes.addFlashAttribute("transferSuccess", "Transfert effectué avec succès !");
         } catch (Exception e) {
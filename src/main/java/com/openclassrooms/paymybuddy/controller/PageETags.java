@@ -0,0 +1,54 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.util.Map;
+
+/**
+ * Utilitaire de GET conditionnel pour les pages de l'utilisateur connecté.
+ * L'ETag d'une page est dérivé du tampon de version des données de l'utilisateur
+ * ({@code Users.data_version}) et de la session HTTP : tant qu'aucun transfert,
+ * ajout de relation ou mise à jour du profil n'a eu lieu, le navigateur reçoit
+ * une réponse 304 Not Modified sans que la page soit rechargée ni re-rendue.
+ */
+final class PageETags {
+
+    private PageETags() {
+    }
+
+    /**
+     * Calcule l'ETag de la page et vérifie l'en-tête {@code If-None-Match} de la requête.
+     * Si l'ETag correspond, le statut 304 est positionné sur la réponse et le contrôleur
+     * doit retourner {@code null} sans charger de données.
+     * <p>
+     * Une page portant des messages flash (succès/erreur) n'est jamais considérée comme
+     * inchangée, ces messages n'étant affichés qu'une seule fois.
+     *
+     * @param webRequest  La requête courante.
+     * @param page        Le nom de la page (intégré à l'ETag pour distinguer les vues).
+     * @param dataVersion Le tampon de version des données de l'utilisateur.
+     * @return {@code true} si la page n'a pas changé et qu'une réponse 304 a été préparée.
+     */
+    static boolean checkNotModified(ServletWebRequest webRequest, String page, long dataVersion) {
+        HttpServletRequest request = webRequest.getRequest();
+        Map<String, ?> flashMap = RequestContextUtils.getInputFlashMap(request);
+        if (flashMap != null && !flashMap.isEmpty()) {
+            return false;
+        }
+        // Le jeton CSRF rendu dans la page est lié à la session : une nouvelle session change l'ETag
+        HttpSession session = request.getSession(false);
+        String sessionPart = session != null ? Integer.toHexString(session.getId().hashCode()) : "0";
+        String etag = "W/\"" + page + "-" + dataVersion + "-" + sessionPart + "\"";
+
+        // Remplace le "no-store" posé par défaut par Spring Security : le navigateur garde la page
+        // mais la revalide à chaque affichage
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return webRequest.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,148 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import com.openclassrooms.paymybuddy.dto.PaymentRequestDto;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.service.PaymentRequestService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contrôleur Spring MVC des demandes de paiement de l'utilisateur connecté :
+ * boîte de réception (demandes reçues), demandes envoyées, nouvelle demande, acceptation et refus.
+ */
+@Slf4j
+@Controller
+public class PaymentRequestController {
+
+    private final PaymentRequestService paymentRequestService;
+    private final UserService userService;
+
+    /**
+     * Construit une instance de {@code PaymentRequestController}.
+     *
+     * @param paymentRequestService Le service des demandes de paiement.
+     * @param userService           Le service utilisateur (relations proposées comme destinataires).
+     */
+    public PaymentRequestController(PaymentRequestService paymentRequestService, UserService userService) {
+        this.paymentRequestService = paymentRequestService;
+        this.userService = userService;
+    }
+
+    /**
+     * Gère les requêtes GET vers "/payment-requests" : affiche les demandes reçues (marquées lues),
+     * les demandes envoyées en attente et le formulaire de nouvelle demande.
+     *
+     * @param model L'objet Model de Spring pour passer des données à la vue.
+     * @return Le nom de la vue ("payment_requests").
+     */
+    @GetMapping("/payment-requests")
+    public String paymentRequestsPage(Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        populate(model, userEmail);
+        model.addAttribute("paymentRequestDto", new PaymentRequestDto());
+        return "payment_requests";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/payment-requests" pour demander un paiement à une relation.
+     *
+     * @param paymentRequestDto  Le DTO {@link PaymentRequestDto} du formulaire, validé.
+     * @param result             Les résultats de la validation.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @param model              Le modèle, pour réafficher la page en cas d'erreur de validation.
+     * @return Une redirection vers "/payment-requests", ou la vue en cas d'erreur de validation.
+     */
+    @PostMapping("/payment-requests")
+    public String requestPayment(@Valid @ModelAttribute("paymentRequestDto") PaymentRequestDto paymentRequestDto,
+                                 BindingResult result, RedirectAttributes redirectAttributes, Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        if (result.hasErrors()) {
+            log.warn("Echec de validation de la demande de paiement de {}: {}", userEmail, result.getAllErrors());
+            populate(model, userEmail);
+            return "payment_requests";
+        }
+
+        try {
+            paymentRequestService.request(userEmail, paymentRequestDto.getPayerEmail(),
+                    Money.of(paymentRequestDto.getAmount()), paymentRequestDto.getDescription());
+            redirectAttributes.addFlashAttribute("paymentRequestSuccess", "Demande de paiement envoyée !");
+        } catch (Exception e) {
+            log.error("Erreur lors de la demande de paiement de {} à {}: {}", userEmail,
+                    paymentRequestDto.getPayerEmail(), e.getMessage());
+            redirectAttributes.addFlashAttribute("paymentRequestError", "Erreur lors de la demande : " + e.getMessage());
+        }
+        return "redirect:/payment-requests";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/payment-requests/{id}/accept" : accepte la demande et effectue le transfert.
+     *
+     * @param id                 L'identifiant de la demande.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers "/payment-requests".
+     */
+    @PostMapping("/payment-requests/{id}/accept")
+    public String accept(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            paymentRequestService.accept(userEmail, id);
+            redirectAttributes.addFlashAttribute("paymentRequestSuccess", "Demande acceptée, transfert effectué !");
+        } catch (Exception e) {
+            log.error("Erreur lors de l'acceptation de la demande de paiement {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("paymentRequestError", "Erreur lors du paiement : " + e.getMessage());
+        }
+        return "redirect:/payment-requests";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/payment-requests/{id}/decline" : refuse la demande.
+     *
+     * @param id                 L'identifiant de la demande.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers "/payment-requests".
+     */
+    @PostMapping("/payment-requests/{id}/decline")
+    public String decline(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            paymentRequestService.decline(userEmail, id);
+            redirectAttributes.addFlashAttribute("paymentRequestSuccess", "Demande de paiement refusée.");
+        } catch (Exception e) {
+            log.error("Erreur lors du refus de la demande de paiement {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("paymentRequestError", "Erreur lors du refus : " + e.getMessage());
+        }
+        return "redirect:/payment-requests";
+    }
+
+    private void populate(Model model, String userEmail) {
+        User currentUser = userService.findByEmailWithConnections(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        List<PaymentRequest> inbox = Collections.emptyList();
+        List<PaymentRequest> sent = Collections.emptyList();
+        try {
+            inbox = paymentRequestService.getInbox(userEmail);
+            sent = paymentRequestService.getSent(userEmail);
+        } catch (Exception e) {
+            model.addAttribute("paymentRequestError", "Erreur récupération des demandes de paiement.");
+        }
+        model.addAttribute("connections", currentUser.getConnections());
+        model.addAttribute("inbox", inbox);
+        model.addAttribute("sentRequests", sent);
+    }
+}
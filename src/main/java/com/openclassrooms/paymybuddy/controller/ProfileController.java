@@ -12,6 +12,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 /**
@@ -38,16 +39,24 @@ public class ProfileController {
      * Gère les requêtes GET vers "/profile" et affiche la page de profil de l'utilisateur connecté.
      * Récupère les informations de l'utilisateur actuellement authentifié et les ajoute au modèle.
      * Prépare également un DTO vide {@link ChangePasswordDto} pour le formulaire de changement de mot de passe.
+     * Une réponse 304 Not Modified est renvoyée si le profil n'a pas changé depuis le dernier affichage.
      *
      * @param model L'objet Model de Spring pour passer des données à la vue (utilisateur, DTO de changement de mot de passe).
-     * @return Le nom de la vue (template Thymeleaf) pour la page de profil ("profile").
+     * @param webRequest La requête courante, utilisée pour le GET conditionnel (ETag).
+     * @return Le nom de la vue (template Thymeleaf) pour la page de profil ("profile"),
+     *         ou {@code null} si une réponse 304 a été envoyée.
      * @throws RuntimeException si l'utilisateur actuellement authentifié n'est pas trouvé.
      */
     @GetMapping("/profile")
-    public String profilePage(Model model) {
+    public String profilePage(Model model, ServletWebRequest webRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
         log.debug("Affichage de la page de profil pour {}", userEmail);
+
+        if (PageETags.checkNotModified(webRequest, "profile", userService.getDataVersion(userEmail))) {
+            log.debug("Page de profil inchangée pour {}, réponse 304", userEmail);
+            return null;
+        }
         User currentUser = userService.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
@@ -0,0 +1,128 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import com.openclassrooms.paymybuddy.dto.ScheduledTransferDto;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.service.ScheduledTransferService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contrôleur Spring MVC des virements programmés de l'utilisateur connecté :
+ * affichage des virements actifs, programmation d'un nouveau virement et annulation.
+ */
+@Slf4j
+@Controller
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+    private final UserService userService;
+
+    /**
+     * Construit une instance de {@code ScheduledTransferController}.
+     *
+     * @param scheduledTransferService Le service des virements programmés.
+     * @param userService              Le service utilisateur (relations proposées comme destinataires).
+     */
+    public ScheduledTransferController(ScheduledTransferService scheduledTransferService, UserService userService) {
+        this.scheduledTransferService = scheduledTransferService;
+        this.userService = userService;
+    }
+
+    /**
+     * Gère les requêtes GET vers "/scheduled-transfers" et affiche les virements programmés actifs
+     * ainsi que le formulaire de programmation.
+     *
+     * @param model L'objet Model de Spring pour passer des données à la vue.
+     * @return Le nom de la vue ("scheduled_transfers").
+     */
+    @GetMapping("/scheduled-transfers")
+    public String scheduledTransfersPage(Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        populate(model, userEmail);
+        model.addAttribute("scheduledTransferDto", new ScheduledTransferDto());
+        return "scheduled_transfers";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/scheduled-transfers" pour programmer un virement.
+     *
+     * @param scheduledTransferDto Le DTO {@link ScheduledTransferDto} du formulaire, validé.
+     * @param result               Les résultats de la validation.
+     * @param redirectAttributes   Les attributs flash (messages de succès/erreur).
+     * @param model                Le modèle, pour réafficher la page en cas d'erreur de validation.
+     * @return Une redirection vers "/scheduled-transfers", ou la vue en cas d'erreur de validation.
+     */
+    @PostMapping("/scheduled-transfers")
+    public String schedule(@Valid @ModelAttribute("scheduledTransferDto") ScheduledTransferDto scheduledTransferDto,
+                           BindingResult result, RedirectAttributes redirectAttributes, Model model) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+
+        if (result.hasErrors()) {
+            log.warn("Echec de validation du virement programmé de {}: {}", userEmail, result.getAllErrors());
+            populate(model, userEmail);
+            return "scheduled_transfers";
+        }
+
+        try {
+            scheduledTransferService.schedule(userEmail, scheduledTransferDto.getReceiverEmail(),
+                    Money.of(scheduledTransferDto.getAmount()), scheduledTransferDto.getDescription(),
+                    scheduledTransferDto.getFirstRunDate(), scheduledTransferDto.getFrequency());
+            redirectAttributes.addFlashAttribute("scheduleSuccess", "Virement programmé avec succès !");
+        } catch (Exception e) {
+            log.error("Erreur lors de la programmation d'un virement par {}: {}", userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("scheduleError", "Erreur lors de la programmation : " + e.getMessage());
+        }
+        return "redirect:/scheduled-transfers";
+    }
+
+    /**
+     * Gère les requêtes POST vers "/scheduled-transfers/{id}/cancel" pour annuler un virement programmé.
+     *
+     * @param id                 L'identifiant du virement programmé.
+     * @param redirectAttributes Les attributs flash (messages de succès/erreur).
+     * @return Une redirection vers "/scheduled-transfers".
+     */
+    @PostMapping("/scheduled-transfers/{id}/cancel")
+    public String cancel(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            scheduledTransferService.cancel(userEmail, id);
+            redirectAttributes.addFlashAttribute("scheduleSuccess", "Virement programmé annulé.");
+        } catch (Exception e) {
+            log.error("Erreur lors de l'annulation du virement programmé {} par {}: {}", id, userEmail, e.getMessage());
+            redirectAttributes.addFlashAttribute("scheduleError", "Erreur lors de l'annulation : " + e.getMessage());
+        }
+        return "redirect:/scheduled-transfers";
+    }
+
+    private void populate(Model model, String userEmail) {
+        User currentUser = userService.findByEmailWithConnections(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        List<ScheduledTransfer> scheduledTransfers = Collections.emptyList();
+        try {
+            scheduledTransfers = scheduledTransferService.findActive(userEmail);
+        } catch (Exception e) {
+            model.addAttribute("scheduleError", "Erreur récupération des virements programmés.");
+        }
+        model.addAttribute("connections", currentUser.getConnections());
+        model.addAttribute("scheduledTransfers", scheduledTransfers);
+        model.addAttribute("frequencies", ScheduledTransfer.Frequency.values());
+    }
+}
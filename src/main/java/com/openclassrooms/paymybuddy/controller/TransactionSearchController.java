@@ -0,0 +1,84 @@
+package com.openclassrooms.paymybuddy.controller;
+
+import com.openclassrooms.paymybuddy.dto.TransactionSearchDto;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.service.TransactionSearchService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Contrôleur Spring MVC de la recherche dans l'historique des transactions de l'utilisateur connecté.
+ */
+@Slf4j
+@Controller
+public class TransactionSearchController {
+
+    private final TransactionSearchService transactionSearchService;
+    private final UserService userService;
+
+    /**
+     * Construit une instance de {@code TransactionSearchController}.
+     *
+     * @param transactionSearchService Le service de recherche dans l'historique.
+     * @param userService              Le service utilisateur (relations proposées comme filtre).
+     */
+    public TransactionSearchController(TransactionSearchService transactionSearchService, UserService userService) {
+        this.transactionSearchService = transactionSearchService;
+        this.userService = userService;
+    }
+
+    /**
+     * Gère les requêtes GET vers "/transactions/search" : affiche le formulaire de recherche et,
+     * si des critères sont fournis, une page de résultats.
+     *
+     * @param searchDto Le DTO {@link TransactionSearchDto} des critères, validé.
+     * @param result    Les résultats de la validation.
+     * @param cursor    Le curseur de la page demandée (lien "Suivant"), facultatif.
+     * @param request   La requête, dont les critères sont repris dans le lien de la page suivante.
+     * @param model     L'objet Model de Spring pour passer des données à la vue.
+     * @return Le nom de la vue ("transaction_search").
+     */
+    @GetMapping("/transactions/search")
+    public String search(@Valid @ModelAttribute("searchDto") TransactionSearchDto searchDto, BindingResult result,
+                         @RequestParam(required = false) String cursor, HttpServletRequest request, Model model) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        User currentUser = userService.findByEmailWithConnections(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        model.addAttribute("connections", currentUser.getConnections());
+
+        if (result.hasErrors()) {
+            log.warn("Echec de validation de la recherche de {}: {}", userEmail, result.getAllErrors());
+            return "transaction_search";
+        }
+
+        try {
+            TransactionSearchService.SearchPage page = transactionSearchService.search(userEmail,
+                    new TransactionSearchService.SearchCriteria(searchDto.getKeywords(), searchDto.getCounterpartyEmail(),
+                            searchDto.getMinAmount() != null ? Money.of(searchDto.getMinAmount()) : null,
+                            searchDto.getMaxAmount() != null ? Money.of(searchDto.getMaxAmount()) : null,
+                            searchDto.getFrom(), searchDto.getTo()),
+                    cursor);
+            model.addAttribute("hits", page.hits());
+            if (page.nextCursor() != null) {
+                // Mêmes critères, page suivante
+                model.addAttribute("nextPageUrl", UriComponentsBuilder.fromPath("/transactions/search")
+                        .query(request.getQueryString()).replaceQueryParam("cursor", page.nextCursor()).build().toUriString());
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors de la recherche de {}: {}", userEmail, e.getMessage());
+            model.addAttribute("searchError", "Erreur lors de la recherche : " + e.getMessage());
+        }
+        return "transaction_search";
+    }
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+/**
+ * Rôle d'une base de données vers laquelle {@link ReplicaRoutingDataSource} peut router une connexion.
+ */
+public enum DataSourceRole {
+
+    /**
+     * Base principale : toutes les écritures et les lectures qui doivent voir les dernières écritures.
+     */
+    PRIMARY,
+
+    /**
+     * Réplica en lecture seule : les transactions {@code @Transactional(readOnly = true)}.
+     */
+    REPLICA
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Filtre qui recopie, en début de requête, la fenêtre de lecture sur la base principale
+ * enregistrée dans la session ({@link ReadYourWritesTracker#restore}).
+ * Les ressources statiques n'accèdent pas à la base : leur session n'est pas chargée.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final List<String> excludedPatterns;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * Construit une instance de {@code ReadYourWritesFilter}.
+     *
+     * @param tracker          Le suivi des sessions ayant écrit récemment.
+     * @param excludedPatterns Les chemins ignorés (ressources statiques).
+     */
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, List<String> excludedPatterns) {
+        this.tracker = tracker;
+        this.excludedPatterns = excludedPatterns;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPatterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        tracker.restore(request);
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Garantit qu'un utilisateur relit ses propres écritures.
+ * Après une écriture validée, les lectures de l'utilisateur sont servies par la base principale
+ * pendant une courte fenêtre, le temps que le réplica rattrape son retard : la page affichée
+ * après un transfert montre ainsi toujours le nouveau solde.
+ * <p>
+ * La fin de la fenêtre est un attribut de la session HTTP. Avec {@code paymybuddy.session.store=jdbc},
+ * la session est partagée en base : la requête suivante la voit quel que soit le nœud qui la traite,
+ * sans affinité de session. Le destinataire d'un transfert n'est pas concerné : il voit le crédit
+ * dès que le réplica l'a rattrapé, au plus {@code max-lag} plus tard (au-delà, le réplica est écarté).
+ * <p>
+ * La session est lue une fois en début de requête ({@link ReadYourWritesFilter}) et la fenêtre
+ * recopiée dans un attribut de requête : le routage des connexions ({@link ReplicaRoutingDataSource})
+ * ne lit jamais la session, dont le chargement demande lui-même une connexion.
+ * Hors requête HTTP (tâches planifiées, threads asynchrones) ou sans session, rien n'est retenu.
+ */
+@Slf4j
+public class ReadYourWritesTracker {
+
+    /**
+     * Attribut de session et de requête : fin de la fenêtre de lecture sur la base principale (en ms depuis l'epoch).
+     */
+    static final String PRIMARY_UNTIL_ATTRIBUTE = ReadYourWritesTracker.class.getName() + ".PRIMARY_UNTIL";
+
+    private final long windowMillis;
+
+    /**
+     * Construit une instance de {@code ReadYourWritesTracker}.
+     *
+     * @param window La durée pendant laquelle les lectures d'un utilisateur restent sur la base principale
+     *               après une écriture. Elle doit dépasser le retard de réplication maximal toléré.
+     */
+    public ReadYourWritesTracker(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * Recopie la fenêtre enregistrée dans la session vers la requête, en début de requête.
+     *
+     * @param request La requête HTTP entrante.
+     */
+    public void restore(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(PRIMARY_UNTIL_ATTRIBUTE) instanceof Long until) {
+            request.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, until);
+        }
+    }
+
+    /**
+     * Envoie les lectures de la requête et de la session en cours vers la base principale
+     * pendant la fenêtre configurée. Aucune session n'est créée : un visiteur anonyme sans session
+     * n'a rien à relire dans ses requêtes suivantes.
+     */
+    public void pin() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        long until = System.currentTimeMillis() + windowMillis;
+        HttpServletRequest request = attributes.getRequest();
+        request.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, until);
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, until);
+            log.debug("Lectures de la session {} sur la base principale pendant {} ms", session.getId(), windowMillis);
+        }
+    }
+
+    /**
+     * Indique si les lectures de la requête en cours doivent aller à la base principale.
+     *
+     * @return {@code true} si la session a écrit il y a moins que la durée de la fenêtre.
+     */
+    public boolean isPinned() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PRIMARY_UNTIL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Long until
+                && until >= System.currentTimeMillis();
+    }
+}
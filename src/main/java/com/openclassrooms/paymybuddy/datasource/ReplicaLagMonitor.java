@@ -0,0 +1,93 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Surveille le retard de réplication du réplica MySQL.
+ * Le retard est mesuré périodiquement ({@code SHOW REPLICA STATUS}) ; tant qu'il dépasse
+ * le retard maximal toléré, ou si la réplication est arrêtée ou le réplica injoignable,
+ * les lectures sont renvoyées vers la base principale.
+ * <p>
+ * L'utilisateur de base du réplica doit disposer du privilège {@code REPLICATION CLIENT}.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String SHOW_REPLICA_STATUS = "SHOW REPLICA STATUS";
+    private static final String SECONDS_BEHIND_SOURCE = "Seconds_Behind_Source";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final Duration maxLag;
+
+    private volatile boolean replicaUsable;
+    private volatile Long lastLagSeconds;
+
+    /**
+     * Construit une instance de {@code ReplicaLagMonitor}.
+     *
+     * @param replicaJdbcTemplate L'accès JDBC au réplica.
+     * @param maxLag              Le retard de réplication maximal toléré pour lire sur le réplica.
+     */
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, Duration maxLag) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * Indique si les lectures peuvent actuellement être envoyées au réplica.
+     * Tant qu'aucune mesure n'a réussi, le réplica n'est pas utilisé.
+     *
+     * @return {@code true} si le dernier retard mesuré est inférieur ou égal au retard maximal.
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * Retourne le dernier retard de réplication mesuré.
+     *
+     * @return Le retard en secondes, ou {@code null} s'il est inconnu (réplication arrêtée, réplica injoignable).
+     */
+    public Long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    /**
+     * Mesure le retard de réplication et met à jour l'état du réplica.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.datasource.replica.lag-check-interval:PT2S}")
+    public void checkLag() {
+        Long lag;
+        try {
+            List<Map<String, Object>> rows = replicaJdbcTemplate.queryForList(SHOW_REPLICA_STATUS);
+            if (rows.isEmpty()) {
+                // Serveur sans réplication configurée (ex. réplica pointant sur la principale en développement)
+                lag = 0L;
+            } else {
+                Object value = rows.get(0).get(SECONDS_BEHIND_SOURCE);
+                // NULL : threads de réplication arrêtés, le retard n'est pas borné
+                lag = value instanceof Number number ? number.longValue() : null;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Mesure du retard de réplication impossible", e);
+            lag = null;
+        }
+        boolean usable = lag != null && lag <= maxLag.toSeconds();
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Réplica utilisé pour les lectures (retard : {} s)", lag);
+            } else {
+                log.warn("Réplica écarté, lectures sur la base principale (retard : {} s, maximum : {} s)",
+                        lag, maxLag.toSeconds());
+            }
+        }
+        lastLagSeconds = lag;
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * {@code DataSource} qui route chaque connexion vers la base principale ou vers le réplica.
+ * <p>
+ * Une connexion va au réplica si et seulement si :
+ * <ul>
+ *     <li>elle est demandée dans une transaction {@code @Transactional(readOnly = true)} ;</li>
+ *     <li>le retard de réplication est dans la limite tolérée ({@link ReplicaLagMonitor}) ;</li>
+ *     <li>la session en cours n'a pas écrit récemment ({@link ReadYourWritesTracker}).</li>
+ * </ul>
+ * Tout le reste (écritures, lectures hors transaction) va à la base principale.
+ * <p>
+ * Le choix dépend de la transaction en cours : ce {@code DataSource} doit être enveloppé dans un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} pour que la connexion
+ * ne soit obtenue qu'à la première requête SQL, une fois l'attribut lecture seule connu.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * Construit une instance de {@code ReplicaRoutingDataSource}.
+     *
+     * @param primary               Le pool de connexions de la base principale.
+     * @param replica               Le pool de connexions du réplica.
+     * @param lagMonitor            La surveillance du retard de réplication.
+     * @param readYourWritesTracker Le suivi des utilisateurs ayant écrit récemment.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(DataSourceRole.PRIMARY, primary, DataSourceRole.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinAfterCommit();
+            return DataSourceRole.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            return DataSourceRole.PRIMARY;
+        }
+        if (readYourWritesTracker.isPinned()) {
+            return DataSourceRole.PRIMARY;
+        }
+        return DataSourceRole.REPLICA;
+    }
+
+    /**
+     * Une transaction en écriture oriente les prochaines lectures de la session vers la base principale,
+     * une fois la transaction validée.
+     */
+    private void pinAfterCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.pin();
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.paymybuddy.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) utilisé pour capturer les données du formulaire de création d'un groupe de dépenses.
+ */
+@Data
+public class ExpenseGroupDto {
+
+    /**
+     * Le nom du groupe.
+     */
+    @NotBlank(message = "Le nom du groupe ne peut pas être vide")
+    @Size(max = 100, message = "Le nom du groupe ne peut pas dépasser 100 caractères")
+    private String name;
+
+    /**
+     * Les adresses e-mail des membres, choisis parmi les relations de l'utilisateur.
+     */
+    @NotEmpty(message = "Choisissez au moins une relation")
+    private List<String> memberEmails = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.paymybuddy.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) utilisé pour capturer une dépense avancée pour un groupe.
+ */
+@Data
+public class GroupExpenseDto {
+
+    /**
+     * Le montant avancé, supérieur à 0.00 et au centime près.
+     */
+    @NotNull(message = "Le montant ne peut pas être vide")
+    @DecimalMin(value = "0.01", message = "Le montant doit être supérieur à 0")
+    @Digits(integer = 8, fraction = 2, message = "Le montant doit être exprimé au centime près (8 chiffres maximum avant la virgule)")
+    private BigDecimal amount;
+
+    /**
+     * Une description optionnelle de la dépense.
+     */
+    @Size(max = 255, message = "La description ne peut pas dépasser 255 caractères")
+    private String description;
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.paymybuddy.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) utilisé pour capturer les données du formulaire
+ * de demande de paiement adressée à une relation.
+ */
+@Data
+public class PaymentRequestDto {
+
+    /**
+     * L'adresse e-mail de la relation à qui le paiement est demandé.
+     */
+    @NotEmpty(message = "L'email du destinataire de la demande ne peut pas être vide")
+    @Email(message = "Format d'email invalide pour le destinataire de la demande")
+    private String payerEmail;
+
+    /**
+     * Le montant demandé, supérieur à 0.00 et au centime près.
+     */
+    @NotNull(message = "Le montant ne peut pas être vide")
+    @DecimalMin(value = "0.01", message = "Le montant doit être supérieur à 0")
+    @Digits(integer = 8, fraction = 2, message = "Le montant doit être exprimé au centime près (8 chiffres maximum avant la virgule)")
+    private BigDecimal amount;
+
+    /**
+     * Une description optionnelle (motif de la demande).
+     */
+    @Size(max = 255, message = "La description ne peut pas dépasser 255 caractères")
+    private String description;
+}
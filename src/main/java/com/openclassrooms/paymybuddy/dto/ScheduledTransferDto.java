@@ -0,0 +1,52 @@
+package com.openclassrooms.paymybuddy.dto;
+
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) utilisé pour capturer les données du formulaire
+ * de programmation d'un virement (ponctuel ou récurrent) vers une relation.
+ */
+@Data
+public class ScheduledTransferDto {
+
+    /**
+     * L'adresse e-mail du destinataire du virement.
+     */
+    @NotEmpty(message = "L'email du destinataire ne peut pas être vide")
+    @Email(message = "Format d'email invalide pour le destinataire")
+    private String receiverEmail;
+
+    /**
+     * Le montant de chaque échéance, au centime près.
+     */
+    @NotNull(message = "Le montant ne peut pas être vide")
+    @DecimalMin(value = "0.01", message = "Le montant doit être supérieur à 0")
+    @Digits(integer = 8, fraction = 2, message = "Le montant doit être exprimé au centime près (8 chiffres maximum avant la virgule)")
+    private BigDecimal amount;
+
+    /**
+     * Une description optionnelle, reprise sur chaque transaction.
+     */
+    @Size(max = 255, message = "La description ne peut pas dépasser 255 caractères")
+    private String description;
+
+    /**
+     * La date de la première échéance.
+     */
+    @NotNull(message = "La date de la première échéance est obligatoire")
+    @FutureOrPresent(message = "La date de la première échéance ne peut pas être passée")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate firstRunDate;
+
+    /**
+     * La périodicité du virement.
+     */
+    @NotNull(message = "La périodicité est obligatoire")
+    private ScheduledTransfer.Frequency frequency = ScheduledTransfer.Frequency.MONTHLY;
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.paymybuddy.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) utilisé pour capturer les critères du formulaire
+ * de recherche dans l'historique des transactions. Tous les critères sont facultatifs.
+ */
+@Data
+public class TransactionSearchDto {
+
+    /**
+     * Les mots-clés recherchés dans la description des transactions.
+     */
+    @Size(max = 100, message = "La recherche ne peut pas dépasser 100 caractères")
+    private String keywords;
+
+    /**
+     * L'adresse e-mail de la relation (expéditeur ou destinataire).
+     */
+    private String counterpartyEmail;
+
+    /**
+     * Le montant minimal.
+     */
+    @DecimalMin(value = "0.00", message = "Le montant minimal ne peut pas être négatif")
+    @Digits(integer = 8, fraction = 2, message = "Le montant minimal doit être exprimé au centime près")
+    private BigDecimal minAmount;
+
+    /**
+     * Le montant maximal.
+     */
+    @DecimalMin(value = "0.00", message = "Le montant maximal ne peut pas être négatif")
+    @Digits(integer = 8, fraction = 2, message = "Le montant maximal doit être exprimé au centime près")
+    private BigDecimal maxAmount;
+
+    /**
+     * Le premier jour de la période.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    /**
+     * Le dernier jour de la période (inclus).
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -22,10 +22,12 @@ public class TransferDto {
 
     /**
      * Le montant à transférer.
-     * Ce champ est obligatoire et doit être une valeur numérique positive, supérieure à 0.00.
+     * Ce champ est obligatoire et doit être une valeur numérique positive, supérieure à 0.00,
+     * au centime près (il est converti sans arrondi en {@link com.openclassrooms.paymybuddy.model.Money}).
      */
     @NotNull(message = "Le montant ne peut pas être vide")
     @DecimalMin(value = "0.01", message = "Le montant doit être supérieur à 0")
+    @Digits(integer = 8, fraction = 2, message = "Le montant doit être exprimé au centime près (8 chiffres maximum avant la virgule)")
     private BigDecimal amount;
 
     /**
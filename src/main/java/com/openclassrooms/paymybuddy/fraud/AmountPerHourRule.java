@@ -0,0 +1,40 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Plafonne le montant envoyé par un utilisateur sur une heure glissante.
+ */
+@Component
+public class AmountPerHourRule implements FraudRule {
+
+    private final Money maxAmountPerHour;
+
+    /**
+     * Construit la règle.
+     *
+     * @param maxAmountPerHour Le montant maximal envoyé sur une heure glissante.
+     */
+    public AmountPerHourRule(@Value("${paymybuddy.fraud.max-amount-per-hour:2000.00}") BigDecimal maxAmountPerHour) {
+        this.maxAmountPerHour = Money.of(maxAmountPerHour);
+    }
+
+    @Override
+    public String name() {
+        return "AMOUNT_PER_HOUR";
+    }
+
+    @Override
+    public Optional<String> evaluate(TransferAttempt attempt, VelocityWindow window) {
+        long total = window.amountCentsInLastHour(attempt.atMillis()) + attempt.amount().cents();
+        if (total > maxAmountPerHour.cents()) {
+            return Optional.of("Vous ne pouvez pas envoyer plus de " + maxAmountPerHour + " € par heure.");
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Journal d'audit des décisions anti-fraude ({@code Fraud_Decisions}).
+ * Les décisions sont mises en file et écrites par lots ({@code batchUpdate}) à intervalle régulier :
+ * l'audit n'ajoute aucun aller-retour en base au transfert. Si la file déborde, la décision est écrite
+ * dans les logs plutôt que perdue.
+ */
+@Slf4j
+@Component
+public class FraudAuditLog {
+
+    private static final String INSERT_DECISION =
+            "INSERT INTO Fraud_Decisions (sender_id, receiver_id, amount, allowed, rule_name, reason, decided_at, " +
+            "duration_micros) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<FraudDecision> pending;
+    private final int batchSize;
+
+    /**
+     * Construit une instance de {@code FraudAuditLog}.
+     *
+     * @param jdbcTemplate  L'accès JDBC à la base.
+     * @param queueCapacity Le nombre maximal de décisions en attente d'écriture.
+     * @param batchSize     Le nombre maximal de décisions écrites par lot.
+     */
+    public FraudAuditLog(JdbcTemplate jdbcTemplate,
+                         @Value("${paymybuddy.fraud.audit.queue-capacity:100000}") int queueCapacity,
+                         @Value("${paymybuddy.fraud.audit.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Met une décision en file d'écriture, sans attendre.
+     *
+     * @param decision La décision.
+     */
+    public void record(FraudDecision decision) {
+        if (!pending.offer(decision)) {
+            log.warn("File d'audit anti-fraude pleine, décision non enregistrée en base : {}", decision);
+        }
+    }
+
+    /**
+     * Écrit les décisions en attente, par lots.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.fraud.audit.flush-interval:PT1S}")
+    public void flush() {
+        List<FraudDecision> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_DECISION, batch, batch.size(), (ps, decision) -> {
+                    ps.setInt(1, decision.senderId());
+                    ps.setInt(2, decision.receiverId());
+                    ps.setBigDecimal(3, decision.amount().toBigDecimal());
+                    ps.setBoolean(4, decision.allowed());
+                    ps.setString(5, decision.rule());
+                    ps.setString(6, decision.reason());
+                    ps.setTimestamp(7, Timestamp.valueOf(decision.decidedAt()));
+                    ps.setInt(8, (int) Math.min(Integer.MAX_VALUE, decision.durationNanos() / 1_000));
+                });
+            } catch (RuntimeException e) {
+                log.error("Écriture de {} décisions anti-fraude impossible: {}", batch.size(), e.getMessage());
+                batch.forEach(decision -> log.warn("Décision anti-fraude non enregistrée en base : {}", decision));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Écrit les dernières décisions à l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * @return Le nombre de décisions en attente d'écriture.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Décision des règles anti-fraude sur un transfert, enregistrée pour audit par {@link FraudAuditLog}.
+ *
+ * @param senderId      Le compte de l'expéditeur.
+ * @param receiverId    Le compte du destinataire.
+ * @param amount        Le montant demandé.
+ * @param allowed       {@code true} si le transfert est accepté.
+ * @param rule          La règle qui a refusé le transfert, ou {@code null}.
+ * @param reason        Le motif du refus, ou {@code null}.
+ * @param decidedAt     La date de la décision.
+ * @param durationNanos La durée de l'évaluation des règles.
+ */
+public record FraudDecision(Integer senderId, Integer receiverId, Money amount, boolean allowed, String rule,
+                            String reason, LocalDateTime decidedAt, long durationNanos) {
+}
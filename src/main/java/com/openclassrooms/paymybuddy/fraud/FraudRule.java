@@ -0,0 +1,25 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import java.util.Optional;
+
+/**
+ * Règle anti-fraude évaluée par {@link FraudRulesEngine} avant chaque transfert.
+ * Toute règle déclarée comme bean Spring est évaluée. Une règle ne lit que les agrégats en mémoire
+ * ({@link VelocityWindow}), jamais la base : l'évaluation complète prend quelques microsecondes.
+ */
+public interface FraudRule {
+
+    /**
+     * @return Le nom de la règle, enregistré avec la décision.
+     */
+    String name();
+
+    /**
+     * Évalue un transfert.
+     *
+     * @param attempt Le transfert demandé.
+     * @param window  Les agrégats glissants de l'expéditeur, sans ce transfert.
+     * @return Le motif du refus (destiné à l'utilisateur), ou vide si la règle accepte le transfert.
+     */
+    Optional<String> evaluate(TransferAttempt attempt, VelocityWindow window);
+}
@@ -0,0 +1,174 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moteur de règles anti-fraude évalué avant chaque transfert, par {@link com.openclassrooms.paymybuddy.service.TransactionService}.
+ * <p>
+ * Les règles ({@link FraudRule}, tous les beans Spring qui l'implémentent) lisent des agrégats glissants
+ * par expéditeur, gardés en mémoire ({@link VelocityWindow}) : aucune requête sur {@code Transactions}
+ * par transfert. Au démarrage, les agrégats sont reconstruits à partir de la dernière heure d'historique.
+ * Les bénéficiaires déjà payés par un utilisateur sont lus une fois, à son premier transfert.
+ * L'évaluation des règles et la prise en compte d'un transfert accepté se font sous le verrou de la fenêtre
+ * de l'expéditeur : des demandes simultanées du même expéditeur sont évaluées l'une après l'autre, chacune voyant
+ * les précédentes, et ne peuvent pas passer toutes sous le seuil. Les expéditeurs différents ne se bloquent pas.
+ * Un transfert accepté est compté avant son enregistrement et le reste même s'il échoue ensuite (solde insuffisant).
+ * <p>
+ * Chaque décision est enregistrée pour audit ({@link FraudAuditLog}, écriture différée par lots).
+ * Les agrégats sont locaux au nœud : avec plusieurs nœuds sans affinité, chaque seuil s'applique par nœud.
+ */
+@Slf4j
+@Service
+public class FraudRulesEngine {
+
+    private static final String KNOWN_RECIPIENTS =
+            "SELECT DISTINCT receiver_id FROM Transactions WHERE sender_id = ? AND timestamp >= ?";
+    private static final String MAX_TRANSACTION_ID = "SELECT COALESCE(MAX(transaction_id), 0) FROM Transactions";
+    // Bornée par identifiant : parcours de la fin de la clé primaire, pas de la partition du mois
+    private static final String RECENT_TRANSFERS =
+            "SELECT t.sender_id, t.receiver_id, t.amount, t.timestamp, NOT EXISTS (" +
+            "SELECT 1 FROM Transactions p WHERE p.sender_id = t.sender_id AND p.receiver_id = t.receiver_id " +
+            "AND p.timestamp >= ? AND p.timestamp < t.timestamp) AS new_recipient " +
+            "FROM Transactions t WHERE t.transaction_id > ? AND t.timestamp >= ? ORDER BY t.timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<FraudRule> rules;
+    private final FraudAuditLog auditLog;
+    private final boolean enabled;
+    private final Duration knownRecipientHistory;
+    private final int rebuildMaxTransfers;
+    private final Map<Integer, VelocityWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Construit une instance de {@code FraudRulesEngine}.
+     *
+     * @param jdbcTemplate          L'accès JDBC à la base.
+     * @param rules                 Les règles évaluées, dans l'ordre des beans.
+     * @param auditLog              Le journal d'audit des décisions.
+     * @param enabled               Active l'évaluation des règles (désactivée, tous les transferts sont acceptés).
+     * @param knownRecipientHistory La profondeur d'historique des bénéficiaires considérés comme connus.
+     * @param rebuildMaxTransfers   Le nombre maximal de transferts relus au démarrage.
+     */
+    public FraudRulesEngine(JdbcTemplate jdbcTemplate, List<FraudRule> rules, FraudAuditLog auditLog,
+                            @Value("${paymybuddy.fraud.enabled:true}") boolean enabled,
+                            @Value("${paymybuddy.fraud.known-recipient-history:P90D}") Duration knownRecipientHistory,
+                            @Value("${paymybuddy.fraud.rebuild-max-transfers:200000}") int rebuildMaxTransfers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rules = List.copyOf(rules);
+        this.auditLog = auditLog;
+        this.enabled = enabled;
+        this.knownRecipientHistory = knownRecipientHistory;
+        this.rebuildMaxTransfers = rebuildMaxTransfers;
+    }
+
+    /**
+     * Évalue un transfert avec toutes les règles ; accepté, il est ajouté aux agrégats de l'expéditeur.
+     *
+     * @param senderId   Le compte de l'expéditeur.
+     * @param receiverId Le compte du destinataire.
+     * @param amount     Le montant du transfert.
+     * @throws TransferBlockedException Si une règle refuse le transfert.
+     */
+    public void check(Integer senderId, Integer receiverId, Money amount) throws TransferBlockedException {
+        if (!enabled) {
+            return;
+        }
+        VelocityWindow window = windowOf(senderId);
+        long started = System.nanoTime();
+        FraudRule blockedBy = null;
+        String reason = null;
+        // Évaluation et prise en compte atomiques pour l'expéditeur (les règles ne lisent que sa fenêtre)
+        synchronized (window) {
+            long now = System.currentTimeMillis();
+            TransferAttempt attempt = new TransferAttempt(senderId, receiverId, amount, now, !window.isKnownRecipient(receiverId));
+            for (FraudRule rule : rules) {
+                Optional<String> refusal = rule.evaluate(attempt, window);
+                if (refusal.isPresent()) {
+                    blockedBy = rule;
+                    reason = refusal.get();
+                    break;
+                }
+            }
+            if (blockedBy == null) {
+                window.record(now, amount.cents(), receiverId, attempt.newRecipient());
+            }
+        }
+        if (blockedBy != null) {
+            auditLog.record(new FraudDecision(senderId, receiverId, amount, false, blockedBy.name(), reason,
+                    LocalDateTime.now(), System.nanoTime() - started));
+            log.warn("Transfert de {} € du compte {} vers {} refusé par la règle {}", amount, senderId, receiverId, blockedBy.name());
+            throw new TransferBlockedException(blockedBy.name(), reason);
+        }
+        auditLog.record(new FraudDecision(senderId, receiverId, amount, true, null, null,
+                LocalDateTime.now(), System.nanoTime() - started));
+    }
+
+    /**
+     * Reconstruit les agrégats à partir de la dernière heure d'historique, au démarrage de l'application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        long minTransactionId = jdbcTemplate.queryForObject(MAX_TRANSACTION_ID, Long.class) - rebuildMaxTransfers;
+        int[] replayed = new int[1];
+        jdbcTemplate.query(RECENT_TRANSFERS, rs -> {
+            VelocityWindow window = windows.computeIfAbsent(rs.getInt("sender_id"), id -> new VelocityWindow());
+            synchronized (window) {
+                window.record(rs.getTimestamp("timestamp").getTime(), Money.of(rs.getBigDecimal("amount")).cents(),
+                        rs.getInt("receiver_id"), rs.getBoolean("new_recipient"));
+            }
+            replayed[0]++;
+        }, Timestamp.valueOf(LocalDateTime.now().minus(knownRecipientHistory)), minTransactionId, Timestamp.valueOf(since));
+        log.info("Agrégats anti-fraude reconstruits : {} transferts de la dernière heure, {} expéditeurs, en {} ms",
+                replayed[0], windows.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Libère les agrégats des utilisateurs sans transfert depuis plus d'une heure (ils ne comptent plus dans aucune
+     * fenêtre). Leurs bénéficiaires connus seront relus à leur prochain transfert.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    public void evictIdle() {
+        long idleSince = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+        windows.values().removeIf(window -> window.lastActivityMillis() < idleSince);
+    }
+
+    /**
+     * @return Le nombre d'expéditeurs dont les agrégats sont en mémoire.
+     */
+    public int trackedSenders() {
+        return windows.size();
+    }
+
+    private VelocityWindow windowOf(Integer senderId) {
+        VelocityWindow window = windows.computeIfAbsent(senderId, id -> new VelocityWindow());
+        if (!window.isKnownRecipientsLoaded()) {
+            synchronized (window) {
+                if (!window.isKnownRecipientsLoaded()) {
+                    window.loadKnownRecipients(jdbcTemplate.queryForList(KNOWN_RECIPIENTS, Integer.class, senderId,
+                            Timestamp.valueOf(LocalDateTime.now().minus(knownRecipientHistory))));
+                }
+            }
+        }
+        return window;
+    }
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Limite les transferts vers des bénéficiaires jamais payés auparavant sur une heure glissante :
+ * un compte compromis est typiquement vidé vers plusieurs nouveaux bénéficiaires en peu de temps.
+ */
+@Component
+public class NewRecipientRule implements FraudRule {
+
+    private final int maxNewRecipientsPerHour;
+
+    /**
+     * Construit la règle.
+     *
+     * @param maxNewRecipientsPerHour Le nombre maximal de nouveaux bénéficiaires sur une heure glissante.
+     */
+    public NewRecipientRule(@Value("${paymybuddy.fraud.max-new-recipients-per-hour:3}") int maxNewRecipientsPerHour) {
+        this.maxNewRecipientsPerHour = maxNewRecipientsPerHour;
+    }
+
+    @Override
+    public String name() {
+        return "NEW_RECIPIENTS_PER_HOUR";
+    }
+
+    @Override
+    public Optional<String> evaluate(TransferAttempt attempt, VelocityWindow window) {
+        if (attempt.newRecipient() && window.newRecipientsInLastHour(attempt.atMillis()) >= maxNewRecipientsPerHour) {
+            return Optional.of("Trop de transferts vers de nouveaux bénéficiaires. Réessayez plus tard.");
+        }
+        return Optional.empty();
+    }
+}
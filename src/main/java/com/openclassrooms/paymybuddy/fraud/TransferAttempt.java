@@ -0,0 +1,15 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+/**
+ * Transfert soumis aux règles anti-fraude, avant son enregistrement.
+ *
+ * @param senderId     Le compte de l'expéditeur.
+ * @param receiverId   Le compte du destinataire.
+ * @param amount       Le montant du transfert.
+ * @param atMillis     L'instant de la demande (ms depuis l'époque).
+ * @param newRecipient {@code true} si l'expéditeur n'a encore jamais payé ce destinataire.
+ */
+public record TransferAttempt(Integer senderId, Integer receiverId, Money amount, long atMillis, boolean newRecipient) {
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+/**
+ * Exception levée par {@link FraudRulesEngine} lorsqu'une règle anti-fraude refuse un transfert.
+ * Le message est destiné à l'utilisateur.
+ */
+public class TransferBlockedException extends Exception {
+
+    private final String rule;
+
+    /**
+     * Construit l'exception.
+     *
+     * @param rule    Le nom de la règle qui a refusé le transfert.
+     * @param message Le message affiché à l'utilisateur.
+     */
+    public TransferBlockedException(String rule, String message) {
+        super(message);
+        this.rule = rule;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+}
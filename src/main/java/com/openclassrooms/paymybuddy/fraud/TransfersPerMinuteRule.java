@@ -0,0 +1,37 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Limite le nombre de transferts envoyés par un utilisateur sur une minute glissante.
+ */
+@Component
+public class TransfersPerMinuteRule implements FraudRule {
+
+    private final int maxTransfersPerMinute;
+
+    /**
+     * Construit la règle.
+     *
+     * @param maxTransfersPerMinute Le nombre maximal de transferts sur une minute glissante.
+     */
+    public TransfersPerMinuteRule(@Value("${paymybuddy.fraud.max-transfers-per-minute:5}") int maxTransfersPerMinute) {
+        this.maxTransfersPerMinute = maxTransfersPerMinute;
+    }
+
+    @Override
+    public String name() {
+        return "TRANSFERS_PER_MINUTE";
+    }
+
+    @Override
+    public Optional<String> evaluate(TransferAttempt attempt, VelocityWindow window) {
+        if (window.transfersInLastMinute(attempt.atMillis()) >= maxTransfersPerMinute) {
+            return Optional.of("Trop de transferts en peu de temps. Réessayez dans une minute.");
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,152 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Agrégats glissants des transferts émis par un utilisateur, gardés en mémoire par {@link FraudRulesEngine}.
+ * <p>
+ * Deux anneaux de compartiments de taille fixe : 12 compartiments de 5 s (dernière minute) et 60 compartiments
+ * de 1 min (dernière heure). Chaque compartiment compte les transferts, leur montant et les nouveaux bénéficiaires.
+ * Un compartiment est réutilisé quand son époque est dépassée. La mémoire par utilisateur est donc constante,
+ * quel que soit son nombre de transferts.
+ * <p>
+ * {@link #record} est appelé sous le verrou de l'instance ({@code synchronized (window)}, voir {@link FraudRulesEngine}),
+ * qui englobe aussi l'évaluation des règles : un seul écrivain à la fois, aucun incrément n'est perdu à la remise
+ * à zéro d'un compartiment. Les lectures restent sans verrou (tableaux atomiques).
+ */
+public final class VelocityWindow {
+
+    private static final long MINUTE_BUCKET_MILLIS = 5_000;
+    private static final int MINUTE_BUCKETS = 12;
+    private static final long HOUR_BUCKET_MILLIS = 60_000;
+    private static final int HOUR_BUCKETS = 60;
+
+    private final BucketRing lastMinute = new BucketRing(MINUTE_BUCKETS, MINUTE_BUCKET_MILLIS);
+    private final BucketRing lastHour = new BucketRing(HOUR_BUCKETS, HOUR_BUCKET_MILLIS);
+    private final Set<Integer> knownRecipients = ConcurrentHashMap.newKeySet();
+    private volatile boolean knownRecipientsLoaded;
+    private volatile long lastActivityMillis;
+
+    /**
+     * Ajoute un transfert aux agrégats.
+     *
+     * @param atMillis     La date du transfert (ms depuis l'époque).
+     * @param amountCents  Le montant, en centimes.
+     * @param receiverId   Le bénéficiaire, ajouté aux bénéficiaires connus.
+     * @param newRecipient {@code true} si le bénéficiaire n'avait encore jamais été payé.
+     */
+    public void record(long atMillis, long amountCents, Integer receiverId, boolean newRecipient) {
+        lastMinute.add(atMillis, amountCents, newRecipient);
+        lastHour.add(atMillis, amountCents, newRecipient);
+        knownRecipients.add(receiverId);
+        lastActivityMillis = Math.max(lastActivityMillis, atMillis);
+    }
+
+    /**
+     * @param nowMillis L'instant courant.
+     * @return Le nombre de transferts de la dernière minute.
+     */
+    public long transfersInLastMinute(long nowMillis) {
+        return lastMinute.sum(nowMillis, BucketRing.COUNT);
+    }
+
+    /**
+     * @param nowMillis L'instant courant.
+     * @return Le montant transféré pendant la dernière heure, en centimes.
+     */
+    public long amountCentsInLastHour(long nowMillis) {
+        return lastHour.sum(nowMillis, BucketRing.AMOUNT);
+    }
+
+    /**
+     * @param nowMillis L'instant courant.
+     * @return Le nombre de transferts vers un nouveau bénéficiaire pendant la dernière heure.
+     */
+    public long newRecipientsInLastHour(long nowMillis) {
+        return lastHour.sum(nowMillis, BucketRing.NEW_RECIPIENTS);
+    }
+
+    /**
+     * @param receiverId Le bénéficiaire.
+     * @return {@code true} si l'utilisateur a déjà payé ce bénéficiaire (historique chargé ou transferts récents).
+     */
+    public boolean isKnownRecipient(Integer receiverId) {
+        return knownRecipients.contains(receiverId);
+    }
+
+    /**
+     * Ajoute les bénéficiaires déjà payés, lus dans l'historique.
+     *
+     * @param receiverIds Les bénéficiaires.
+     */
+    void loadKnownRecipients(Iterable<Integer> receiverIds) {
+        receiverIds.forEach(knownRecipients::add);
+        knownRecipientsLoaded = true;
+    }
+
+    boolean isKnownRecipientsLoaded() {
+        return knownRecipientsLoaded;
+    }
+
+    long lastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    /**
+     * Anneau de compartiments : époque du compartiment, puis ses trois compteurs.
+     */
+    private static final class BucketRing {
+
+        static final int COUNT = 0;
+        static final int AMOUNT = 1;
+        static final int NEW_RECIPIENTS = 2;
+
+        private final int buckets;
+        private final long bucketMillis;
+        private final AtomicLongArray epochs;
+        private final AtomicLongArray values; // 3 compteurs par compartiment
+
+        BucketRing(int buckets, long bucketMillis) {
+            this.buckets = buckets;
+            this.bucketMillis = bucketMillis;
+            this.epochs = new AtomicLongArray(buckets);
+            this.values = new AtomicLongArray(buckets * 3);
+            for (int i = 0; i < buckets; i++) {
+                epochs.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        void add(long atMillis, long amountCents, boolean newRecipient) {
+            long epoch = atMillis / bucketMillis;
+            int index = (int) Math.floorMod(epoch, (long) buckets);
+            long current = epochs.get(index);
+            if (current > epoch) {
+                return; // plus ancien que la fenêtre (relecture de l'historique)
+            }
+            if (current != epoch && epochs.compareAndSet(index, current, epoch)) {
+                values.set(index * 3 + COUNT, 0);
+                values.set(index * 3 + AMOUNT, 0);
+                values.set(index * 3 + NEW_RECIPIENTS, 0);
+            }
+            values.incrementAndGet(index * 3 + COUNT);
+            values.addAndGet(index * 3 + AMOUNT, amountCents);
+            if (newRecipient) {
+                values.incrementAndGet(index * 3 + NEW_RECIPIENTS);
+            }
+        }
+
+        long sum(long nowMillis, int counter) {
+            long nowEpoch = nowMillis / bucketMillis;
+            long total = 0;
+            for (int i = 0; i < buckets; i++) {
+                long epoch = epochs.get(i);
+                if (epoch > nowEpoch - buckets && epoch <= nowEpoch) {
+                    total += values.get(i * 3 + counter);
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.paymybuddy.migration;
+
+import org.springframework.core.io.Resource;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Script de migration versionné, nommé {@code V<version>__<description>.sql}
+ * (ex. {@code V4__transactions_history_indexes.sql}, {@code V1_1__demo_data.sql}).
+ *
+ * @param version     La version, dont les parties sont séparées par des points ({@code "1.1"}).
+ * @param description La description tirée du nom du fichier.
+ * @param resource    Le script SQL.
+ */
+public record Migration(String version, String description, Resource resource) implements Comparable<Migration> {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+(?:[._]\\d+)*)__(.+)\\.sql");
+
+    /**
+     * Construit une migration à partir d'un script dont le nom suit la convention.
+     *
+     * @param resource Le script SQL.
+     * @return La migration correspondante.
+     * @throws IllegalArgumentException si le nom du fichier ne suit pas la convention.
+     */
+    public static Migration of(Resource resource) {
+        Matcher matcher = FILE_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Nom de migration invalide : " + resource.getFilename());
+        }
+        return new Migration(matcher.group(1).replace('_', '.'), matcher.group(2).replace('_', ' '), resource);
+    }
+
+    /**
+     * Compare deux versions partie par partie, numériquement ({@code 1.1 < 1.10 < 2}).
+     */
+    public static int compareVersions(String left, String right) {
+        int[] a = Arrays.stream(left.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        int[] b = Arrays.stream(right.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            int cmp = Integer.compare(i < a.length ? a[i] : 0, i < b.length ? b[i] : 0);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int compareTo(Migration other) {
+        return compareVersions(version, other.version);
+    }
+}
@@ -0,0 +1,213 @@
+package com.openclassrooms.paymybuddy.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Applique au démarrage les migrations de schéma versionnées, avant l'initialisation de JPA.
+ * <p>
+ * Les scripts {@code V<version>__<description>.sql} des emplacements configurés sont appliqués
+ * une seule fois, dans l'ordre des versions, et enregistrés dans la table {@code Schema_Migrations}
+ * avec leur somme de contrôle : un script modifié après son application bloque le démarrage.
+ * <p>
+ * Sur MySQL :
+ * <ul>
+ *     <li>un verrou nommé ({@code GET_LOCK}) empêche deux nœuds de migrer en même temps ;</li>
+ *     <li>{@code lock_wait_timeout} est abaissé : une migration qui attend le verrou de métadonnées
+ *     d'une table échoue rapidement au lieu de bloquer les requêtes mises en file derrière elle.</li>
+ * </ul>
+ * Les créations d'index s'écrivent en ligne ({@code ALGORITHM=INPLACE, LOCK=NONE}), sans bloquer les écritures.
+ */
+@Slf4j
+public class SchemaMigrator {
+
+    static final String HISTORY_TABLE = "Schema_Migrations";
+    static final String BASELINE_DESCRIPTION = "<< baseline >>";
+
+    private static final String CREATE_HISTORY_TABLE = "CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " (" +
+            "version VARCHAR(50) NOT NULL, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "script VARCHAR(255) NULL, " +
+            "checksum BIGINT NULL, " +
+            "installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+            "execution_ms INT NOT NULL, " +
+            "PRIMARY KEY (version))";
+    private static final String SELECT_APPLIED = "SELECT version, checksum FROM " + HISTORY_TABLE;
+    private static final String INSERT_APPLIED = "INSERT INTO " + HISTORY_TABLE +
+            " (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+    private static final String LOCK_NAME = "paymybuddy_schema_migration";
+
+    private final DataSource dataSource;
+    private final List<String> locations;
+    private final String baselineVersion;
+    private final String baselineTable;
+    private final int lockWaitTimeoutSeconds;
+
+    /**
+     * Construit une instance de {@code SchemaMigrator}.
+     *
+     * @param dataSource             La base à migrer.
+     * @param locations              Les emplacements des scripts (ex. {@code classpath:db/migration}).
+     * @param baselineVersion        La version attribuée à une base existante créée avant les migrations.
+     * @param baselineTable          La table dont la présence signale une telle base (ex. {@code Users}).
+     * @param lockWaitTimeoutSeconds L'attente maximale d'un verrou de métadonnées par une instruction DDL (MySQL).
+     */
+    public SchemaMigrator(DataSource dataSource, List<String> locations, String baselineVersion,
+                          String baselineTable, int lockWaitTimeoutSeconds) {
+        this.dataSource = dataSource;
+        this.locations = List.copyOf(locations);
+        this.baselineVersion = baselineVersion;
+        this.baselineTable = baselineTable;
+        this.lockWaitTimeoutSeconds = lockWaitTimeoutSeconds;
+    }
+
+    /**
+     * Applique les migrations en attente.
+     *
+     * @return Le nombre de migrations appliquées.
+     * @throws IllegalStateException si une migration échoue ou si un script déjà appliqué a été modifié.
+     */
+    public int migrate() {
+        List<Migration> migrations = findMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            // Toutes les instructions sur la même connexion : celle qui détient le verrou nommé
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            if (mysql) {
+                Integer locked = jdbc.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class, LOCK_NAME, 300);
+                if (locked == null || locked != 1) {
+                    throw new IllegalStateException("Verrou de migration non obtenu (autre nœud en cours de migration ?)");
+                }
+                jdbc.execute("SET SESSION lock_wait_timeout = " + lockWaitTimeoutSeconds);
+            }
+            try {
+                return migrate(connection, jdbc, migrations);
+            } finally {
+                if (mysql) {
+                    jdbc.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK_NAME);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Migration du schéma impossible", e);
+        }
+    }
+
+    private int migrate(Connection connection, JdbcTemplate jdbc, List<Migration> migrations) {
+        boolean existingSchema = !historyTableExists(jdbc) && tableExists(jdbc, baselineTable);
+        jdbc.execute(CREATE_HISTORY_TABLE);
+        Map<String, Long> applied = new HashMap<>();
+        jdbc.query(SELECT_APPLIED, rs -> {
+            long checksum = rs.getLong("checksum");
+            applied.put(rs.getString("version"), rs.wasNull() ? null : checksum);
+        });
+
+        if (applied.isEmpty() && existingSchema) {
+            // Base créée par l'ancien script data.sql : ses tables correspondent à la version de référence
+            jdbc.update(INSERT_APPLIED, baselineVersion, BASELINE_DESCRIPTION, null, null, 0);
+            applied.put(baselineVersion, null);
+            log.info("Base existante marquée à la version {}", baselineVersion);
+        }
+        String baseline = applied.entrySet().stream()
+                .filter(e -> e.getValue() == null)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            long checksum = checksum(migration.resource());
+            if (applied.containsKey(migration.version())) {
+                Long recorded = applied.get(migration.version());
+                if (recorded != null && recorded != checksum) {
+                    throw new IllegalStateException("La migration V" + migration.version() + " (" + migration.resource().getFilename()
+                            + ") a été modifiée après son application : créer une nouvelle migration à la place.");
+                }
+                continue;
+            }
+            if (baseline != null && Migration.compareVersions(migration.version(), baseline) <= 0) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            log.info("Application de la migration V{} : {}", migration.version(), migration.description());
+            try {
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource(), StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Échec de la migration V" + migration.version()
+                        + " (" + migration.resource().getFilename() + ")", e);
+            }
+            int elapsed = (int) (System.currentTimeMillis() - start);
+            jdbc.update(INSERT_APPLIED, migration.version(), migration.description(),
+                    migration.resource().getFilename(), checksum, elapsed);
+            count++;
+        }
+        if (count > 0) {
+            log.info("{} migrations appliquées", count);
+        }
+        return count;
+    }
+
+    private List<Migration> findMigrations() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        List<Migration> migrations = new ArrayList<>();
+        for (String location : locations) {
+            try {
+                for (Resource resource : resolver.getResources(location + "/V*__*.sql")) {
+                    migrations.add(Migration.of(resource));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Lecture des migrations impossible : " + location, e);
+            }
+        }
+        migrations.sort(null);
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).compareTo(migrations.get(i - 1)) == 0) {
+                throw new IllegalStateException("Version de migration en double : V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private static boolean historyTableExists(JdbcTemplate jdbc) {
+        return tableExists(jdbc, HISTORY_TABLE);
+    }
+
+    private static boolean tableExists(JdbcTemplate jdbc, String table) {
+        try {
+            jdbc.queryForList("SELECT 1 FROM " + table + " WHERE 1 = 0");
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Somme de contrôle du script, indépendante des fins de ligne (CRLF/LF).
+     */
+    static long checksum(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(content.getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture de la migration impossible : " + resource.getFilename(), e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Classe représentant un groupe de dépenses partagées (colocation, voyage...).
+ * Le créateur invite certaines de ses relations ; les dépenses du groupe ({@link GroupExpense})
+ * sont réparties à parts égales entre les membres qui ont accepté l'invitation.
+ */
+@Data
+@Entity
+@Table(name = "Expense_Groups")
+public class ExpenseGroup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "group_id")
+    private Integer groupId;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User owner;
+
+    // Membres et invités du groupe, créateur compris (invitation acceptée : Expense_Group_Members.joined_at)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "Expense_Group_Members",
+            joinColumns = @JoinColumn(name = "group_id"),
+            inverseJoinColumns = @JoinColumn(name = "user_id")
+    )
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<User> members = new HashSet<>();
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
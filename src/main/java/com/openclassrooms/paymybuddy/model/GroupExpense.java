@@ -0,0 +1,59 @@
+package com.openclassrooms.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant une dépense avancée par un membre pour son groupe ({@link ExpenseGroup}).
+ * Une dépense non réglée ({@code settledAt} nul) entre dans le calcul du prochain règlement du groupe.
+ * <p>
+ * Une dépense avec un débiteur ({@code debtor}) est une part de règlement : le débiteur seul la doit au payeur.
+ * Tant que sa demande de paiement ({@code paymentRequest}) est en attente, elle n'entre pas dans les règlements ;
+ * elle est réglée à l'acceptation de la demande, et rouverte (demande retirée) à son refus.
+ */
+@Data
+@Entity
+@Table(name = "Group_Expenses")
+public class GroupExpense {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "expense_id")
+    private Integer expenseId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    @ToString.Exclude
+    private ExpenseGroup group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payer_id", nullable = false)
+    @ToString.Exclude
+    private User payer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "debtor_id")
+    @ToString.Exclude
+    private User debtor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_request_id")
+    @ToString.Exclude
+    private PaymentRequest paymentRequest;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(length = 255)
+    private String description;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+}
@@ -0,0 +1,190 @@
+package com.openclassrooms.paymybuddy.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montant en euros, immuable, stocké en centimes dans un {@code long}.
+ * <p>
+ * Les calculs courants (addition, soustraction, comparaison, pourcentage, affichage) se font
+ * en arithmétique entière, sans allouer de {@link BigDecimal} : un transfert ou une ligne d'historique
+ * n'alloue plus que l'objet {@code Money} lui-même. Les dépassements de capacité lèvent une
+ * {@link ArithmeticException} au lieu de produire un montant faux.
+ * <p>
+ * Règles d'arrondi :
+ * <ul>
+ *     <li>la conversion depuis un {@link BigDecimal} ({@link #of(BigDecimal)}) est exacte : un montant
+ *     avec plus de deux décimales est refusé ;</li>
+ *     <li>tout calcul qui produit des fractions de centime ({@link #percentage(int, RoundingMode)})
+ *     indique explicitement son mode d'arrondi.</li>
+ * </ul>
+ *
+ * @param cents Le montant en centimes.
+ */
+public record Money(long cents) implements Comparable<Money>, Serializable {
+
+    /**
+     * Montant nul.
+     */
+    public static final Money ZERO = new Money(0);
+
+    private static final int BASIS_POINTS_PER_UNIT = 10_000;
+
+    /**
+     * Crée un montant à partir d'un nombre de centimes.
+     *
+     * @param cents Le montant en centimes.
+     * @return Le montant.
+     */
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Crée un montant à partir d'une valeur décimale en euros, sans arrondi.
+     *
+     * @param amount Le montant en euros (au plus deux décimales).
+     * @return Le montant.
+     * @throws ArithmeticException si le montant a plus de deux décimales ou dépasse la capacité d'un {@code long}.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Crée un montant à partir d'une valeur décimale en euros, arrondie au centime.
+     *
+     * @param amount       Le montant en euros.
+     * @param roundingMode Le mode d'arrondi des fractions de centime.
+     * @return Le montant.
+     */
+    public static Money of(BigDecimal amount, RoundingMode roundingMode) {
+        return ofCents(amount.setScale(2, roundingMode).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Lit un montant écrit avec un point ou une virgule décimale ({@code "12.5"}, {@code "12,50"}).
+     *
+     * @param text Le texte à lire.
+     * @return Le montant.
+     * @throws NumberFormatException si le texte n'est pas un montant valide au centime près.
+     */
+    public static Money parse(String text) {
+        try {
+            return of(new BigDecimal(text.trim().replace(',', '.')));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Montant invalide (au plus deux décimales) : " + text);
+        }
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    /**
+     * Calcule une fraction du montant exprimée en points de base (1 % = 100 points de base).
+     *
+     * @param basisPoints  La fraction, en points de base.
+     * @param roundingMode Le mode d'arrondi des fractions de centime
+     *                     ({@link RoundingMode#UNNECESSARY} n'est pas accepté).
+     * @return La fraction du montant, arrondie au centime.
+     */
+    public Money percentage(int basisPoints, RoundingMode roundingMode) {
+        return ofCents(divide(Math.multiplyExact(cents, (long) basisPoints), BASIS_POINTS_PER_UNIT, roundingMode));
+    }
+
+    /**
+     * Convertit le montant en {@link BigDecimal} à deux décimales (échanges avec la base, API).
+     *
+     * @return Le montant en euros.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Formate le montant pour l'affichage : séparateur de milliers virgule, décimales point ({@code "1,234.50"}).
+     *
+     * @return Le montant formaté, sans symbole monétaire.
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder(16);
+        if (cents < 0) {
+            out.append('-');
+        }
+        // Math.abs(Long.MIN_VALUE) reste négatif : passage par unsigned pour ce seul cas
+        String digits = cents == Long.MIN_VALUE ? Long.toUnsignedString(cents) : Long.toString(Math.abs(cents));
+        int units = digits.length() - 2;
+        if (units <= 0) {
+            out.append('0');
+        } else {
+            for (int i = 0; i < units; i++) {
+                if (i > 0 && (units - i) % 3 == 0) {
+                    out.append(',');
+                }
+                out.append(digits.charAt(i));
+            }
+        }
+        out.append('.');
+        if (units < 0) {
+            out.append('0');
+        }
+        out.append(digits, Math.max(units, 0), digits.length());
+        return out.toString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    /**
+     * Division entière avec arrondi explicite (diviseur strictement positif).
+     */
+    private static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = dividend < 0 ? -1 : 1;
+        long twiceRemainder = Math.abs(remainder) * 2;
+        boolean awayFromZero = switch (roundingMode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> twiceRemainder >= divisor;
+            case HALF_DOWN -> twiceRemainder > divisor;
+            case HALF_EVEN -> twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Arrondi nécessaire");
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.paymybuddy.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Convertisseur JPA entre {@link Money} et les colonnes {@code DECIMAL(..., 2)} de la base.
+ * Le schéma n'est pas modifié : seule la représentation en mémoire passe en centimes.
+ * Une valeur lue avec plus de deux décimales (impossible pour une colonne {@code DECIMAL(..., 2)})
+ * est refusée plutôt qu'arrondie silencieusement.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value);
+    }
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant une demande de paiement : un utilisateur (le demandeur) demande un montant
+ * à l'une de ses relations (le payeur), qui l'accepte (un transfert est alors effectué) ou la refuse.
+ */
+@Data
+@Entity
+@Table(name = "Payment_Requests")
+public class PaymentRequest {
+
+    /**
+     * État d'une demande de paiement.
+     */
+    public enum Status {
+        PENDING, ACCEPTED, DECLINED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "payment_request_id")
+    private Integer paymentRequestId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "requester_id", nullable = false)
+    @ToString.Exclude
+    private User requester;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payer_id", nullable = false)
+    @ToString.Exclude
+    private User payer;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(length = 255)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Premier affichage dans la boîte de réception du payeur (null : non lue)
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant un virement programmé, ponctuel ou récurrent (loyer, argent de poche...).
+ * Les virements arrivés à échéance sont exécutés par lots, hors pointe, par
+ * {@link com.openclassrooms.paymybuddy.service.ScheduledTransferRunner}.
+ */
+@Data
+@Entity
+@Table(name = "Scheduled_Transfers")
+public class ScheduledTransfer {
+
+    /**
+     * Périodicité d'un virement programmé.
+     */
+    public enum Frequency {
+        ONCE, WEEKLY, MONTHLY;
+
+        /**
+         * Calcule une échéance depuis la première, sans dérive : le virement du 31 reste au 31
+         * (ou au dernier jour des mois plus courts).
+         *
+         * @param firstRunAt La première échéance.
+         * @param occurrence Le rang de l'échéance (0 pour la première).
+         * @return La date de l'échéance.
+         */
+        public LocalDateTime occurrence(LocalDateTime firstRunAt, int occurrence) {
+            return switch (this) {
+                case ONCE -> firstRunAt;
+                case WEEKLY -> firstRunAt.plusWeeks(occurrence);
+                case MONTHLY -> firstRunAt.plusMonths(occurrence);
+            };
+        }
+    }
+
+    /**
+     * État d'un virement programmé.
+     */
+    public enum Status {
+        ACTIVE, COMPLETED, CANCELLED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "scheduled_transfer_id")
+    private Integer scheduledTransferId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id", nullable = false)
+    @ToString.Exclude
+    private User sender;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_id", nullable = false)
+    @ToString.Exclude
+    private User receiver;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(length = 255)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Frequency frequency;
+
+    @Column(name = "first_run_at", nullable = false)
+    private LocalDateTime firstRunAt;
+
+    // Échéances déjà traitées (exécutées ou abandonnées)
+    @Column(nullable = false)
+    private int occurrences = 0;
+
+    // Échéance courante, ou prochaine tentative après un solde insuffisant
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.ACTIVE;
+
+    // Tentatives échouées pour l'échéance courante
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 255)
+    private String lastError;
+
+    // Réservation par un nœud du planificateur (mise à jour en SQL par ScheduledTransferRunner)
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -3,7 +3,6 @@ package com.openclassrooms.paymybuddy.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.ToString;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -30,7 +29,13 @@ public class Transaction {
     private User receiver;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal amount;
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    // Frais payés par l'expéditeur en plus du montant, crédités au compte de la plateforme
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money fee = Money.ZERO;
 
     @Column(length = 255)
     private String description;
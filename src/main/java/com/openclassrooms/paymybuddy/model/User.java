@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -37,8 +36,11 @@ public class User {
     @Column(name = "password_hash", nullable = false, length = 255)
     private String passwordHash;
 
-    @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal balance = BigDecimal.ZERO;
+    // Agrégat en cache des écritures du journal (Ledger_Postings), mis à jour uniquement par LedgerService :
+    // jamais réécrit par JPA, une sauvegarde de l'entité ne peut pas écraser un transfert concurrent
+    @Column(nullable = false, precision = 15, scale = 2, updatable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money balance = Money.ZERO;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -46,6 +48,17 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Plan de frais de l'utilisateur (Fee_Plans.plan_code) ; null : plan par défaut (voir FeeEngine)
+    @Column(name = "fee_plan", length = 32)
+    private String feePlan;
+
+    // Tampon de version des données affichées à l'utilisateur (solde, relations, historique, profil).
+    // Incrémenté à chaque modification, il sert à calculer les ETag des pages (réponses 304 Not Modified).
+    // Jamais réécrit par JPA : seulement incrémenté en base (UserRepository.incrementDataVersion, LedgerService),
+    // pour que deux modifications concurrentes donnent toujours deux versions distinctes
+    @Column(name = "data_version", nullable = false, updatable = false)
+    private long dataVersion = 0L;
+
     // Relation ManyToMany pour les connexions (amis)
     // L'utilisateur courant est user_id_1 (owner)
     // Ses amis sont user_id_2 (inverse side)
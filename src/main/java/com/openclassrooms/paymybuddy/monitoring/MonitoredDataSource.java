@@ -0,0 +1,196 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * {@code DataSource} qui mesure chaque requête SQL exécutée par JPA, {@code JdbcTemplate} et les sessions HTTP,
+ * et la transmet à {@link QueryMonitor}.
+ * <p>
+ * Connexions, instructions et résultats sont enveloppés dans des proxys dynamiques : les paramètres liés
+ * ({@code setXxx}) sont retenus, la durée court de l'exécution jusqu'à la fermeture du {@link ResultSet}
+ * (lecture des lignes comprise) et les lignes sont comptées à chaque {@code next()}.
+ * Le surcoût, quelques microsecondes par requête, explique que la surveillance soit optionnelle.
+ */
+public class MonitoredDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final QueryMonitor monitor;
+
+    /**
+     * Construit une instance de {@code MonitoredDataSource}.
+     *
+     * @param target  Le {@code DataSource} surveillé.
+     * @param monitor Les statistiques alimentées.
+     */
+    public MonitoredDataSource(DataSource target, QueryMonitor monitor) {
+        super(target);
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return monitored(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return monitored(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection monitored(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                case "prepareStatement" -> proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                default -> result;
+            };
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MonitoredDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Instruction surveillée : retient les paramètres et mesure chaque exécution.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private Object[] binds = new Object[0];
+        private Execution pending;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && preparedSql != null && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                binds = new Object[0];
+            } else if (name.equals("close")) {
+                finishPending();
+            }
+            Object result = MonitoredDataSource.invoke(target, method, args);
+            if (name.equals("getResultSet") && result != null && pending != null) {
+                return rows((ResultSet) result, pending);
+            }
+            return result;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending();
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            Execution execution = new Execution(sql, monitor.currentRepositoryMethod(),
+                    binds.length > 0 ? binds.clone() : null, System.nanoTime());
+            Object result = MonitoredDataSource.invoke(target, method, args);
+            switch (result) {
+                case ResultSet resultSet -> {
+                    pending = execution;
+                    return rows(resultSet, execution);
+                }
+                case Boolean hasResultSet when hasResultSet -> pending = execution;
+                case Number updated -> execution.rows = updated.longValue();
+                case int[] counts -> execution.rows = Arrays.stream(counts).filter(count -> count > 0).sum();
+                case long[] counts -> execution.rows = Arrays.stream(counts).filter(count -> count > 0).sum();
+                default -> {
+                }
+            }
+            if (pending != execution) {
+                execution.finish();
+            }
+            return result;
+        }
+
+        private ResultSet rows(ResultSet resultSet, Execution execution) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = MonitoredDataSource.invoke(resultSet, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    execution.rows++;
+                } else if (method.getName().equals("close")) {
+                    execution.finish();
+                }
+                return result;
+            });
+        }
+
+        private void bind(int index, Object value) {
+            if (index > binds.length) {
+                binds = Arrays.copyOf(binds, index);
+            }
+            binds[index - 1] = value;
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Exécution en cours : transmise à {@link QueryMonitor} une seule fois, à la fermeture de son résultat.
+     */
+    private final class Execution {
+
+        private final String sql;
+        private final String method;
+        private final Object[] binds;
+        private final long start;
+        private long rows;
+        private boolean finished;
+
+        private Execution(String sql, String method, Object[] binds, long start) {
+            this.sql = sql;
+            this.method = method;
+            this.binds = binds;
+            this.start = start;
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                monitor.recordStatement(sql, method, binds, System.nanoTime() - start, rows);
+            }
+        }
+    }
+}
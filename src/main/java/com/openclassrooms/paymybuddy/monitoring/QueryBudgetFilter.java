@@ -0,0 +1,38 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre qui délimite chaque requête HTTP pour {@link QueryMonitor} : à la fin de la requête,
+ * les requêtes SQL de même empreinte exécutées plus de N fois sont signalées (N+1 probable).
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final QueryMonitor monitor;
+
+    /**
+     * Construit une instance de {@code QueryBudgetFilter}.
+     *
+     * @param monitor Les statistiques des requêtes SQL.
+     */
+    public QueryBudgetFilter(QueryMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        monitor.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            monitor.endRequest();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Statistiques des requêtes SQL de l'application, alimentées par {@link MonitoredDataSource}.
+ * <p>
+ * Chaque requête est attribuée à la méthode de repository en cours sur le thread
+ * ({@link RepositoryMethodInterceptor}), ou à « JDBC hors repository » pour les services qui utilisent
+ * {@code JdbcTemplate}. Par méthode sont cumulés le nombre d'appels, de requêtes, de lignes lues
+ * ou modifiées et le temps passé en base ; les méthodes les plus coûteuses sont journalisées
+ * à intervalle régulier avec les statistiques Hibernate, puis les compteurs repartent de zéro.
+ * <p>
+ * Deux anomalies sont signalées au fil de l'eau :
+ * <ul>
+ *     <li>une requête plus lente que le seuil, avec l'empreinte de ses paramètres ({@link SqlFingerprint}) ;</li>
+ *     <li>une requête HTTP qui exécute plus de N requêtes SQL de même empreinte (N+1 probable,
+ *     suivi par {@link QueryBudgetFilter}).</li>
+ * </ul>
+ */
+@Slf4j
+public class QueryMonitor {
+
+    static final String OUTSIDE_REPOSITORY = "(JDBC hors repository)";
+
+    private final long slowQueryNanos;
+    private final int similarStatementsThreshold;
+    private final int summaryTopMethods;
+    private final Supplier<Statistics> hibernateStatistics;
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<String>> repositoryMethods = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ThreadLocal<RequestScope> requests = new ThreadLocal<>();
+
+    /**
+     * Construit une instance de {@code QueryMonitor}.
+     *
+     * @param slowQueryThreshold         Durée au-delà de laquelle une requête est journalisée comme lente.
+     * @param similarStatementsThreshold Nombre de requêtes de même empreinte tolérées par requête HTTP.
+     * @param summaryTopMethods          Nombre de méthodes de repository listées dans chaque bilan.
+     * @param hibernateStatistics        Statistiques de la {@code SessionFactory}, lues à chaque bilan.
+     */
+    public QueryMonitor(Duration slowQueryThreshold, int similarStatementsThreshold, int summaryTopMethods,
+                        Supplier<Statistics> hibernateStatistics) {
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+        this.similarStatementsThreshold = similarStatementsThreshold;
+        this.summaryTopMethods = summaryTopMethods;
+        this.hibernateStatistics = hibernateStatistics;
+    }
+
+    /**
+     * Début d'un appel de méthode de repository : les requêtes qui suivent sur ce thread lui sont attribuées.
+     *
+     * @param method Le nom de la méthode, {@code UserRepository.findByEmail} par exemple.
+     */
+    public void enterRepositoryMethod(String method) {
+        repositoryMethods.get().push(method);
+        stats(method).calls.increment();
+    }
+
+    /**
+     * Fin de l'appel de méthode de repository le plus récent sur ce thread.
+     */
+    public void exitRepositoryMethod() {
+        repositoryMethods.get().poll();
+    }
+
+    /**
+     * @return La méthode de repository en cours sur ce thread, ou « JDBC hors repository ».
+     */
+    public String currentRepositoryMethod() {
+        String method = repositoryMethods.get().peek();
+        return method != null ? method : OUTSIDE_REPOSITORY;
+    }
+
+    /**
+     * Début du traitement d'une requête HTTP : les requêtes SQL du thread sont comptées par empreinte.
+     *
+     * @param label Le libellé de la requête HTTP ({@code GET /home}).
+     */
+    public void beginRequest(String label) {
+        requests.set(new RequestScope(label));
+    }
+
+    /**
+     * Fin du traitement d'une requête HTTP : signale les requêtes SQL répétées plus de N fois.
+     *
+     * @return Les requêtes SQL répétées au-delà du seuil, vide si aucune.
+     */
+    public List<RepeatedStatement> endRequest() {
+        RequestScope request = requests.get();
+        requests.remove();
+        if (request == null) {
+            return List.of();
+        }
+        List<RepeatedStatement> repeated = new ArrayList<>();
+        request.statements.forEach((fingerprint, counter) -> {
+            if (counter.count > similarStatementsThreshold) {
+                repeated.add(new RepeatedStatement(fingerprint, counter.method, counter.count));
+                log.warn("{} : {} requêtes SQL de même forme (N+1 probable, {}) : {}",
+                        request.label, counter.count, counter.method, fingerprint);
+            }
+        });
+        log.debug("{} : {} requêtes SQL, {} ms en base", request.label, request.total,
+                TimeUnit.NANOSECONDS.toMillis(request.nanos));
+        return repeated;
+    }
+
+    /**
+     * Enregistre une requête SQL exécutée.
+     *
+     * @param sql     La requête.
+     * @param method  La méthode de repository à laquelle l'attribuer.
+     * @param binds   Les paramètres liés (empreinte journalisée si la requête est lente), ou {@code null}.
+     * @param nanos   La durée d'exécution, lecture du résultat comprise.
+     * @param rows    Le nombre de lignes lues ou modifiées.
+     */
+    public void recordStatement(String sql, String method, Object[] binds, long nanos, long rows) {
+        MethodStats stats = stats(method);
+        stats.statements.increment();
+        stats.nanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        stats.rows.add(rows);
+
+        RequestScope request = requests.get();
+        String fingerprint = null;
+        if (request != null) {
+            fingerprint = SqlFingerprint.of(sql);
+            request.total++;
+            request.nanos += nanos;
+            request.statements.computeIfAbsent(fingerprint, f -> new StatementCounter(method)).count++;
+        }
+        if (nanos >= slowQueryNanos) {
+            log.warn("Requête SQL lente ({} ms, {} lignes, {}) : {} ; paramètres {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), rows, method,
+                    fingerprint != null ? fingerprint : SqlFingerprint.of(sql), SqlFingerprint.ofBinds(binds));
+        }
+    }
+
+    /**
+     * Les méthodes de repository ayant passé le plus de temps en base depuis le dernier bilan.
+     *
+     * @param limit Le nombre de méthodes retournées.
+     * @return Les méthodes, de la plus coûteuse à la moins coûteuse.
+     */
+    public List<MethodSummary> topMethods(int limit) {
+        return methods.entrySet().stream()
+                .map(entry -> entry.getValue().summary(entry.getKey()))
+                .filter(summary -> summary.statements() > 0)
+                .sorted(Comparator.comparingLong(MethodSummary::totalNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Bilan périodique : méthodes de repository les plus coûteuses et statistiques Hibernate,
+     * puis remise à zéro des compteurs.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.query-monitoring.summary-interval:PT5M}",
+            initialDelayString = "${paymybuddy.query-monitoring.summary-interval:PT5M}")
+    public void logSummary() {
+        List<MethodSummary> top = topMethods(summaryTopMethods);
+        methods.clear();
+        for (MethodSummary summary : top) {
+            log.info("Base : {} — {} appels, {} requêtes, {} lignes, {} ms au total, {} ms au plus",
+                    summary.method(), summary.calls(), summary.statements(), summary.rows(),
+                    TimeUnit.NANOSECONDS.toMillis(summary.totalNanos()), TimeUnit.NANOSECONDS.toMillis(summary.maxNanos()));
+        }
+        Statistics statistics = hibernateStatistics.get();
+        if (statistics != null && statistics.isStatisticsEnabled()) {
+            log.info("Hibernate : {} requêtes préparées, {} entités chargées ({} par requête séparée), "
+                            + "{} collections chargées séparément, requête JPQL la plus lente {} ms : {}",
+                    statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                    statistics.getEntityFetchCount(), statistics.getCollectionFetchCount(),
+                    statistics.getQueryExecutionMaxTime(), statistics.getQueryExecutionMaxTimeQueryString());
+            statistics.clear();
+        }
+    }
+
+    private MethodStats stats(String method) {
+        return methods.computeIfAbsent(method, m -> new MethodStats());
+    }
+
+    /**
+     * Requête SQL répétée au-delà du seuil pendant une requête HTTP.
+     *
+     * @param fingerprint L'empreinte de la requête.
+     * @param method      La méthode de repository qui l'a exécutée en premier.
+     * @param count       Le nombre d'exécutions.
+     */
+    public record RepeatedStatement(String fingerprint, String method, int count) {
+    }
+
+    /**
+     * Cumul des requêtes d'une méthode de repository.
+     *
+     * @param method     La méthode.
+     * @param calls      Le nombre d'appels de la méthode.
+     * @param statements Le nombre de requêtes SQL exécutées.
+     * @param rows       Le nombre de lignes lues ou modifiées.
+     * @param totalNanos Le temps total passé en base.
+     * @param maxNanos   La requête la plus longue.
+     */
+    public record MethodSummary(String method, long calls, long statements, long rows, long totalNanos, long maxNanos) {
+    }
+
+    private static final class MethodStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private MethodSummary summary(String method) {
+            return new MethodSummary(method, calls.sum(), statements.sum(), rows.sum(), nanos.sum(), maxNanos.get());
+        }
+    }
+
+    /**
+     * Requêtes SQL d'une requête HTTP, propre au thread qui la traite.
+     */
+    private static final class RequestScope {
+        private final String label;
+        private final Map<String, StatementCounter> statements = new HashMap<>();
+        private int total;
+        private long nanos;
+
+        private RequestScope(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class StatementCounter {
+        private final String method;
+        private int count;
+
+        private StatementCounter(String method) {
+            this.method = method;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Intercepteur ajouté aux proxys des repositories Spring Data : les requêtes SQL exécutées pendant un appel
+ * sont attribuées à la méthode appelée ({@code UserRepository.findByEmailWithConnections}).
+ */
+public class RepositoryMethodInterceptor implements MethodInterceptor {
+
+    private final QueryMonitor monitor;
+    private final String repositoryName;
+
+    /**
+     * Construit une instance de {@code RepositoryMethodInterceptor}.
+     *
+     * @param monitor        Les statistiques alimentées.
+     * @param repositoryName Le nom de l'interface du repository.
+     */
+    public RepositoryMethodInterceptor(QueryMonitor monitor, String repositoryName) {
+        this.monitor = monitor;
+        this.repositoryName = repositoryName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        monitor.enterRepositoryMethod(repositoryName + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            monitor.exitRepositoryMethod();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Empreintes des requêtes SQL et de leurs paramètres, pour regrouper et journaliser les requêtes
+ * sans exposer les données des utilisateurs.
+ * <p>
+ * L'empreinte d'une requête remplace ses littéraux par {@code ?} et ses listes {@code (?, ?, ...)}
+ * par {@code (?...)} : deux exécutions ne différant que par leurs valeurs ont la même empreinte.
+ * L'empreinte des paramètres garde le type de chaque valeur et un condensé court, jamais la valeur :
+ * une requête lente qui revient avec les mêmes paramètres (même e-mail, même identifiant) se repère
+ * sans qu'un e-mail ou un montant n'apparaisse dans les logs.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\.\\.\\.\\)(?:\\s*,\\s*\\(\\?\\.\\.\\.\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Empreinte d'une requête SQL : espaces normalisés, littéraux et listes de paramètres remplacés.
+     *
+     * @param sql La requête telle qu'exécutée.
+     * @return L'empreinte de la requête.
+     */
+    public static String of(String sql) {
+        if (sql == null) {
+            return "(requête inconnue)";
+        }
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PLACEHOLDER_LIST.matcher(normalized).replaceAll("(?...)");
+        // INSERT multi-lignes : VALUES (?...), (?...), ... ne fait qu'une empreinte quel que soit le nombre de lignes
+        return ROW_LIST.matcher(normalized).replaceAll("(?...)+");
+    }
+
+    /**
+     * Empreinte des paramètres liés : {@code [String#1a2b, Integer#002a, null]}.
+     *
+     * @param binds Les paramètres, par position (index 0 : premier paramètre), éventuellement {@code null}.
+     * @return L'empreinte des paramètres.
+     */
+    public static String ofBinds(Object[] binds) {
+        if (binds == null || binds.length == 0) {
+            return "[]";
+        }
+        StringBuilder fingerprint = new StringBuilder("[");
+        for (int i = 0; i < binds.length; i++) {
+            if (i > 0) {
+                fingerprint.append(", ");
+            }
+            Object value = binds[i];
+            if (value == null) {
+                fingerprint.append("null");
+            } else {
+                int hash = value instanceof byte[] bytes ? Arrays.hashCode(bytes) : value.hashCode();
+                // Condensé sur 16 bits : assez pour reconnaître une valeur qui revient, pas pour la retrouver
+                int mixed = (hash ^ (hash >>> 16)) * 0x45d9f3b;
+                fingerprint.append(value.getClass().getSimpleName()).append('#')
+                        .append(String.format("%04x", (mixed ^ (mixed >>> 16)) & 0xffff));
+            }
+        }
+        return fingerprint.append(']').toString();
+    }
+}
@@ -0,0 +1,329 @@
+package com.openclassrooms.paymybuddy.pipeline;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.pipeline.TransferWriteAheadLog.LoggedTransfer;
+import com.openclassrooms.paymybuddy.service.InsufficientFundsException;
+import com.openclassrooms.paymybuddy.service.PreparedTransfer;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pipeline d'écriture différée des transferts, avec validation groupée (group commit).
+ * Activé par {@code paymybuddy.transfers.pipeline.enabled=true} (voir {@code TransferPipelineConfig}).
+ * <p>
+ * Sans pipeline, chaque transfert est une transaction MySQL, donc un fsync du journal InnoDB :
+ * en pointe, c'est la latence des commits qui limite le débit. Avec le pipeline :
+ * <ol>
+ *     <li>le transfert est validé dans le thread de la requête ({@link TransactionService#prepareTransfer})
+ *     puis placé dans une file bornée (file pleine : le transfert est refusé immédiatement) ;</li>
+ *     <li>un unique thread d'écriture prend jusqu'à {@code groupSize} transferts, les ajoute au journal local
+ *     ({@link TransferWriteAheadLog}, un fsync pour le groupe) puis les applique dans une seule transaction MySQL ;</li>
+ *     <li>le futur de chaque transfert est complété quand la transaction de son groupe est validée.</li>
+ * </ol>
+ * L'ordre des transferts d'un même expéditeur est conservé : la file est FIFO et un seul thread applique
+ * les groupes, dans l'ordre. Le solde reste contrôlé par le débit conditionnel du journal en partie double :
+ * chaque transfert est appliqué sous un point de sauvegarde, et un solde insuffisant n'annule que ce transfert.
+ * <p>
+ * La séquence du dernier transfert appliqué est enregistrée dans {@code Transfer_Pipeline_Checkpoints},
+ * dans la transaction du groupe. Au démarrage, les transferts du journal local postérieurs à cette séquence
+ * (acceptés mais pas encore appliqués lors de l'arrêt du nœud) sont rejoués avant d'en accepter de nouveaux :
+ * chaque transfert journalisé est appliqué exactement une fois.
+ */
+@Slf4j
+public class TransferPipeline {
+
+    private static final String INSERT_CHECKPOINT =
+            "INSERT INTO Transfer_Pipeline_Checkpoints (node_id, last_sequence) SELECT ?, 0 FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM Transfer_Pipeline_Checkpoints WHERE node_id = ?)";
+    private static final String SELECT_CHECKPOINT =
+            "SELECT last_sequence FROM Transfer_Pipeline_Checkpoints WHERE node_id = ?";
+    private static final String UPDATE_CHECKPOINT =
+            "UPDATE Transfer_Pipeline_Checkpoints SET last_sequence = ? WHERE node_id = ?";
+
+    /** Tentatives d'application d'un groupe interrompu par un interblocage. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final TransactionService transactionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate groupTransaction;
+    private final TransactionTemplate transferSavepoint;
+    private final TransferWriteAheadLog writeAheadLog;
+    private final String nodeId;
+    private final int groupSize;
+    private final Duration responseTimeout;
+    private final BlockingQueue<PendingTransfer> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+    private long lastSequence;
+
+    /**
+     * Construit une instance de {@code TransferPipeline}.
+     *
+     * @param transactionService Le service qui valide et enregistre les transferts.
+     * @param jdbcTemplate       L'accès JDBC à la base (séquence appliquée).
+     * @param transactionManager Le gestionnaire de transactions (une transaction par groupe, un point de sauvegarde par transfert).
+     * @param writeAheadLog      Le journal local des transferts acceptés.
+     * @param nodeId             L'identifiant du nœud, propriétaire du journal local.
+     * @param queueCapacity      Le nombre maximal de transferts en attente.
+     * @param groupSize          Le nombre maximal de transferts appliqués par transaction.
+     * @param responseTimeout    L'attente maximale de la requête HTTP avant de répondre que le transfert est en cours.
+     */
+    public TransferPipeline(TransactionService transactionService, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, TransferWriteAheadLog writeAheadLog,
+                            String nodeId, int queueCapacity, int groupSize, Duration responseTimeout) {
+        this.transactionService = transactionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.groupTransaction = new TransactionTemplate(transactionManager);
+        this.transferSavepoint = new TransactionTemplate(transactionManager);
+        this.transferSavepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.writeAheadLog = writeAheadLog;
+        this.nodeId = nodeId;
+        this.groupSize = groupSize;
+        this.responseTimeout = responseTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Rejoue les transferts journalisés mais pas encore appliqués, puis démarre le thread d'écriture.
+     */
+    @PostConstruct
+    public void start() {
+        jdbcTemplate.update(INSERT_CHECKPOINT, nodeId, nodeId);
+        long checkpoint = readCheckpoint();
+        TransferWriteAheadLog.Contents contents = writeAheadLog.read(checkpoint);
+        lastSequence = contents.maxSequence();
+        List<LoggedTransfer> pending = contents.pending();
+        if (!pending.isEmpty()) {
+            log.warn("{} transferts du journal local non appliqués (séquences {} à {}) : reprise",
+                    pending.size(), pending.get(0).sequence(), pending.get(pending.size() - 1).sequence());
+            for (int from = 0; from < pending.size(); from += groupSize) {
+                List<LoggedTransfer> group = pending.subList(from, Math.min(from + groupSize, pending.size()));
+                List<Object> outcomes = new ArrayList<>();
+                apply(group, outcomes);
+                for (int i = 0; i < group.size(); i++) {
+                    if (outcomes.get(i) instanceof Exception e) {
+                        log.warn("Transfert repris {} refusé : {}", group.get(i).sequence(), e.getMessage());
+                    }
+                }
+            }
+        }
+        writeAheadLog.reset();
+        running = true;
+        writer = new Thread(this::run, "transfer-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Pipeline de transferts démarré (nœud {}, groupes de {} transferts, séquence {})",
+                nodeId, groupSize, lastSequence);
+    }
+
+    /**
+     * Arrête le pipeline : plus aucun transfert n'est accepté, ceux déjà en file sont appliqués.
+     *
+     * @throws InterruptedException si l'attente de la fin du thread d'écriture est interrompue.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(responseTimeout.toMillis());
+        }
+    }
+
+    /**
+     * Valide un transfert et le place dans la file du pipeline.
+     *
+     * @param senderEmail   L'adresse e-mail de l'utilisateur qui envoie l'argent.
+     * @param receiverEmail L'adresse e-mail de l'utilisateur qui reçoit l'argent.
+     * @param amount        Le montant à transférer.
+     * @param description   Une description optionnelle pour la transaction.
+     * @return Un futur complété par l'identifiant de la transaction quand son groupe est validé en base,
+     * ou en erreur si le transfert est refusé à l'application (solde devenu insuffisant).
+     * @throws Exception si le transfert est invalide (voir {@link TransactionService#prepareTransfer})
+     *                   ou si la file est pleine.
+     */
+    public CompletableFuture<Integer> submit(String senderEmail, String receiverEmail, Money amount, String description)
+            throws Exception {
+        PreparedTransfer transfer = transactionService.prepareTransfer(senderEmail, receiverEmail, amount, description);
+        PendingTransfer pending = new PendingTransfer(transfer, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            log.warn("Transfert de {} refusé : file du pipeline pleine ou arrêtée", senderEmail);
+            throw new Exception("Trop de transferts en cours, veuillez réessayer dans quelques instants.");
+        }
+        return pending.result();
+    }
+
+    /**
+     * Effectue un transfert par le pipeline et attend sa validation en base.
+     *
+     * @param senderEmail   L'adresse e-mail de l'utilisateur qui envoie l'argent.
+     * @param receiverEmail L'adresse e-mail de l'utilisateur qui reçoit l'argent.
+     * @param amount        Le montant à transférer.
+     * @param description   Une description optionnelle pour la transaction.
+     * @return L'identifiant de la transaction enregistrée.
+     * @throws Exception si le transfert est refusé, ou s'il n'est pas validé dans le délai de réponse
+     *                   (il peut alors encore aboutir).
+     */
+    public Integer transfer(String senderEmail, String receiverEmail, Money amount, String description) throws Exception {
+        CompletableFuture<Integer> result = submit(senderEmail, receiverEmail, amount, description);
+        try {
+            return result.get(responseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new Exception("Le transfert est en cours de traitement : vérifiez votre historique avant de le renouveler.");
+        }
+    }
+
+    private void run() {
+        List<PendingTransfer> group = new ArrayList<>(groupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                // Tout ce qui s'est accumulé pendant le groupe précédent part dans ce groupe
+                queue.drainTo(group, groupSize - 1);
+                process(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue du pipeline de transferts", e);
+                group.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+            group.clear();
+        }
+        log.info("Pipeline de transferts arrêté (séquence {})", lastSequence);
+    }
+
+    private void process(List<PendingTransfer> group) {
+        List<LoggedTransfer> logged = new ArrayList<>(group.size());
+        for (PendingTransfer pending : group) {
+            logged.add(new LoggedTransfer(++lastSequence, pending.transfer()));
+        }
+        long first = logged.get(0).sequence();
+        long last = lastSequence;
+        try {
+            writeAheadLog.append(logged);
+        } catch (RuntimeException e) {
+            log.error("Écriture du journal local impossible pour les séquences {} à {}", first, last, e);
+            fail(group, new Exception("Le transfert n'a pas pu être enregistré, veuillez réessayer."));
+            return;
+        }
+
+        List<Object> outcomes = new ArrayList<>(group.size());
+        try {
+            apply(logged, outcomes);
+        } catch (RuntimeException e) {
+            if (!committed(last)) {
+                log.error("Application du groupe {} à {} impossible : groupe annulé", first, last, e);
+                abort(first, last);
+                fail(group, new Exception("Le transfert n'a pas pu être enregistré, veuillez réessayer."));
+                return;
+            }
+            log.warn("Erreur après la validation du groupe {} à {}", first, last, e);
+        }
+        for (int i = 0; i < group.size(); i++) {
+            if (outcomes.get(i) instanceof Exception e) {
+                group.get(i).result().completeExceptionally(e);
+            } else {
+                group.get(i).result().complete((Integer) outcomes.get(i));
+            }
+        }
+        log.debug("Groupe de {} transferts validé (séquences {} à {})", group.size(), first, last);
+    }
+
+    /**
+     * Applique un groupe dans une transaction : un point de sauvegarde par transfert, puis la séquence appliquée.
+     * Le groupe est réessayé en entier s'il est interrompu par un interblocage.
+     */
+    private void apply(List<LoggedTransfer> group, List<Object> outcomes) {
+        long last = group.get(group.size() - 1).sequence();
+        for (int attempt = 1; ; attempt++) {
+            outcomes.clear();
+            try {
+                groupTransaction.executeWithoutResult(status -> {
+                    for (LoggedTransfer transfer : group) {
+                        outcomes.add(applyOne(transfer));
+                    }
+                    jdbcTemplate.update(UPDATE_CHECKPOINT, last, nodeId);
+                });
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Interblocage pendant l'application du groupe (tentative {}), nouvel essai", attempt);
+            }
+        }
+    }
+
+    private Object applyOne(LoggedTransfer logged) {
+        return transferSavepoint.execute(status -> {
+            try {
+                return transactionService.applyTransfer(logged.transfer());
+            } catch (InsufficientFundsException e) {
+                // Seul ce transfert est annulé (retour au point de sauvegarde), le groupe continue
+                status.setRollbackOnly();
+                log.warn("Transfert {} de {} refusé : {}", logged.sequence(), logged.transfer().senderEmail(), e.getMessage());
+                return e;
+            }
+        });
+    }
+
+    private boolean committed(long sequence) {
+        try {
+            return readCheckpoint() >= sequence;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void abort(long first, long last) {
+        try {
+            writeAheadLog.abort(first, last);
+        } catch (RuntimeException e) {
+            // Sans annulation journalisée, le groupe serait rejoué au redémarrage alors que les clients ont reçu un refus
+            log.error("Annulation du groupe {} à {} impossible dans le journal local : arrêt du pipeline", first, last, e);
+            running = false;
+        }
+    }
+
+    private static void fail(List<PendingTransfer> group, Exception cause) {
+        group.forEach(pending -> pending.result().completeExceptionally(cause));
+    }
+
+    private long readCheckpoint() {
+        Long sequence = jdbcTemplate.queryForObject(SELECT_CHECKPOINT, Long.class, nodeId);
+        return sequence != null ? sequence : 0L;
+    }
+
+    private record PendingTransfer(PreparedTransfer transfer, CompletableFuture<Integer> result) {
+    }
+}
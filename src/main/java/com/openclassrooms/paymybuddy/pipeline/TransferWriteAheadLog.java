@@ -0,0 +1,260 @@
+package com.openclassrooms.paymybuddy.pipeline;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.service.PreparedTransfer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Journal d'écriture anticipée (WAL) local des transferts acceptés par {@link TransferPipeline}.
+ * <p>
+ * Le fichier, de taille fixe, est projeté en mémoire ({@link MappedByteBuffer}) : un ajout est une simple copie
+ * en mémoire, et un seul {@code force} (fsync) rend durable tout un groupe de transferts.
+ * Chaque enregistrement est préfixé de sa longueur et de son CRC32, et porte un numéro de séquence croissant :
+ * à la relecture, un enregistrement incomplet (arrêt brutal pendant l'écriture) marque la fin du journal.
+ * <p>
+ * Un groupe dont l'application en base a échoué est annulé par un enregistrement {@code ABORT}, pour ne pas être
+ * rejoué au redémarrage. Quand la fin du fichier est atteinte, le journal repart du début : tous les groupes
+ * précédents sont alors appliqués ou annulés, le pipeline n'écrivant un groupe qu'après avoir traité le précédent.
+ * <p>
+ * Cette classe n'est pas thread-safe : elle est utilisée par le seul thread d'écriture du pipeline
+ * (et par la reprise, avant son démarrage).
+ */
+@Slf4j
+public class TransferWriteAheadLog implements Closeable {
+
+    private static final byte TYPE_TRANSFER = 1;
+    private static final byte TYPE_ABORT = 2;
+    /** Longueur et CRC32 de chaque enregistrement. */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /** Longueur nulle écrite après le dernier enregistrement. */
+    private static final int END_MARKER_SIZE = 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int position;
+
+    /**
+     * Ouvre (ou crée) le journal.
+     *
+     * @param file     Le fichier du journal.
+     * @param capacity La taille du fichier, en octets.
+     * @throws IOException si le fichier ne peut pas être ouvert ou projeté en mémoire.
+     */
+    public TransferWriteAheadLog(Path file, int capacity) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.capacity = capacity;
+        log.info("Journal des transferts ouvert : {} ({} octets)", file, capacity);
+    }
+
+    /**
+     * Ajoute un groupe de transferts au journal et le rend durable (un seul fsync pour le groupe).
+     *
+     * @param transfers Les transferts, par séquence croissante.
+     * @throws UncheckedIOException  si l'écriture sur disque échoue.
+     * @throws IllegalStateException si le groupe ne tient pas dans le journal.
+     */
+    public void append(List<LoggedTransfer> transfers) {
+        List<byte[]> records = new ArrayList<>(transfers.size());
+        for (LoggedTransfer transfer : transfers) {
+            records.add(encode(transfer));
+        }
+        write(records);
+    }
+
+    /**
+     * Annule un groupe de transferts : ils ne seront pas rejoués au redémarrage.
+     *
+     * @param firstSequence La première séquence du groupe.
+     * @param lastSequence  La dernière séquence du groupe.
+     * @throws UncheckedIOException si l'écriture sur disque échoue.
+     */
+    public void abort(long firstSequence, long lastSequence) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(17);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_ABORT);
+            out.writeLong(firstSequence);
+            out.writeLong(lastSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        write(List.of(bytes.toByteArray()));
+    }
+
+    /**
+     * Relit le journal depuis le début.
+     *
+     * @param afterSequence La dernière séquence appliquée en base : les transferts antérieurs sont ignorés.
+     * @return Le contenu du journal : transferts restant à appliquer (non annulés), par séquence croissante,
+     * et plus grande séquence rencontrée.
+     */
+    public Contents read(long afterSequence) {
+        List<LoggedTransfer> transfers = new ArrayList<>();
+        List<long[]> aborted = new ArrayList<>();
+        long maxSequence = afterSequence;
+        int offset = 0;
+        while (offset + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > capacity) {
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(offset + RECORD_HEADER_SIZE, record);
+            if (buffer.getInt(offset + 4) != crc(record)) {
+                log.warn("Enregistrement incomplet à l'offset {} du journal des transferts : fin du journal", offset);
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+                if (in.readByte() == TYPE_ABORT) {
+                    long first = in.readLong();
+                    long last = in.readLong();
+                    aborted.add(new long[]{first, last});
+                    maxSequence = Math.max(maxSequence, last);
+                } else {
+                    LoggedTransfer transfer = decode(in);
+                    maxSequence = Math.max(maxSequence, transfer.sequence());
+                    if (transfer.sequence() > afterSequence) {
+                        transfers.add(transfer);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        transfers.removeIf(transfer -> aborted.stream()
+                .anyMatch(range -> transfer.sequence() >= range[0] && transfer.sequence() <= range[1]));
+        transfers.sort(Comparator.comparingLong(LoggedTransfer::sequence));
+        position = offset;
+        return new Contents(transfers, maxSequence);
+    }
+
+    /**
+     * Vide le journal, une fois tout son contenu appliqué ou annulé.
+     */
+    public void reset() {
+        clear();
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void write(List<byte[]> records) {
+        int total = 0;
+        for (byte[] record : records) {
+            total += RECORD_HEADER_SIZE + record.length;
+        }
+        if (total + END_MARKER_SIZE > capacity) {
+            throw new IllegalStateException("Groupe de transferts trop grand pour le journal : " + total + " octets");
+        }
+        if (position + total + END_MARKER_SIZE > capacity) {
+            // Tout ce qui précède est appliqué ou annulé : le journal repart du début, effacé pour
+            // qu'aucun ancien enregistrement ne puisse être relu après les nouveaux
+            log.debug("Journal des transferts plein : retour au début");
+            clear();
+            position = 0;
+        }
+        int start = position;
+        for (byte[] record : records) {
+            buffer.putInt(position, record.length);
+            buffer.putInt(position + 4, crc(record));
+            buffer.put(position + RECORD_HEADER_SIZE, record);
+            position += RECORD_HEADER_SIZE + record.length;
+        }
+        buffer.putInt(position, 0);
+        buffer.force(start, position + END_MARKER_SIZE - start);
+    }
+
+    private void clear() {
+        byte[] zeros = new byte[64 * 1024];
+        for (int offset = 0; offset < capacity; offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, capacity - offset));
+        }
+        buffer.force();
+    }
+
+    private static byte[] encode(LoggedTransfer logged) {
+        PreparedTransfer transfer = logged.transfer();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_TRANSFER);
+            out.writeLong(logged.sequence());
+            out.writeInt(transfer.senderId());
+            out.writeUTF(transfer.senderEmail());
+            out.writeInt(transfer.receiverId());
+            out.writeUTF(transfer.receiverEmail());
+            out.writeLong(transfer.amount().cents());
+            out.writeLong(transfer.fee().cents());
+            out.writeBoolean(transfer.description() != null);
+            if (transfer.description() != null) {
+                out.writeUTF(transfer.description());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static LoggedTransfer decode(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        int senderId = in.readInt();
+        String senderEmail = in.readUTF();
+        int receiverId = in.readInt();
+        String receiverEmail = in.readUTF();
+        Money amount = Money.ofCents(in.readLong());
+        Money fee = Money.ofCents(in.readLong());
+        String description = in.readBoolean() ? in.readUTF() : null;
+        return new LoggedTransfer(sequence,
+                new PreparedTransfer(senderId, senderEmail, receiverId, receiverEmail, amount, fee, description));
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Transfert journalisé, avec son numéro de séquence.
+     *
+     * @param sequence Le numéro de séquence (croissant, propre au nœud).
+     * @param transfer Le transfert validé.
+     */
+    public record LoggedTransfer(long sequence, PreparedTransfer transfer) {
+    }
+
+    /**
+     * Contenu relu du journal.
+     *
+     * @param pending     Les transferts restant à appliquer, par séquence croissante.
+     * @param maxSequence La plus grande séquence rencontrée (appliquée, annulée ou en attente).
+     */
+    public record Contents(List<LoggedTransfer> pending, long maxSequence) {
+    }
+}
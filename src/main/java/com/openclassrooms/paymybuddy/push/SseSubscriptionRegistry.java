@@ -0,0 +1,248 @@
+package com.openclassrooms.paymybuddy.push;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registre des connexions Server-Sent Events ouvertes par les pages des utilisateurs connectés,
+ * par e-mail (un utilisateur peut avoir plusieurs onglets ouverts).
+ * <p>
+ * La publication ne bloque jamais l'appelant : l'événement est déposé dans la file bornée de chaque connexion,
+ * vidée par un petit pool d'écriture, une tâche au plus par connexion à la fois (ordre des événements conservé).
+ * Une tâche écrit au plus {@code maxEventsPerTask} événements puis se replace en fin de file du pool :
+ * une connexion en retard n'occupe pas un thread pendant tout son arriéré, les autres sont servies entre-temps.
+ * Un client trop lent, dont la file déborde, est déconnecté : son navigateur se reconnecte
+ * et reçoit le solde courant.
+ * <p>
+ * Une écriture ({@link SseEmitter#send}) est bloquante : vers un client qui ne lit plus, elle attend que le tampon
+ * TCP se libère, au plus le délai d'écriture du conteneur ({@code server.tomcat.connection-timeout}), puis échoue
+ * et la connexion est fermée. Un client bloqué immobilise donc un thread d'écriture pendant ce délai au plus :
+ * {@code writerThreads} doit dépasser le nombre de clients bloqués simultanément attendu sur un nœud
+ * (réseaux mobiles, onglets en veille), faute de quoi les événements des autres clients attendent. Un commentaire est envoyé régulièrement sur chaque connexion pour la garder
+ * ouverte à travers les proxys et détecter les clients partis.
+ * <p>
+ * L'état est local au nœud : un transfert traité par un autre nœud n'est pas poussé aux connexions de celui-ci.
+ */
+@Slf4j
+@Component
+public class SseSubscriptionRegistry {
+
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService writers;
+    private final long emitterTimeoutMillis;
+    private final int maxSubscribersPerUser;
+    private final int queueCapacity;
+    private final int maxEventsPerTask;
+
+    /**
+     * Construit une instance de {@code SseSubscriptionRegistry}.
+     *
+     * @param writerThreads         Le nombre de threads qui écrivent sur les connexions.
+     * @param emitterTimeout        La durée de vie d'une connexion (le navigateur se reconnecte ensuite).
+     * @param maxSubscribersPerUser Le nombre maximal de connexions par utilisateur (la plus ancienne est fermée au-delà).
+     * @param queueCapacity         Le nombre maximal d'événements en attente par connexion.
+     * @param maxEventsPerTask      Le nombre maximal d'événements écrits d'affilée sur une connexion avant de laisser
+     *                              le thread aux autres connexions.
+     */
+    public SseSubscriptionRegistry(@Value("${paymybuddy.push.writer-threads:8}") int writerThreads,
+                                   @Value("${paymybuddy.push.emitter-timeout:PT30M}") Duration emitterTimeout,
+                                   @Value("${paymybuddy.push.max-subscribers-per-user:5}") int maxSubscribersPerUser,
+                                   @Value("${paymybuddy.push.queue-capacity:32}") int queueCapacity,
+                                   @Value("${paymybuddy.push.max-events-per-task:4}") int maxEventsPerTask) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.maxSubscribersPerUser = maxSubscribersPerUser;
+        this.queueCapacity = queueCapacity;
+        this.maxEventsPerTask = maxEventsPerTask;
+    }
+
+    /**
+     * Ouvre une connexion pour un utilisateur.
+     *
+     * @param email L'e-mail de l'utilisateur connecté.
+     * @return L'émetteur à renvoyer par le contrôleur.
+     */
+    public SseEmitter subscribe(String email) {
+        SseEmitter emitter = createEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(email, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        Subscriber[] evicted = new Subscriber[1];
+        subscribers.compute(email, (key, current) -> {
+            List<Subscriber> list = current != null ? current : new CopyOnWriteArrayList<>();
+            if (list.size() >= maxSubscribersPerUser) {
+                evicted[0] = list.remove(0);
+            }
+            list.add(subscriber);
+            return list;
+        });
+        subscriberCount.incrementAndGet();
+        if (evicted[0] != null) {
+            subscriberCount.decrementAndGet();
+            evicted[0].emitter.complete();
+        }
+        // Premier envoi : en-têtes de la réponse écrits tout de suite, le navigateur sait la connexion ouverte
+        subscriber.offer(SseEmitter.event().comment("connecté"));
+        log.debug("Connexion SSE ouverte pour {} ({} connexions sur ce nœud)", email, subscriberCount.get());
+        return emitter;
+    }
+
+    /**
+     * Indique si un utilisateur a au moins une connexion ouverte sur ce nœud.
+     *
+     * @param email L'e-mail de l'utilisateur.
+     * @return {@code true} si des événements peuvent lui être poussés.
+     */
+    public boolean hasSubscribers(String email) {
+        return subscribers.containsKey(email);
+    }
+
+    /**
+     * Pousse un événement à toutes les connexions d'un utilisateur, sans attendre l'écriture.
+     *
+     * @param email L'e-mail du destinataire de l'événement.
+     * @param name  Le nom de l'événement (écouté côté navigateur).
+     * @param data  Les données, sérialisées en JSON.
+     */
+    public void publish(String email, String name, Object data) {
+        List<Subscriber> list = subscribers.get(email);
+        if (list == null) {
+            return;
+        }
+        for (Subscriber subscriber : list) {
+            subscriber.offer(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * Envoie un commentaire sur chaque connexion : la garde ouverte à travers les proxys
+     * et ferme celles dont le client est parti.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.push.heartbeat-interval:PT20S}")
+    public void heartbeat() {
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment(""))));
+    }
+
+    /**
+     * Retourne le nombre de connexions ouvertes sur ce nœud.
+     *
+     * @return Le nombre de connexions.
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Ferme les connexions à l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        writers.shutdownNow();
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.email, (key, list) -> {
+            removed[0] = list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Connexion d'un onglet : file d'événements à écrire et drapeau de la tâche d'écriture en cours.
+     */
+    private final class Subscriber {
+
+        private final String email;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String email, SseEmitter emitter) {
+            this.email = email;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (!pending.offer(event)) {
+                log.warn("Client SSE trop lent pour {}, connexion fermée", email);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // arrêt en cours
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                for (int sent = 0; sent < maxEventsPerTask && (event = pending.poll()) != null; sent++) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client parti ou connexion déjà terminée
+                log.debug("Écriture SSE impossible pour {}: {}", email, e.getMessage());
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Reste de l'arriéré, ou événement déposé entre la fin de la boucle et la remise à zéro du drapeau :
+            // nouvelle tâche en fin de file du pool
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            pending.clear();
+            remove(this);
+            emitter.complete();
+        }
+    }
+}
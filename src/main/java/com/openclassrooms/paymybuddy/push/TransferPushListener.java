@@ -0,0 +1,147 @@
+package com.openclassrooms.paymybuddy.push;
+
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferCompletedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pousse aux pages ouvertes ({@link SseSubscriptionRegistry}) le nouveau solde des participants
+ * d'un transfert validé, et le transfert reçu au destinataire.
+ * <p>
+ * Seuls les participants connectés à ce nœud coûtent une lecture. Les soldes sont relus par un thread dédié,
+ * pas par le thread du transfert (requête HTTP ou pipeline de transferts groupés), dans une transaction
+ * en écriture : la lecture va à la base principale, jamais à un réplica en retard. Si la file de lecture déborde,
+ * la notification est abandonnée ; la page affiche le bon solde au prochain chargement.
+ */
+@Slf4j
+@Component
+public class TransferPushListener {
+
+    /**
+     * Nom de l'événement SSE du solde.
+     */
+    static final String BALANCE_EVENT = "balance";
+
+    /**
+     * Nom de l'événement SSE d'un transfert reçu.
+     */
+    static final String TRANSFER_EVENT = "transfer";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final SseSubscriptionRegistry registry;
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor loader;
+
+    /**
+     * Construit une instance de {@code TransferPushListener}.
+     *
+     * @param registry           Le registre des connexions SSE.
+     * @param userRepository     Le repository des utilisateurs.
+     * @param transactionService Le service des transactions (calcul du solde).
+     * @param transactionManager Le gestionnaire de transactions (lectures sur la base principale).
+     * @param queueCapacity      Le nombre maximal de notifications en attente de lecture des soldes.
+     */
+    public TransferPushListener(SseSubscriptionRegistry registry, UserRepository userRepository,
+                                TransactionService transactionService, PlatformTransactionManager transactionManager,
+                                @Value("${paymybuddy.push.loader-queue-capacity:1000}") int queueCapacity) {
+        this.registry = registry;
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loader = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-balance-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Après la validation d'un transfert, planifie la notification des participants connectés.
+     *
+     * @param event L'événement de transfert.
+     */
+    @TransactionalEventListener
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        boolean notifySender = registry.hasSubscribers(event.senderEmail());
+        boolean notifyReceiver = registry.hasSubscribers(event.receiverEmail());
+        if (!notifySender && !notifyReceiver) {
+            return;
+        }
+        try {
+            loader.execute(() -> push(event, notifySender, notifyReceiver));
+        } catch (RejectedExecutionException e) {
+            log.warn("File des notifications SSE pleine, transaction {} non poussée", event.transactionId());
+        }
+    }
+
+    /**
+     * Arrête le thread de lecture des soldes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void push(TransferCompletedEvent event, boolean notifySender, boolean notifyReceiver) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User sender = userRepository.findByEmail(event.senderEmail()).orElse(null);
+                User receiver = userRepository.findByEmail(event.receiverEmail()).orElse(null);
+                if (sender == null || receiver == null) {
+                    return;
+                }
+                if (notifySender) {
+                    registry.publish(sender.getEmail(),
+                            BALANCE_EVENT, new BalanceUpdate(transactionService.getBalance(sender).format()));
+                }
+                if (notifyReceiver) {
+                    registry.publish(receiver.getEmail(),
+                            BALANCE_EVENT, new BalanceUpdate(transactionService.getBalance(receiver).format()));
+                    registry.publish(receiver.getEmail(), TRANSFER_EVENT, new ReceivedTransfer(event.transactionId(),
+                            sender.getUsername() != null ? sender.getUsername() : sender.getEmail(),
+                            event.amount().format(), event.description(), DATE_FORMAT.format(event.timestamp())));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Notification SSE de la transaction {} impossible: {}", event.transactionId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Nouveau solde d'un utilisateur, formaté comme sur la page d'accueil.
+     *
+     * @param balance Le solde formaté.
+     */
+    public record BalanceUpdate(String balance) {
+    }
+
+    /**
+     * Transfert reçu, tel qu'affiché dans l'historique de la page d'accueil.
+     *
+     * @param transactionId L'identifiant de la transaction.
+     * @param from          Le nom (ou l'e-mail) de l'expéditeur.
+     * @param amount        Le montant formaté.
+     * @param description   La description, éventuellement nulle.
+     * @param date          La date de la transaction, formatée comme sur la page d'accueil.
+     */
+    public record ReceivedTransfer(Integer transactionId, String from, String amount, String description, String date) {
+    }
+}
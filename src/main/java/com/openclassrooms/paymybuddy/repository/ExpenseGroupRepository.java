@@ -0,0 +1,38 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.ExpenseGroup;
+import com.openclassrooms.paymybuddy.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interface de repository Spring Data JPA pour l'entité {@link ExpenseGroup}.
+ */
+@Repository
+public interface ExpenseGroupRepository extends JpaRepository<ExpenseGroup, Integer> {
+
+    /**
+     * Recherche les groupes dont un utilisateur est membre, par nom.
+     *
+     * @param member L'utilisateur.
+     * @return Les groupes de l'utilisateur.
+     */
+    @Query("SELECT g FROM ExpenseGroup g JOIN g.members m WHERE m = :member ORDER BY g.name, g.groupId")
+    List<ExpenseGroup> findByMember(User member);
+
+    /**
+     * Recherche un groupe avec ses membres, s'il compte l'utilisateur parmi eux.
+     *
+     * @param groupId L'identifiant du groupe.
+     * @param member  L'utilisateur qui consulte le groupe.
+     * @return Le groupe avec ses membres, ou {@link Optional#empty()} si le groupe n'existe pas
+     *         ou si l'utilisateur n'en est pas membre.
+     */
+    @Query("SELECT DISTINCT g FROM ExpenseGroup g JOIN FETCH g.members WHERE g.groupId = :groupId " +
+            "AND :member MEMBER OF g.members")
+    Optional<ExpenseGroup> findWithMembers(Integer groupId, User member);
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.ExpenseGroup;
+import com.openclassrooms.paymybuddy.model.GroupExpense;
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interface de repository Spring Data JPA pour l'entité {@link GroupExpense}.
+ * Les totaux par membre utilisés par le règlement sont calculés en SQL par
+ * {@link com.openclassrooms.paymybuddy.service.GroupExpenseService}.
+ */
+@Repository
+public interface GroupExpenseRepository extends JpaRepository<GroupExpense, Integer> {
+
+    /**
+     * Recherche les dépenses non réglées d'un groupe, avec le membre qui les a avancées (et le débiteur d'une part
+     * de règlement), les plus récentes d'abord.
+     *
+     * @param group Le groupe.
+     * @return Les dépenses non réglées.
+     */
+    @Query("SELECT e FROM GroupExpense e JOIN FETCH e.payer LEFT JOIN FETCH e.debtor " +
+            "WHERE e.group = :group AND e.settledAt IS NULL ORDER BY e.createdAt DESC, e.expenseId DESC")
+    List<GroupExpense> findUnsettledByGroup(ExpenseGroup group);
+
+    /**
+     * Marque comme réglée la part de règlement d'une demande de paiement acceptée.
+     *
+     * @param paymentRequest La demande acceptée.
+     * @param settledAt      La date du règlement.
+     * @return Le nombre de parts réglées (0 pour une demande hors groupe).
+     */
+    @Modifying
+    @Query("UPDATE GroupExpense e SET e.settledAt = :settledAt WHERE e.paymentRequest = :paymentRequest AND e.settledAt IS NULL")
+    int settleRequestedShare(PaymentRequest paymentRequest, LocalDateTime settledAt);
+
+    /**
+     * Rouvre la part de règlement d'une demande de paiement refusée : la dette reste due dans le groupe
+     * et entre dans son prochain règlement.
+     *
+     * @param paymentRequest La demande refusée.
+     * @return Le nombre de parts rouvertes (0 pour une demande hors groupe).
+     */
+    @Modifying
+    @Query("UPDATE GroupExpense e SET e.paymentRequest = NULL WHERE e.paymentRequest = :paymentRequest AND e.settledAt IS NULL")
+    int reopenRequestedShare(PaymentRequest paymentRequest);
+}
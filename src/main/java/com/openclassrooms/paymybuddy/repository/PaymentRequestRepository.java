@@ -0,0 +1,79 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import com.openclassrooms.paymybuddy.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interface de repository Spring Data JPA pour l'entité {@link PaymentRequest}.
+ * Les requêtes de la boîte de réception sont servies par l'index {@code (payer_id, status, created_at)}.
+ */
+@Repository
+public interface PaymentRequestRepository extends JpaRepository<PaymentRequest, Integer> {
+
+    /**
+     * Recherche les demandes de paiement en attente adressées à un payeur, avec leur demandeur,
+     * les plus récentes d'abord.
+     *
+     * @param payer Le payeur.
+     * @return Les demandes en attente, par date de création décroissante.
+     */
+    @Query("SELECT r FROM PaymentRequest r JOIN FETCH r.requester WHERE r.payer = :payer " +
+            "AND r.status = com.openclassrooms.paymybuddy.model.PaymentRequest.Status.PENDING ORDER BY r.createdAt DESC")
+    List<PaymentRequest> findPendingByPayer(User payer);
+
+    /**
+     * Recherche les demandes de paiement en attente envoyées par un demandeur, avec leur payeur,
+     * les plus récentes d'abord.
+     *
+     * @param requester Le demandeur.
+     * @return Les demandes en attente, par date de création décroissante.
+     */
+    @Query("SELECT r FROM PaymentRequest r JOIN FETCH r.payer WHERE r.requester = :requester " +
+            "AND r.status = com.openclassrooms.paymybuddy.model.PaymentRequest.Status.PENDING ORDER BY r.createdAt DESC")
+    List<PaymentRequest> findPendingByRequester(User requester);
+
+    /**
+     * Compte les demandes de paiement en attente et non lues d'un payeur.
+     *
+     * @param payerEmail L'adresse e-mail du payeur.
+     * @return Le nombre de demandes non lues.
+     */
+    @Query("SELECT COUNT(r) FROM PaymentRequest r WHERE r.payer.email = :payerEmail " +
+            "AND r.status = com.openclassrooms.paymybuddy.model.PaymentRequest.Status.PENDING AND r.readAt IS NULL")
+    long countUnreadByPayerEmail(String payerEmail);
+
+    /**
+     * Marque comme lues les demandes en attente d'un payeur.
+     *
+     * @param payer  Le payeur.
+     * @param readAt La date de lecture.
+     * @return Le nombre de demandes marquées comme lues.
+     */
+    @Modifying
+    @Query("UPDATE PaymentRequest r SET r.readAt = :readAt WHERE r.payer = :payer " +
+            "AND r.status = com.openclassrooms.paymybuddy.model.PaymentRequest.Status.PENDING AND r.readAt IS NULL")
+    int markReadByPayer(User payer, LocalDateTime readAt);
+
+    /**
+     * Enregistre la réponse du payeur à une demande encore en attente. La condition sur l'état
+     * empêche qu'une même demande soit acceptée deux fois (double clic, deux onglets).
+     *
+     * @param paymentRequestId L'identifiant de la demande.
+     * @param payer            Le payeur (seul autorisé à répondre).
+     * @param status           La réponse ({@code ACCEPTED} ou {@code DECLINED}).
+     * @param respondedAt      La date de la réponse.
+     * @return Le nombre de lignes modifiées (0 si la demande n'existe pas, n'est pas adressée au payeur ou n'est plus en attente).
+     */
+    @Modifying
+    @Query("UPDATE PaymentRequest r SET r.status = :status, r.respondedAt = :respondedAt " +
+            "WHERE r.paymentRequestId = :paymentRequestId AND r.payer = :payer " +
+            "AND r.status = com.openclassrooms.paymybuddy.model.PaymentRequest.Status.PENDING")
+    int respondIfPending(Integer paymentRequestId, User payer, PaymentRequest.Status status, LocalDateTime respondedAt);
+}
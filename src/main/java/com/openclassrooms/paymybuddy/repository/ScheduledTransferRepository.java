@@ -0,0 +1,44 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import com.openclassrooms.paymybuddy.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Interface de repository Spring Data JPA pour l'entité {@link ScheduledTransfer}.
+ * La réservation des virements à exécuter ({@code FOR UPDATE SKIP LOCKED}) est faite en SQL
+ * par {@link com.openclassrooms.paymybuddy.service.ScheduledTransferRunner}.
+ */
+@Repository
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Integer> {
+
+    /**
+     * Recherche les virements programmés d'un expéditeur dans un état donné, avec leur destinataire,
+     * par prochaine échéance.
+     *
+     * @param sender L'expéditeur.
+     * @param status L'état recherché.
+     * @return Les virements programmés, par prochaine échéance croissante.
+     */
+    @Query("SELECT s FROM ScheduledTransfer s JOIN FETCH s.receiver " +
+            "WHERE s.sender = :sender AND s.status = :status ORDER BY s.nextRunAt, s.scheduledTransferId")
+    List<ScheduledTransfer> findBySenderAndStatus(User sender, ScheduledTransfer.Status status);
+
+    /**
+     * Annule un virement programmé encore actif, sans réécrire ses autres colonnes
+     * (qui peuvent être mises à jour en même temps par le planificateur).
+     *
+     * @param scheduledTransferId L'identifiant du virement programmé.
+     * @return Le nombre de lignes modifiées (0 si le virement n'était plus actif).
+     */
+    @Modifying
+    @Query("UPDATE ScheduledTransfer s SET s.status = com.openclassrooms.paymybuddy.model.ScheduledTransfer.Status.CANCELLED " +
+            "WHERE s.scheduledTransferId = :scheduledTransferId " +
+            "AND s.status = com.openclassrooms.paymybuddy.model.ScheduledTransfer.Status.ACTIVE")
+    int cancelIfActive(Integer scheduledTransferId);
+}
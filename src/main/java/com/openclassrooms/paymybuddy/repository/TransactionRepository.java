@@ -2,8 +2,11 @@ package com.openclassrooms.paymybuddy.repository;
 
 import com.openclassrooms.paymybuddy.model.Transaction;
 import com.openclassrooms.paymybuddy.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -16,15 +19,32 @@ import java.util.List;
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 
     /**
-     * Recherche et retourne une liste de transactions où l'utilisateur spécifié
-     * est soit l'expéditeur (sender) soit le destinataire (receiver).
-     * Les transactions sont triées par leur date et heure (timestamp) en ordre décroissant (les plus récentes d'abord).
+     * Recherche toutes les transactions envoyées ou reçues par un utilisateur, les plus récentes d'abord,
+     * avec leur expéditeur et leur destinataire. Utilisée quand l'archivage est désactivé :
+     * l'historique complet est alors dans {@code Transactions}.
+     *
+     * @param user L'utilisateur, expéditeur ou destinataire.
+     * @return Une liste de {@link Transaction} impliquant l'utilisateur, triée par date décroissante.
+     */
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender JOIN FETCH t.receiver " +
+            "WHERE t.sender = :user OR t.receiver = :user ORDER BY t.timestamp DESC")
+    List<Transaction> findHistory(User user);
+
+    /**
+     * Recherche les transactions envoyées ou reçues par un utilisateur depuis une date donnée,
+     * les plus récentes d'abord, avec leur expéditeur et leur destinataire (la vue est rendue
+     * hors transaction, {@code spring.jpa.open-in-view=false}).
+     * La borne sur {@code timestamp} permet à MySQL de n'ouvrir que les partitions mensuelles concernées
+     * et de parcourir les index composites (sender_id, timestamp) et (receiver_id, timestamp) par plage.
      *
-     * @param sender L'utilisateur en tant qu'expéditeur potentiel.
-     * @param receiver L'utilisateur en tant que destinataire potentiel (doit être le même que le sender pour cette requête spécifique).
+     * @param user  L'utilisateur, expéditeur ou destinataire.
+     * @param since La date à partir de laquelle l'historique est recherché (incluse).
      * @return Une liste de {@link Transaction} impliquant l'utilisateur, triée par date décroissante.
      */
-    List<Transaction> findBySenderOrReceiverOrderByTimestampDesc(User sender, User receiver);
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender JOIN FETCH t.receiver " +
+            "WHERE (t.sender = :user OR t.receiver = :user) " +
+            "AND t.timestamp >= :since ORDER BY t.timestamp DESC")
+    List<Transaction> findHistorySince(User user, LocalDateTime since);
 
     /**
      * Recherche et retourne une liste de transactions où l'utilisateur spécifié
@@ -45,4 +65,44 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
      * @return Une liste des {@link Transaction} reçues par l'utilisateur, triée par date décroissante.
      */
     List<Transaction> findByReceiverOrderByTimestampDesc(User receiver);
-}
\ No newline at end of file
+
+    /**
+     * Page des transactions envoyées par un utilisateur, les plus récentes d'abord, avec leur destinataire.
+     * Une seule jointure vers une entité (pas vers une collection) : une ligne par transaction,
+     * et la limite de la page est appliquée par MySQL ({@code LIMIT}).
+     *
+     * @param sender L'utilisateur qui a initié les transactions.
+     * @param page   La page demandée (taille bornée par l'appelant).
+     * @return Les {@link Transaction} envoyées de la page, destinataires chargés.
+     */
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.receiver WHERE t.sender = :sender " +
+            "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<Transaction> findSentWithReceiver(User sender, Pageable page);
+
+    /**
+     * Page des transactions reçues par un utilisateur, les plus récentes d'abord, avec leur expéditeur.
+     *
+     * @param receiver L'utilisateur qui a reçu les transactions.
+     * @param page     La page demandée (taille bornée par l'appelant).
+     * @return Les {@link Transaction} reçues de la page, expéditeurs chargés.
+     */
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender WHERE t.receiver = :receiver " +
+            "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<Transaction> findReceivedWithSender(User receiver, Pageable page);
+
+    /**
+     * Nombre de transactions envoyées par un utilisateur (parcours de l'index sur {@code sender_id}).
+     *
+     * @param sender L'expéditeur.
+     * @return Le nombre de transactions envoyées.
+     */
+    long countBySender(User sender);
+
+    /**
+     * Nombre de transactions reçues par un utilisateur (parcours de l'index sur {@code receiver_id}).
+     *
+     * @param receiver Le destinataire.
+     * @return Le nombre de transactions reçues.
+     */
+    long countByReceiver(User receiver);
+}
@@ -3,6 +3,7 @@ package com.openclassrooms.paymybuddy.repository;
 
 import com.openclassrooms.paymybuddy.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
@@ -27,6 +28,42 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Récupère uniquement le tampon de version des données d'un utilisateur.
+     * Cette projection s'appuie sur l'index unique de l'e-mail et ne charge pas l'entité :
+     * elle permet aux contrôleurs de répondre 304 Not Modified sans autre accès à la base.
+     *
+     * @param email L'adresse e-mail de l'utilisateur.
+     * @return Un {@link Optional} contenant la version des données, ou {@link Optional#empty()}
+     *         si aucun utilisateur ne correspond à cet e-mail.
+     */
+    @Query("SELECT u.dataVersion FROM User u WHERE u.email = :email")
+    Optional<Long> findDataVersionByEmail(String email);
+
+    /**
+     * Incrémente en base le tampon de version des données d'un utilisateur ({@code data_version = data_version + 1}).
+     * À appeler dès qu'une donnée affichée sur ses pages change (relations, profil, demandes de paiement) ;
+     * les soldes sont incrémentés de la même façon par {@code LedgerService}.
+     *
+     * @param userId L'identifiant de l'utilisateur.
+     * @return Le nombre de lignes modifiées.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.userId = :userId")
+    int incrementDataVersion(Integer userId);
+
+    /**
+     * Incrémente le tampon de version des utilisateurs qui ont ajouté cet utilisateur à leurs relations :
+     * leur sélecteur d'amis et leur page des relations affichent son nom.
+     *
+     * @param userId L'identifiant de l'utilisateur modifié.
+     * @return Le nombre de lignes modifiées.
+     */
+    @Modifying
+    @Query(value = "UPDATE Users SET data_version = data_version + 1 " +
+            "WHERE user_id IN (SELECT user_id_1 FROM Connections WHERE user_id_2 = :userId)", nativeQuery = true)
+    int incrementConnectedByDataVersions(Integer userId);
+
     /**
      * Recherche un utilisateur par son adresse e-mail et charge de manière anticipée (eagerly fetches)
      * sa liste de connexions (amis).
@@ -43,24 +80,13 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmailWithConnections(String email);
 
     /**
-     * Recherche un utilisateur par son adresse e-mail et charge de manière anticipée (eagerly fetches)
-     * ses transactions envoyées (`sentTransactions`) et reçues (`receivedTransactions`).
-     * De plus, pour chaque transaction (envoyée ou reçue), les informations de l'autre utilisateur
-     * impliqué (destinataire pour les transactions envoyées, expéditeur pour les transactions reçues)
-     * sont également chargées via `JOIN FETCH`.
-     * Cette méthode est utile pour afficher un historique complet des transactions sans
-     * déclencher de requêtes supplémentaires pour les entités associées (évite les `LazyInitializationException`).
+     * Indique si un utilisateur a ajouté un autre utilisateur à ses relations,
+     * sans charger la liste de ses relations (une recherche dans la table de jointure {@code Connections}).
      *
-     * @param email L'adresse e-mail de l'utilisateur à rechercher.
-     * @return Un {@link Optional} contenant l'{@link User} trouvé avec ses listes de transactions
-     *         (envoyées et reçues) et les utilisateurs associés à ces transactions initialisés,
-     *         ou {@link Optional#empty()} si aucun utilisateur ne correspond à cet e-mail.
+     * @param userId       L'identifiant de l'utilisateur.
+     * @param connectionId L'identifiant de la relation recherchée.
+     * @return {@code true} si {@code connectionId} fait partie des relations de {@code userId}.
      */
-    @Query("SELECT u FROM User u " +
-            "LEFT JOIN FETCH u.sentTransactions st " +
-            "LEFT JOIN FETCH u.receivedTransactions rt " +
-            "LEFT JOIN FETCH st.receiver " + // Charger le destinataire de chaque transaction envoyée
-            "LEFT JOIN FETCH rt.sender " + // Charger l'expéditeur de chaque transaction reçue
-            "WHERE u.email = :email")
-    Optional<User> findByEmailWithTransactions(String email);
+    @Query("SELECT COUNT(c) > 0 FROM User u JOIN u.connections c WHERE u.userId = :userId AND c.userId = :connectionId")
+    boolean isConnected(Integer userId, Integer connectionId);
 }
\ No newline at end of file
@@ -0,0 +1,415 @@
+package com.openclassrooms.paymybuddy.seed;
+
+import com.openclassrooms.paymybuddy.service.TransactionSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Chargement de jeux de données volumineux et reproductibles pour les tests de performance et de capacité :
+ * des millions d'utilisateurs (générés ou importés d'un fichier CSV), un graphe de relations en loi de puissance
+ * ({@link PowerLawGraph}) et des centaines de millions de transactions entre relations.
+ * <p>
+ * Chaque table est remplie par paquets de {@link SeedSpec#chunkRows()} lignes, générés et insérés en parallèle
+ * sur {@link SeedSpec#threads()} connexions, par instructions {@code INSERT} de plusieurs lignes ({@link MultiRowInsert}).
+ * Chaque paquet tire ses valeurs d'un générateur initialisé par {@code (graine, paquet)} et les identifiants sont
+ * attribués explicitement à partir des plus grands identifiants existants : les données ne dépendent ni du nombre
+ * de threads ni de l'ordre d'exécution des paquets. Seules les dates, relatives au lancement, changent d'un
+ * chargement à l'autre.
+ * <p>
+ * Comme pour l'historique repris par la migration V8, les transactions chargées n'ont pas d'écritures de journal :
+ * le solde de chaque utilisateur est un solde d'ouverture ({@code OPENING}), avec sa contrepartie sur le compte
+ * externe, enregistrée par chaque paquet avec ses utilisateurs. Le contrôle de cohérence du journal reste donc
+ * valide après le chargement.
+ */
+@Slf4j
+public class DatasetSeeder {
+
+    // Mot de passe "Md12345", comme le jeu de données de démonstration
+    static final String PASSWORD_HASH = "$2a$10$aBAzu8boefhmuRiNRaSzKeIGQAgafZ7cDqJxOTj4sdb9WL2rSOk.S";
+    static final String EXTERNAL_ACCOUNT_EMAIL = "external@paymybuddy.com";
+    private static final String[] DESCRIPTIONS = {"Restaurant", "Courses", "Loyer", "Cinéma", "Vacances",
+            "Cadeau d'anniversaire", "Remboursement", "Essence", "Concert", "Colocation", "Week-end", null};
+    private static final long BALANCES = 0x5EED_0002L;
+    private static final long TRANSACTIONS = 0x5EED_0003L;
+    private static final long MAX_BALANCE_CENTS = 200_000;
+    // Plus grand montant d'une écriture du journal (Ledger_Postings.amount en DECIMAL(10, 2))
+    private static final long MAX_POSTING_CENTS = 9_999_999_999L;
+    private static final double MAX_AMOUNT = 500.0;
+
+    private static final String INSERT_USERS = "INSERT INTO Users (user_id, username, email, password_hash, balance)";
+    private static final String INSERT_OPENINGS =
+            "INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type)";
+    private static final String INSERT_CONNECTIONS = "INSERT IGNORE INTO Connections (user_id_1, user_id_2)";
+    private static final String INSERT_TRANSACTIONS =
+            "INSERT INTO Transactions (transaction_id, sender_id, receiver_id, amount, description, `timestamp`)";
+    private static final String INSERT_SEARCH_ENTRIES = "INSERT INTO Transaction_Search (user_id, transaction_ts, "
+            + "transaction_id, counterparty_id, direction, amount, description, search_text)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SeedSpec spec;
+
+    /**
+     * Construit une instance de {@code DatasetSeeder}.
+     *
+     * @param jdbcTemplate L'accès JDBC à la base principale.
+     * @param spec         Les paramètres du jeu de données.
+     */
+    public DatasetSeeder(JdbcTemplate jdbcTemplate, SeedSpec spec) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spec = spec;
+    }
+
+    /**
+     * Charge le jeu de données : utilisateurs et soldes d'ouverture, relations, puis transactions
+     * (et index de recherche).
+     *
+     * @return Le nombre de lignes chargées par table et la durée du chargement.
+     * @throws Exception Si le schéma n'est pas à jour, si le jeu de données est déjà chargé ou si une insertion échoue.
+     */
+    public SeedResult seed() throws Exception {
+        long started = System.nanoTime();
+        Integer externalAccount;
+        try {
+            externalAccount = jdbcTemplate.queryForObject("SELECT user_id FROM Users WHERE email = ?", Integer.class,
+                    EXTERNAL_ACCOUNT_EMAIL);
+        } catch (EmptyResultDataAccessException e) {
+            throw new Exception("Compte externe " + EXTERNAL_ACCOUNT_EMAIL + " absent : appliquer les migrations avant le chargement.");
+        }
+        int users = spec.usersFile() != null ? countUsers(spec.usersFile()) : spec.users();
+        if (spec.usersFile() == null && exists(email(0))) {
+            throw new Exception("Jeu de données déjà chargé pour la graine " + spec.randomSeed()
+                    + " : utiliser une autre graine ou une base vide.");
+        }
+        int userBase = nextId("SELECT COALESCE(MAX(user_id), 0) + 1 FROM Users");
+        int transactionBase = nextId("SELECT GREATEST((SELECT COALESCE(MAX(transaction_id), 0) FROM Transactions), "
+                + "(SELECT COALESCE(MAX(transaction_id), 0) FROM Transactions_Archive)) + 1");
+        if ((long) userBase + users > Integer.MAX_VALUE || transactionBase + spec.transactions() > Integer.MAX_VALUE) {
+            throw new Exception("Jeu de données trop volumineux : les identifiants dépasseraient " + Integer.MAX_VALUE + ".");
+        }
+        PowerLawGraph graph = new PowerLawGraph(users, spec.meanConnections(), spec.degreeExponent(),
+                spec.maxConnections(), spec.randomSeed());
+        log.info("Chargement de {} utilisateurs (à partir de l'identifiant {}), {} relations en moyenne, {} transactions, "
+                + "graine {}, {} threads", users, userBase, spec.meanConnections(), spec.transactions(),
+                spec.randomSeed(), spec.threads());
+
+        long insertedUsers;
+        if (spec.usersFile() != null) {
+            try (BufferedReader reader = Files.newBufferedReader(spec.usersFile(), StandardCharsets.UTF_8)) {
+                insertedUsers = inParallel("utilisateurs", importedUserChunks(reader, userBase, externalAccount));
+            }
+        } else {
+            insertedUsers = inParallel("utilisateurs", chunks(users, spec.chunkRows(),
+                    (first, end) -> connection -> writeUsers(connection, userBase, first, end, null, externalAccount)));
+        }
+
+        int usersPerChunk = (int) Math.max(1, spec.chunkRows() / Math.ceil(spec.meanConnections()));
+        long connections = inParallel("relations", chunks(users, usersPerChunk,
+                (first, end) -> connection -> writeConnections(connection, graph, userBase, (int) first, (int) end)));
+
+        long startMillis = System.currentTimeMillis() - spec.history().toMillis();
+        long transactions = inParallel("transactions", chunks(spec.transactions(), spec.chunkRows(),
+                (first, end) -> connection -> writeTransactions(connection, graph, userBase, transactionBase, startMillis,
+                        first, end)));
+
+        SeedResult result = new SeedResult(insertedUsers, connections, transactions,
+                Duration.ofNanos(System.nanoTime() - started));
+        log.info("Chargement terminé : {}", result);
+        return result;
+    }
+
+    /**
+     * Nombre de lignes chargées par table.
+     *
+     * @param users        Les utilisateurs insérés.
+     * @param connections  Les relations insérées (sans les doublons).
+     * @param transactions Les transactions insérées.
+     * @param elapsed      La durée du chargement.
+     */
+    public record SeedResult(long users, long connections, long transactions, Duration elapsed) {
+    }
+
+    private long writeUsers(Connection connection, int userBase, long first, long end, List<String[]> identities,
+                            Integer externalAccount) throws SQLException {
+        long chunkTotal = 0;
+        try (MultiRowInsert users = new MultiRowInsert(connection, INSERT_USERS, 5, spec.rowsPerStatement());
+             MultiRowInsert openings = new MultiRowInsert(connection, INSERT_OPENINGS, 4, spec.rowsPerStatement())) {
+            for (long user = first; user < end; user++) {
+                String[] identity = identities != null ? identities.get((int) (user - first)) : null;
+                long cents = (long) (PowerLawGraph.uniform(PowerLawGraph.hash(spec.randomSeed(), BALANCES, user)) * MAX_BALANCE_CENTS);
+                BigDecimal balance = BigDecimal.valueOf(cents, 2);
+                int userId = userBase + (int) user;
+                users.add(userId,
+                        identity != null ? (identity.length > 1 ? identity[1].trim() : null) : "Utilisateur " + user,
+                        identity != null ? identity[0].trim() : email(user),
+                        PASSWORD_HASH, balance);
+                if (cents > 0) {
+                    openings.add(0, userId, balance, "OPENING");
+                    chunkTotal += cents;
+                }
+            }
+        }
+        recordOpeningCounterpart(connection, externalAccount, chunkTotal);
+        return end - first;
+    }
+
+    private long writeConnections(Connection connection, PowerLawGraph graph, int userBase, int first, int end)
+            throws SQLException {
+        MultiRowInsert connections = new MultiRowInsert(connection, INSERT_CONNECTIONS, 2, spec.rowsPerStatement());
+        try (connections) {
+            for (int user = first; user < end; user++) {
+                for (int j = 0, degree = graph.degree(user); j < degree; j++) {
+                    connections.add(userBase + user, userBase + graph.target(user, j));
+                }
+            }
+        }
+        return connections.insertedRows();
+    }
+
+    private long writeTransactions(Connection connection, PowerLawGraph graph, int userBase, int transactionBase,
+                                   long startMillis, long first, long end) throws SQLException {
+        // Graine du paquet : mêmes transactions quel que soit le thread qui le génère
+        SplittableRandom random = new SplittableRandom(PowerLawGraph.hash(spec.randomSeed(), TRANSACTIONS, first));
+        double millisPerTransaction = (double) spec.history().toMillis() / spec.transactions();
+        try (MultiRowInsert transactions = new MultiRowInsert(connection, INSERT_TRANSACTIONS, 6, spec.rowsPerStatement());
+             MultiRowInsert searchEntries = new MultiRowInsert(connection, INSERT_SEARCH_ENTRIES, 8, spec.rowsPerStatement())) {
+            for (long i = first; i < end; i++) {
+                // Expéditeurs tirés comme les destinataires (les plus connectés envoient le plus), vers une de leurs relations
+                int sender = graph.pick(random.nextDouble());
+                int receiver = graph.target(sender, random.nextInt(graph.degree(sender)));
+                BigDecimal amount = BigDecimal.valueOf(Math.round(100 * Math.pow(MAX_AMOUNT, random.nextDouble())), 2);
+                String description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+                Timestamp timestamp = new Timestamp(startMillis + (long) (i * millisPerTransaction));
+                int transactionId = transactionBase + (int) i;
+                int senderId = userBase + sender;
+                int receiverId = userBase + receiver;
+                transactions.add(transactionId, senderId, receiverId, amount, description, timestamp);
+                if (spec.indexSearch()) {
+                    searchEntries.add(senderId, timestamp, transactionId, receiverId, "S", amount, description,
+                            TransactionSearchService.searchText(senderId, description));
+                    searchEntries.add(receiverId, timestamp, transactionId, senderId, "R", amount, description,
+                            TransactionSearchService.searchText(receiverId, description));
+                }
+            }
+        }
+        return end - first;
+    }
+
+    /**
+     * Enregistre la contrepartie des soldes d'ouverture d'un paquet sur le compte externe, sur la connexion du paquet :
+     * chaque paquet chargé laisse le journal équilibré. Une contrepartie plus grande qu'une écriture
+     * ({@link #MAX_POSTING_CENTS}) est répartie sur plusieurs écritures ; le solde du compte externe
+     * ({@code DECIMAL(15, 2)}, migration V18) couvre tous les soldes d'ouverture.
+     */
+    private void recordOpeningCounterpart(Connection connection, Integer externalAccount, long totalCents)
+            throws SQLException {
+        if (totalCents == 0) {
+            return;
+        }
+        try (MultiRowInsert openings = new MultiRowInsert(connection, INSERT_OPENINGS, 4, spec.rowsPerStatement())) {
+            for (long remaining = totalCents; remaining > 0; remaining -= MAX_POSTING_CENTS) {
+                openings.add(0, externalAccount, BigDecimal.valueOf(-Math.min(remaining, MAX_POSTING_CENTS), 2), "OPENING");
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE Users SET balance = balance - ? WHERE user_id = ?")) {
+            statement.setBigDecimal(1, BigDecimal.valueOf(totalCents, 2));
+            statement.setInt(2, externalAccount);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Exécute les paquets sur {@link SeedSpec#threads()} threads, une connexion par paquet en cours.
+     * Le nombre de paquets en attente est borné : un fichier importé n'est lu qu'au rythme des insertions.
+     */
+    private long inParallel(String table, Iterator<ChunkWriter> chunks) throws Exception {
+        long started = System.nanoTime();
+        int maxInFlight = spec.threads() * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LongAdder rows = new LongAdder();
+        AtomicInteger done = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(spec.threads(), runnable -> {
+            Thread thread = new Thread(runnable, "seed-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (failure.get() == null && chunks.hasNext()) {
+                ChunkWriter chunk = chunks.next();
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        rows.add(jdbcTemplate.execute((ConnectionCallback<Long>) connection -> write(connection, chunk)));
+                        if (done.incrementAndGet() % 100 == 0) {
+                            log.info("Chargement des {} : {} lignes", table, rows.sum());
+                        }
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(maxInFlight); // Fin des derniers paquets
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new Exception("Échec du chargement des " + table + " : " + failure.get().getMessage(), failure.get());
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("{} {} chargées en {} s ({} lignes/s)", rows.sum(), table, String.format("%.1f", seconds),
+                Math.round(rows.sum() / Math.max(seconds, 1e-3)));
+        return rows.sum();
+    }
+
+    private long write(Connection connection, ChunkWriter chunk) throws SQLException {
+        if (!spec.disableForeignKeyChecks()) {
+            return chunk.write(connection);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET foreign_key_checks = 0");
+            try {
+                return chunk.write(connection);
+            } finally {
+                statement.execute("SET foreign_key_checks = 1"); // La connexion retourne au pool
+            }
+        }
+    }
+
+    private static Iterator<ChunkWriter> chunks(long total, int chunkSize, ChunkFactory factory) {
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < total;
+            }
+
+            @Override
+            public ChunkWriter next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long first = next;
+                next = Math.min(total, first + chunkSize);
+                return factory.create(first, next);
+            }
+        };
+    }
+
+    private Iterator<ChunkWriter> importedUserChunks(BufferedReader reader, int userBase, Integer externalAccount) {
+        return new Iterator<>() {
+            private long next;
+            private List<String[]> pending;
+
+            @Override
+            public boolean hasNext() {
+                if (pending == null) {
+                    pending = readChunk();
+                }
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public ChunkWriter next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<String[]> identities = pending;
+                long first = next;
+                next += identities.size();
+                pending = null;
+                return connection -> writeUsers(connection, userBase, first, first + identities.size(), identities, externalAccount);
+            }
+
+            private List<String[]> readChunk() {
+                List<String[]> identities = new ArrayList<>(spec.chunkRows());
+                try {
+                    String line;
+                    while (identities.size() < spec.chunkRows() && (line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            identities.add(line.split(",", 2));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return identities;
+            }
+        };
+    }
+
+    private static int countUsers(Path usersFile) throws IOException {
+        try (Stream<String> lines = Files.lines(usersFile, StandardCharsets.UTF_8)) {
+            return Math.toIntExact(lines.filter(line -> !line.isBlank()).count());
+        }
+    }
+
+    private String email(long user) {
+        return email(user, spec.randomSeed());
+    }
+
+    /**
+     * Retourne l'adresse e-mail d'un utilisateur généré (mot de passe {@code Md12345}).
+     *
+     * @param user       Le rang de l'utilisateur dans le graphe ({@link PowerLawGraph}).
+     * @param randomSeed La graine du jeu de données.
+     * @return L'adresse e-mail de connexion.
+     */
+    public static String email(long user, long randomSeed) {
+        return "user" + user + "-" + randomSeed + "@seed.paymybuddy.com";
+    }
+
+    private boolean exists(String email) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT COUNT(*) > 0 FROM Users WHERE email = ?",
+                Boolean.class, email));
+    }
+
+    private int nextId(String sql) {
+        Integer next = jdbcTemplate.queryForObject(sql, Integer.class);
+        return next != null ? next : 1;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        long write(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkFactory {
+        ChunkWriter create(long first, long end);
+    }
+}
@@ -0,0 +1,86 @@
+package com.openclassrooms.paymybuddy.seed;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Insertion de lignes par instructions {@code INSERT ... VALUES (...), (...), ...} de plusieurs lignes :
+ * un aller-retour avec la base et une analyse de requête pour {@code rowsPerStatement} lignes, quel que soit
+ * le pilote JDBC. Non thread-safe : une instance par connexion et par paquet de lignes.
+ */
+final class MultiRowInsert implements AutoCloseable {
+
+    // Nombre maximal de paramètres d'une requête préparée MySQL
+    private static final int MAX_PARAMETERS = 65_535;
+
+    private final Connection connection;
+    private final String insert;
+    private final int columns;
+    private final int rowsPerStatement;
+    private final Object[] values;
+    private PreparedStatement fullStatement;
+    private int pendingRows;
+    private long insertedRows;
+
+    /**
+     * @param connection       La connexion (en auto-commit : chaque instruction est validée).
+     * @param insert           Le début de l'instruction, jusqu'à la liste des colonnes comprise
+     *                         (par exemple {@code INSERT INTO Connections (user_id_1, user_id_2)}).
+     * @param columns          Le nombre de colonnes.
+     * @param rowsPerStatement Le nombre de lignes par instruction.
+     */
+    MultiRowInsert(Connection connection, String insert, int columns, int rowsPerStatement) {
+        this.connection = connection;
+        this.insert = insert;
+        this.columns = columns;
+        this.rowsPerStatement = Math.max(1, Math.min(rowsPerStatement, MAX_PARAMETERS / columns));
+        this.values = new Object[this.rowsPerStatement * columns];
+    }
+
+    void add(Object... row) throws SQLException {
+        System.arraycopy(row, 0, values, pendingRows * columns, columns);
+        if (++pendingRows == rowsPerStatement) {
+            if (fullStatement == null) {
+                fullStatement = connection.prepareStatement(sql(rowsPerStatement));
+            }
+            execute(fullStatement, rowsPerStatement);
+        }
+    }
+
+    long insertedRows() {
+        return insertedRows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (pendingRows > 0) {
+                try (PreparedStatement lastStatement = connection.prepareStatement(sql(pendingRows))) {
+                    execute(lastStatement, pendingRows);
+                }
+            }
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+    }
+
+    private void execute(PreparedStatement statement, int rows) throws SQLException {
+        for (int i = 0; i < rows * columns; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+        insertedRows += statement.executeUpdate(); // Sans les doublons ignorés (INSERT IGNORE)
+        pendingRows = 0;
+    }
+
+    private String sql(int rows) {
+        String row = "(" + "?, ".repeat(columns - 1) + "?)";
+        StringBuilder sql = new StringBuilder(insert.length() + 8 + rows * (row.length() + 2)).append(insert).append(" VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(row);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.openclassrooms.paymybuddy.seed;
+
+/**
+ * Graphe de relations en loi de puissance, entièrement déterminé par une graine (voir {@link DatasetSeeder}).
+ * <p>
+ * Les utilisateurs sont numérotés par rang, de {@code 0} (le plus connecté) à {@code users - 1}. Le nombre de relations
+ * d'un rang suit une loi de Zipf d'exposant {@code exponent} : peu d'utilisateurs très connectés, beaucoup
+ * d'utilisateurs avec quelques relations. Les destinataires sont tirés avec la même asymétrie ({@link #pick}) : les
+ * utilisateurs très connectés sont aussi les plus souvent ajoutés. La {@code j}-ième relation d'un utilisateur est
+ * un hachage de {@code (graine, rang, j)} : n'importe quelle relation se recalcule sans conserver le graphe en mémoire,
+ * et le résultat ne dépend ni de l'ordre ni du nombre de threads de génération.
+ * Deux tirages peuvent désigner la même relation : les doublons sont ignorés à l'insertion.
+ */
+public final class PowerLawGraph {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long TARGETS = 0x5EED_0001L;
+
+    private final int users;
+    private final long seed;
+    private final double minDegree;
+    private final double degreeSlope;
+    private final double rankSkew;
+    private final int maxDegree;
+
+    /**
+     * Construit le graphe.
+     *
+     * @param users      Le nombre d'utilisateurs (au moins 2).
+     * @param meanDegree Le nombre moyen de relations par utilisateur.
+     * @param exponent   L'exposant de la loi de puissance des degrés (supérieur à 2 : moyenne finie ; 2.5 est courant
+     *                   pour un réseau social).
+     * @param maxDegree  Le nombre maximal de relations d'un utilisateur.
+     * @param seed       La graine.
+     */
+    public PowerLawGraph(int users, double meanDegree, double exponent, int maxDegree, long seed) {
+        if (users < 2) {
+            throw new IllegalArgumentException("Le graphe doit compter au moins deux utilisateurs.");
+        }
+        if (exponent <= 2) {
+            throw new IllegalArgumentException("L'exposant de la loi de puissance doit être supérieur à 2.");
+        }
+        this.users = users;
+        this.seed = seed;
+        // Degré du rang u : quantile de Pareto de paramètre minDegree, de moyenne minDegree * (a - 1) / (a - 2)
+        this.minDegree = meanDegree * (exponent - 2) / (exponent - 1);
+        this.degreeSlope = 1 / (exponent - 1);
+        // P(rang <= x) = (x / users)^(1 / rankSkew) : degrés entrants de même pente que les degrés sortants
+        this.rankSkew = (exponent - 1) / (exponent - 2);
+        this.maxDegree = Math.min(maxDegree, users - 1);
+    }
+
+    /**
+     * @return Le nombre d'utilisateurs du graphe.
+     */
+    public int users() {
+        return users;
+    }
+
+    /**
+     * Retourne le nombre de relations tirées pour un utilisateur.
+     *
+     * @param user Le rang de l'utilisateur.
+     * @return Le nombre de relations, entre 1 et le maximum.
+     */
+    public int degree(int user) {
+        double degree = minDegree * Math.pow((double) users / (user + 1), degreeSlope);
+        return (int) Math.max(1, Math.min(maxDegree, Math.round(degree)));
+    }
+
+    /**
+     * Retourne la {@code j}-ième relation d'un utilisateur (jamais l'utilisateur lui-même).
+     *
+     * @param user Le rang de l'utilisateur.
+     * @param j    L'indice de la relation, entre 0 et {@link #degree(int)} exclu.
+     * @return Le rang de l'utilisateur ajouté en relation.
+     */
+    public int target(int user, int j) {
+        int target = pick(uniform(hash(seed, TARGETS, ((long) user << 32) | j)));
+        return target != user ? target : (user + 1) % users;
+    }
+
+    /**
+     * Tire un rang avec l'asymétrie du graphe : les petits rangs (utilisateurs très connectés) sont les plus probables.
+     *
+     * @param uniform Un nombre uniforme dans {@code [0, 1)}.
+     * @return Le rang tiré.
+     */
+    public int pick(double uniform) {
+        return (int) Math.min(users - 1, (long) (users * Math.pow(uniform, rankSkew)));
+    }
+
+    /**
+     * Hache une clé dans un flux de la graine (finaliseur de SplitMix64).
+     */
+    static long hash(long seed, long stream, long key) {
+        return mix(mix(seed + stream * GOLDEN_GAMMA) + key * GOLDEN_GAMMA);
+    }
+
+    static double uniform(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
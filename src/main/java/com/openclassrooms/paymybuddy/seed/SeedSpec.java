@@ -0,0 +1,27 @@
+package com.openclassrooms.paymybuddy.seed;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Paramètres d'un jeu de données de test (propriétés {@code paymybuddy.seed.*}, voir {@link DatasetSeeder}).
+ *
+ * @param users                   Le nombre d'utilisateurs générés (ignoré si {@code usersFile} est renseigné).
+ * @param usersFile               Un fichier CSV {@code email,nom} d'utilisateurs à importer, ou {@code null}.
+ * @param meanConnections         Le nombre moyen de relations par utilisateur.
+ * @param degreeExponent          L'exposant de la loi de puissance des relations (supérieur à 2).
+ * @param maxConnections          Le nombre maximal de relations d'un utilisateur.
+ * @param transactions            Le nombre de transactions générées.
+ * @param history                 La période couverte par l'historique, jusqu'au lancement.
+ * @param randomSeed              La graine : même graine, mêmes paramètres et base vide, mêmes données.
+ * @param threads                 Le nombre de threads de génération et d'insertion (une connexion chacun).
+ * @param rowsPerStatement        Le nombre de lignes par instruction {@code INSERT}.
+ * @param chunkRows               Le nombre de lignes générées par tâche (unité de parallélisme et de graine).
+ * @param indexSearch             {@code true} pour alimenter aussi l'index de recherche ({@code Transaction_Search}).
+ * @param disableForeignKeyChecks {@code true} pour désactiver les contrôles de clés étrangères de MySQL pendant
+ *                                l'insertion (les identifiants générés sont cohérents par construction).
+ */
+public record SeedSpec(int users, Path usersFile, double meanConnections, double degreeExponent, int maxConnections,
+                       long transactions, Duration history, long randomSeed, int threads, int rowsPerStatement,
+                       int chunkRows, boolean indexSearch, boolean disableForeignKeyChecks) {
+}
@@ -9,6 +9,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections; // Correction: Utiliser Collections.singletonList
 
@@ -47,6 +48,7 @@ public class CustomUserDetailsService implements UserDetailsService {
      *                                   ou si l'e-mail est nul ou vide.
      */
     @Override
+    @Transactional // Lecture sur la base principale : un compte tout juste créé ou un nouveau mot de passe est visible immédiatement
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         log.info("Chargement de l'utilisateur avec l'email : {}", email);
         if (email == null || email.isEmpty()) {
@@ -0,0 +1,172 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Moteur de calcul des frais de transfert.
+ * Les plans ({@code Fee_Plans}) et leurs paliers ({@code Fee_Tiers}) sont chargés en mémoire
+ * dans un instantané immuable : un transfert lit le plan de l'expéditeur ({@code Users.fee_plan},
+ * déjà chargé avec l'entité) et calcule ses frais sans aucune requête.
+ * <p>
+ * Les plans sont rechargés périodiquement : un nouvel instantané complet est construit à côté de
+ * l'ancien puis publié d'un seul coup ({@link AtomicReference}), un transfert en cours voit donc
+ * soit l'ancien barème, soit le nouveau, jamais un mélange. Si le rechargement échoue,
+ * l'instantané précédent reste en service.
+ */
+@Slf4j
+@Service
+public class FeeEngine {
+
+    private static final String SELECT_TIERS =
+            "SELECT p.plan_code, p.is_default, t.min_amount, t.basis_points, t.fixed_fee " +
+            "FROM Fee_Plans p LEFT JOIN Fee_Tiers t ON t.plan_code = p.plan_code " +
+            "ORDER BY p.plan_code, t.min_amount";
+    private static final String SELECT_PLATFORM_ACCOUNT = "SELECT user_id FROM Users WHERE email = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String platformAccountEmail;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Construit une instance de {@code FeeEngine}.
+     * Les plans sont chargés au premier transfert (les migrations du schéma ont alors été appliquées).
+     *
+     * @param jdbcTemplate         L'accès JDBC à la base.
+     * @param platformAccountEmail L'e-mail du compte de la plateforme crédité des frais.
+     */
+    public FeeEngine(JdbcTemplate jdbcTemplate,
+                     @Value("${paymybuddy.fees.platform-account-email:platform@paymybuddy.com}") String platformAccountEmail) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.platformAccountEmail = platformAccountEmail;
+    }
+
+    /**
+     * Calcule les frais d'un transfert selon le plan de l'expéditeur.
+     * Un expéditeur sans plan, ou dont le plan n'existe plus, paie selon le plan par défaut.
+     *
+     * @param sender L'expéditeur du transfert.
+     * @param amount Le montant transféré.
+     * @return Les frais à débiter en plus du montant.
+     */
+    public Money feeFor(User sender, Money amount) {
+        Snapshot current = current();
+        FeeSchedule schedule = sender.getFeePlan() == null ? null : current.plans().get(sender.getFeePlan());
+        if (schedule == null) {
+            schedule = current.defaultPlan();
+        }
+        return schedule == null ? Money.ZERO : schedule.feeFor(amount);
+    }
+
+    /**
+     * Retourne l'identifiant du compte de la plateforme, crédité des frais de chaque transfert.
+     *
+     * @return L'identifiant de l'utilisateur de la plateforme.
+     */
+    public Integer getPlatformAccountId() {
+        return current().platformAccountId();
+    }
+
+    /**
+     * Recharge les plans de frais et publie le nouvel instantané.
+     * En cas d'erreur, l'instantané en service est conservé.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.fees.reload-interval:PT1M}",
+            initialDelayString = "${paymybuddy.fees.reload-interval:PT1M}")
+    public void reload() {
+        Snapshot previous = snapshot.get();
+        Snapshot loaded;
+        try {
+            loaded = load();
+        } catch (DataAccessException | IllegalArgumentException | IllegalStateException e) {
+            log.error("Rechargement des plans de frais impossible, barème précédent conservé : {}", e.getMessage());
+            return;
+        }
+        if (previous != null && previous.source().equals(loaded.source())
+                && previous.platformAccountId().equals(loaded.platformAccountId())) {
+            return;
+        }
+        snapshot.set(loaded);
+        log.info("Plans de frais rechargés : {} plan(s), plan par défaut {}", loaded.plans().size(),
+                loaded.defaultPlan() == null ? "aucun" : loaded.defaultPlan().getPlanCode());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = load();
+                    snapshot.set(current);
+                    log.info("Plans de frais chargés : {} plan(s)", current.plans().size());
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<TierRow> rows = jdbcTemplate.query(SELECT_TIERS, (rs, rowNum) -> new TierRow(
+                rs.getString("plan_code"),
+                rs.getBoolean("is_default"),
+                rs.getBigDecimal("min_amount") == null ? null : new FeeSchedule.Tier(
+                        Money.of(rs.getBigDecimal("min_amount")),
+                        rs.getInt("basis_points"),
+                        Money.of(rs.getBigDecimal("fixed_fee")))));
+        List<Integer> platformIds = jdbcTemplate.queryForList(SELECT_PLATFORM_ACCOUNT, Integer.class, platformAccountEmail);
+        if (platformIds.isEmpty()) {
+            throw new IllegalStateException("Compte de la plateforme introuvable : " + platformAccountEmail);
+        }
+
+        Map<String, List<FeeSchedule.Tier>> tiersByPlan = new LinkedHashMap<>();
+        String defaultCode = null;
+        for (TierRow row : rows) {
+            List<FeeSchedule.Tier> tiers = tiersByPlan.computeIfAbsent(row.planCode(), code -> new ArrayList<>());
+            if (row.tier() != null) {
+                tiers.add(row.tier());
+            }
+            if (row.isDefault()) {
+                if (defaultCode != null && !defaultCode.equals(row.planCode())) {
+                    throw new IllegalStateException("Plusieurs plans de frais par défaut : " + defaultCode + ", " + row.planCode());
+                }
+                defaultCode = row.planCode();
+            }
+        }
+        Map<String, FeeSchedule> plans = new HashMap<>();
+        tiersByPlan.forEach((code, tiers) -> plans.put(code, FeeSchedule.of(code, tiers)));
+        if (defaultCode == null) {
+            log.warn("Aucun plan de frais par défaut : les utilisateurs sans plan ne paient pas de frais");
+        }
+        return new Snapshot(Map.copyOf(plans), defaultCode == null ? null : plans.get(defaultCode),
+                platformIds.get(0), List.copyOf(rows));
+    }
+
+    /**
+     * Instantané immuable des plans de frais.
+     *
+     * @param plans             Les barèmes par code de plan.
+     * @param defaultPlan       Le barème par défaut ({@code null} si aucun plan n'est marqué par défaut).
+     * @param platformAccountId L'identifiant du compte de la plateforme.
+     * @param source            Les lignes lues en base, pour détecter un rechargement sans changement.
+     */
+    private record Snapshot(Map<String, FeeSchedule> plans, FeeSchedule defaultPlan,
+                            Integer platformAccountId, List<TierRow> source) {
+    }
+
+    private record TierRow(String planCode, boolean isDefault, FeeSchedule.Tier tier) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Barème de frais d'un plan, immuable, précalculé pour le chemin de transfert.
+ * Les paliers sont rangés dans des tableaux parallèles triés par montant minimal :
+ * le palier d'un montant est trouvé par recherche dichotomique, sans allocation ni accès à la base.
+ * Les frais d'un palier valent {@code montant * basisPoints / 10000} (arrondi au centime supérieur
+ * à partir du demi-centime) plus des frais fixes ; un montant inférieur au premier palier ne paie rien.
+ */
+public final class FeeSchedule {
+
+    private final String planCode;
+    private final long[] minCents;
+    private final int[] basisPoints;
+    private final long[] fixedCents;
+
+    private FeeSchedule(String planCode, long[] minCents, int[] basisPoints, long[] fixedCents) {
+        this.planCode = planCode;
+        this.minCents = minCents;
+        this.basisPoints = basisPoints;
+        this.fixedCents = fixedCents;
+    }
+
+    /**
+     * Construit le barème d'un plan.
+     *
+     * @param planCode Le code du plan.
+     * @param tiers    Les paliers du plan, dans un ordre quelconque.
+     * @return Le barème, paliers triés par montant minimal.
+     * @throws IllegalArgumentException si deux paliers ont le même montant minimal ou si un taux est négatif.
+     */
+    public static FeeSchedule of(String planCode, List<Tier> tiers) {
+        Tier[] sorted = tiers.toArray(new Tier[0]);
+        Arrays.sort(sorted, Comparator.comparing(Tier::minAmount));
+        long[] minCents = new long[sorted.length];
+        int[] basisPoints = new int[sorted.length];
+        long[] fixedCents = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            minCents[i] = sorted[i].minAmount().cents();
+            basisPoints[i] = sorted[i].basisPoints();
+            fixedCents[i] = sorted[i].fixedFee().cents();
+            if (i > 0 && minCents[i] == minCents[i - 1]) {
+                throw new IllegalArgumentException("Paliers en double dans le plan " + planCode + " : " + sorted[i].minAmount());
+            }
+            if (basisPoints[i] < 0 || fixedCents[i] < 0) {
+                throw new IllegalArgumentException("Frais négatifs dans le plan " + planCode);
+            }
+        }
+        return new FeeSchedule(planCode, minCents, basisPoints, fixedCents);
+    }
+
+    public String getPlanCode() {
+        return planCode;
+    }
+
+    /**
+     * Calcule les frais d'un transfert.
+     *
+     * @param amount Le montant transféré.
+     * @return Les frais, {@link Money#ZERO} si aucun palier ne s'applique.
+     */
+    public Money feeFor(Money amount) {
+        int index = Arrays.binarySearch(minCents, amount.cents());
+        if (index < 0) {
+            // Point d'insertion - 1 : dernier palier dont le minimum est inférieur au montant
+            index = -index - 2;
+        }
+        if (index < 0) {
+            return Money.ZERO;
+        }
+        return amount.percentage(basisPoints[index], RoundingMode.HALF_UP).plus(Money.ofCents(fixedCents[index]));
+    }
+
+    /**
+     * Palier d'un plan de frais (ligne de la table {@code Fee_Tiers}).
+     *
+     * @param minAmount   Le montant à partir duquel le palier s'applique.
+     * @param basisPoints Les frais proportionnels, en points de base (50 = 0.5 %).
+     * @param fixedFee    Les frais fixes ajoutés à chaque transfert.
+     */
+    public record Tier(Money minAmount, int basisPoints, Money fixedFee) {
+    }
+}
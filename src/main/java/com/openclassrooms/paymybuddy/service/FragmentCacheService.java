@@ -0,0 +1,92 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service de cache des fragments HTML rendus par utilisateur.
+ * Certains morceaux de page (comme les options du sélecteur de relations de la page d'accueil)
+ * ne dépendent que des données de l'utilisateur : ils sont rendus une fois puis réutilisés
+ * tant que le tampon de version des données de l'utilisateur ({@link User#getDataVersion()}) ne change pas.
+ * Le cache est borné (politique LRU) et une entrée est explicitement invalidée lors de l'ajout d'une relation.
+ */
+@Slf4j
+@Service
+public class FragmentCacheService {
+
+    static final String CONNECTION_OPTIONS_TEMPLATE = "fragments/connection_options";
+    static final String CONNECTION_OPTIONS_FRAGMENT = "options";
+
+    private final ITemplateEngine templateEngine;
+    private final boolean enabled;
+    private final Map<String, CachedFragment> connectionOptions;
+
+    /**
+     * Construit une instance de {@code FragmentCacheService}.
+     *
+     * @param templateEngine Le moteur Thymeleaf utilisé pour rendre les fragments.
+     * @param enabled        Active ou désactive le cache (désactivé, les pages rendent les fragments directement).
+     * @param maxEntries     Nombre maximal d'utilisateurs dont les fragments sont conservés en mémoire.
+     */
+    public FragmentCacheService(ITemplateEngine templateEngine,
+                                @Value("${paymybuddy.fragment-cache.enabled:true}") boolean enabled,
+                                @Value("${paymybuddy.fragment-cache.max-entries:10000}") int maxEntries) {
+        this.templateEngine = templateEngine;
+        this.enabled = enabled;
+        this.connectionOptions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedFragment> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Retourne les balises {@code <option>} du sélecteur de relations de la page d'accueil.
+     * Le fragment est rendu à la première demande pour une version de données donnée,
+     * puis servi depuis le cache.
+     *
+     * @param userEmail   L'e-mail de l'utilisateur.
+     * @param dataVersion Le tampon de version des données de l'utilisateur.
+     * @param connections Les relations de l'utilisateur (utilisées seulement en cas d'absence dans le cache).
+     * @return Le HTML des options, ou {@code null} si le cache est désactivé.
+     */
+    public String getConnectionOptions(String userEmail, long dataVersion, Collection<User> connections) {
+        if (!enabled) {
+            return null;
+        }
+        CachedFragment cached = connectionOptions.get(userEmail);
+        if (cached != null && cached.version() == dataVersion) {
+            return cached.html();
+        }
+        Context context = new Context(Locale.FRANCE);
+        context.setVariable("connections", connections);
+        String html = templateEngine.process(CONNECTION_OPTIONS_TEMPLATE, Set.of(CONNECTION_OPTIONS_FRAGMENT), context);
+        connectionOptions.put(userEmail, new CachedFragment(dataVersion, html));
+        log.debug("Fragment des relations rendu pour {} (version {})", userEmail, dataVersion);
+        return html;
+    }
+
+    /**
+     * Supprime du cache les fragments d'un utilisateur.
+     *
+     * @param userEmail L'e-mail de l'utilisateur dont les fragments doivent être invalidés.
+     */
+    public void evict(String userEmail) {
+        connectionOptions.remove(userEmail);
+    }
+
+    private record CachedFragment(long version, String html) {
+    }
+}
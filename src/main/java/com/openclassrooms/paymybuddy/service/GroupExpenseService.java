@@ -0,0 +1,414 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.ExpenseGroup;
+import com.openclassrooms.paymybuddy.model.GroupExpense;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.ExpenseGroupRepository;
+import com.openclassrooms.paymybuddy.repository.GroupExpenseRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service des groupes de dépenses partagées : création d'un groupe parmi ses relations, saisie des dépenses
+ * et règlement du groupe.
+ * <p>
+ * Le créateur invite certaines de ses relations ; un invité ne devient membre qu'en acceptant l'invitation
+ * ({@code Expense_Group_Members.joined_at}), et peut la refuser. Seuls les membres ayant rejoint le groupe
+ * saisissent des dépenses et en partagent le coût.
+ * <p>
+ * Les dépenses non réglées sont réparties à parts égales entre les membres (les centimes restants vont aux membres
+ * de plus petit identifiant). Le règlement calcule le solde net de chaque membre (avancé moins sa part), puis les
+ * transferts qui soldent le groupe ({@link SettlementSolver}). Personne n'est débité sans son accord : les dettes
+ * du membre qui règle sont payées par {@link TransactionService#transferMoney}, celles des autres membres deviennent
+ * des demandes de paiement ({@link PaymentRequestService#requestSettlement}) qu'ils acceptent ou refusent.
+ * Chacune de ces dettes reste dans le groupe comme une part non réglée, liée à sa demande
+ * ({@link GroupExpense#getDebtor()}, {@link GroupExpense#getPaymentRequest()}) : réglée quand la demande est acceptée,
+ * rouverte quand elle est refusée (elle entre alors dans le règlement suivant). Une dette n'est donc jamais effacée
+ * sans paiement, et le créancier la voit tant qu'elle n'est pas payée.
+ * La ligne du groupe est verrouillée pendant la saisie d'une dépense et le règlement, qui ne peuvent donc pas
+ * se croiser.
+ */
+@Slf4j
+@Service
+public class GroupExpenseService {
+
+    private static final String LOCK_GROUP = "SELECT group_id FROM Expense_Groups WHERE group_id = ? FOR UPDATE";
+    private static final String SUM_UNSETTLED_BY_PAYER = "SELECT payer_id, SUM(amount) AS paid FROM Group_Expenses "
+            + "WHERE group_id = ? AND settled_at IS NULL AND debtor_id IS NULL GROUP BY payer_id";
+    // Parts de règlement dues par un seul membre, hors parts dont la demande de paiement est en attente
+    private static final String SUM_OPEN_SHARES = "SELECT payer_id, debtor_id, SUM(amount) AS due FROM Group_Expenses "
+            + "WHERE group_id = ? AND settled_at IS NULL AND debtor_id IS NOT NULL AND payment_request_id IS NULL "
+            + "GROUP BY payer_id, debtor_id";
+    private static final String MARK_SETTLED = "UPDATE Group_Expenses SET settled_at = ? "
+            + "WHERE group_id = ? AND settled_at IS NULL AND payment_request_id IS NULL";
+    private static final String SELECT_JOINED =
+            "SELECT user_id FROM Expense_Group_Members WHERE group_id = ? AND joined_at IS NOT NULL";
+    private static final String SELECT_INVITATIONS =
+            "SELECT group_id FROM Expense_Group_Members WHERE user_id = ? AND joined_at IS NULL";
+    private static final String MARK_JOINED =
+            "UPDATE Expense_Group_Members SET joined_at = ? WHERE group_id = ? AND user_id = ? AND joined_at IS NULL";
+    private static final String DELETE_INVITATION =
+            "DELETE FROM Expense_Group_Members WHERE group_id = ? AND user_id = ? AND joined_at IS NULL";
+
+    private final ExpenseGroupRepository expenseGroupRepository;
+    private final GroupExpenseRepository groupExpenseRepository;
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final PaymentRequestService paymentRequestService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construit une instance de {@code GroupExpenseService}.
+     *
+     * @param expenseGroupRepository Le repository des groupes.
+     * @param groupExpenseRepository Le repository des dépenses.
+     * @param userRepository         Le repository des utilisateurs.
+     * @param transactionService     Le service qui effectue les transferts du membre qui règle.
+     * @param paymentRequestService  Le service des demandes de paiement adressées aux autres débiteurs.
+     * @param jdbcTemplate           L'accès JDBC (verrou du groupe, totaux par membre, invitations).
+     */
+    public GroupExpenseService(ExpenseGroupRepository expenseGroupRepository, GroupExpenseRepository groupExpenseRepository,
+                               UserRepository userRepository, TransactionService transactionService,
+                               PaymentRequestService paymentRequestService, JdbcTemplate jdbcTemplate) {
+        this.expenseGroupRepository = expenseGroupRepository;
+        this.groupExpenseRepository = groupExpenseRepository;
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.paymentRequestService = paymentRequestService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crée un groupe dont le créateur est membre, et y invite certaines de ses relations.
+     *
+     * @param ownerEmail   L'adresse e-mail du créateur.
+     * @param name         Le nom du groupe.
+     * @param memberEmails Les adresses e-mail des invités, choisis parmi les relations du créateur.
+     * @return Le groupe enregistré.
+     * @throws Exception Si un utilisateur n'est pas trouvé ou si un membre ne fait pas partie des relations du créateur.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ExpenseGroup createGroup(String ownerEmail, String name, List<String> memberEmails) throws Exception {
+        User owner = userRepository.findByEmail(ownerEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        ExpenseGroup group = new ExpenseGroup();
+        group.setName(name);
+        group.setOwner(owner);
+        group.getMembers().add(owner);
+        for (String memberEmail : memberEmails) {
+            if (memberEmail.equalsIgnoreCase(ownerEmail)) {
+                continue;
+            }
+            User member = userRepository.findByEmail(memberEmail)
+                    .orElseThrow(() -> new Exception("L'utilisateur avec l'email '" + memberEmail + "' n'a pas été trouvé."));
+            if (!userRepository.isConnected(owner.getUserId(), member.getUserId())) {
+                throw new Exception("Les membres du groupe doivent faire partie de vos relations : " + memberEmail);
+            }
+            group.getMembers().add(member);
+        }
+        if (group.getMembers().size() < 2) {
+            throw new Exception("Un groupe doit compter au moins une autre personne que vous.");
+        }
+        // Écriture immédiate des lignes d'Expense_Group_Members : seul le créateur y est marqué comme ayant rejoint
+        ExpenseGroup saved = expenseGroupRepository.saveAndFlush(group);
+        jdbcTemplate.update(MARK_JOINED, Timestamp.valueOf(LocalDateTime.now()), saved.getGroupId(), owner.getUserId());
+        log.info("Groupe de dépenses {} '{}' créé par {} ({} invités)", saved.getGroupId(), name, ownerEmail,
+                group.getMembers().size() - 1);
+        return saved;
+    }
+
+    /**
+     * Accepte l'invitation à un groupe.
+     *
+     * @param userEmail L'adresse e-mail de l'invité.
+     * @param groupId   L'identifiant du groupe.
+     * @throws Exception Si le groupe n'existe pas, si l'utilisateur n'y est pas invité ou l'a déjà rejoint.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void join(String userEmail, Integer groupId) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        if (jdbcTemplate.update(MARK_JOINED, Timestamp.valueOf(LocalDateTime.now()), groupId, user.getUserId()) == 0) {
+            throw new Exception("Invitation non trouvée ou déjà acceptée.");
+        }
+        log.info("{} a rejoint le groupe {}", userEmail, groupId);
+    }
+
+    /**
+     * Refuse l'invitation à un groupe : l'invité est retiré du groupe.
+     *
+     * @param userEmail L'adresse e-mail de l'invité.
+     * @param groupId   L'identifiant du groupe.
+     * @throws Exception Si le groupe n'existe pas, si l'utilisateur n'y est pas invité ou l'a déjà rejoint.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void decline(String userEmail, Integer groupId) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        if (jdbcTemplate.update(DELETE_INVITATION, groupId, user.getUserId()) == 0) {
+            throw new Exception("Invitation non trouvée ou déjà acceptée.");
+        }
+        log.info("{} a refusé l'invitation au groupe {}", userEmail, groupId);
+    }
+
+    /**
+     * Retourne les groupes dont un utilisateur est membre.
+     *
+     * @param userEmail L'adresse e-mail de l'utilisateur.
+     * @return Les groupes, par nom.
+     * @throws Exception Si l'utilisateur n'est pas trouvé.
+     */
+    @Transactional(readOnly = true)
+    public List<ExpenseGroup> findGroups(String userEmail) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        return expenseGroupRepository.findByMember(user);
+    }
+
+    /**
+     * Retourne les groupes auxquels un utilisateur est invité sans les avoir encore rejoints.
+     *
+     * @param userEmail L'adresse e-mail de l'utilisateur.
+     * @return Les identifiants des groupes.
+     * @throws Exception Si l'utilisateur n'est pas trouvé.
+     */
+    @Transactional(readOnly = true)
+    public Set<Integer> findInvitationIds(String userEmail) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_INVITATIONS, Integer.class, user.getUserId()));
+    }
+
+    /**
+     * Retourne un groupe avec ses membres, ses dépenses non réglées et le règlement qui le solderait.
+     *
+     * @param userEmail L'adresse e-mail d'un membre ou d'un invité du groupe.
+     * @param groupId   L'identifiant du groupe.
+     * @return Le détail du groupe.
+     * @throws Exception Si le groupe n'existe pas ou si l'utilisateur n'en est pas membre.
+     */
+    @Transactional(readOnly = true)
+    public GroupDetails getGroup(String userEmail, Integer groupId) throws Exception {
+        ExpenseGroup group = loadGroup(userEmail, groupId);
+        Set<Integer> joined = joinedMemberIds(groupId);
+        return new GroupDetails(group, joined, groupExpenseRepository.findUnsettledByGroup(group), plan(group, joined));
+    }
+
+    /**
+     * Enregistre une dépense avancée par un membre pour son groupe.
+     *
+     * @param userEmail   L'adresse e-mail du membre qui a payé.
+     * @param groupId     L'identifiant du groupe.
+     * @param amount      Le montant avancé.
+     * @param description Une description optionnelle.
+     * @return La dépense enregistrée.
+     * @throws Exception Si le groupe n'existe pas, si l'utilisateur ne l'a pas rejoint ou si le montant n'est pas positif.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public GroupExpense addExpense(String userEmail, Integer groupId, Money amount, String description) throws Exception {
+        if (amount == null || !amount.isPositive()) {
+            throw new Exception("Le montant doit être positif.");
+        }
+        ExpenseGroup group = loadGroup(userEmail, groupId);
+        jdbcTemplate.queryForObject(LOCK_GROUP, Integer.class, groupId);
+        User payer = group.getMembers().stream()
+                .filter(member -> member.getEmail().equalsIgnoreCase(userEmail))
+                .findFirst()
+                .orElseThrow(() -> new Exception("Groupe non trouvé."));
+        requireJoined(groupId, payer);
+
+        GroupExpense expense = new GroupExpense();
+        expense.setGroup(group);
+        expense.setPayer(payer);
+        expense.setAmount(amount);
+        expense.setDescription(description);
+        GroupExpense saved = groupExpenseRepository.save(expense);
+        log.info("Dépense {} de {} ajoutée au groupe {} par {}", saved.getExpenseId(), amount, groupId, userEmail);
+        return saved;
+    }
+
+    /**
+     * Règle un groupe, dans une seule transaction : les dépenses et parts ouvertes sont marquées comme réglées,
+     * le membre qui règle paie ses propres dettes, et chaque autre débiteur reçoit une demande de paiement du membre
+     * à qui il doit. Sa dette reste une part non réglée du groupe jusqu'à l'acceptation de la demande.
+     *
+     * @param userEmail L'adresse e-mail d'un membre du groupe.
+     * @param groupId   L'identifiant du groupe.
+     * @return Les transferts effectués et les demandes de paiement envoyées.
+     * @throws Exception Si le groupe n'existe pas, si l'utilisateur ne l'a pas rejoint, s'il n'y a rien à régler,
+     *                   ou si un transfert échoue (rien n'est alors effectué ni demandé).
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Settlement settle(String userEmail, Integer groupId) throws Exception {
+        ExpenseGroup group = loadGroup(userEmail, groupId);
+        jdbcTemplate.queryForObject(LOCK_GROUP, Integer.class, groupId);
+        User settler = group.getMembers().stream()
+                .filter(member -> member.getEmail().equalsIgnoreCase(userEmail))
+                .findFirst()
+                .orElseThrow(() -> new Exception("Groupe non trouvé."));
+        Set<Integer> joined = requireJoined(groupId, settler);
+        List<SettlementTransfer> transfers = plan(group, joined);
+        int settled = jdbcTemplate.update(MARK_SETTLED, Timestamp.valueOf(LocalDateTime.now()), groupId);
+        if (settled == 0) {
+            throw new Exception("Aucune dépense à régler dans ce groupe.");
+        }
+        String description = "Règlement du groupe " + group.getName();
+        description = description.length() <= 255 ? description : description.substring(0, 255);
+        List<SettlementTransfer> paid = new ArrayList<>();
+        List<SettlementTransfer> requested = new ArrayList<>();
+        for (SettlementTransfer transfer : transfers) {
+            if (transfer.from().getUserId().equals(settler.getUserId())) {
+                transactionService.transferMoney(transfer.from().getEmail(), transfer.to().getEmail(), transfer.amount(),
+                        description);
+                paid.add(transfer);
+            } else {
+                GroupExpense share = new GroupExpense();
+                share.setGroup(group);
+                share.setPayer(transfer.to());
+                share.setDebtor(transfer.from());
+                share.setAmount(transfer.amount());
+                share.setDescription(description);
+                share.setPaymentRequest(paymentRequestService.requestSettlement(transfer.to(), transfer.from(),
+                        transfer.amount(), description));
+                groupExpenseRepository.save(share);
+                requested.add(transfer);
+            }
+        }
+        log.info("Groupe {} réglé par {} : {} dépenses, {} transferts, {} demandes de paiement", groupId, userEmail,
+                settled, paid.size(), requested.size());
+        return new Settlement(paid, requested);
+    }
+
+    /**
+     * Calcule le solde net de chaque membre : total avancé moins sa part du total des dépenses,
+     * réparti à parts égales (les centimes restants vont aux membres de plus petit identifiant).
+     *
+     * @param memberIds Les identifiants des membres.
+     * @param paid      Le total avancé par membre (les membres absents n'ont rien avancé).
+     * @return Le solde net de chaque membre (somme nulle).
+     */
+    static Map<Integer, Money> netBalances(List<Integer> memberIds, Map<Integer, Money> paid) {
+        List<Integer> sorted = memberIds.stream().sorted().toList();
+        long total = paid.values().stream().mapToLong(Money::cents).sum();
+        long share = total / sorted.size();
+        long remainder = total % sorted.size();
+        Map<Integer, Money> net = new HashMap<>(sorted.size() * 2);
+        for (int i = 0; i < sorted.size(); i++) {
+            Integer memberId = sorted.get(i);
+            long due = share + (i < remainder ? 1 : 0);
+            net.put(memberId, paid.getOrDefault(memberId, Money.ZERO).minus(Money.ofCents(due)));
+        }
+        return net;
+    }
+
+    private ExpenseGroup loadGroup(String userEmail, Integer groupId) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        return expenseGroupRepository.findWithMembers(groupId, user)
+                .orElseThrow(() -> new Exception("Groupe non trouvé."));
+    }
+
+    private Set<Integer> joinedMemberIds(Integer groupId) {
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_JOINED, Integer.class, groupId));
+    }
+
+    private Set<Integer> requireJoined(Integer groupId, User member) throws Exception {
+        Set<Integer> joined = joinedMemberIds(groupId);
+        if (!joined.contains(member.getUserId())) {
+            throw new Exception("Acceptez l'invitation avant de participer aux dépenses du groupe.");
+        }
+        return joined;
+    }
+
+    /**
+     * Calcule les transferts qui soldent le groupe entre les membres qui l'ont rejoint (les invités n'y participent pas) :
+     * dépenses partagées à parts égales, plus les parts ouvertes dues par un seul membre.
+     */
+    private List<SettlementTransfer> plan(ExpenseGroup group, Set<Integer> joined) {
+        Map<Integer, User> members = group.getMembers().stream()
+                .filter(member -> joined.contains(member.getUserId()))
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+        Map<Integer, Money> paid = new TreeMap<>();
+        jdbcTemplate.query(SUM_UNSETTLED_BY_PAYER, rs -> {
+            paid.put(rs.getInt("payer_id"), Money.of(rs.getBigDecimal("paid")));
+        }, group.getGroupId());
+        paid.keySet().retainAll(members.keySet());
+        Map<Integer, Money> net = netBalances(new ArrayList<>(members.keySet()), paid);
+        jdbcTemplate.query(SUM_OPEN_SHARES, rs -> {
+            int creditor = rs.getInt("payer_id");
+            int debtor = rs.getInt("debtor_id");
+            if (members.containsKey(creditor) && members.containsKey(debtor)) {
+                Money due = Money.of(rs.getBigDecimal("due"));
+                net.merge(creditor, due, Money::plus);
+                net.merge(debtor, due, Money::minus);
+            }
+        }, group.getGroupId());
+        if (net.values().stream().noneMatch(Money::isPositive)) {
+            return List.of();
+        }
+        List<SettlementSolver.Settlement> settlements = SettlementSolver.solve(net);
+        List<SettlementTransfer> transfers = new ArrayList<>(settlements.size());
+        for (SettlementSolver.Settlement settlement : settlements) {
+            transfers.add(new SettlementTransfer(members.get(settlement.fromAccountId()),
+                    members.get(settlement.toAccountId()), settlement.amount()));
+        }
+        return transfers;
+    }
+
+    /**
+     * Détail d'un groupe.
+     *
+     * @param group           Le groupe, avec ses membres et ses invités.
+     * @param joinedMemberIds Les identifiants des membres qui ont rejoint le groupe.
+     * @param expenses        Les dépenses non réglées, les plus récentes d'abord.
+     * @param settlement      Les transferts qui solderaient le groupe.
+     */
+    public record GroupDetails(ExpenseGroup group, Set<Integer> joinedMemberIds, List<GroupExpense> expenses,
+                               List<SettlementTransfer> settlement) {
+
+        /**
+         * @param email L'adresse e-mail d'un membre ou d'un invité.
+         * @return {@code true} si cet utilisateur a rejoint le groupe.
+         */
+        public boolean hasJoined(String email) {
+            return group.getMembers().stream()
+                    .anyMatch(member -> member.getEmail().equalsIgnoreCase(email)
+                            && joinedMemberIds.contains(member.getUserId()));
+        }
+    }
+
+    /**
+     * Résultat du règlement d'un groupe.
+     *
+     * @param paid      Les transferts effectués par le membre qui a réglé.
+     * @param requested Les parts des autres débiteurs, envoyées en demandes de paiement.
+     */
+    public record Settlement(List<SettlementTransfer> paid, List<SettlementTransfer> requested) {
+    }
+
+    /**
+     * Transfert d'un règlement de groupe.
+     *
+     * @param from   Le membre qui paie.
+     * @param to     Le membre qui reçoit.
+     * @param amount Le montant.
+     */
+    public record SettlementTransfer(User from, User to, Money amount) {
+    }
+}
@@ -0,0 +1,244 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sous-soldes des comptes « chauds », crédités par une grande partie des transferts
+ * (compte de la plateforme, commerçants).
+ * <p>
+ * Un crédit vers un compte ordinaire incrémente sa ligne de {@code Users} : tous les transferts vers
+ * un même compte s'attendent alors sur ce verrou de ligne jusqu'à leur commit. Un compte chaud possède
+ * N lignes dans {@code Account_Stripes} ; chaque crédit en incrémente une, choisie par hachage de la
+ * transaction, et N transferts peuvent le créditer en même temps.
+ * <p>
+ * Le solde d'un compte chaud est {@code Users.balance} plus la somme de ses sous-soldes.
+ * Les sous-soldes sont replis dans {@code Users.balance} périodiquement ({@link #compact()}) et avant
+ * tout débit du compte ({@link #foldInto(Integer)}), qui reste conditionné par le solde de la ligne principale.
+ * <p>
+ * Un crédit sur un sous-solde n'incrémente pas {@code Users.data_version} (ce serait reprendre le verrou
+ * de la ligne) : les pages d'un compte chaud ne sont donc pas servies en GET conditionnel ({@link #isHot(String)}).
+ * <p>
+ * Les sous-soldes ne sont créés que par {@link #designate(Integer, int)} et {@link #designateConfiguredAccounts()}
+ * (au démarrage et à chaque compactage), dans leur propre transaction en écriture : les lectures
+ * ({@link #isHot(Integer)}, {@link #stripedBalance(Integer)}) n'écrivent jamais, y compris sur un réplica.
+ */
+@Slf4j
+@Service
+public class HotAccountStripes {
+
+    private static final String SELECT_STRIPE_COUNTS =
+            "SELECT s.account_id, u.email, COUNT(*) AS stripes FROM Account_Stripes s " +
+            "JOIN Users u ON u.user_id = s.account_id GROUP BY s.account_id, u.email";
+    private static final String SELECT_ACCOUNT_ID = "SELECT user_id FROM Users WHERE email = ?";
+    private static final String INSERT_STRIPE =
+            "INSERT INTO Account_Stripes (account_id, stripe_no, balance) SELECT ?, ?, 0 FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM Account_Stripes WHERE account_id = ? AND stripe_no = ?)";
+    private static final String CREDIT_STRIPE =
+            "UPDATE Account_Stripes SET balance = balance + ? WHERE account_id = ? AND stripe_no = ?";
+    private static final String SUM_STRIPES = "SELECT COALESCE(SUM(balance), 0) FROM Account_Stripes WHERE account_id = ?";
+    private static final String LOCK_STRIPES = "SELECT balance FROM Account_Stripes WHERE account_id = ? FOR UPDATE";
+    private static final String RESET_STRIPES = "UPDATE Account_Stripes SET balance = 0 WHERE account_id = ? AND balance <> 0";
+    private static final String CREDIT_ACCOUNT =
+            "UPDATE Users SET balance = balance + ?, data_version = data_version + 1 WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<String> designatedEmails;
+    private final int defaultStripes;
+
+    /**
+     * Comptes chauds (nombre de sous-soldes par compte, e-mails), rechargés à chaque compactage.
+     */
+    private final AtomicReference<HotAccounts> hotAccounts = new AtomicReference<>();
+
+    /**
+     * Construit une instance de {@code HotAccountStripes}.
+     *
+     * @param jdbcTemplate       L'accès JDBC à la base (participe à la transaction Spring en cours).
+     * @param transactionManager Le gestionnaire de transactions (une transaction courte par compte compacté ou réparti).
+     * @param designatedEmails   Les e-mails des comptes à répartir, en plus de ceux déjà présents dans {@code Account_Stripes}.
+     * @param defaultStripes     Le nombre de sous-soldes créés pour un compte désigné par configuration.
+     */
+    public HotAccountStripes(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             @Value("${paymybuddy.ledger.hot-accounts:}") List<String> designatedEmails,
+                             @Value("${paymybuddy.ledger.hot-account-stripes:16}") int defaultStripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.designatedEmails = designatedEmails;
+        this.defaultStripes = defaultStripes;
+    }
+
+    /**
+     * Indique si un compte est réparti en sous-soldes.
+     *
+     * @param accountId L'identifiant du compte.
+     * @return {@code true} si les crédits du compte vont dans ses sous-soldes.
+     */
+    public boolean isHot(Integer accountId) {
+        return hotAccounts().stripeCounts().containsKey(accountId);
+    }
+
+    /**
+     * Indique si le compte d'un utilisateur est réparti en sous-soldes, sans requête en base.
+     * Son solde et son historique changent alors sans que {@code Users.data_version} change.
+     *
+     * @param email L'e-mail de l'utilisateur.
+     * @return {@code true} si les crédits du compte vont dans ses sous-soldes.
+     */
+    public boolean isHot(String email) {
+        return hotAccounts().emails().contains(email);
+    }
+
+    /**
+     * Crédite un des sous-soldes d'un compte chaud, choisi par hachage de la transaction.
+     *
+     * @param accountId     L'identifiant du compte chaud.
+     * @param amount        Le montant crédité (positif).
+     * @param transactionId La transaction à l'origine du crédit.
+     */
+    public void credit(Integer accountId, Money amount, Integer transactionId) {
+        int stripes = hotAccounts().stripeCounts().get(accountId);
+        int stripe = Math.floorMod(Integer.rotateLeft(transactionId * 0x9E3779B9, 16), stripes);
+        if (jdbcTemplate.update(CREDIT_STRIPE, amount.toBigDecimal(), accountId, stripe) == 0) {
+            // Sous-soldes supprimés depuis le dernier chargement : crédit sur la ligne principale
+            jdbcTemplate.update(CREDIT_ACCOUNT, amount.toBigDecimal(), accountId);
+        }
+    }
+
+    /**
+     * Retourne la somme des sous-soldes d'un compte (à ajouter à {@code Users.balance}).
+     *
+     * @param accountId L'identifiant du compte.
+     * @return La somme des sous-soldes, {@link Money#ZERO} pour un compte ordinaire.
+     */
+    public Money stripedBalance(Integer accountId) {
+        if (!isHot(accountId)) {
+            return Money.ZERO;
+        }
+        return Money.of(jdbcTemplate.queryForObject(SUM_STRIPES, BigDecimal.class, accountId));
+    }
+
+    /**
+     * Replie les sous-soldes d'un compte dans sa ligne {@code Users}, dans la transaction en cours.
+     * Les sous-soldes sont verrouillés jusqu'au commit : les crédits concurrents attendent, puis reprennent
+     * sur des sous-soldes remis à zéro.
+     *
+     * @param accountId L'identifiant du compte.
+     * @return Le montant replié.
+     */
+    public Money foldInto(Integer accountId) {
+        Money folded = Money.ZERO;
+        for (BigDecimal stripe : jdbcTemplate.queryForList(LOCK_STRIPES, BigDecimal.class, accountId)) {
+            folded = folded.plus(Money.of(stripe));
+        }
+        if (!folded.equals(Money.ZERO)) {
+            jdbcTemplate.update(RESET_STRIPES, accountId);
+            jdbcTemplate.update(CREDIT_ACCOUNT, folded.toBigDecimal(), accountId);
+        }
+        return folded;
+    }
+
+    /**
+     * Replie les sous-soldes de chaque compte chaud, un compte par transaction courte,
+     * et recharge la liste des comptes chauds.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.ledger.stripe-compaction-interval:PT1M}")
+    public void compact() {
+        designateConfiguredAccounts();
+        Map<Integer, Integer> counts = hotAccounts().stripeCounts();
+        Money total = Money.ZERO;
+        for (Integer accountId : counts.keySet()) {
+            try {
+                total = total.plus(transactionTemplate.execute(status -> foldInto(accountId)));
+            } catch (DataAccessException e) {
+                log.warn("Compactage des sous-soldes du compte {} impossible : {}", accountId, e.getMessage());
+            }
+        }
+        log.debug("Sous-soldes de {} compte(s) chaud(s) repliés : {}", counts.size(), total);
+    }
+
+    /**
+     * Répartit un compte en sous-soldes (sans effet sur les sous-soldes existants).
+     *
+     * @param accountId L'identifiant du compte.
+     * @param stripes   Le nombre de sous-soldes.
+     */
+    public void designate(Integer accountId, int stripes) {
+        insertStripes(accountId, stripes);
+        refresh();
+        log.info("Compte {} réparti en {} sous-soldes", accountId, stripes);
+    }
+
+    /**
+     * Répartit en sous-soldes les comptes désignés par configuration qui ne le sont pas encore,
+     * un compte par transaction en écriture, puis recharge la liste des comptes chauds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void designateConfiguredAccounts() {
+        HotAccounts current = hotAccounts.get();
+        for (String email : designatedEmails) {
+            List<Integer> ids = jdbcTemplate.queryForList(SELECT_ACCOUNT_ID, Integer.class, email.trim());
+            if (ids.isEmpty()) {
+                log.warn("Compte chaud configuré introuvable : {}", email);
+            } else if (current == null || !current.stripeCounts().containsKey(ids.get(0))) {
+                try {
+                    insertStripes(ids.get(0), defaultStripes);
+                } catch (DataAccessException e) {
+                    log.warn("Création des sous-soldes du compte {} impossible : {}", email, e.getMessage());
+                }
+            }
+        }
+        refresh();
+    }
+
+    private void insertStripes(Integer accountId, int stripes) {
+        List<Object[]> rows = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            rows.add(new Object[]{accountId, stripe, accountId, stripe});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_STRIPE, rows));
+    }
+
+    private HotAccounts hotAccounts() {
+        HotAccounts accounts = hotAccounts.get();
+        return accounts != null ? accounts : refresh();
+    }
+
+    /**
+     * Recharge la liste des comptes chauds, en lecture seule : elle peut s'exécuter dans une transaction
+     * {@code readOnly} orientée vers un réplica.
+     */
+    private HotAccounts refresh() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        Set<String> emails = new HashSet<>();
+        jdbcTemplate.query(SELECT_STRIPE_COUNTS, rs -> {
+            counts.put(rs.getInt("account_id"), rs.getInt("stripes"));
+            emails.add(rs.getString("email"));
+        });
+        HotAccounts snapshot = new HotAccounts(Map.copyOf(counts), Set.copyOf(emails));
+        hotAccounts.set(snapshot);
+        return snapshot;
+    }
+
+    private record HotAccounts(Map<Integer, Integer> stripeCounts, Set<String> emails) {
+    }
+}
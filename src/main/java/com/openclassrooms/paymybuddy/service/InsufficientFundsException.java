@@ -0,0 +1,25 @@
+package com.openclassrooms.paymybuddy.service;
+
+/**
+ * Exception levée par {@link LedgerService} lorsqu'un débit rendrait le solde d'un compte négatif.
+ * Le message est destiné à l'utilisateur.
+ */
+public class InsufficientFundsException extends Exception {
+
+    private final Integer accountId;
+
+    /**
+     * Construit l'exception.
+     *
+     * @param accountId L'identifiant du compte dont le solde est insuffisant.
+     * @param message   Le message affiché à l'utilisateur.
+     */
+    public InsufficientFundsException(Integer accountId, String message) {
+        super(message);
+        this.accountId = accountId;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+}
@@ -0,0 +1,183 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Contrôle de cohérence du journal en partie double.
+ * Vérifie que :
+ * <ul>
+ *     <li>les écritures de chaque transaction ont une somme nulle (et donc le journal entier) ;</li>
+ *     <li>le solde en cache de chaque compte ({@code Users.balance} et ses sous-soldes {@code Account_Stripes})
+ *     est égal à la somme de ses écritures.</li>
+ * </ul>
+ * Le contrôle est découpé en tranches d'identifiants (transactions, puis comptes) vérifiées en parallèle,
+ * une tranche par cœur. Chaque tranche est lue dans une transaction en lecture seule
+ * {@code REPEATABLE READ} : soldes et écritures d'une tranche proviennent du même instantané InnoDB,
+ * les transferts en cours ne provoquent pas de fausse alerte.
+ */
+@Slf4j
+@Service
+public class LedgerConsistencyChecker {
+
+    private static final String TRANSACTION_ID_RANGE = "SELECT COALESCE(MIN(transaction_id), 0), COALESCE(MAX(transaction_id), 0) FROM Ledger_Postings";
+    private static final String ACCOUNT_ID_RANGE = "SELECT COALESCE(MIN(user_id), 0), COALESCE(MAX(user_id), 0) FROM Users";
+    private static final String UNBALANCED_ENTRIES =
+            "SELECT transaction_id, SUM(amount) AS total FROM Ledger_Postings " +
+            "WHERE transaction_id BETWEEN ? AND ? GROUP BY transaction_id HAVING SUM(amount) <> 0";
+    private static final String POSTINGS_BY_ACCOUNT =
+            "SELECT account_id, SUM(amount) AS total FROM Ledger_Postings WHERE account_id BETWEEN ? AND ? GROUP BY account_id";
+    private static final String BALANCES =
+            "SELECT u.user_id, u.balance + COALESCE((SELECT SUM(s.balance) FROM Account_Stripes s " +
+            "WHERE s.account_id = u.user_id), 0) AS balance FROM Users u WHERE u.user_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int parallelism;
+
+    /**
+     * Construit une instance de {@code LedgerConsistencyChecker}.
+     *
+     * @param jdbcTemplate       L'accès JDBC à la base.
+     * @param transactionManager Le gestionnaire de transactions (une transaction de lecture par tranche).
+     * @param parallelism        Le nombre de tranches vérifiées en parallèle (0 : nombre de cœurs).
+     */
+    public LedgerConsistencyChecker(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    @Value("${paymybuddy.ledger.check-parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Vérifie le journal et journalise le résultat (erreur si une incohérence est trouvée).
+     */
+    @Scheduled(cron = "${paymybuddy.ledger.check-cron:0 0 4 * * *}")
+    public void scheduledCheck() {
+        Report report = check();
+        if (report.isConsistent()) {
+            log.info("Journal cohérent : {} tranches vérifiées", report.slices());
+        } else {
+            log.error("Journal incohérent : transactions déséquilibrées {}, soldes incorrects {}",
+                    report.unbalancedTransactions(), report.mismatchedAccounts());
+        }
+    }
+
+    /**
+     * Vérifie le journal.
+     *
+     * @return Le rapport de vérification.
+     */
+    public Report check() {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Map<Integer, Money>>> entries = new ArrayList<>();
+            for (long[] slice : slices(TRANSACTION_ID_RANGE)) {
+                entries.add(executor.submit(() -> unbalancedEntries(slice[0], slice[1])));
+            }
+            List<Future<Map<Integer, Mismatch>>> accounts = new ArrayList<>();
+            for (long[] slice : slices(ACCOUNT_ID_RANGE)) {
+                accounts.add(executor.submit(() -> mismatchedAccounts(slice[0], slice[1])));
+            }
+            Map<Integer, Money> unbalanced = new HashMap<>();
+            for (Future<Map<Integer, Money>> future : entries) {
+                unbalanced.putAll(future.get());
+            }
+            Map<Integer, Mismatch> mismatched = new HashMap<>();
+            for (Future<Map<Integer, Mismatch>> future : accounts) {
+                mismatched.putAll(future.get());
+            }
+            return new Report(entries.size() + accounts.size(), unbalanced, mismatched);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Vérification du journal interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Vérification du journal impossible", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Découpe l'intervalle d'identifiants retourné par la requête en {@code parallelism} tranches contiguës.
+     */
+    private List<long[]> slices(String rangeQuery) {
+        long[] range = jdbcTemplate.queryForObject(rangeQuery, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long size = Math.max(1, (range[1] - range[0] + parallelism) / parallelism);
+        List<long[]> slices = new ArrayList<>();
+        for (long start = range[0]; start <= range[1]; start += size) {
+            slices.add(new long[]{start, Math.min(range[1], start + size - 1)});
+        }
+        return slices;
+    }
+
+    private Map<Integer, Money> unbalancedEntries(long from, long to) {
+        return snapshotTemplate.execute(status -> {
+            Map<Integer, Money> unbalanced = new HashMap<>();
+            jdbcTemplate.query(UNBALANCED_ENTRIES, rs -> {
+                unbalanced.put(rs.getInt("transaction_id"), Money.of(rs.getBigDecimal("total")));
+            }, from, to);
+            return unbalanced;
+        });
+    }
+
+    private Map<Integer, Mismatch> mismatchedAccounts(long from, long to) {
+        return snapshotTemplate.execute(status -> {
+            Map<Integer, Money> postings = new HashMap<>();
+            jdbcTemplate.query(POSTINGS_BY_ACCOUNT, rs -> {
+                postings.put(rs.getInt("account_id"), Money.of(rs.getBigDecimal("total")));
+            }, from, to);
+            Map<Integer, Mismatch> mismatched = new HashMap<>();
+            jdbcTemplate.query(BALANCES, rs -> {
+                int accountId = rs.getInt("user_id");
+                Money balance = Money.of(rs.getBigDecimal("balance"));
+                Money expected = postings.getOrDefault(accountId, Money.ZERO);
+                if (!balance.equals(expected)) {
+                    mismatched.put(accountId, new Mismatch(balance, expected));
+                }
+            }, from, to);
+            return mismatched;
+        });
+    }
+
+    /**
+     * Résultat d'une vérification du journal.
+     *
+     * @param slices                 Le nombre de tranches vérifiées.
+     * @param unbalancedTransactions Les transactions dont les écritures ne s'annulent pas (identifiant -> somme).
+     * @param mismatchedAccounts     Les comptes dont le solde diffère de la somme des écritures.
+     */
+    public record Report(int slices, Map<Integer, Money> unbalancedTransactions, Map<Integer, Mismatch> mismatchedAccounts) {
+
+        public boolean isConsistent() {
+            return unbalancedTransactions.isEmpty() && mismatchedAccounts.isEmpty();
+        }
+    }
+
+    /**
+     * Écart entre le solde en cache d'un compte et la somme de ses écritures.
+     *
+     * @param balance  Le solde en cache ({@code Users.balance} et sous-soldes).
+     * @param postings La somme des écritures du compte.
+     */
+    public record Mismatch(Money balance, Money postings) {
+    }
+}
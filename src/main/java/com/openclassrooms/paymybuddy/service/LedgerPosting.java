@@ -0,0 +1,41 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+/**
+ * Écriture du journal en partie double (ligne de la table {@code Ledger_Postings}).
+ * Un montant négatif est un débit du compte, un montant positif un crédit ;
+ * les écritures d'une même transaction ont une somme nulle.
+ *
+ * @param accountId L'identifiant du compte mouvementé ({@code Users.user_id}).
+ * @param amount    Le montant signé de l'écriture.
+ * @param type      La nature de l'écriture.
+ */
+public record LedgerPosting(Integer accountId, Money amount, Type type) {
+
+    /**
+     * Nature d'une écriture.
+     */
+    public enum Type {
+        /**
+         * Montant transféré d'un utilisateur à un autre.
+         */
+        TRANSFER,
+        /**
+         * Frais de transfert, crédités au compte de la plateforme.
+         */
+        FEE,
+        /**
+         * Solde d'ouverture repris lors de la mise en place du journal.
+         */
+        OPENING
+    }
+
+    public static LedgerPosting debit(Integer accountId, Money amount, Type type) {
+        return new LedgerPosting(accountId, amount.negate(), type);
+    }
+
+    public static LedgerPosting credit(Integer accountId, Money amount, Type type) {
+        return new LedgerPosting(accountId, amount, type);
+    }
+}
@@ -0,0 +1,155 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service du journal en partie double.
+ * Chaque transfert est enregistré comme un ensemble d'écritures équilibrées ({@link LedgerPosting}) :
+ * débit de l'expéditeur, crédit du destinataire et, s'il y a des frais, débit de l'expéditeur et crédit
+ * du compte de la plateforme.
+ * <p>
+ * Le solde d'un compte ({@code Users.balance}) est l'agrégat en cache de ses écritures. Il n'est jamais lu
+ * puis réécrit par l'application : chaque compte mouvementé reçoit un seul incrément atomique
+ * ({@code balance = balance + ?}), conditionné pour un débit à ce que le solde reste positif.
+ * Deux transferts concurrents depuis le même compte ne peuvent donc ni s'écraser ni dépasser le solde.
+ * <p>
+ * Les crédits vers un compte chaud (compte de la plateforme, commerçant) vont dans un de ses sous-soldes
+ * ({@link HotAccountStripes}) plutôt que sur sa ligne {@code Users}, pour que les transferts concurrents
+ * vers ce compte ne s'attendent pas.
+ * <p>
+ * Les méthodes doivent être appelées dans la transaction du transfert : un solde insuffisant lève
+ * une {@link InsufficientFundsException} et l'annulation de la transaction efface les écritures déjà faites.
+ */
+@Slf4j
+@Service
+public class LedgerService {
+
+    private static final String INSERT_POSTING =
+            "INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) VALUES (?, ?, ?, ?)";
+    private static final String CREDIT_ACCOUNT =
+            "UPDATE Users SET balance = balance + ?, data_version = data_version + 1 WHERE user_id = ?";
+    private static final String DEBIT_ACCOUNT =
+            "UPDATE Users SET balance = balance + ?, data_version = data_version + 1 WHERE user_id = ? AND balance + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotAccountStripes hotAccounts;
+
+    /**
+     * Construit une instance de {@code LedgerService}.
+     *
+     * @param jdbcTemplate L'accès JDBC à la base (participe à la transaction Spring en cours).
+     * @param hotAccounts  Les sous-soldes des comptes chauds.
+     */
+    public LedgerService(JdbcTemplate jdbcTemplate, HotAccountStripes hotAccounts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotAccounts = hotAccounts;
+    }
+
+    /**
+     * Retourne le solde d'un compte : sa ligne {@code Users} et, pour un compte chaud, ses sous-soldes.
+     *
+     * @param accountId      L'identifiant du compte.
+     * @param mainRowBalance Le solde de la ligne {@code Users} (entité déjà chargée).
+     * @return Le solde du compte.
+     */
+    public Money balanceOf(Integer accountId, Money mainRowBalance) {
+        return mainRowBalance.plus(hotAccounts.stripedBalance(accountId));
+    }
+
+    /**
+     * Enregistre les écritures d'un transfert et met à jour les soldes des comptes concernés.
+     *
+     * @param transactionId     L'identifiant de la transaction (en-tête de l'écriture de journal).
+     * @param senderId          Le compte de l'expéditeur.
+     * @param receiverId        Le compte du destinataire.
+     * @param amount            Le montant transféré.
+     * @param fee               Les frais payés par l'expéditeur.
+     * @param platformAccountId Le compte de la plateforme, crédité des frais.
+     * @return Les écritures enregistrées.
+     * @throws InsufficientFundsException si le solde de l'expéditeur ne couvre pas le montant et les frais.
+     */
+    public List<LedgerPosting> recordTransfer(Integer transactionId, Integer senderId, Integer receiverId,
+                                              Money amount, Money fee, Integer platformAccountId)
+            throws InsufficientFundsException {
+        List<LedgerPosting> postings = new ArrayList<>(4);
+        postings.add(LedgerPosting.debit(senderId, amount, LedgerPosting.Type.TRANSFER));
+        postings.add(LedgerPosting.credit(receiverId, amount, LedgerPosting.Type.TRANSFER));
+        if (fee.isPositive()) {
+            postings.add(LedgerPosting.debit(senderId, fee, LedgerPosting.Type.FEE));
+            postings.add(LedgerPosting.credit(platformAccountId, fee, LedgerPosting.Type.FEE));
+        }
+        post(transactionId, postings, "Solde insuffisant pour effectuer ce transfert"
+                + (fee.isPositive() ? " (incluant les frais de " + fee + " €)." : "."));
+        return postings;
+    }
+
+    /**
+     * Enregistre une écriture de journal équilibrée.
+     * Les écritures sont regroupées par compte (un seul incrément par compte). Les verrous sont toujours pris
+     * dans le même ordre, pour que deux transferts croisés ne puissent pas s'interbloquer : d'abord les
+     * sous-soldes des comptes chauds (crédit d'un sous-solde, ou repli de tous avant un débit), puis les
+     * lignes {@code Users}, chaque groupe par identifiant de compte croissant.
+     *
+     * @param transactionId         L'identifiant de la transaction.
+     * @param postings              Les écritures, de somme nulle.
+     * @param insufficientFundsText Le message de l'exception levée si un débit rend un solde négatif.
+     * @throws InsufficientFundsException si un compte débité n'a pas un solde suffisant.
+     * @throws IllegalArgumentException   si les écritures ne sont pas équilibrées.
+     */
+    public void post(Integer transactionId, List<LedgerPosting> postings, String insufficientFundsText)
+            throws InsufficientFundsException {
+        Map<Integer, Money> netByAccount = new TreeMap<>();
+        Money total = Money.ZERO;
+        for (LedgerPosting posting : postings) {
+            total = total.plus(posting.amount());
+            netByAccount.merge(posting.accountId(), posting.amount(), Money::plus);
+        }
+        if (!total.equals(Money.ZERO)) {
+            throw new IllegalArgumentException("Écriture de journal déséquilibrée pour la transaction "
+                    + transactionId + " : " + total);
+        }
+
+        for (Map.Entry<Integer, Money> entry : netByAccount.entrySet()) {
+            if (hotAccounts.isHot(entry.getKey())) {
+                if (entry.getValue().isPositive()) {
+                    hotAccounts.credit(entry.getKey(), entry.getValue(), transactionId);
+                } else if (entry.getValue().isNegative()) {
+                    // Le débit est contrôlé sur la ligne principale : y ramener d'abord les sous-soldes
+                    hotAccounts.foldInto(entry.getKey());
+                }
+            }
+        }
+        for (Map.Entry<Integer, Money> entry : netByAccount.entrySet()) {
+            Money net = entry.getValue();
+            if (net.isPositive() && hotAccounts.isHot(entry.getKey())) {
+                continue; // déjà crédité sur un sous-solde
+            }
+            if (net.isNegative()) {
+                int updated = jdbcTemplate.update(DEBIT_ACCOUNT, net.toBigDecimal(), entry.getKey(), net.toBigDecimal());
+                if (updated == 0) {
+                    log.warn("Débit refusé pour le compte {} : solde insuffisant pour {}", entry.getKey(), net);
+                    throw new InsufficientFundsException(entry.getKey(), insufficientFundsText);
+                }
+            } else if (net.isPositive()) {
+                if (jdbcTemplate.update(CREDIT_ACCOUNT, net.toBigDecimal(), entry.getKey()) == 0) {
+                    throw new IllegalStateException("Compte introuvable : " + entry.getKey());
+                }
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(postings.size());
+        for (LedgerPosting posting : postings) {
+            rows.add(new Object[]{transactionId, posting.accountId(), posting.amount().toBigDecimal(), posting.type().name()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_POSTING, rows);
+        log.debug("{} écritures enregistrées pour la transaction {}", postings.size(), transactionId);
+    }
+}
@@ -0,0 +1,232 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.GroupExpense;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.GroupExpenseRepository;
+import com.openclassrooms.paymybuddy.repository.PaymentRequestRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service des demandes de paiement : un utilisateur demande un montant à l'une de ses relations,
+ * qui l'accepte (le transfert est effectué par {@link TransactionService}) ou la refuse.
+ * <p>
+ * Le nombre de demandes non lues (affiché sur la page d'accueil) est mis en cache par utilisateur,
+ * indexé par le tampon de version des données ({@link User#getDataVersion()}) : la création d'une demande
+ * et la lecture de la boîte de réception incrémentent la version du payeur, ce qui invalide le compteur
+ * sur tous les nœuds sans autre échange. Le cache est borné (politique LRU).
+ * <p>
+ * Une demande issue du règlement d'un groupe de dépenses est liée à sa part ({@link GroupExpense}) :
+ * l'accepter règle la part, la refuser la rouvre dans le groupe.
+ */
+@Slf4j
+@Service
+public class PaymentRequestService {
+
+    private final PaymentRequestRepository paymentRequestRepository;
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final GroupExpenseRepository groupExpenseRepository;
+    private final Map<String, CachedCount> unreadCounts;
+
+    /**
+     * Construit une instance de {@code PaymentRequestService}.
+     *
+     * @param paymentRequestRepository Le repository des demandes de paiement.
+     * @param userRepository           Le repository des utilisateurs.
+     * @param transactionService       Le service qui effectue le transfert d'une demande acceptée.
+     * @param groupExpenseRepository   Le repository des dépenses de groupe (parts de règlement liées aux demandes).
+     * @param maxEntries               Nombre maximal d'utilisateurs dont le compteur de demandes non lues est conservé.
+     */
+    public PaymentRequestService(PaymentRequestRepository paymentRequestRepository, UserRepository userRepository,
+                                 TransactionService transactionService, GroupExpenseRepository groupExpenseRepository,
+                                 @Value("${paymybuddy.payment-requests.unread-cache-max-entries:10000}") int maxEntries) {
+        this.paymentRequestRepository = paymentRequestRepository;
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.groupExpenseRepository = groupExpenseRepository;
+        this.unreadCounts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCount> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Crée une demande de paiement adressée à une relation du demandeur.
+     *
+     * @param requesterEmail L'adresse e-mail du demandeur.
+     * @param payerEmail     L'adresse e-mail du payeur (une relation du demandeur).
+     * @param amount         Le montant demandé.
+     * @param description    Une description optionnelle, reprise sur la transaction si la demande est acceptée.
+     * @return La demande enregistrée.
+     * @throws Exception Si un utilisateur n'est pas trouvé, si le demandeur est le payeur,
+     *                   si le montant n'est pas positif ou si le payeur ne fait pas partie des relations du demandeur.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public PaymentRequest request(String requesterEmail, String payerEmail, Money amount, String description) throws Exception {
+        if (requesterEmail.equalsIgnoreCase(payerEmail)) {
+            throw new Exception("Vous ne pouvez pas vous adresser une demande de paiement.");
+        }
+        if (amount == null || !amount.isPositive()) {
+            throw new Exception("Le montant doit être positif.");
+        }
+        User requester = userRepository.findByEmail(requesterEmail)
+                .orElseThrow(() -> new Exception("Utilisateur demandeur non trouvé."));
+        User payer = userRepository.findByEmail(payerEmail)
+                .orElseThrow(() -> new Exception("L'utilisateur avec l'email '" + payerEmail + "' n'a pas été trouvé."));
+        if (!userRepository.isConnected(requester.getUserId(), payer.getUserId())) {
+            throw new Exception("Vous ne pouvez demander un paiement qu'à l'une de vos relations.");
+        }
+        return create(requester, payer, amount, description);
+    }
+
+    /**
+     * Crée la demande de paiement d'une part du règlement d'un groupe de dépenses ({@link GroupExpenseService#settle}),
+     * du membre créancier au membre débiteur. Les deux ont rejoint le groupe : ils n'ont pas à être en relation.
+     * Le débiteur reste libre d'accepter ou de refuser la demande : la part liée à la demande
+     * ({@link GroupExpense#getPaymentRequest()}) est alors réglée ou rouverte.
+     *
+     * @param requester   Le membre créancier.
+     * @param payer       Le membre débiteur.
+     * @param amount      Le montant de la part.
+     * @param description La description, reprise sur la transaction si la demande est acceptée.
+     * @return La demande enregistrée.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public PaymentRequest requestSettlement(User requester, User payer, Money amount, String description) {
+        return create(requester, payer, amount, description);
+    }
+
+    private PaymentRequest create(User requester, User payer, Money amount, String description) {
+        PaymentRequest paymentRequest = new PaymentRequest();
+        paymentRequest.setRequester(requester);
+        paymentRequest.setPayer(payer);
+        paymentRequest.setAmount(amount);
+        paymentRequest.setDescription(description);
+        PaymentRequest saved = paymentRequestRepository.save(paymentRequest);
+        userRepository.incrementDataVersion(payer.getUserId()); // Nouvelle demande non lue : page d'accueil du payeur modifiée
+        log.info("Demande de paiement {} de {} à {} ({})", saved.getPaymentRequestId(), requester.getEmail(),
+                payer.getEmail(), amount);
+        return saved;
+    }
+
+    /**
+     * Retourne la boîte de réception d'un payeur (demandes en attente, les plus récentes d'abord)
+     * et marque ces demandes comme lues. Les demandes retournées gardent leur date de lecture d'avant l'appel
+     * ({@code readAt} nul : demande nouvelle).
+     *
+     * @param payerEmail L'adresse e-mail du payeur.
+     * @return Les demandes en attente, avec leur demandeur.
+     * @throws Exception Si l'utilisateur n'est pas trouvé.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<PaymentRequest> getInbox(String payerEmail) throws Exception {
+        User payer = userRepository.findByEmail(payerEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        List<PaymentRequest> inbox = paymentRequestRepository.findPendingByPayer(payer);
+        if (inbox.stream().anyMatch(paymentRequest -> paymentRequest.getReadAt() == null)
+                && paymentRequestRepository.markReadByPayer(payer, LocalDateTime.now()) > 0) {
+            userRepository.incrementDataVersion(payer.getUserId()); // Compteur de demandes non lues remis à zéro
+        }
+        return inbox;
+    }
+
+    /**
+     * Retourne les demandes en attente envoyées par un demandeur, les plus récentes d'abord.
+     *
+     * @param requesterEmail L'adresse e-mail du demandeur.
+     * @return Les demandes en attente, avec leur payeur.
+     * @throws Exception Si l'utilisateur n'est pas trouvé.
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentRequest> getSent(String requesterEmail) throws Exception {
+        User requester = userRepository.findByEmail(requesterEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        return paymentRequestRepository.findPendingByRequester(requester);
+    }
+
+    /**
+     * Retourne le nombre de demandes en attente non lues d'un payeur, depuis le cache
+     * tant que la version de ses données n'a pas changé.
+     *
+     * @param payerEmail  L'adresse e-mail du payeur.
+     * @param dataVersion Le tampon de version des données du payeur.
+     * @return Le nombre de demandes non lues.
+     */
+    public long countUnread(String payerEmail, long dataVersion) {
+        CachedCount cached = unreadCounts.get(payerEmail);
+        if (cached != null && cached.version() == dataVersion) {
+            return cached.count();
+        }
+        long count = paymentRequestRepository.countUnreadByPayerEmail(payerEmail);
+        unreadCounts.put(payerEmail, new CachedCount(dataVersion, count));
+        return count;
+    }
+
+    /**
+     * Accepte une demande de paiement : la demande est marquée acceptée et le transfert du payeur vers le demandeur
+     * est effectué dans la même transaction (tout est annulé si le transfert échoue, par exemple solde insuffisant),
+     * ainsi que le règlement de la part de groupe liée à la demande.
+     * Seuls le payeur et le demandeur sont chargés, pas leurs relations.
+     *
+     * @param payerEmail       L'adresse e-mail du payeur (seul autorisé à accepter).
+     * @param paymentRequestId L'identifiant de la demande.
+     * @throws Exception Si la demande n'existe pas, n'est pas adressée au payeur ou n'est plus en attente,
+     *                   ou si le transfert échoue (voir {@link TransactionService#transferMoney}).
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void accept(String payerEmail, Integer paymentRequestId) throws Exception {
+        User payer = userRepository.findByEmail(payerEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        PaymentRequest paymentRequest = paymentRequestRepository.findById(paymentRequestId)
+                .filter(candidate -> candidate.getPayer().getUserId().equals(payer.getUserId()))
+                .orElseThrow(() -> new Exception("Demande de paiement non trouvée."));
+        // Réservation de la demande avant le transfert : une seconde acceptation concurrente attend puis échoue ici
+        if (paymentRequestRepository.respondIfPending(paymentRequestId, payer, PaymentRequest.Status.ACCEPTED,
+                LocalDateTime.now()) == 0) {
+            throw new Exception("Cette demande de paiement n'est plus en attente.");
+        }
+        transactionService.transferMoney(payerEmail, paymentRequest.getRequester().getEmail(),
+                paymentRequest.getAmount(), paymentRequest.getDescription());
+        groupExpenseRepository.settleRequestedShare(paymentRequest, LocalDateTime.now());
+        log.info("Demande de paiement {} acceptée par {}", paymentRequestId, payerEmail);
+    }
+
+    /**
+     * Refuse une demande de paiement. La part d'un règlement de groupe liée à la demande est rouverte.
+     *
+     * @param payerEmail       L'adresse e-mail du payeur (seul autorisé à refuser).
+     * @param paymentRequestId L'identifiant de la demande.
+     * @throws Exception Si la demande n'existe pas, n'est pas adressée au payeur ou n'est plus en attente.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void decline(String payerEmail, Integer paymentRequestId) throws Exception {
+        User payer = userRepository.findByEmail(payerEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        if (paymentRequestRepository.respondIfPending(paymentRequestId, payer, PaymentRequest.Status.DECLINED,
+                LocalDateTime.now()) == 0) {
+            throw new Exception("Demande de paiement non trouvée ou déjà traitée.");
+        }
+        // Part d'un règlement de groupe : la dette reste due dans le groupe
+        if (groupExpenseRepository.reopenRequestedShare(paymentRequestRepository.getReferenceById(paymentRequestId)) > 0) {
+            log.info("Part de règlement de la demande {} rouverte dans son groupe", paymentRequestId);
+        }
+        log.info("Demande de paiement {} refusée par {}", paymentRequestId, payerEmail);
+    }
+
+    private record CachedCount(long version, long count) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+/**
+ * Transfert validé par {@link TransactionService#prepareTransfer}, prêt à être enregistré :
+ * participants résolus, frais calculés et solde de l'expéditeur contrôlé une première fois.
+ * Il ne contient que des valeurs (pas d'entités), pour pouvoir être journalisé puis appliqué plus tard.
+ *
+ * @param senderId      L'identifiant de l'expéditeur.
+ * @param senderEmail   L'e-mail de l'expéditeur.
+ * @param receiverId    L'identifiant du destinataire.
+ * @param receiverEmail L'e-mail du destinataire.
+ * @param amount        Le montant transféré.
+ * @param fee           Les frais payés par l'expéditeur.
+ * @param description   La description du transfert (peut être {@code null}).
+ */
+public record PreparedTransfer(Integer senderId, String senderEmail, Integer receiverId, String receiverEmail,
+                               Money amount, Money fee, String description) {
+}
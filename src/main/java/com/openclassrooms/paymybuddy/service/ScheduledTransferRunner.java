@@ -0,0 +1,465 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.fraud.TransferBlockedException;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Planificateur des virements programmés ({@link ScheduledTransfer}), exécutés par lots hors pointe.
+ * <p>
+ * À chaque passage, les virements arrivés à échéance sont réservés par paquets de {@code chunkSize} :
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} puis pose d'un bail ({@code lease_until}), dans une transaction courte.
+ * Plusieurs nœuds peuvent donc tourner en même temps sans s'attendre ni exécuter deux fois la même échéance.
+ * Un virement n'est pas réservé tant qu'une autre échéance du même expéditeur est sous bail.
+ * <p>
+ * Les virements d'un paquet sont regroupés par expéditeur : chaque expéditeur est traité par une seule tâche,
+ * dans l'ordre des échéances, sur un pool borné de {@code parallelism} threads. Le paquet suivant n'est réservé
+ * qu'une fois le précédent terminé, ce qui préserve l'ordre des virements de chaque expéditeur.
+ * <p>
+ * Chaque échéance est exécutée par {@link TransactionService#transferMoney}, dans la même transaction que
+ * le passage à l'échéance suivante : un virement ne peut pas être exécuté sans que son échéance avance.
+ * Un solde insuffisant (ou une erreur transitoire de la base) reporte l'échéance avec un délai doublé à chaque
+ * tentative ; après {@code maxAttempts} tentatives, l'échéance est abandonnée (virement ponctuel en échec,
+ * virement récurrent repris à l'échéance suivante). Toute autre erreur met le virement en échec.
+ * <p>
+ * Rattrapage après une interruption (panne, maintenance, planificateur arrêté) : les échéances d'un virement
+ * récurrent plus anciennes que {@code catchUpWindow} ne sont pas exécutées. Elles sont sautées en une fois
+ * (et signalées dans {@code last_error}), puis le virement reprend à la première échéance de la fenêtre,
+ * exécutée dans le même passage si elle est déjà due. Un virement ponctuel est toujours exécuté, même en retard.
+ * Ainsi, un utilisateur n'est jamais débité de plusieurs mois d'un coup au redémarrage.
+ * <p>
+ * Le retard (échéance la plus ancienne en attente) et le débit de chaque passage sont journalisés
+ * et disponibles par {@link #getLastRun()} et {@link #currentLag()}.
+ */
+@Slf4j
+@Service
+public class ScheduledTransferRunner {
+
+    private static final String CLAIM_DUE =
+            "SELECT st.scheduled_transfer_id, st.sender_id, st.receiver_id, st.amount, st.description, st.frequency, " +
+            "st.first_run_at, st.occurrences, st.next_run_at, st.attempts " +
+            "FROM Scheduled_Transfers st " +
+            "WHERE st.status = 'ACTIVE' AND st.next_run_at <= ? AND (st.lease_until IS NULL OR st.lease_until < ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM Scheduled_Transfers other WHERE other.sender_id = st.sender_id " +
+            "AND other.status = 'ACTIVE' AND other.lease_until >= ?) " +
+            "ORDER BY st.next_run_at, st.scheduled_transfer_id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SET_LEASE =
+            "UPDATE Scheduled_Transfers SET lease_until = ? WHERE scheduled_transfer_id = ?";
+    private static final String SELECT_EMAILS = "SELECT user_id, email FROM Users WHERE user_id IN (:ids)";
+    private static final String ADVANCE =
+            "UPDATE Scheduled_Transfers SET status = ?, occurrences = ?, next_run_at = ?, attempts = 0, " +
+            "last_error = ?, lease_until = NULL " +
+            "WHERE scheduled_transfer_id = ? AND status = 'ACTIVE' AND next_run_at = ?";
+    private static final String SKIP_MISSED =
+            "UPDATE Scheduled_Transfers SET occurrences = ?, next_run_at = ?, attempts = 0, last_error = ? " +
+            "WHERE scheduled_transfer_id = ? AND status = 'ACTIVE' AND next_run_at = ?";
+    private static final String RETRY_LATER =
+            "UPDATE Scheduled_Transfers SET attempts = ?, next_run_at = ?, last_error = ?, lease_until = NULL " +
+            "WHERE scheduled_transfer_id = ? AND status = 'ACTIVE' AND next_run_at = ?";
+    private static final String OLDEST_DUE =
+            "SELECT MIN(next_run_at) FROM Scheduled_Transfers WHERE status = 'ACTIVE' AND next_run_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int chunkSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration catchUpWindow;
+
+    private final LongAdder executedTotal = new LongAdder();
+    private final LongAdder retriedTotal = new LongAdder();
+    private final LongAdder failedTotal = new LongAdder();
+    private final LongAdder skippedTotal = new LongAdder();
+    private volatile RunStats lastRun;
+
+    /**
+     * Construit une instance de {@code ScheduledTransferRunner}.
+     *
+     * @param jdbcTemplate       L'accès JDBC à la base.
+     * @param transactionService Le service qui exécute les transferts.
+     * @param transactionManager Le gestionnaire de transactions (réservation, puis une transaction par échéance).
+     * @param parallelism        Le nombre de threads d'exécution.
+     * @param chunkSize          Le nombre de virements réservés à la fois.
+     * @param lease              La durée du bail d'un paquet réservé (au-delà, un autre nœud peut le reprendre).
+     * @param maxAttempts        Le nombre de tentatives d'une échéance avant abandon.
+     * @param retryBackoff       Le délai avant la deuxième tentative (doublé à chaque tentative suivante).
+     * @param catchUpWindow      L'ancienneté maximale d'une échéance récurrente encore exécutée après une interruption.
+     */
+    public ScheduledTransferRunner(JdbcTemplate jdbcTemplate, TransactionService transactionService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${paymybuddy.scheduled-transfers.parallelism:4}") int parallelism,
+                                   @Value("${paymybuddy.scheduled-transfers.chunk-size:200}") int chunkSize,
+                                   @Value("${paymybuddy.scheduled-transfers.lease:PT10M}") Duration lease,
+                                   @Value("${paymybuddy.scheduled-transfers.max-attempts:4}") int maxAttempts,
+                                   @Value("${paymybuddy.scheduled-transfers.retry-backoff:PT15M}") Duration retryBackoff,
+                                   @Value("${paymybuddy.scheduled-transfers.catch-up-window:P1D}") Duration catchUpWindow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-transfer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.catchUpWindow = catchUpWindow;
+    }
+
+    /**
+     * Exécute les virements arrivés à échéance, paquet par paquet, jusqu'à ce qu'il n'en reste plus.
+     * Planifié sur les heures creuses (toutes les 5 minutes entre 1 h et 6 h par défaut),
+     * pour que les nouvelles tentatives soient faites dans la même nuit.
+     */
+    @Scheduled(cron = "${paymybuddy.scheduled-transfers.cron:0 */5 1-5 * * *}")
+    public void runDue() {
+        long started = System.nanoTime();
+        Duration lag = currentLag();
+        Outcomes outcomes = new Outcomes();
+        List<DueTransfer> chunk;
+        do {
+            chunk = claim();
+            if (!chunk.isEmpty()) {
+                execute(chunk, outcomes);
+            }
+        } while (chunk.size() == chunkSize);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        RunStats stats = new RunStats(LocalDateTime.now(), outcomes.executed.sum(), outcomes.retried.sum(),
+                outcomes.failed.sum(), outcomes.skipped.sum(), lag, elapsed);
+        lastRun = stats;
+        if (stats.processed() > 0 || stats.skipped() > 0) {
+            log.info("Virements programmés : {} exécutés, {} reportés, {} en échec, {} échéances sautées en {} ms ({} virements/s), retard {}",
+                    stats.executed(), stats.retried(), stats.failed(), stats.skipped(), elapsed.toMillis(),
+                    String.format("%.1f", stats.throughputPerSecond()), lag);
+        }
+    }
+
+    /**
+     * Retourne le retard du planificateur : ancienneté de l'échéance la plus ancienne non encore exécutée.
+     *
+     * @return Le retard, ou {@link Duration#ZERO} si aucune échéance n'est en attente.
+     */
+    public Duration currentLag() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_DUE, Timestamp.class, Timestamp.valueOf(now));
+        return oldest != null ? Duration.between(oldest.toLocalDateTime(), now) : Duration.ZERO;
+    }
+
+    /**
+     * Retourne les statistiques du dernier passage.
+     *
+     * @return Les statistiques, ou {@code null} si le planificateur n'a pas encore tourné.
+     */
+    public RunStats getLastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Retourne le nombre total d'échéances exécutées, reportées, en échec et sautées depuis le démarrage.
+     *
+     * @return Les totaux {exécutées, reportées, en échec, sautées}.
+     */
+    public long[] getTotals() {
+        return new long[]{executedTotal.sum(), retriedTotal.sum(), failedTotal.sum(), skippedTotal.sum()};
+    }
+
+    /**
+     * Arrête les threads d'exécution.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Réserve le paquet suivant de virements arrivés à échéance (transaction courte).
+     */
+    private List<DueTransfer> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DueTransfer> chunk = transactionTemplate.execute(status -> {
+            Timestamp nowTs = Timestamp.valueOf(now);
+            List<DueTransfer> due = jdbcTemplate.query(CLAIM_DUE, (rs, rowNum) -> new DueTransfer(
+                    rs.getInt("scheduled_transfer_id"), rs.getInt("sender_id"), rs.getInt("receiver_id"), null, null,
+                    Money.of(rs.getBigDecimal("amount")), rs.getString("description"),
+                    ScheduledTransfer.Frequency.valueOf(rs.getString("frequency")),
+                    rs.getTimestamp("first_run_at").toLocalDateTime(), rs.getInt("occurrences"),
+                    rs.getTimestamp("next_run_at").toLocalDateTime(), rs.getInt("attempts"), null),
+                    nowTs, nowTs, nowTs, chunkSize);
+            Timestamp leaseUntil = Timestamp.valueOf(now.plus(lease));
+            List<Object[]> leases = new ArrayList<>(due.size());
+            for (DueTransfer transfer : due) {
+                leases.add(new Object[]{leaseUntil, transfer.id()});
+            }
+            if (!leases.isEmpty()) {
+                jdbcTemplate.batchUpdate(SET_LEASE, leases);
+            }
+            return due;
+        });
+        if (chunk == null || chunk.isEmpty()) {
+            return List.of();
+        }
+        // E-mails des participants, lus hors de la transaction de réservation (sans verrou sur Users)
+        Map<Integer, String> emails = new HashMap<>();
+        List<Integer> ids = new ArrayList<>();
+        for (DueTransfer transfer : chunk) {
+            ids.add(transfer.senderId());
+            ids.add(transfer.receiverId());
+        }
+        namedJdbcTemplate.query(SELECT_EMAILS, new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    emails.put(rs.getInt("user_id"), rs.getString("email"));
+                });
+        List<DueTransfer> resolved = new ArrayList<>(chunk.size());
+        for (DueTransfer transfer : chunk) {
+            resolved.add(transfer.withEmails(emails.get(transfer.senderId()), emails.get(transfer.receiverId())));
+        }
+        return resolved;
+    }
+
+    /**
+     * Exécute un paquet : une tâche par expéditeur, et attend la fin de toutes les tâches.
+     */
+    private void execute(List<DueTransfer> chunk, Outcomes outcomes) {
+        Map<Integer, List<DueTransfer>> bySender = new LinkedHashMap<>();
+        for (DueTransfer transfer : chunk) {
+            bySender.computeIfAbsent(transfer.senderId(), id -> new ArrayList<>()).add(transfer);
+        }
+        List<Future<?>> tasks = new ArrayList<>(bySender.size());
+        for (List<DueTransfer> senderTransfers : bySender.values()) {
+            tasks.add(workers.submit(() -> senderTransfers.forEach(transfer -> executeOne(transfer, outcomes))));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Exécution des virements programmés interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Exécution des virements programmés impossible", e.getCause());
+        }
+    }
+
+    private void executeOne(DueTransfer due, Outcomes outcomes) {
+        DueTransfer transfer = skipMissed(due, outcomes);
+        if (transfer == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    transactionService.transferMoney(transfer.senderEmail(), transfer.receiverEmail(),
+                            transfer.amount(), transfer.description());
+                } catch (Exception e) {
+                    throw new TransferFailedException(e);
+                }
+                // Dans la transaction du transfert : exécuté si et seulement si l'échéance avance
+                if (advance(transfer, transfer.note()) == 0) {
+                    throw new IllegalStateException("Virement programmé " + transfer.id() + " modifié pendant son exécution");
+                }
+            });
+            outcomes.executed.increment();
+            executedTotal.increment();
+            log.debug("Virement programmé {} exécuté (échéance du {})", transfer.id(), transfer.nextRunAt());
+        } catch (TransferFailedException e) {
+            handleFailure(transfer, e.getCause(), outcomes);
+        } catch (TransientDataAccessException e) {
+            handleFailure(transfer, e, outcomes);
+        } catch (RuntimeException e) {
+            log.error("Virement programmé {} non exécuté", transfer.id(), e);
+            // Le bail expirera : l'échéance sera retentée au passage suivant
+        }
+    }
+
+    private void handleFailure(DueTransfer transfer, Exception cause, Outcomes outcomes) {
+        // Solde insuffisant ou plafond anti-fraude atteint : la situation peut changer avant la prochaine tentative
+        boolean retryable = cause instanceof InsufficientFundsException || cause instanceof TransferBlockedException
+                || cause instanceof TransientDataAccessException;
+        String error = truncate(cause.getMessage());
+        if (retryable && transfer.attempts() + 1 < maxAttempts) {
+            Duration delay = retryBackoff.multipliedBy(1L << transfer.attempts());
+            LocalDateTime retryAt = LocalDateTime.now().plus(delay);
+            jdbcTemplate.update(RETRY_LATER, transfer.attempts() + 1, Timestamp.valueOf(retryAt), error,
+                    transfer.id(), Timestamp.valueOf(transfer.nextRunAt()));
+            outcomes.retried.increment();
+            retriedTotal.increment();
+            log.info("Virement programmé {} reporté au {} (tentative {}) : {}", transfer.id(), retryAt,
+                    transfer.attempts() + 1, error);
+        } else if (retryable && transfer.frequency() != ScheduledTransfer.Frequency.ONCE) {
+            // Échéance abandonnée, le virement récurrent reprend à l'échéance suivante
+            advance(transfer, truncate("Échéance du " + transfer.occurrenceDate().toLocalDate() + " non exécutée : " + error));
+            outcomes.failed.increment();
+            failedTotal.increment();
+            log.warn("Virement programmé {} : échéance abandonnée après {} tentatives", transfer.id(), maxAttempts);
+        } else {
+            jdbcTemplate.update(ADVANCE, ScheduledTransfer.Status.FAILED.name(), transfer.occurrences(),
+                    Timestamp.valueOf(transfer.nextRunAt()), error, transfer.id(), Timestamp.valueOf(transfer.nextRunAt()));
+            outcomes.failed.increment();
+            failedTotal.increment();
+            log.warn("Virement programmé {} en échec : {}", transfer.id(), error);
+        }
+    }
+
+    /**
+     * Saute les échéances d'un virement récurrent plus anciennes que la fenêtre de rattrapage.
+     * Le bail est conservé : l'échéance de reprise, si elle est déjà due, est exécutée par ce passage.
+     *
+     * @return Le virement à exécuter (les échéances sautées restent signalées dans {@code last_error}),
+     *         ou {@code null} s'il n'y a rien à exécuter (reprise dans le futur, virement annulé ou modifié entre-temps).
+     */
+    private DueTransfer skipMissed(DueTransfer transfer, Outcomes outcomes) {
+        if (transfer.frequency() == ScheduledTransfer.Frequency.ONCE) {
+            return transfer;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldestAllowed = now.minus(catchUpWindow);
+        int occurrences = transfer.occurrences();
+        while (transfer.frequency().occurrence(transfer.firstRunAt(), occurrences).isBefore(oldestAllowed)) {
+            occurrences++;
+        }
+        int skipped = occurrences - transfer.occurrences();
+        if (skipped == 0) {
+            return transfer;
+        }
+        LocalDateTime resumeAt = transfer.frequency().occurrence(transfer.firstRunAt(), occurrences);
+        String error = skipped + " échéance(s) manquée(s) depuis le " + transfer.occurrenceDate().toLocalDate()
+                + " non exécutée(s) : reprise au " + resumeAt.toLocalDate();
+        if (jdbcTemplate.update(SKIP_MISSED, occurrences, Timestamp.valueOf(resumeAt), error, transfer.id(),
+                Timestamp.valueOf(transfer.nextRunAt())) == 0) {
+            log.warn("Virement programmé {} modifié pendant le rattrapage", transfer.id());
+            return null;
+        }
+        outcomes.skipped.add(skipped);
+        skippedTotal.add(skipped);
+        log.warn("Virement programmé {} : {}", transfer.id(), error);
+        if (resumeAt.isAfter(now)) {
+            // Reprise dans le futur : le bail est libéré, l'échéance sera réservée à son heure
+            jdbcTemplate.update(SET_LEASE, null, transfer.id());
+            return null;
+        }
+        return new DueTransfer(transfer.id(), transfer.senderId(), transfer.receiverId(), transfer.senderEmail(),
+                transfer.receiverEmail(), transfer.amount(), transfer.description(), transfer.frequency(),
+                transfer.firstRunAt(), occurrences, resumeAt, 0, error);
+    }
+
+    /**
+     * Passe à l'échéance suivante (ou termine un virement ponctuel).
+     *
+     * @return Le nombre de lignes modifiées (0 si le virement a été annulé ou modifié entre-temps).
+     */
+    private int advance(DueTransfer transfer, String error) {
+        int occurrences = transfer.occurrences() + 1;
+        boolean completed = transfer.frequency() == ScheduledTransfer.Frequency.ONCE;
+        LocalDateTime next = completed ? transfer.nextRunAt() : transfer.frequency().occurrence(transfer.firstRunAt(), occurrences);
+        return jdbcTemplate.update(ADVANCE,
+                (completed ? ScheduledTransfer.Status.COMPLETED : ScheduledTransfer.Status.ACTIVE).name(),
+                occurrences, Timestamp.valueOf(next), error, transfer.id(), Timestamp.valueOf(transfer.nextRunAt()));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 255 ? message : message.substring(0, 255);
+    }
+
+    /**
+     * Statistiques d'un passage du planificateur.
+     *
+     * @param finishedAt La fin du passage.
+     * @param executed   Les échéances exécutées.
+     * @param retried    Les échéances reportées (solde insuffisant, erreur transitoire).
+     * @param failed     Les échéances abandonnées ou les virements mis en échec.
+     * @param skipped    Les échéances sautées car plus anciennes que la fenêtre de rattrapage.
+     * @param lag        Le retard au début du passage (échéance la plus ancienne en attente).
+     * @param elapsed    La durée du passage.
+     */
+    public record RunStats(LocalDateTime finishedAt, long executed, long retried, long failed, long skipped,
+                           Duration lag, Duration elapsed) {
+
+        /**
+         * @return Le nombre d'échéances traitées pendant le passage.
+         */
+        public long processed() {
+            return executed + retried + failed;
+        }
+
+        /**
+         * @return Le débit du passage, en échéances traitées par seconde.
+         */
+        public double throughputPerSecond() {
+            return elapsed.isZero() ? 0 : processed() * 1_000_000_000.0 / elapsed.toNanos();
+        }
+    }
+
+    private record DueTransfer(int id, int senderId, int receiverId, String senderEmail, String receiverEmail,
+                               Money amount, String description, ScheduledTransfer.Frequency frequency,
+                               LocalDateTime firstRunAt, int occurrences, LocalDateTime nextRunAt, int attempts,
+                               String note) {
+
+        DueTransfer withEmails(String sender, String receiver) {
+            return new DueTransfer(id, senderId, receiverId, sender, receiver, amount, description, frequency,
+                    firstRunAt, occurrences, nextRunAt, attempts, note);
+        }
+
+        LocalDateTime occurrenceDate() {
+            return frequency.occurrence(firstRunAt, occurrences);
+        }
+    }
+
+    private static final class Outcomes {
+        final LongAdder executed = new LongAdder();
+        final LongAdder retried = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+    }
+
+    /**
+     * Transporte l'exception métier d'un transfert hors du {@link TransactionTemplate} (qui annule la transaction).
+     */
+    private static final class TransferFailedException extends RuntimeException {
+        TransferFailedException(Exception cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.ScheduledTransferRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Service de gestion des virements programmés par les utilisateurs (création, consultation, annulation).
+ * L'exécution des échéances est faite par {@link ScheduledTransferRunner}.
+ */
+@Slf4j
+@Service
+public class ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final UserRepository userRepository;
+    private final LocalTime runTime;
+
+    /**
+     * Construit une instance de {@code ScheduledTransferService}.
+     *
+     * @param scheduledTransferRepository Le repository des virements programmés.
+     * @param userRepository              Le repository des utilisateurs.
+     * @param runTime                     L'heure des échéances (heure creuse à laquelle le planificateur les exécute).
+     */
+    public ScheduledTransferService(ScheduledTransferRepository scheduledTransferRepository, UserRepository userRepository,
+                                    @Value("${paymybuddy.scheduled-transfers.run-time:02:00}") LocalTime runTime) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.userRepository = userRepository;
+        this.runTime = runTime;
+    }
+
+    /**
+     * Programme un virement.
+     *
+     * @param senderEmail   L'adresse e-mail de l'expéditeur.
+     * @param receiverEmail L'adresse e-mail du destinataire.
+     * @param amount        Le montant de chaque échéance.
+     * @param description   Une description optionnelle, reprise sur chaque transaction.
+     * @param firstRunDate  La date de la première échéance (aujourd'hui ou plus tard).
+     * @param frequency     La périodicité.
+     * @return Le virement programmé enregistré.
+     * @throws Exception Si un utilisateur n'est pas trouvé, si l'expéditeur est le destinataire,
+     *                   si le montant n'est pas positif ou si la date est passée.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ScheduledTransfer schedule(String senderEmail, String receiverEmail, Money amount, String description,
+                                      LocalDate firstRunDate, ScheduledTransfer.Frequency frequency) throws Exception {
+        if (senderEmail.equalsIgnoreCase(receiverEmail)) {
+            throw new Exception("Vous ne pouvez pas programmer un virement vers vous-même.");
+        }
+        if (amount == null || !amount.isPositive()) {
+            throw new Exception("Le montant doit être positif.");
+        }
+        if (firstRunDate == null || firstRunDate.isBefore(LocalDate.now())) {
+            throw new Exception("La date de la première échéance ne peut pas être passée.");
+        }
+        User sender = userRepository.findByEmail(senderEmail)
+                .orElseThrow(() -> new Exception("Utilisateur expéditeur non trouvé."));
+        User receiver = userRepository.findByEmail(receiverEmail)
+                .orElseThrow(() -> new Exception("Utilisateur destinataire non trouvé."));
+
+        ScheduledTransfer scheduled = new ScheduledTransfer();
+        scheduled.setSender(sender);
+        scheduled.setReceiver(receiver);
+        scheduled.setAmount(amount);
+        scheduled.setDescription(description);
+        scheduled.setFrequency(frequency);
+        scheduled.setFirstRunAt(LocalDateTime.of(firstRunDate, runTime));
+        scheduled.setNextRunAt(scheduled.getFirstRunAt());
+        ScheduledTransfer saved = scheduledTransferRepository.save(scheduled);
+        log.info("Virement programmé {} créé par {} vers {} ({}, {} à partir du {})", saved.getScheduledTransferId(),
+                senderEmail, receiverEmail, amount, frequency, firstRunDate);
+        return saved;
+    }
+
+    /**
+     * Retourne les virements programmés actifs d'un utilisateur, par prochaine échéance.
+     *
+     * @param senderEmail L'adresse e-mail de l'expéditeur.
+     * @return Les virements programmés actifs, avec leur destinataire.
+     * @throws Exception Si l'utilisateur n'est pas trouvé.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduledTransfer> findActive(String senderEmail) throws Exception {
+        User sender = userRepository.findByEmail(senderEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        return scheduledTransferRepository.findBySenderAndStatus(sender, ScheduledTransfer.Status.ACTIVE);
+    }
+
+    /**
+     * Annule un virement programmé. Une échéance déjà réservée par le planificateur peut encore être exécutée.
+     *
+     * @param senderEmail         L'adresse e-mail de l'expéditeur (seul autorisé à annuler).
+     * @param scheduledTransferId L'identifiant du virement programmé.
+     * @throws Exception Si le virement n'existe pas, n'appartient pas à l'utilisateur ou n'est plus actif.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void cancel(String senderEmail, Integer scheduledTransferId) throws Exception {
+        ScheduledTransfer scheduled = scheduledTransferRepository.findById(scheduledTransferId)
+                .filter(candidate -> candidate.getSender().getEmail().equalsIgnoreCase(senderEmail))
+                .orElseThrow(() -> new Exception("Virement programmé non trouvé."));
+        if (scheduledTransferRepository.cancelIfActive(scheduled.getScheduledTransferId()) == 0) {
+            throw new Exception("Ce virement programmé n'est plus actif.");
+        }
+        log.info("Virement programmé {} annulé par {}", scheduledTransferId, senderEmail);
+    }
+}
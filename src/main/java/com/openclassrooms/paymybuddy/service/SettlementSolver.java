@@ -0,0 +1,87 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Calcul des transferts qui soldent les dettes d'un groupe de dépenses.
+ * <p>
+ * Algorithme glouton sur deux tas (créanciers et débiteurs, plus grand montant d'abord) : le plus gros débiteur
+ * paie le plus gros créancier le minimum de leurs deux montants, et celui des deux qui n'est pas soldé retourne
+ * dans son tas. Chaque transfert solde au moins un membre : au plus {@code n - 1} transferts pour {@code n} membres
+ * non soldés, en {@code O(n log n)}. Le minimum exact (problème NP-difficile) peut être plus petit quand des
+ * sous-groupes se soldent entre eux, mais aucun membre ne reçoit et ne paie à la fois.
+ * <p>
+ * Classe sans état, sans accès à la base.
+ */
+public final class SettlementSolver {
+
+    private SettlementSolver() {
+    }
+
+    /**
+     * Calcule les transferts qui soldent les soldes nets donnés.
+     *
+     * @param netBalances Le solde net de chaque membre : positif s'il doit recevoir, négatif s'il doit payer.
+     * @return Les transferts, du plus gros au plus petit (en général).
+     * @throws IllegalArgumentException si la somme des soldes nets n'est pas nulle.
+     */
+    public static List<Settlement> solve(Map<Integer, Money> netBalances) {
+        PriorityQueue<Position> creditors = new PriorityQueue<>(Math.max(1, netBalances.size() / 2));
+        PriorityQueue<Position> debtors = new PriorityQueue<>(Math.max(1, netBalances.size() / 2));
+        long total = 0;
+        for (Map.Entry<Integer, Money> entry : netBalances.entrySet()) {
+            long cents = entry.getValue().cents();
+            total += cents;
+            if (cents > 0) {
+                creditors.add(new Position(entry.getKey(), cents));
+            } else if (cents < 0) {
+                debtors.add(new Position(entry.getKey(), -cents));
+            }
+        }
+        if (total != 0) {
+            throw new IllegalArgumentException("Soldes nets déséquilibrés : " + Money.ofCents(total));
+        }
+
+        List<Settlement> settlements = new ArrayList<>(Math.max(creditors.size(), debtors.size()));
+        while (!creditors.isEmpty()) {
+            Position creditor = creditors.poll();
+            Position debtor = debtors.poll();
+            long cents = Math.min(creditor.cents(), debtor.cents());
+            settlements.add(new Settlement(debtor.accountId(), creditor.accountId(), Money.ofCents(cents)));
+            if (creditor.cents() > cents) {
+                creditors.add(new Position(creditor.accountId(), creditor.cents() - cents));
+            }
+            if (debtor.cents() > cents) {
+                debtors.add(new Position(debtor.accountId(), debtor.cents() - cents));
+            }
+        }
+        return settlements;
+    }
+
+    /**
+     * Transfert de règlement.
+     *
+     * @param fromAccountId Le membre débiteur, qui paie.
+     * @param toAccountId   Le membre créancier, qui reçoit.
+     * @param amount        Le montant.
+     */
+    public record Settlement(Integer fromAccountId, Integer toAccountId, Money amount) {
+    }
+
+    /**
+     * Montant restant à recevoir ou à payer par un membre ; ordre du tas : plus grand montant d'abord,
+     * puis plus petit identifiant (résultat reproductible).
+     */
+    private record Position(int accountId, long cents) implements Comparable<Position> {
+        @Override
+        public int compareTo(Position other) {
+            int byAmount = Long.compare(other.cents, cents);
+            return byAmount != 0 ? byAmount : Integer.compare(accountId, other.accountId);
+        }
+    }
+}
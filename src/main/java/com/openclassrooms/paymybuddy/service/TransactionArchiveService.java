@@ -0,0 +1,135 @@
+package com.openclassrooms.paymybuddy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service de maintenance des partitions mensuelles de la table {@code Transactions}
+ * (migration {@code db/partitioning/V6_1__transactions_monthly_partitions.sql}).
+ * <p>
+ * Chaque nuit :
+ * <ul>
+ *     <li>les partitions des prochains mois sont créées à l'avance, en découpant la partition
+ *     {@code p_max} encore vide ;</li>
+ *     <li>les partitions plus anciennes que la durée de rétention sont copiées dans la table
+ *     compressée {@code Transactions_Archive}, puis supprimées : la suppression d'une partition
+ *     est instantanée, sans {@code DELETE} ligne à ligne ni fragmentation des index.</li>
+ * </ul>
+ * Activé par {@code paymybuddy.transactions.partitioning.enabled=true}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "paymybuddy.transactions.partitioning.enabled", havingValue = "true")
+public class TransactionArchiveService {
+
+    static final String MAX_PARTITION = "p_max";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String SELECT_PARTITIONS =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Transactions' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final String ARCHIVE_PARTITION =
+            "INSERT IGNORE INTO Transactions_Archive (transaction_id, sender_id, receiver_id, amount, fee, description, timestamp) " +
+            "SELECT transaction_id, sender_id, receiver_id, amount, fee, description, timestamp FROM Transactions PARTITION (%s)";
+    private static final String DROP_PARTITION = "ALTER TABLE Transactions DROP PARTITION %s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionMonths;
+    private final int monthsAhead;
+
+    /**
+     * Construit une instance de {@code TransactionArchiveService}.
+     *
+     * @param jdbcTemplate    L'accès JDBC à la base.
+     * @param retentionMonths Le nombre de mois d'historique conservés dans {@code Transactions}.
+     * @param monthsAhead     Le nombre de partitions mensuelles créées à l'avance.
+     */
+    public TransactionArchiveService(JdbcTemplate jdbcTemplate,
+                                     @Value("${paymybuddy.transactions.retention-months:12}") int retentionMonths,
+                                     @Value("${paymybuddy.transactions.partitions-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Crée les partitions à venir et archive les partitions expirées.
+     */
+    @Scheduled(cron = "${paymybuddy.transactions.maintenance-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    void maintainPartitions(YearMonth currentMonth) {
+        List<Partition> partitions = jdbcTemplate.query(SELECT_PARTITIONS, (rs, rowNum) -> new Partition(
+                rs.getString("PARTITION_NAME"),
+                "MAXVALUE".equals(rs.getString("PARTITION_DESCRIPTION")) ? Long.MAX_VALUE
+                        : Long.parseLong(rs.getString("PARTITION_DESCRIPTION"))));
+        if (partitions.isEmpty()) {
+            log.warn("Table Transactions non partitionnée : migration V6.1 (db/partitioning) non appliquée");
+            return;
+        }
+        createFuturePartitions(partitions, currentMonth);
+        archiveExpiredPartitions(partitions, currentMonth);
+    }
+
+    private void createFuturePartitions(List<Partition> partitions, YearMonth currentMonth) {
+        long lastBound = partitions.stream()
+                .filter(p -> !MAX_PARTITION.equals(p.name()))
+                .mapToLong(Partition::upperBound)
+                .max()
+                .orElse(startOf(currentMonth));
+        // Reprend au mois qui suit la dernière partition, même si le job n'a pas tourné depuis longtemps
+        YearMonth firstMissing = YearMonth.from(Instant.ofEpochSecond(lastBound).atOffset(ZoneOffset.UTC));
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = firstMissing.isBefore(currentMonth) ? firstMissing : currentMonth; !month.isAfter(currentMonth.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            long upperBound = startOf(month.plusMonths(1));
+            if (upperBound > lastBound) {
+                definitions.add("PARTITION " + partitionName(month) + " VALUES LESS THAN (" + upperBound + ")");
+            }
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE Transactions REORGANIZE PARTITION " + MAX_PARTITION
+                + " INTO (" + String.join(", ", definitions) + ")");
+        log.info("{} partitions mensuelles créées dans Transactions", definitions.size() - 1);
+    }
+
+    private void archiveExpiredPartitions(List<Partition> partitions, YearMonth currentMonth) {
+        long cutoff = startOf(currentMonth.minusMonths(retentionMonths));
+        for (Partition partition : partitions) {
+            if (MAX_PARTITION.equals(partition.name()) || partition.upperBound() > cutoff) {
+                continue;
+            }
+            // INSERT IGNORE : une copie interrompue avant la suppression peut être rejouée sans doublon
+            int archived = jdbcTemplate.update(String.format(ARCHIVE_PARTITION, partition.name()));
+            jdbcTemplate.execute(String.format(DROP_PARTITION, partition.name()));
+            log.info("Partition {} archivée ({} transactions)", partition.name(), archived);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return "p_" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private record Partition(String name, long upperBound) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Transaction;
+import com.openclassrooms.paymybuddy.model.User;
+
+import java.util.List;
+
+/**
+ * Transactions envoyées et reçues d'un utilisateur, chargées page par page par
+ * {@link TransactionService#getTransactionOverview} : deux requêtes séparées d'au plus {@code pageSize} lignes
+ * chacune, plus les nombres totaux de transactions.
+ *
+ * @param user          L'utilisateur.
+ * @param page          Le numéro de la page (0 : les plus récentes).
+ * @param pageSize      La taille de la page, après plafonnement.
+ * @param sent          Les transactions envoyées de la page, destinataires chargés, les plus récentes d'abord.
+ * @param received      Les transactions reçues de la page, expéditeurs chargés, les plus récentes d'abord.
+ * @param sentCount     Le nombre total de transactions envoyées.
+ * @param receivedCount Le nombre total de transactions reçues.
+ */
+public record TransactionOverview(User user, int page, int pageSize, List<Transaction> sent, List<Transaction> received,
+                                  long sentCount, long receivedCount) {
+
+    /**
+     * @return {@code true} si des transactions envoyées ou reçues restent au-delà de cette page.
+     */
+    public boolean hasNextPage() {
+        return (long) (page + 1) * pageSize < Math.max(sentCount, receivedCount);
+    }
+}
@@ -0,0 +1,243 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recherche dans l'historique des transactions d'un utilisateur : mots-clés de la description, relation,
+ * fourchette de montants et période, avec pagination par curseur.
+ * <p>
+ * L'index est la table {@code Transaction_Search} (index FULLTEXT) : une ligne par transaction et par participant,
+ * écrite par {@link #index} dans la transaction du transfert, donc cherchable dès sa validation. Chaque texte
+ * commence par le jeton du compte ({@code usr<id>}), exigé par la requête booléenne : la recherche ne parcourt que
+ * les lignes du compte. Sans mot-clé, les filtres suivent la clé primaire {@code (user_id, transaction_ts, transaction_id)}.
+ * La page suivante reprend après la dernière ligne affichée (curseur {@code date_id}) plutôt qu'après un
+ * {@code OFFSET} : le coût d'une page ne dépend pas de sa position dans l'historique.
+ */
+@Slf4j
+@Service
+public class TransactionSearchService {
+
+    // innodb_ft_min_token_size : les mots plus courts ne sont pas indexés
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int MAX_KEYWORDS = 8;
+
+    private static final String INSERT_ENTRY =
+            "INSERT INTO Transaction_Search (user_id, transaction_ts, transaction_id, counterparty_id, direction, amount, " +
+            "description, search_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_HITS =
+            "SELECT s.transaction_id, s.transaction_ts, s.direction, s.amount, s.description, u.username, u.email " +
+            "FROM Transaction_Search s JOIN Users u ON u.user_id = s.counterparty_id WHERE s.user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final int pageSize;
+
+    /**
+     * Construit une instance de {@code TransactionSearchService}.
+     *
+     * @param jdbcTemplate   L'accès JDBC à la base (participe à la transaction Spring en cours).
+     * @param userRepository Le repository des utilisateurs.
+     * @param pageSize       Le nombre de résultats par page.
+     */
+    public TransactionSearchService(JdbcTemplate jdbcTemplate, UserRepository userRepository,
+                                    @Value("${paymybuddy.search.page-size:20}") int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Indexe une transaction pour ses deux participants. À appeler dans la transaction du transfert.
+     *
+     * @param transactionId L'identifiant de la transaction.
+     * @param senderId      Le compte de l'expéditeur.
+     * @param receiverId    Le compte du destinataire.
+     * @param amount        Le montant transféré.
+     * @param description   La description de la transaction, éventuellement nulle.
+     * @param timestamp     La date de la transaction.
+     */
+    public void index(Integer transactionId, Integer senderId, Integer receiverId, Money amount, String description,
+                      LocalDateTime timestamp) {
+        Timestamp ts = Timestamp.valueOf(timestamp);
+        jdbcTemplate.update(INSERT_ENTRY,
+                senderId, ts, transactionId, receiverId, "S", amount.toBigDecimal(), description, searchText(senderId, description),
+                receiverId, ts, transactionId, senderId, "R", amount.toBigDecimal(), description, searchText(receiverId, description));
+    }
+
+    /**
+     * Recherche dans l'historique d'un utilisateur.
+     *
+     * @param userEmail L'adresse e-mail de l'utilisateur.
+     * @param criteria  Les critères de recherche (tous facultatifs).
+     * @param cursor    Le curseur de la page demandée ({@link SearchPage#nextCursor()} de la page précédente),
+     *                  ou {@code null} pour la première page.
+     * @return La page de résultats, les plus récents d'abord.
+     * @throws Exception Si l'utilisateur ou la relation n'est pas trouvé, ou si le curseur est invalide.
+     */
+    @Transactional(readOnly = true)
+    public SearchPage search(String userEmail, SearchCriteria criteria, String cursor) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        StringBuilder sql = new StringBuilder(SELECT_HITS);
+        List<Object> params = new ArrayList<>();
+        params.add(user.getUserId());
+
+        String booleanQuery = booleanQuery(user.getUserId(), criteria.keywords());
+        if (booleanQuery != null) {
+            sql.append(" AND MATCH(s.search_text) AGAINST (? IN BOOLEAN MODE)");
+            params.add(booleanQuery);
+        }
+        if (criteria.counterpartyEmail() != null && !criteria.counterpartyEmail().isBlank()) {
+            User counterparty = userRepository.findByEmail(criteria.counterpartyEmail())
+                    .orElseThrow(() -> new Exception("Relation non trouvée."));
+            sql.append(" AND s.counterparty_id = ?");
+            params.add(counterparty.getUserId());
+        }
+        if (criteria.minAmount() != null) {
+            sql.append(" AND s.amount >= ?");
+            params.add(criteria.minAmount().toBigDecimal());
+        }
+        if (criteria.maxAmount() != null) {
+            sql.append(" AND s.amount <= ?");
+            params.add(criteria.maxAmount().toBigDecimal());
+        }
+        if (criteria.from() != null) {
+            sql.append(" AND s.transaction_ts >= ?");
+            params.add(Timestamp.valueOf(criteria.from().atStartOfDay()));
+        }
+        if (criteria.to() != null) {
+            sql.append(" AND s.transaction_ts < ?");
+            params.add(Timestamp.valueOf(criteria.to().plusDays(1).atStartOfDay()));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = Cursor.parse(cursor);
+            sql.append(" AND (s.transaction_ts < ? OR (s.transaction_ts = ? AND s.transaction_id < ?))");
+            params.add(Timestamp.valueOf(after.timestamp()));
+            params.add(Timestamp.valueOf(after.timestamp()));
+            params.add(after.transactionId());
+        }
+        sql.append(" ORDER BY s.transaction_ts DESC, s.transaction_id DESC LIMIT ?");
+        params.add(pageSize + 1); // une ligne de plus : y a-t-il une page suivante ?
+
+        List<SearchHit> hits = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new SearchHit(
+                rs.getInt("transaction_id"), rs.getTimestamp("transaction_ts").toLocalDateTime(),
+                "S".equals(rs.getString("direction")), Money.of(rs.getBigDecimal("amount")), rs.getString("description"),
+                rs.getString("username") != null ? rs.getString("username") : rs.getString("email")), params.toArray());
+
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            SearchHit last = hits.get(pageSize - 1);
+            nextCursor = new Cursor(last.timestamp(), last.transactionId()).format();
+        }
+        log.debug("Recherche de {} ({}) : {} résultats", userEmail, criteria, hits.size());
+        return new SearchPage(List.copyOf(hits), nextCursor);
+    }
+
+    /**
+     * Construit la requête FULLTEXT booléenne : jeton du compte obligatoire, puis chaque mot-clé
+     * obligatoire en recherche par préfixe ({@code +usr42 +diner* +mars*}). Les opérateurs saisis par l'utilisateur
+     * sont ignorés, comme les mots trop courts pour être indexés.
+     *
+     * @param userId   Le compte dont l'historique est recherché.
+     * @param keywords Les mots-clés saisis, éventuellement nuls.
+     * @return La requête, ou {@code null} s'il n'y a aucun mot-clé utilisable.
+     */
+    static String booleanQuery(Integer userId, String keywords) {
+        if (keywords == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder("+usr").append(userId);
+        int terms = 0;
+        for (String token : keywords.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= MIN_TOKEN_LENGTH && terms < MAX_KEYWORDS) {
+                query.append(" +").append(token).append('*');
+                terms++;
+            }
+        }
+        return terms > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Retourne le texte indexé d'une transaction pour l'un de ses participants : jeton du compte puis description.
+     *
+     * @param userId      Le compte dont c'est l'historique.
+     * @param description La description de la transaction, éventuellement nulle.
+     * @return Le texte de la colonne {@code search_text}.
+     */
+    public static String searchText(Integer userId, String description) {
+        return description == null ? "usr" + userId : "usr" + userId + " " + description;
+    }
+
+    /**
+     * Critères d'une recherche ; un critère nul est ignoré.
+     *
+     * @param keywords          Les mots-clés de la description.
+     * @param counterpartyEmail L'adresse e-mail de la relation (expéditeur ou destinataire).
+     * @param minAmount         Le montant minimal.
+     * @param maxAmount         Le montant maximal.
+     * @param from              Le premier jour de la période.
+     * @param to                Le dernier jour de la période (inclus).
+     */
+    public record SearchCriteria(String keywords, String counterpartyEmail, Money minAmount, Money maxAmount,
+                                 LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * Transaction trouvée, du point de vue de l'utilisateur.
+     *
+     * @param transactionId    L'identifiant de la transaction.
+     * @param timestamp        La date de la transaction.
+     * @param sent             {@code true} si l'utilisateur est l'expéditeur.
+     * @param amount           Le montant.
+     * @param description      La description.
+     * @param counterpartyName Le nom (ou l'e-mail) de l'autre participant.
+     */
+    public record SearchHit(Integer transactionId, LocalDateTime timestamp, boolean sent, Money amount,
+                            String description, String counterpartyName) {
+    }
+
+    /**
+     * Page de résultats.
+     *
+     * @param hits       Les transactions trouvées, les plus récentes d'abord.
+     * @param nextCursor Le curseur de la page suivante, ou {@code null} s'il n'y en a pas.
+     */
+    public record SearchPage(List<SearchHit> hits, String nextCursor) {
+    }
+
+    /**
+     * Position dans l'historique : date et identifiant de la dernière transaction affichée.
+     */
+    record Cursor(LocalDateTime timestamp, int transactionId) {
+
+        String format() {
+            return timestamp + "_" + transactionId;
+        }
+
+        static Cursor parse(String cursor) throws Exception {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                return new Cursor(LocalDateTime.parse(cursor.substring(0, separator)),
+                        Integer.parseInt(cursor.substring(separator + 1)));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new Exception("Page de résultats invalide.");
+            }
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package com.openclassrooms.paymybuddy.service;
 
+import com.openclassrooms.paymybuddy.fraud.FraudRulesEngine;
+import com.openclassrooms.paymybuddy.model.Money;
 import com.openclassrooms.paymybuddy.model.Transaction;
 import com.openclassrooms.paymybuddy.model.User;
 import com.openclassrooms.paymybuddy.repository.TransactionRepository;
 import com.openclassrooms.paymybuddy.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,24 +27,55 @@ import java.util.List;
 @Service
 public class TransactionService {
 
-    private final TransactionRepository transactionRepository;
-    private final UserRepository userRepository;
-
     /**
-     * Pourcentage de frais appliqué sur chaque transaction.
-     * Actuellement, la logique des frais est commentée (0.5%).
+     * Nombre maximal de transactions par sens dans une page de {@link #getTransactionOverview}.
      */
-    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.005"); // 0.5%
+    public static final int MAX_OVERVIEW_PAGE_SIZE = 200;
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FeeEngine feeEngine;
+    private final LedgerService ledgerService;
+    private final TransactionSearchService transactionSearchService;
+    private final FraudRulesEngine fraudRulesEngine;
+    private final TransferLimitService transferLimitService;
+    private final boolean partitioningEnabled;
+    private final int historyMonths;
 
     /**
      * Construit une instance de {@code TransactionService} avec les repositories nécessaires.
      *
      * @param transactionRepository Le repository pour accéder aux données des transactions.
      * @param userRepository        Le repository pour accéder aux données des utilisateurs.
+     * @param eventPublisher        Le publieur des événements de transfert ({@link TransferCompletedEvent}).
+     * @param feeEngine             Le moteur de calcul des frais de transfert.
+     * @param ledgerService         Le journal en partie double, qui met à jour les soldes.
+     * @param transactionSearchService L'index de recherche de l'historique, alimenté à chaque transfert.
+     * @param fraudRulesEngine      Les règles anti-fraude (vélocité), évaluées avant chaque transfert.
+     * @param transferLimitService  Les plafonds journalier et mensuel, décomptés avec le débit de l'expéditeur.
+     * @param partitioningEnabled   {@code true} si le partitionnement des transactions est activé : les transactions
+     *                              anciennes sont alors déplacées dans {@code Transactions_Archive}
+     *                              ({@link TransactionArchiveService}).
+     * @param historyMonths         Le nombre de mois d'historique affichés quand le partitionnement est activé
+     *                              (au-delà, les transactions sont archivées).
      */
-    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository) {
+    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository,
+                              ApplicationEventPublisher eventPublisher, FeeEngine feeEngine,
+                              LedgerService ledgerService, TransactionSearchService transactionSearchService,
+                              FraudRulesEngine fraudRulesEngine, TransferLimitService transferLimitService,
+                              @Value("${paymybuddy.transactions.partitioning.enabled:false}") boolean partitioningEnabled,
+                              @Value("${paymybuddy.transactions.retention-months:12}") int historyMonths) {
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.feeEngine = feeEngine;
+        this.ledgerService = ledgerService;
+        this.transactionSearchService = transactionSearchService;
+        this.fraudRulesEngine = fraudRulesEngine;
+        this.transferLimitService = transferLimitService;
+        this.partitioningEnabled = partitioningEnabled;
+        this.historyMonths = historyMonths;
     }
 
     /**
@@ -51,10 +88,17 @@ public class TransactionService {
      *     <li>La vérification que l'expéditeur ne transfère pas d'argent à lui-même.</li>
      *     <li>La vérification que le montant du transfert est positif.</li>
      *     <li>La récupération des entités utilisateur pour l'expéditeur et le destinataire.</li>
-     *     <li>La vérification que l'expéditeur dispose d'un solde suffisant. (Note: la logique des frais est actuellement commentée).</li>
-     *     <li>La mise à jour des soldes de l'expéditeur et du destinataire.</li>
-     *     <li>La sauvegarde des modifications des utilisateurs.</li>
-     *     <li>La création et la sauvegarde d'un nouvel enregistrement de transaction.</li>
+     *     <li>Le calcul des frais selon le plan de l'expéditeur ({@link FeeEngine}).</li>
+     *     <li>Un premier contrôle du solde de l'expéditeur (montant et frais), sur l'entité chargée.</li>
+     *     <li>L'évaluation des règles anti-fraude ({@link FraudRulesEngine} : montant par heure, transferts par minute,
+     *     nouveaux bénéficiaires), sur des agrégats en mémoire.</li>
+     *     <li>La création et la sauvegarde d'un nouvel enregistrement de transaction (en-tête de l'écriture de journal).</li>
+     *     <li>L'enregistrement des écritures équilibrées dans le journal ({@link LedgerService}) : débit de l'expéditeur,
+     *     crédit du destinataire et crédit des frais au compte de la plateforme. Les soldes sont mis à jour par
+     *     incrément atomique en base ; le débit échoue si le solde, relu par la base, est devenu insuffisant.</li>
+     *     <li>Le décompte du montant dans les plafonds journalier et mensuel de l'expéditeur
+     *     ({@link TransferLimitService}), refusé par la base si un plafond serait dépassé.</li>
+     *     <li>La publication d'un {@link TransferCompletedEvent}.</li>
      * </ul>
      *
      * @param senderEmail L'adresse e-mail de l'utilisateur qui envoie l'argent.
@@ -62,16 +106,148 @@ public class TransactionService {
      * @param amount Le montant à transférer.
      * @param description Une description optionnelle pour la transaction.
      * @throws Exception Si l'expéditeur ou le destinataire n'est pas trouvé, si le montant est invalide,
-     *                   si l'expéditeur tente de transférer de l'argent à lui-même, ou si le solde de l'expéditeur est insuffisant.
+     *                   si l'expéditeur tente de transférer de l'argent à lui-même, ou si le solde de l'expéditeur est insuffisant
+     *                   ou si un plafond de transferts serait dépassé (dans ces cas, une {@link InsufficientFundsException}
+     *                   ou une {@link TransferLimitExceededException}), ou si une règle anti-fraude
+     *                   refuse le transfert ({@link com.openclassrooms.paymybuddy.fraud.TransferBlockedException}).
      */
     @Transactional(rollbackFor = Exception.class) // S'assurer que tout est annulé en cas d'erreur
-    public void transferMoney(String senderEmail, String receiverEmail, BigDecimal amount, String description) throws Exception {
+    public void transferMoney(String senderEmail, String receiverEmail, Money amount, String description) throws Exception {
+        Participants participants = loadParticipants(senderEmail, receiverEmail, amount);
+        User sender = participants.sender();
+        User receiver = participants.receiver();
+        Money fee = checkedFee(sender, amount);
+        fraudRulesEngine.check(sender.getUserId(), receiver.getUserId(), amount);
+        record(sender, receiver, new PreparedTransfer(sender.getUserId(), senderEmail, receiver.getUserId(), receiverEmail,
+                amount, fee, description));
+    }
+
+    /**
+     * Valide un transfert sans l'enregistrer : mêmes contrôles que {@link #transferMoney}
+     * (participants, montant, frais, premier contrôle du solde et règles anti-fraude).
+     * Utilisé par le pipeline de transferts groupés, qui enregistre le transfert plus tard
+     * avec {@link #applyTransfer}. Le solde lu ici ne tient pas compte des transferts encore en attente :
+     * seul le débit conditionnel du journal, à l'application, fait foi.
+     *
+     * @param senderEmail   L'adresse e-mail de l'utilisateur qui envoie l'argent.
+     * @param receiverEmail L'adresse e-mail de l'utilisateur qui reçoit l'argent.
+     * @param amount        Le montant à transférer.
+     * @param description   Une description optionnelle pour la transaction.
+     * @return Le transfert validé, avec ses frais.
+     * @throws Exception Dans les mêmes cas que {@link #transferMoney}.
+     */
+    @Transactional(readOnly = true)
+    public PreparedTransfer prepareTransfer(String senderEmail, String receiverEmail, Money amount, String description) throws Exception {
+        Participants participants = loadParticipants(senderEmail, receiverEmail, amount);
+        Money fee = checkedFee(participants.sender(), amount);
+        fraudRulesEngine.check(participants.sender().getUserId(), participants.receiver().getUserId(), amount);
+        return new PreparedTransfer(participants.sender().getUserId(), senderEmail,
+                participants.receiver().getUserId(), receiverEmail, amount, fee, description);
+    }
+
+    /**
+     * Enregistre un transfert validé par {@link #prepareTransfer} : transaction, écritures du journal
+     * et publication du {@link TransferCompletedEvent}. Les participants ne sont pas rechargés.
+     * <p>
+     * Doit être appelée dans une transaction ouverte par l'appelant (volontairement sans {@code @Transactional} :
+     * l'appelant décide de l'annulation, par exemple jusqu'à un point de sauvegarde, quand le solde est insuffisant).
+     *
+     * @param transfer Le transfert validé.
+     * @return L'identifiant de la transaction enregistrée.
+     * @throws InsufficientFundsException si le solde de l'expéditeur ne couvre plus le montant et les frais,
+     *                                    ou si le transfert dépasserait un plafond ({@link TransferLimitExceededException}).
+     */
+    public Integer applyTransfer(PreparedTransfer transfer) throws InsufficientFundsException {
+        return record(userRepository.getReferenceById(transfer.senderId()),
+                userRepository.getReferenceById(transfer.receiverId()), transfer);
+    }
+
+    /**
+     * Retourne le solde affiché d'un utilisateur : la ligne {@code Users} chargée avec l'entité,
+     * plus ses sous-soldes s'il s'agit d'un compte chaud (voir {@link HotAccountStripes}).
+     * Pour un compte ordinaire, aucune requête n'est exécutée.
+     *
+     * @param user L'utilisateur, déjà chargé.
+     * @return Le solde de l'utilisateur.
+     */
+    public Money getBalance(User user) {
+        return ledgerService.balanceOf(user.getUserId(), user.getBalance());
+    }
+
+    /**
+     * Récupère l'historique des transactions pour un utilisateur spécifié par son e-mail.
+     * Cette méthode retourne une liste de transactions où l'utilisateur est soit l'expéditeur,
+     * soit le destinataire, triées par date et heure de transaction en ordre décroissant
+     * (les plus récentes d'abord). Quand l'archivage est activé, seuls les derniers mois sont recherchés :
+     * les transactions plus anciennes ont été déplacées dans la table d'archive. Sinon, tout l'historique
+     * est retourné.
+     * L'opération est marquée comme transactionnelle en lecture seule pour optimisations.
+     *
+     * @param userEmail L'adresse e-mail de l'utilisateur dont l'historique des transactions est demandé.
+     * @return Une liste de {@link Transaction} impliquant l'utilisateur, triée par date décroissante.
+     * @throws Exception Si l'utilisateur spécifié par {@code userEmail} n'est pas trouvé.
+     */
+    @Transactional(readOnly = true) // Pas de modification de données ici
+    public List<Transaction> getTransactionHistory(String userEmail) throws Exception {
+        log.debug("Récupération de l'historique pour {}", userEmail);
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> {
+                    log.error("Utilisateur non trouvé pour l'historique: {}", userEmail);
+                    return new Exception("Utilisateur non trouvé.");
+                    });
+        // Retourne les transactions où l'utilisateur est soit expéditeur, soit destinataire
+        List<Transaction> transactions = partitioningEnabled
+                ? transactionRepository.findHistorySince(user, LocalDateTime.now().minusMonths(historyMonths))
+                : transactionRepository.findHistory(user);
+        log.debug("Trouvé {} transactions pour {}", transactions.size(), userEmail);
+        return transactions;
+    }
+
+    /**
+     * Charge une page des transactions envoyées et reçues d'un utilisateur, avec l'autre participant de chacune.
+     * Les deux sens sont lus par deux requêtes séparées, limitées à la page : le nombre de lignes lues
+     * et d'entités créées est proportionnel à la page, et non au produit des transactions envoyées
+     * et reçues comme avec une jointure sur les deux collections de {@link User}.
+     * Une page incomplète et non vide donne directement le total ; les totaux ne sont comptés en base
+     * que si la page est pleine, ou vide au-delà de la première page.
+     *
+     * @param userEmail L'adresse e-mail de l'utilisateur.
+     * @param page      Le numéro de la page (0 : les plus récentes).
+     * @param pageSize  Le nombre de transactions par sens, plafonné à {@value #MAX_OVERVIEW_PAGE_SIZE}.
+     * @return La page des transactions de l'utilisateur et les nombres totaux.
+     * @throws Exception Si l'utilisateur spécifié par {@code userEmail} n'est pas trouvé.
+     */
+    @Transactional(readOnly = true)
+    public TransactionOverview getTransactionOverview(String userEmail, int page, int pageSize) throws Exception {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new Exception("Utilisateur non trouvé."));
+        int size = Math.clamp(pageSize, 1, MAX_OVERVIEW_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), size);
+        List<Transaction> sent = transactionRepository.findSentWithReceiver(user, pageable);
+        List<Transaction> received = transactionRepository.findReceivedWithSender(user, pageable);
+        long sentCount = totalKnownFromPage(sent, pageable)
+                ? pageable.getOffset() + sent.size() : transactionRepository.countBySender(user);
+        long receivedCount = totalKnownFromPage(received, pageable)
+                ? pageable.getOffset() + received.size() : transactionRepository.countByReceiver(user);
+        log.debug("Page {} des transactions de {} : {} envoyées sur {}, {} reçues sur {}",
+                pageable.getPageNumber(), userEmail, sent.size(), sentCount, received.size(), receivedCount);
+        return new TransactionOverview(user, pageable.getPageNumber(), size, sent, received, sentCount, receivedCount);
+    }
 
+    /**
+     * Une page incomplète est la dernière : le total vaut son décalage plus ses lignes. Une page vide
+     * au-delà de la première ne dit rien du total, la demande pouvant dépasser la dernière page.
+     */
+    private static boolean totalKnownFromPage(List<Transaction> rows, Pageable pageable) {
+        return rows.size() < pageable.getPageSize() && (!rows.isEmpty() || pageable.getOffset() == 0);
+    }
+
+    private Participants loadParticipants(String senderEmail, String receiverEmail, Money amount) throws Exception {
         if (senderEmail.equalsIgnoreCase(receiverEmail)) {
             log.warn("Tentative de transfert vers soi-même par {}", senderEmail);
             throw new Exception("Vous ne pouvez pas transférer d'argent à vous-même.");
         }
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || !amount.isPositive()) {
             throw new Exception("Le montant doit être positif.");
         }
 
@@ -85,68 +261,54 @@ public class TransactionService {
                     log.error("Utilisateur destinataire non trouvé: {}", receiverEmail);
                     return new Exception("Utilisateur destinataire non trouvé.");
                 });
+        return new Participants(sender, receiver);
+    }
 
-        // Calculer les frais (pour V1, mais bon à avoir)
-        /*
-        BigDecimal fee = amount.multiply(FEE_PERCENTAGE).setScale(4, RoundingMode.HALF_UP);
-        BigDecimal totalDeducted = amount.add(fee);
-        log.debug("Transfert de {} par {}: Montant={}, Frais={}, Total={}", amount, senderEmail, amount, fee, totalDeducted);
-         */
-        BigDecimal totalDeducted = amount;
-
-        // Vérifier le solde de l'expéditeur
-        if (sender.getBalance().compareTo(totalDeducted) < 0) {
-            log.warn("Solde insuffisant pour {} : Solde={}, Requis={}", senderEmail, sender.getBalance(), totalDeducted);
-            //throw new Exception("Solde insuffisant pour effectuer ce transfert (incluant les frais de " + fee.setScale(2, RoundingMode.HALF_UP) + ").");
-            throw new Exception("Solde insuffisant pour effectuer ce transfert.");
-        }
-
-        // Mettre à jour les soldes
-        log.debug("Mise à jour solde sender {} : {} -> {}", senderEmail, sender.getBalance(), sender.getBalance().subtract(totalDeducted));
-        sender.setBalance(sender.getBalance().subtract(totalDeducted));
-        log.debug("Mise à jour solde receiver {} : {} -> {}", receiverEmail, receiver.getBalance(), receiver.getBalance().add(amount));
-        receiver.setBalance(receiver.getBalance().add(amount));
+    private Money checkedFee(User sender, Money amount) throws Exception {
+        // Calculer les frais (barème en mémoire, sans accès à la base)
+        Money fee = feeEngine.feeFor(sender, amount);
+        Money totalDeducted = amount.plus(fee);
+        log.debug("Transfert de {} par {}: Montant={}, Frais={}, Total={}", amount, sender.getEmail(), amount, fee, totalDeducted);
 
-        // Sauvegarder les utilisateurs mis à jour
-        userRepository.save(sender);
-        userRepository.save(receiver);
+        // Contrôle rapide sur le solde chargé ; le débit atomique du journal reste la vérification qui fait foi
+        Money senderBalance = ledgerService.balanceOf(sender.getUserId(), sender.getBalance());
+        if (senderBalance.isLessThan(totalDeducted)) {
+            log.warn("Solde insuffisant pour {} : Solde={}, Requis={}", sender.getEmail(), senderBalance, totalDeducted);
+            throw new InsufficientFundsException(sender.getUserId(),
+                    "Solde insuffisant pour effectuer ce transfert (incluant les frais de " + fee + " €).");
+        }
+        return fee;
+    }
 
+    private Integer record(User sender, User receiver, PreparedTransfer transfer) throws InsufficientFundsException {
         // Créer et sauvegarder l'enregistrement de la transaction
         Transaction transaction = new Transaction();
         transaction.setSender(sender);
         transaction.setReceiver(receiver);
-        transaction.setAmount(amount);
-        transaction.setDescription(description);
-        // Pour  la V1
-        //transaction.setFee(fee);
+        transaction.setAmount(transfer.amount());
+        transaction.setDescription(transfer.description());
+        transaction.setFee(transfer.fee());
         // timestamp est mis par défaut
 
         Transaction savedTx = transactionRepository.save(transaction);
-        log.info("Transaction {} créée avec succès entre {} et {}", savedTx.getTransactionId(), senderEmail, receiverEmail);
+
+        // Écritures du journal et soldes (incréments atomiques, data_version incrémenté : ETag des pages invalidés)
+        ledgerService.recordTransfer(savedTx.getTransactionId(), transfer.senderId(), transfer.receiverId(),
+                transfer.amount(), transfer.fee(), feeEngine.getPlatformAccountId());
+        // Plafonds : compteurs pré-agrégés, sur la ligne de l'expéditeur verrouillée après son débit
+        transferLimitService.consume(transfer.senderId(), transfer.amount());
+        // Index de recherche, dans la même transaction : cherchable dès la validation du transfert
+        transactionSearchService.index(savedTx.getTransactionId(), transfer.senderId(), transfer.receiverId(),
+                transfer.amount(), transfer.description(), savedTx.getTimestamp());
+
+        log.info("Transaction {} créée avec succès entre {} et {}", savedTx.getTransactionId(),
+                transfer.senderEmail(), transfer.receiverEmail());
+        eventPublisher.publishEvent(new TransferCompletedEvent(savedTx.getTransactionId(),
+                transfer.senderEmail(), transfer.receiverEmail(), transfer.amount(), transfer.description(),
+                savedTx.getTimestamp()));
+        return savedTx.getTransactionId();
     }
 
-    /**
-     * Récupère l'historique des transactions pour un utilisateur spécifié par son e-mail.
-     * Cette méthode retourne une liste de transactions où l'utilisateur est soit l'expéditeur,
-     * soit le destinataire, triées par date et heure de transaction en ordre décroissant
-     * (les plus récentes d'abord).
-     * L'opération est marquée comme transactionnelle en lecture seule pour optimisations.
-     *
-     * @param userEmail L'adresse e-mail de l'utilisateur dont l'historique des transactions est demandé.
-     * @return Une liste de {@link Transaction} impliquant l'utilisateur, triée par date décroissante.
-     * @throws Exception Si l'utilisateur spécifié par {@code userEmail} n'est pas trouvé.
-     */
-    @Transactional(readOnly = true) // Pas de modification de données ici
-    public List<Transaction> getTransactionHistory(String userEmail) throws Exception {
-        log.debug("Récupération de l'historique pour {}", userEmail);
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> {
-                    log.error("Utilisateur non trouvé pour l'historique: {}", userEmail);
-                    return new Exception("Utilisateur non trouvé.");
-                    });
-        // Retourne les transactions où l'utilisateur est soit expéditeur, soit destinataire
-        List<Transaction> transactions = transactionRepository.findBySenderOrReceiverOrderByTimestampDesc(user, user);
-        log.debug("Trouvé {} transactions pour {}", transactions.size(), userEmail);
-        return transactions;
+    private record Participants(User sender, User receiver) {
     }
 }
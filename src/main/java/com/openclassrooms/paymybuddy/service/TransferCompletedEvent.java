@@ -0,0 +1,21 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement publié par {@link TransactionService} lorsqu'un transfert est effectué.
+ * Les écouteurs qui ne doivent réagir qu'aux transferts réellement validés en base
+ * utilisent {@code @TransactionalEventListener} (phase {@code AFTER_COMMIT} par défaut).
+ *
+ * @param transactionId L'identifiant de la transaction enregistrée.
+ * @param senderEmail   L'e-mail de l'expéditeur.
+ * @param receiverEmail L'e-mail du destinataire.
+ * @param amount        Le montant transféré.
+ * @param description   La description de la transaction, éventuellement nulle.
+ * @param timestamp     La date de la transaction.
+ */
+public record TransferCompletedEvent(Integer transactionId, String senderEmail, String receiverEmail, Money amount,
+                                     String description, LocalDateTime timestamp) {
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.paymybuddy.service;
+
+/**
+ * Exception levée par {@link TransferLimitService} lorsqu'un transfert dépasserait le plafond journalier
+ * ou mensuel de l'expéditeur. Elle est traitée comme un solde insuffisant : le transfert est refusé,
+ * le pipeline de transferts groupés l'annule jusqu'à son point de sauvegarde et le planificateur
+ * retente le virement programmé plus tard. Le message est destiné à l'utilisateur.
+ */
+public class TransferLimitExceededException extends InsufficientFundsException {
+
+    /**
+     * Construit l'exception.
+     *
+     * @param accountId L'identifiant du compte dont le plafond est atteint.
+     * @param message   Le message affiché à l'utilisateur.
+     */
+    public TransferLimitExceededException(Integer accountId, String message) {
+        super(accountId, message);
+    }
+}
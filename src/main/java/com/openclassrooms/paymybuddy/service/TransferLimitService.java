@@ -0,0 +1,166 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plafonds de transferts sortants, par jour et par mois calendaires.
+ * <p>
+ * Les montants envoyés sur la période en cours sont pré-agrégés dans {@code Transfer_Limits} (une ligne par
+ * utilisateur) : le contrôle ne fait jamais la somme de {@code Transactions}. {@link #consume} ajoute le montant
+ * par un seul {@code UPDATE} conditionnel, dans la transaction du transfert, juste après le débit du journal :
+ * le plafond est vérifié par la base, sur la ligne verrouillée, et deux transferts concurrents ne peuvent pas
+ * le dépasser ensemble. Un compteur d'une période passée est remis à zéro par ce même {@code UPDATE}
+ * (remise à zéro paresseuse, sans tâche planifiée). Le verrou est pris après celui de la ligne {@code Users}
+ * de l'expéditeur, toujours dans cet ordre.
+ * <p>
+ * Le plafond restant affiché sur la page d'accueil est mis en cache par utilisateur, indexé par le tampon
+ * de version des données ({@link User#getDataVersion()}), incrémenté par chaque débit, et par la date du jour.
+ */
+@Slf4j
+@Service
+public class TransferLimitService {
+
+    // Affectations évaluées de gauche à droite par MySQL : les compteurs sont calculés avant la mise à jour des dates
+    private static final String CONSUME =
+            "UPDATE Transfer_Limits SET " +
+            "day_amount = CASE WHEN day_start = ? THEN day_amount ELSE 0 END + ?, day_start = ?, " +
+            "month_amount = CASE WHEN month_start = ? THEN month_amount ELSE 0 END + ?, month_start = ? " +
+            "WHERE user_id = ? " +
+            "AND CASE WHEN day_start = ? THEN day_amount ELSE 0 END + ? <= COALESCE(daily_limit, ?) " +
+            "AND CASE WHEN month_start = ? THEN month_amount ELSE 0 END + ? <= COALESCE(monthly_limit, ?)";
+    private static final String INSERT_COUNTERS =
+            "INSERT IGNORE INTO Transfer_Limits (user_id, day_start, month_start) VALUES (?, ?, ?)";
+    private static final String SELECT_COUNTERS =
+            "SELECT day_start, day_amount, month_start, month_amount, daily_limit, monthly_limit " +
+            "FROM Transfer_Limits WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Money defaultDailyLimit;
+    private final Money defaultMonthlyLimit;
+    private final Map<Integer, CachedAllowance> allowances;
+
+    /**
+     * Construit une instance de {@code TransferLimitService}.
+     *
+     * @param jdbcTemplate        L'accès JDBC à la base (participe à la transaction Spring en cours).
+     * @param defaultDailyLimit   Le plafond journalier des utilisateurs sans plafond propre.
+     * @param defaultMonthlyLimit Le plafond mensuel des utilisateurs sans plafond propre.
+     * @param maxEntries          Le nombre maximal d'utilisateurs dont le plafond restant est gardé en mémoire.
+     */
+    public TransferLimitService(JdbcTemplate jdbcTemplate,
+                                @Value("${paymybuddy.limits.daily:1000.00}") BigDecimal defaultDailyLimit,
+                                @Value("${paymybuddy.limits.monthly:5000.00}") BigDecimal defaultMonthlyLimit,
+                                @Value("${paymybuddy.limits.cache-max-entries:10000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultDailyLimit = Money.of(defaultDailyLimit);
+        this.defaultMonthlyLimit = Money.of(defaultMonthlyLimit);
+        this.allowances = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedAllowance> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Ajoute un transfert aux montants envoyés du jour et du mois, s'il ne dépasse aucun plafond.
+     * Doit être appelée dans la transaction du transfert, après le débit de l'expéditeur.
+     *
+     * @param senderId L'identifiant du compte de l'expéditeur.
+     * @param amount   Le montant transféré (hors frais).
+     * @throws TransferLimitExceededException si le transfert dépasserait le plafond journalier ou mensuel.
+     */
+    public void consume(Integer senderId, Money amount) throws TransferLimitExceededException {
+        LocalDate today = LocalDate.now();
+        if (update(senderId, amount, today) == 0) {
+            // Premier transfert de l'utilisateur, ou plafond atteint
+            jdbcTemplate.update(INSERT_COUNTERS, senderId, Date.valueOf(today), Date.valueOf(today.withDayOfMonth(1)));
+            if (update(senderId, amount, today) == 0) {
+                Allowance allowance = load(senderId, today);
+                log.warn("Transfert de {} refusé pour le compte {} : plafond atteint ({})", amount, senderId, allowance);
+                throw new TransferLimitExceededException(senderId, "Plafond de transferts atteint : il vous reste "
+                        + allowance.remainingToday() + " € aujourd'hui et " + allowance.remainingThisMonth() + " € ce mois-ci.");
+            }
+        }
+    }
+
+    /**
+     * Retourne les plafonds et les montants restants d'un utilisateur, depuis le cache tant que la version
+     * de ses données et le jour n'ont pas changé.
+     *
+     * @param userId      L'identifiant de l'utilisateur.
+     * @param dataVersion Le tampon de version des données de l'utilisateur.
+     * @return Les plafonds et les montants restants.
+     */
+    public Allowance getAllowance(Integer userId, long dataVersion) {
+        LocalDate today = LocalDate.now();
+        CachedAllowance cached = allowances.get(userId);
+        if (cached != null && cached.version() == dataVersion && cached.day().equals(today)) {
+            return cached.allowance();
+        }
+        Allowance allowance = load(userId, today);
+        allowances.put(userId, new CachedAllowance(dataVersion, today, allowance));
+        return allowance;
+    }
+
+    private int update(Integer senderId, Money amount, LocalDate today) {
+        Date day = Date.valueOf(today);
+        Date month = Date.valueOf(today.withDayOfMonth(1));
+        BigDecimal value = amount.toBigDecimal();
+        return jdbcTemplate.update(CONSUME, day, value, day, month, value, month, senderId,
+                day, value, defaultDailyLimit.toBigDecimal(), month, value, defaultMonthlyLimit.toBigDecimal());
+    }
+
+    private Allowance load(Integer userId, LocalDate today) {
+        List<Allowance> rows = jdbcTemplate.query(SELECT_COUNTERS, (rs, rowNum) -> {
+            Money dailyLimit = rs.getBigDecimal("daily_limit") != null ? Money.of(rs.getBigDecimal("daily_limit")) : defaultDailyLimit;
+            Money monthlyLimit = rs.getBigDecimal("monthly_limit") != null ? Money.of(rs.getBigDecimal("monthly_limit")) : defaultMonthlyLimit;
+            Money sentToday = today.equals(rs.getDate("day_start").toLocalDate())
+                    ? Money.of(rs.getBigDecimal("day_amount")) : Money.ZERO;
+            Money sentThisMonth = today.withDayOfMonth(1).equals(rs.getDate("month_start").toLocalDate())
+                    ? Money.of(rs.getBigDecimal("month_amount")) : Money.ZERO;
+            return Allowance.of(dailyLimit, sentToday, monthlyLimit, sentThisMonth);
+        }, userId);
+        return rows.isEmpty() ? Allowance.of(defaultDailyLimit, Money.ZERO, defaultMonthlyLimit, Money.ZERO) : rows.get(0);
+    }
+
+    /**
+     * Plafonds d'un utilisateur et montants qu'il peut encore envoyer.
+     *
+     * @param dailyLimit         Le plafond journalier.
+     * @param remainingToday     Le montant qui peut encore être envoyé aujourd'hui.
+     * @param monthlyLimit       Le plafond mensuel.
+     * @param remainingThisMonth Le montant qui peut encore être envoyé ce mois-ci.
+     */
+    public record Allowance(Money dailyLimit, Money remainingToday, Money monthlyLimit, Money remainingThisMonth) {
+
+        static Allowance of(Money dailyLimit, Money sentToday, Money monthlyLimit, Money sentThisMonth) {
+            Money remainingThisMonth = remaining(monthlyLimit, sentThisMonth);
+            Money remainingToday = remaining(dailyLimit, sentToday);
+            // Le plafond mensuel borne aussi ce qui reste pour la journée
+            return new Allowance(dailyLimit, remainingToday.isLessThan(remainingThisMonth) ? remainingToday : remainingThisMonth,
+                    monthlyLimit, remainingThisMonth);
+        }
+
+        private static Money remaining(Money limit, Money sent) {
+            Money remaining = limit.minus(sent);
+            return remaining.isNegative() ? Money.ZERO : remaining;
+        }
+    }
+
+    private record CachedAllowance(long version, LocalDate day, Allowance allowance) {
+    }
+}
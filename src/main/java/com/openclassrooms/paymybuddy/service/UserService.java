@@ -23,16 +23,20 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final FragmentCacheService fragmentCacheService;
 
     /**
      * Construit une instance de {@code UserService} avec le repository utilisateur et l'encodeur de mot de passe.
      *
-     * @param userRepository  Le repository pour accéder aux données des utilisateurs.
-     * @param passwordEncoder L'encodeur pour hacher les mots de passe des utilisateurs.
+     * @param userRepository       Le repository pour accéder aux données des utilisateurs.
+     * @param passwordEncoder      L'encodeur pour hacher les mots de passe des utilisateurs.
+     * @param fragmentCacheService Le cache des fragments rendus, invalidé lors de l'ajout d'une relation.
      */
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       FragmentCacheService fragmentCacheService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.fragmentCacheService = fragmentCacheService;
     }
 
     /**
@@ -73,6 +77,7 @@ public class UserService {
      * @return Un {@link Optional} contenant l'{@link User} trouvé.
      * @throws RuntimeException si aucun utilisateur n'est trouvé avec l'e-mail fourni (après la vérification de null/vide).
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         log.info("Recherche de l'utilisateur avec l'email : {}", email);
         if (email == null || email.isEmpty()) {
@@ -94,6 +99,7 @@ public class UserService {
      * @return Un {@link Optional} contenant l'{@link User} trouvé avec ses connexions initialisées.
      * @throws RuntimeException si aucun utilisateur n'est trouvé avec l'e-mail fourni.
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByEmailWithConnections(String email) {
         log.info("Recherche de l'utilisateur avec l'email et ses connexions : {}", email);
         if (email == null || email.isEmpty()) {
@@ -107,24 +113,18 @@ public class UserService {
     }
 
     /**
-     * Recherche un utilisateur par son adresse e-mail et charge de manière anticipée ses transactions.
-     * Si l'e-mail est nul ou vide, retourne un {@link Optional#empty()}.
-     * Si aucun utilisateur n'est trouvé, une {@link RuntimeException} est levée.
+     * Retourne le tampon de version des données d'un utilisateur.
+     * Cette valeur change à chaque transfert, ajout de relation ou mise à jour du profil,
+     * et sert de base au calcul des ETag des pages de l'utilisateur.
      *
-     * @param email L'adresse e-mail de l'utilisateur à rechercher.
-     * @return Un {@link Optional} contenant l'{@link User} trouvé avec ses transactions initialisées.
+     * @param email L'adresse e-mail de l'utilisateur.
+     * @return La version courante des données de l'utilisateur.
      * @throws RuntimeException si aucun utilisateur n'est trouvé avec l'e-mail fourni.
      */
-    public Optional<User> findByEmailWithTransactions(String email) {
-        log.info("Recherche de l'utilisateur avec l'email et ses transactions : {}", email);
-        if (email == null || email.isEmpty()) {
-            log.warn("Email vide ou nul fourni pour la recherche.");
-            return Optional.empty();
-        }
-        User user = userRepository.findByEmailWithTransactions(email)
+    @Transactional(readOnly = true)
+    public long getDataVersion(String email) {
+        return userRepository.findDataVersionByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'email : " + email));
-        log.info("Utilisateur trouvé avec transactions : {}", user.getEmail());
-        return Optional.of(user);
     }
 
     /**
@@ -174,6 +174,8 @@ public class UserService {
         // friend.getConnectedBy().add(user); // 'connectedBy' est l'inverse de 'connections'
 
         User userTx = userRepository.save(user);
+        userRepository.incrementDataVersion(user.getUserId());
+        fragmentCacheService.evict(userEmail);
         log.info("Connexion ajoutée entre {} et {}", userEmail, friendEmail);
         // Si bidirectionnel: userRepository.save(friend);
     }
@@ -200,6 +202,9 @@ public class UserService {
                 });
         user.setUsername(username);
         User userTx = userRepository.save(user);
+        userRepository.incrementDataVersion(user.getUserId());
+        // Le nom apparaît dans le sélecteur d'amis et la page des relations de ceux qui l'ont ajouté
+        userRepository.incrementConnectedByDataVersions(user.getUserId());
         log.info("Profil mis à jour pour l'utilisateur : {}", userTx.getEmail());
     }
 
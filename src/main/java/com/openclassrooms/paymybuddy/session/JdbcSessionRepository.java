@@ -0,0 +1,295 @@
+package com.openclassrooms.paymybuddy.session;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository Spring Session stockant les sessions HTTP dans la table MySQL {@code Http_Sessions}.
+ * Les sessions étant partagées par tous les nœuds de l'application, les requêtes d'un même
+ * utilisateur peuvent être réparties sans affinité de session, et un redémarrage ne déconnecte personne.
+ * <p>
+ * Pour limiter les écritures :
+ * <ul>
+ *     <li>les attributs sont encodés de façon compacte ({@link SessionAttributeCodec}) ;</li>
+ *     <li>une requête qui ne modifie que la date de dernier accès n'écrit rien immédiatement :
+ *     les dates sont regroupées et écrites par lots ({@link #flushLastAccessTimes()}) ;</li>
+ *     <li>les sessions expirées sont supprimées en tâche de fond, par paquets ({@link #deleteExpiredSessions()}).</li>
+ * </ul>
+ */
+@Slf4j
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession> {
+
+    private static final String SELECT_SESSION =
+            "SELECT session_id, creation_time, last_access_time, max_inactive_interval, attributes " +
+            "FROM Http_Sessions WHERE session_id = ?";
+    private static final String INSERT_SESSION =
+            "INSERT INTO Http_Sessions (session_id, principal_name, creation_time, last_access_time, " +
+            "max_inactive_interval, expiry_time, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SESSION =
+            "UPDATE Http_Sessions SET session_id = ?, principal_name = ?, last_access_time = ?, " +
+            "max_inactive_interval = ?, expiry_time = ?, attributes = ? WHERE session_id = ?";
+    private static final String UPDATE_LAST_ACCESS =
+            "UPDATE Http_Sessions SET last_access_time = ?, expiry_time = ? " +
+            "WHERE session_id = ? AND last_access_time < ?";
+    private static final String DELETE_SESSION = "DELETE FROM Http_Sessions WHERE session_id = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM Http_Sessions WHERE expiry_time < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration defaultMaxInactiveInterval;
+    private final int cleanupBatchSize;
+
+    /**
+     * Dates de dernier accès en attente d'écriture (identifiant de session -> session).
+     */
+    private final Map<String, PendingAccess> pendingAccesses = new ConcurrentHashMap<>();
+
+    /**
+     * Construit une instance de {@code JdbcSessionRepository}.
+     *
+     * @param jdbcTemplate               L'accès JDBC à la base.
+     * @param defaultMaxInactiveInterval La durée d'inactivité avant expiration d'une nouvelle session.
+     * @param cleanupBatchSize           Le nombre maximal de sessions expirées supprimées par requête.
+     */
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, Duration defaultMaxInactiveInterval, int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession delegate = new MapSession();
+        delegate.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new JdbcSession(delegate, null);
+    }
+
+    @Override
+    public void save(JdbcSession session) {
+        MapSession delegate = session.delegate;
+        if (session.persistedId == null) {
+            jdbcTemplate.update(INSERT_SESSION,
+                    delegate.getId(),
+                    principalName(delegate),
+                    delegate.getCreationTime().toEpochMilli(),
+                    delegate.getLastAccessedTime().toEpochMilli(),
+                    (int) delegate.getMaxInactiveInterval().toSeconds(),
+                    expiryTime(delegate),
+                    SessionAttributeCodec.encode(attributes(delegate)));
+        } else if (session.changed || !session.persistedId.equals(delegate.getId())) {
+            pendingAccesses.remove(session.persistedId);
+            jdbcTemplate.update(UPDATE_SESSION,
+                    delegate.getId(),
+                    principalName(delegate),
+                    delegate.getLastAccessedTime().toEpochMilli(),
+                    (int) delegate.getMaxInactiveInterval().toSeconds(),
+                    expiryTime(delegate),
+                    SessionAttributeCodec.encode(attributes(delegate)),
+                    session.persistedId);
+        } else if (session.accessed) {
+            // Seule la date de dernier accès a changé : écriture différée et regroupée
+            pendingAccesses.put(delegate.getId(), new PendingAccess(
+                    delegate.getLastAccessedTime().toEpochMilli(), expiryTime(delegate)));
+        }
+        session.persistedId = delegate.getId();
+        session.changed = false;
+        session.accessed = false;
+    }
+
+    @Override
+    public JdbcSession findById(String id) {
+        List<MapSession> sessions = jdbcTemplate.query(SELECT_SESSION, (rs, rowNum) -> {
+            MapSession delegate = new MapSession(rs.getString("session_id"));
+            delegate.setCreationTime(Instant.ofEpochMilli(rs.getLong("creation_time")));
+            delegate.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("last_access_time")));
+            delegate.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("max_inactive_interval")));
+            SessionAttributeCodec.decode(rs.getBytes("attributes")).forEach(delegate::setAttribute);
+            return delegate;
+        }, id);
+        if (sessions.isEmpty()) {
+            return null;
+        }
+        MapSession delegate = sessions.get(0);
+        // Un accès de ce nœud peut ne pas encore être écrit en base
+        PendingAccess pending = pendingAccesses.get(id);
+        if (pending != null && pending.lastAccessTime() > delegate.getLastAccessedTime().toEpochMilli()) {
+            delegate.setLastAccessedTime(Instant.ofEpochMilli(pending.lastAccessTime()));
+        }
+        if (delegate.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new JdbcSession(delegate, id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingAccesses.remove(id);
+        jdbcTemplate.update(DELETE_SESSION, id);
+    }
+
+    /**
+     * Écrit par lots les dates de dernier accès en attente.
+     * Une date n'écrase jamais une date plus récente écrite par un autre nœud.
+     * L'intervalle doit rester très inférieur à la durée d'inactivité des sessions.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.session.jdbc.access-flush-interval:PT10S}")
+    public void flushLastAccessTimes() {
+        if (pendingAccesses.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String id : Set.copyOf(pendingAccesses.keySet())) {
+            PendingAccess pending = pendingAccesses.remove(id);
+            if (pending != null) {
+                batch.add(new Object[]{pending.lastAccessTime(), pending.expiryTime(), id, pending.lastAccessTime()});
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_LAST_ACCESS, batch);
+        log.debug("{} dates de dernier accès de session écrites", batch.size());
+    }
+
+    /**
+     * Supprime les sessions expirées, par paquets de {@code cleanupBatchSize} lignes
+     * pour ne jamais verrouiller la table longtemps.
+     */
+    @Scheduled(cron = "${paymybuddy.session.jdbc.cleanup-cron:0 * * * * *}")
+    public void deleteExpiredSessions() {
+        long now = System.currentTimeMillis();
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, now, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        if (total > 0) {
+            log.info("{} sessions expirées supprimées", total);
+        }
+    }
+
+    /**
+     * Écrit les dates de dernier accès restantes à l'arrêt du nœud.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushLastAccessTimes();
+    }
+
+    private static long expiryTime(MapSession session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+    }
+
+    private static String principalName(MapSession session) {
+        Object context = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext && securityContext.getAuthentication() != null) {
+            return securityContext.getAuthentication().getName();
+        }
+        return null;
+    }
+
+    private static Map<String, Object> attributes(MapSession session) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        return attributes;
+    }
+
+    private record PendingAccess(long lastAccessTime, long expiryTime) {
+    }
+
+    /**
+     * Session HTTP stockée en base, qui suit ses modifications pour n'écrire que le nécessaire.
+     */
+    public static final class JdbcSession implements Session {
+
+        private final MapSession delegate;
+        private String persistedId;
+        private boolean changed;
+        private boolean accessed;
+
+        JdbcSession(MapSession delegate, String persistedId) {
+            this.delegate = delegate;
+            this.persistedId = persistedId;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+            accessed = true;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
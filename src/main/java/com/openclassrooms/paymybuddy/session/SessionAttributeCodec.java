@@ -0,0 +1,174 @@
+package com.openclassrooms.paymybuddy.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sérialisation compacte des attributs de session HTTP stockés en base.
+ * Les attributs les plus fréquents ont un encodage dédié, bien plus court que la
+ * sérialisation Java standard :
+ * <ul>
+ *     <li>le {@link SecurityContext} d'un utilisateur authentifié par formulaire est réduit
+ *     à son e-mail et à ses rôles (le mot de passe n'est jamais stocké) ;</li>
+ *     <li>le jeton CSRF est réduit à ses trois chaînes ;</li>
+ *     <li>les chaînes sont écrites telles quelles.</li>
+ * </ul>
+ * Les autres attributs (messages flash, requête sauvegardée...) utilisent la sérialisation Java.
+ */
+@Slf4j
+public final class SessionAttributeCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_SECURITY_CONTEXT = 1;
+    private static final byte TYPE_CSRF_TOKEN = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_SERIALIZED = 9;
+
+    private SessionAttributeCodec() {
+    }
+
+    /**
+     * Encode les attributs d'une session.
+     *
+     * @param attributes Les attributs à encoder (nom -> valeur).
+     * @return Les octets à stocker dans la colonne {@code attributes}.
+     */
+    public static byte[] encode(Map<String, Object> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            List<Map.Entry<String, Object>> encodable = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Serializable || value instanceof SecurityContext || value instanceof CsrfToken) {
+                    encodable.add(entry);
+                } else if (value != null) {
+                    log.warn("Attribut de session non sérialisable ignoré : {} ({})", entry.getKey(), value.getClass().getName());
+                }
+            }
+            out.writeShort(encodable.size());
+            for (Map.Entry<String, Object> entry : encodable) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible d'encoder les attributs de session", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Décode les attributs d'une session.
+     *
+     * @param data Les octets lus dans la colonne {@code attributes} (peut être {@code null}).
+     * @return Les attributs décodés (nom -> valeur).
+     */
+    public static Map<String, Object> decode(byte[] data) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        if (data == null || data.length == 0) {
+            return attributes;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Format d'attributs de session inconnu : " + version);
+            }
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                attributes.put(name, readValue(in));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Impossible de décoder les attributs de session", e);
+        }
+        return attributes;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof SecurityContext context && isCompactAuthentication(context.getAuthentication())) {
+            Authentication authentication = context.getAuthentication();
+            out.writeByte(TYPE_SECURITY_CONTEXT);
+            out.writeUTF(authentication.getName());
+            out.writeShort(authentication.getAuthorities().size());
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                out.writeUTF(authority.getAuthority());
+            }
+        } else if (value instanceof CsrfToken token) {
+            out.writeByte(TYPE_CSRF_TOKEN);
+            out.writeUTF(token.getHeaderName());
+            out.writeUTF(token.getParameterName());
+            out.writeUTF(token.getToken());
+        } else if (value instanceof String string && string.length() < 16_384) { // writeUTF limité à 64 Ko
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(string);
+        } else {
+            out.writeByte(TYPE_SERIALIZED);
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+                objectOut.writeObject(value);
+            }
+            out.writeInt(serialized.size());
+            serialized.writeTo(out);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_SECURITY_CONTEXT: {
+                String username = in.readUTF();
+                int authorityCount = in.readUnsignedShort();
+                List<GrantedAuthority> authorities = new ArrayList<>(authorityCount);
+                for (int i = 0; i < authorityCount; i++) {
+                    authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+                }
+                // Même forme que le principal construit par CustomUserDetailsService (identifiants effacés)
+                UserDetails principal = new User(username, "", authorities);
+                return new SecurityContextImpl(
+                        UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+            }
+            case TYPE_CSRF_TOKEN:
+                return new DefaultCsrfToken(in.readUTF(), in.readUTF(), in.readUTF());
+            case TYPE_STRING:
+                return in.readUTF();
+            case TYPE_SERIALIZED: {
+                byte[] serialized = new byte[in.readInt()];
+                in.readFully(serialized);
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+                    return objectIn.readObject();
+                }
+            }
+            default:
+                throw new IllegalStateException("Type d'attribut de session inconnu : " + type);
+        }
+    }
+
+    private static boolean isCompactAuthentication(Authentication authentication) {
+        return authentication instanceof UsernamePasswordAuthenticationToken
+                && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof UserDetails;
+    }
+}
@@ -0,0 +1,9 @@
+-- Pipeline de transferts groupes (paymybuddy.transfers.pipeline.enabled, voir TransferPipeline) :
+-- sequence du dernier transfert du journal local de chaque noeud applique en base,
+-- mise a jour dans la transaction de chaque groupe. Au redemarrage, le noeud rejoue
+-- les transferts de son journal posterieurs a cette sequence.
+CREATE TABLE Transfer_Pipeline_Checkpoints (
+    `node_id` VARCHAR(64) NOT NULL,
+    `last_sequence` BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`node_id`)
+);
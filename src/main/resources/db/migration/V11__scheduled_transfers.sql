@@ -0,0 +1,34 @@
+-- Virements programmes (ponctuels ou recurrents), executes hors pointe par ScheduledTransferRunner.
+-- L'echeance n d'un virement recurrent est calculee depuis first_run_at (sans derive d'un mois sur l'autre) ;
+-- next_run_at est l'echeance courante, ou la prochaine tentative apres un echec (solde insuffisant).
+-- lease_until : virement reserve par un noeud (SELECT ... FOR UPDATE SKIP LOCKED) jusqu'a cette date.
+CREATE TABLE Scheduled_Transfers (
+    `scheduled_transfer_id` INT NOT NULL AUTO_INCREMENT,
+    `sender_id` INT NOT NULL,
+    `receiver_id` INT NOT NULL,
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `description` VARCHAR(255) NULL,
+    `frequency` VARCHAR(16) NOT NULL, -- ONCE, WEEKLY, MONTHLY
+    `first_run_at` DATETIME NOT NULL,
+    `occurrences` INT NOT NULL DEFAULT 0, -- echeances deja traitees
+    `next_run_at` DATETIME NOT NULL,
+    `status` VARCHAR(16) NOT NULL DEFAULT 'ACTIVE', -- ACTIVE, COMPLETED, CANCELLED, FAILED
+    `attempts` INT NOT NULL DEFAULT 0, -- tentatives echouees pour l'echeance courante
+    `last_error` VARCHAR(255) NULL,
+    `lease_until` DATETIME NULL,
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`scheduled_transfer_id`),
+    INDEX `idx_scheduled_transfers_due` (`status` ASC, `next_run_at` ASC),
+    INDEX `idx_scheduled_transfers_sender` (`sender_id` ASC, `status` ASC),
+    INDEX `fk_scheduled_transfers_receiver_idx` (`receiver_id` ASC),
+    CONSTRAINT `fk_scheduled_transfers_sender`
+        FOREIGN KEY (`sender_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE,
+    CONSTRAINT `fk_scheduled_transfers_receiver`
+        FOREIGN KEY (`receiver_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
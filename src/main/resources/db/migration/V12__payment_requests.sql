@@ -0,0 +1,27 @@
+-- Demandes de paiement : un utilisateur (requester) demande un montant a l'une de ses relations (payer).
+-- La boite de reception du payeur (demandes en attente, plus recentes d'abord) et le nombre de demandes non lues
+-- sont servis par l'index (payer_id, status, created_at).
+CREATE TABLE Payment_Requests (
+    `payment_request_id` INT NOT NULL AUTO_INCREMENT,
+    `requester_id` INT NOT NULL,
+    `payer_id` INT NOT NULL,
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `description` VARCHAR(255) NULL,
+    `status` VARCHAR(16) NOT NULL DEFAULT 'PENDING', -- PENDING, ACCEPTED, DECLINED
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `read_at` DATETIME NULL, -- premier affichage dans la boite de reception du payeur
+    `responded_at` DATETIME NULL,
+    PRIMARY KEY (`payment_request_id`),
+    INDEX `idx_payment_requests_inbox` (`payer_id` ASC, `status` ASC, `created_at` ASC),
+    INDEX `idx_payment_requests_requester` (`requester_id` ASC, `status` ASC, `created_at` ASC),
+    CONSTRAINT `fk_payment_requests_requester`
+        FOREIGN KEY (`requester_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE,
+    CONSTRAINT `fk_payment_requests_payer`
+        FOREIGN KEY (`payer_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
@@ -0,0 +1,56 @@
+-- Groupes de depenses partagees : un groupe est forme par son createur parmi ses relations (Connections).
+-- Les depenses non reglees (settled_at NULL) sont reparties a parts egales entre les membres ;
+-- le reglement du groupe execute le minimum de transferts calcule par SettlementSolver.
+CREATE TABLE Expense_Groups (
+    `group_id` INT NOT NULL AUTO_INCREMENT,
+    `name` VARCHAR(100) NOT NULL,
+    `owner_id` INT NOT NULL,
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`group_id`),
+    INDEX `fk_expense_groups_owner_idx` (`owner_id` ASC),
+    CONSTRAINT `fk_expense_groups_owner`
+        FOREIGN KEY (`owner_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+CREATE TABLE Expense_Group_Members (
+    `group_id` INT NOT NULL,
+    `user_id` INT NOT NULL,
+    PRIMARY KEY (`group_id`, `user_id`),
+    INDEX `fk_expense_group_members_user_idx` (`user_id` ASC), -- groupes d'un utilisateur
+    CONSTRAINT `fk_expense_group_members_group`
+        FOREIGN KEY (`group_id`)
+        REFERENCES Expense_Groups (`group_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE,
+    CONSTRAINT `fk_expense_group_members_user`
+        FOREIGN KEY (`user_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+CREATE TABLE Group_Expenses (
+    `expense_id` INT NOT NULL AUTO_INCREMENT,
+    `group_id` INT NOT NULL,
+    `payer_id` INT NOT NULL, -- membre qui a avance la depense
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `description` VARCHAR(255) NULL,
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `settled_at` DATETIME NULL, -- reglement du groupe qui a solde la depense
+    PRIMARY KEY (`expense_id`),
+    INDEX `idx_group_expenses_unsettled` (`group_id` ASC, `settled_at` ASC),
+    INDEX `fk_group_expenses_payer_idx` (`payer_id` ASC),
+    CONSTRAINT `fk_group_expenses_group`
+        FOREIGN KEY (`group_id`)
+        REFERENCES Expense_Groups (`group_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE,
+    CONSTRAINT `fk_group_expenses_payer`
+        FOREIGN KEY (`payer_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
@@ -0,0 +1,41 @@
+-- Recherche dans l'historique (voir TransactionSearchService).
+-- Une ligne par transaction et par participant (user_id : compte dont c'est l'historique), ecrite dans la
+-- transaction du transfert. Table separee de `Transactions` : une table partitionnee (transactions_partitioning.sql)
+-- ne peut pas porter d'index FULLTEXT, et l'historique archive (Transactions_Archive) reste cherchable.
+-- search_text commence par le jeton du compte (usr<user_id>) : MATCH ... AGAINST('+usr42 +diner*' IN BOOLEAN MODE)
+-- ne parcourt que les lignes du compte, quelle que soit la taille de la table.
+-- Cle primaire (user_id, transaction_ts, transaction_id) : pagination par curseur sur l'historique d'un compte.
+CREATE TABLE Transaction_Search (
+    `user_id` INT NOT NULL,
+    `transaction_ts` TIMESTAMP NOT NULL,
+    `transaction_id` INT NOT NULL,
+    `counterparty_id` INT NOT NULL,
+    `direction` CHAR(1) NOT NULL, -- S : envoyee, R : recue
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `description` VARCHAR(255) NULL,
+    `search_text` VARCHAR(300) NOT NULL,
+    PRIMARY KEY (`user_id`, `transaction_ts`, `transaction_id`),
+    INDEX `idx_transaction_search_counterparty` (`user_id` ASC, `counterparty_id` ASC, `transaction_ts` ASC),
+    FULLTEXT INDEX `ft_transaction_search_text` (`search_text`)
+);
+
+-- Historique existant (courant et archive), cote expediteur puis cote destinataire
+INSERT INTO Transaction_Search (user_id, transaction_ts, transaction_id, counterparty_id, direction, amount, description, search_text)
+SELECT sender_id, `timestamp`, transaction_id, receiver_id, 'S', amount, description,
+       CONCAT('usr', sender_id, ' ', COALESCE(description, ''))
+FROM Transactions;
+
+INSERT INTO Transaction_Search (user_id, transaction_ts, transaction_id, counterparty_id, direction, amount, description, search_text)
+SELECT receiver_id, `timestamp`, transaction_id, sender_id, 'R', amount, description,
+       CONCAT('usr', receiver_id, ' ', COALESCE(description, ''))
+FROM Transactions;
+
+INSERT INTO Transaction_Search (user_id, transaction_ts, transaction_id, counterparty_id, direction, amount, description, search_text)
+SELECT sender_id, `timestamp`, transaction_id, receiver_id, 'S', amount, description,
+       CONCAT('usr', sender_id, ' ', COALESCE(description, ''))
+FROM Transactions_Archive;
+
+INSERT INTO Transaction_Search (user_id, transaction_ts, transaction_id, counterparty_id, direction, amount, description, search_text)
+SELECT receiver_id, `timestamp`, transaction_id, sender_id, 'R', amount, description,
+       CONCAT('usr', receiver_id, ' ', COALESCE(description, ''))
+FROM Transactions_Archive;
@@ -0,0 +1,17 @@
+-- Journal d'audit des regles anti-fraude (FraudRulesEngine) : une ligne par transfert evalue,
+-- ecrite par lots par FraudAuditLog, hors de la transaction du transfert.
+-- Pas de cle etrangere : l'audit ne doit ni ralentir ni bloquer les ecritures sur Users.
+CREATE TABLE Fraud_Decisions (
+    `decision_id` BIGINT NOT NULL AUTO_INCREMENT,
+    `sender_id` INT NOT NULL,
+    `receiver_id` INT NOT NULL,
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `allowed` BOOLEAN NOT NULL,
+    `rule_name` VARCHAR(64) NULL, -- regle qui a refuse le transfert
+    `reason` VARCHAR(255) NULL,
+    `decided_at` DATETIME(3) NOT NULL,
+    `duration_micros` INT NOT NULL,
+    PRIMARY KEY (`decision_id`),
+    INDEX `idx_fraud_decisions_sender` (`sender_id` ASC, `decided_at` ASC),
+    INDEX `idx_fraud_decisions_blocked` (`allowed` ASC, `decided_at` ASC)
+);
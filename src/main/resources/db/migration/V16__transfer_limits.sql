@@ -0,0 +1,19 @@
+-- Plafonds de transferts sortants (TransferLimitService) : montants envoyes sur la journee et le mois en cours,
+-- pre-agreges par utilisateur. Mis a jour par un UPDATE conditionnel dans la transaction du transfert, juste apres
+-- le debit ; un compteur d'une periode passee est remis a zero par ce meme UPDATE (pas de tache de remise a zero).
+-- daily_limit / monthly_limit : plafonds propres a l'utilisateur, NULL pour les plafonds par defaut.
+CREATE TABLE Transfer_Limits (
+    `user_id` INT NOT NULL,
+    `day_start` DATE NOT NULL,
+    `day_amount` DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    `month_start` DATE NOT NULL,
+    `month_amount` DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    `daily_limit` DECIMAL(12, 2) NULL,
+    `monthly_limit` DECIMAL(12, 2) NULL,
+    PRIMARY KEY (`user_id`),
+    CONSTRAINT `fk_transfer_limits_user`
+        FOREIGN KEY (`user_id`)
+        REFERENCES Users (`user_id`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
@@ -0,0 +1,7 @@
+-- Invitations aux groupes de depenses : un invite ne devient membre qu'en acceptant (joined_at renseigne).
+-- Seuls les membres ayant rejoint le groupe saisissent des depenses et en partagent le cout.
+ALTER TABLE Expense_Group_Members ADD COLUMN `joined_at` DATETIME NULL; -- NULL : invitation en attente
+
+-- Groupes existants : seul le createur a rejoint, les autres membres redeviennent invites
+UPDATE Expense_Group_Members SET joined_at = CURRENT_TIMESTAMP
+WHERE (group_id, user_id) IN (SELECT group_id, owner_id FROM Expense_Groups);
@@ -0,0 +1,8 @@
+-- Solde du compte externe : contrepartie de tous les soldes d'ouverture (migration V8, chargement de donnees
+-- par DatasetSeeder). DECIMAL(10, 2) plafonne a 99 999 999,99 ; DECIMAL(15, 2) couvre 2^31 comptes ouverts
+-- au solde maximal. Les ecritures du journal restent en DECIMAL(10, 2) : une contrepartie trop grande y est
+-- repartie sur plusieurs ecritures.
+-- Changement de type : MySQL recopie la table (ALGORITHM=COPY), en laissant les lectures passer (LOCK=SHARED)
+ALTER TABLE Users
+    MODIFY COLUMN `balance` DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    ALGORITHM=COPY, LOCK=SHARED;
@@ -0,0 +1,14 @@
+-- Parts de reglement demandees (GroupExpenseService.settle) : la dette d'un membre envers un autre reste une ligne
+-- non reglee du groupe, liee a sa demande de paiement, jusqu'a l'acceptation de la demande (settled_at renseigne).
+-- Une demande refusee rouvre la part (payment_request_id remis a NULL) : elle entre dans le reglement suivant.
+-- debtor_id : part due par ce seul membre au payeur (payer_id), hors partage a parts egales.
+-- Pas de cle etrangere, incompatible avec INSTANT
+ALTER TABLE Group_Expenses
+    ADD COLUMN `debtor_id` INT NULL,
+    ADD COLUMN `payment_request_id` INT NULL,
+    ALGORITHM=INSTANT;
+
+-- Mise a jour de la part a l'acceptation ou au refus de sa demande
+ALTER TABLE Group_Expenses
+    ADD INDEX `idx_group_expenses_payment_request` (`payment_request_id` ASC),
+    ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,5 @@
+-- Version des donnees affichees (ETag des pages)
+-- ALGORITHM=INSTANT : modification des metadonnees seulement, sans reconstruire ni verrouiller la table
+ALTER TABLE Users
+    ADD COLUMN `data_version` BIGINT NOT NULL DEFAULT 0,
+    ALGORITHM=INSTANT;
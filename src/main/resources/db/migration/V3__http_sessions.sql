@@ -0,0 +1,12 @@
+-- Sessions HTTP partagees entre les noeuds de l'application (Spring Session)
+CREATE TABLE Http_Sessions (
+    `session_id` CHAR(36) NOT NULL,
+    `principal_name` VARCHAR(255) NULL, -- Email de l'utilisateur connecte (diagnostic)
+    `creation_time` BIGINT NOT NULL, -- Dates en millisecondes depuis l'epoch
+    `last_access_time` BIGINT NOT NULL,
+    `max_inactive_interval` INT NOT NULL, -- En secondes
+    `expiry_time` BIGINT NOT NULL,
+    `attributes` BLOB NULL, -- Attributs encodes de facon compacte (SessionAttributeCodec)
+    PRIMARY KEY (`session_id`),
+    INDEX `idx_http_sessions_expiry` (`expiry_time` ASC) -- Nettoyage des sessions expirees
+);
@@ -0,0 +1,7 @@
+-- Index composites de l'historique : transactions d'un utilisateur triees/filtrees par date
+-- ALGORITHM=INPLACE, LOCK=NONE : construction en ligne, les transferts continuent pendant la creation.
+-- Si MySQL ne peut pas garantir une construction sans verrou, l'instruction echoue au lieu de bloquer.
+ALTER TABLE Transactions
+    ADD INDEX `idx_transactions_sender_ts` (`sender_id` ASC, `timestamp` ASC),
+    ADD INDEX `idx_transactions_receiver_ts` (`receiver_id` ASC, `timestamp` ASC),
+    ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,6 @@
+-- Les index composites de V4 couvrent les cles etrangeres : les index simples sont redondants
+-- et ne font que ralentir chaque insertion de transaction
+ALTER TABLE Transactions
+    DROP INDEX `fk_transactions_sender_idx`,
+    DROP INDEX `fk_transactions_receiver_idx`,
+    ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,13 @@
+-- Historique froid : transactions deplacees depuis les partitions anciennes de `Transactions`
+-- (voir resources/transactions_partitioning.sql et TransactionArchiveService), stockage compresse
+CREATE TABLE Transactions_Archive (
+    `transaction_id` INT NOT NULL,
+    `sender_id` INT NOT NULL,
+    `receiver_id` INT NOT NULL,
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `description` VARCHAR(255) NULL,
+    `timestamp` TIMESTAMP NOT NULL,
+    PRIMARY KEY (`transaction_id`),
+    INDEX `idx_transactions_archive_sender_ts` (`sender_id` ASC, `timestamp` ASC),
+    INDEX `idx_transactions_archive_receiver_ts` (`receiver_id` ASC, `timestamp` ASC)
+) ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
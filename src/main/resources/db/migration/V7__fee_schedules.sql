@@ -0,0 +1,51 @@
+-- Plans de frais de transfert (charges en memoire par FeeEngine, recharges sans redemarrage)
+
+-- -----------------------------------------------------
+-- Table `Fee_Plans`
+-- Un plan par offre ; le plan par defaut s'applique aux utilisateurs sans plan (Users.fee_plan NULL)
+-- -----------------------------------------------------
+CREATE TABLE Fee_Plans (
+    `plan_code` VARCHAR(32) NOT NULL,
+    `label` VARCHAR(100) NOT NULL,
+    `is_default` BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (`plan_code`)
+);
+
+-- -----------------------------------------------------
+-- Table `Fee_Tiers`
+-- Paliers d'un plan : un transfert paie le palier de plus grand `min_amount` inferieur ou egal a son montant
+-- (frais = montant * basis_points / 10000, arrondi au centime, + fixed_fee)
+-- -----------------------------------------------------
+CREATE TABLE Fee_Tiers (
+    `plan_code` VARCHAR(32) NOT NULL,
+    `min_amount` DECIMAL(10, 2) NOT NULL,
+    `basis_points` INT NOT NULL, -- 50 = 0.5 %
+    `fixed_fee` DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (`plan_code`, `min_amount`),
+    CONSTRAINT `fk_fee_tiers_plan`
+        FOREIGN KEY (`plan_code`)
+        REFERENCES Fee_Plans (`plan_code`)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+INSERT INTO Fee_Plans (plan_code, label, is_default) VALUES ('STANDARD', 'Offre standard', TRUE);
+INSERT INTO Fee_Tiers (plan_code, min_amount, basis_points, fixed_fee) VALUES ('STANDARD', 0.00, 50, 0.00);
+
+-- Plan de frais de l'utilisateur (NULL : plan par defaut) - pas de cle etrangere, incompatible avec INSTANT
+ALTER TABLE Users
+    ADD COLUMN `fee_plan` VARCHAR(32) NULL,
+    ALGORITHM=INSTANT;
+
+-- Frais payes par l'expediteur en plus du montant transfere
+ALTER TABLE Transactions
+    ADD COLUMN `fee` DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    ALGORITHM=INSTANT;
+-- INSTANT n'est pas disponible en ROW_FORMAT=COMPRESSED : reconstruction en ligne, sans bloquer les ecritures
+ALTER TABLE Transactions_Archive
+    ADD COLUMN `fee` DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    ALGORITHM=INPLACE, LOCK=NONE;
+
+-- Compte de la plateforme credite des frais (mot de passe inutilisable : aucune connexion possible)
+INSERT IGNORE INTO Users (username, email, password_hash, balance) VALUES
+('Pay My Buddy', 'platform@paymybuddy.com', '!', 0.00);
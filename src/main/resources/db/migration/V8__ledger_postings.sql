@@ -0,0 +1,34 @@
+-- Journal en partie double : chaque transfert ecrit des ecritures equilibrees (somme nulle par transaction).
+-- Users.balance devient l'agregat en cache des ecritures du compte, mis a jour par increment atomique (LedgerService).
+
+-- -----------------------------------------------------
+-- Table `Ledger_Postings`
+-- Une ligne par mouvement d'un compte : montant negatif au debit, positif au credit
+-- -----------------------------------------------------
+CREATE TABLE Ledger_Postings (
+    `posting_id` BIGINT NOT NULL AUTO_INCREMENT,
+    `transaction_id` INT NOT NULL, -- Ecriture de journal (en-tete dans `Transactions`, 0 pour les soldes d'ouverture)
+    `account_id` INT NOT NULL, -- Compte mouvemente (Users.user_id)
+    `amount` DECIMAL(10, 2) NOT NULL,
+    `posting_type` VARCHAR(16) NOT NULL, -- TRANSFER, FEE, OPENING
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`posting_id`),
+    INDEX `idx_ledger_postings_transaction` (`transaction_id` ASC),
+    INDEX `idx_ledger_postings_account` (`account_id` ASC, `posting_id` ASC)
+);
+
+-- Compte de contrepartie de l'argent entre dans le systeme (soldes d'ouverture, depots) : son solde est negatif
+INSERT IGNORE INTO Users (username, email, password_hash, balance) VALUES
+('Fonds externes', 'external@paymybuddy.com', '!', 0.00);
+
+-- Soldes d'ouverture : les soldes existants deviennent des ecritures, contrepartie sur le compte externe
+SET @opening_total = (SELECT COALESCE(SUM(balance), 0) FROM Users);
+
+INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type)
+SELECT 0, user_id, balance, 'OPENING' FROM Users WHERE balance <> 0;
+
+INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type)
+SELECT 0, user_id, -@opening_total, 'OPENING' FROM Users
+WHERE email = 'external@paymybuddy.com' AND @opening_total <> 0;
+
+UPDATE Users SET balance = balance - @opening_total WHERE email = 'external@paymybuddy.com';
@@ -0,0 +1,20 @@
+-- Sous-soldes des comptes tres sollicites en credit (compte de la plateforme, commercants) :
+-- chaque credit incremente une des N lignes du compte au lieu de la ligne unique de `Users`,
+-- les transferts concurrents vers ce compte ne s'attendent plus sur le meme verrou de ligne.
+-- Solde du compte = Users.balance + somme de ses sous-soldes ; HotAccountStripes les replie periodiquement.
+CREATE TABLE Account_Stripes (
+    `account_id` INT NOT NULL, -- Users.user_id
+    `stripe_no` SMALLINT NOT NULL,
+    `balance` DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (`account_id`, `stripe_no`)
+);
+
+-- Le compte de la plateforme est credite a chaque transfert paye
+INSERT INTO Account_Stripes (account_id, stripe_no)
+SELECT u.user_id, s.stripe_no
+FROM Users u
+CROSS JOIN (SELECT 0 AS stripe_no UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3
+            UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7
+            UNION ALL SELECT 8 UNION ALL SELECT 9 UNION ALL SELECT 10 UNION ALL SELECT 11
+            UNION ALL SELECT 12 UNION ALL SELECT 13 UNION ALL SELECT 14 UNION ALL SELECT 15) s
+WHERE u.email = 'platform@paymybuddy.com';
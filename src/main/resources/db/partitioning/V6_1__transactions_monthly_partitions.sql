@@ -0,0 +1,38 @@
+-- -----------------------------------------------------
+-- Partitionnement mensuel de la table `Transactions`
+--
+-- Migration optionnelle : l'emplacement db/partitioning n'est ajoute aux migrations que si
+-- paymybuddy.transactions.partitioning.enabled=true (voir MigrationConfig). Elle est alors appliquee
+-- une seule fois au demarrage, meme sur une base deja migree au-dela de la version 6.
+--
+-- MySQL impose que toute cle unique contienne la colonne de partitionnement et n'accepte
+-- pas de cle etrangere sur une table partitionnee : les contraintes fk_transactions_* sont
+-- remplacees par la verification applicative (TransactionService charge les deux utilisateurs).
+--
+-- Les partitions sont nommees p_AAAAMM et bornees par le debut du mois suivant (UTC).
+-- TransactionArchiveService cree les partitions des mois a venir et deplace les plus
+-- anciennes dans `Transactions_Archive`.
+-- -----------------------------------------------------
+-- Bornes des partitions exprimees en UTC (comme les calcule TransactionArchiveService)
+SET time_zone = '+00:00';
+
+ALTER TABLE Transactions
+    DROP FOREIGN KEY `fk_transactions_sender`,
+    DROP FOREIGN KEY `fk_transactions_receiver`;
+
+ALTER TABLE Transactions
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`transaction_id`, `timestamp`);
+
+-- Les index composites (sender_id, timestamp) et (receiver_id, timestamp) deviennent locaux a chaque partition
+ALTER TABLE Transactions
+    PARTITION BY RANGE (UNIX_TIMESTAMP(`timestamp`)) (
+        PARTITION p_old VALUES LESS THAN (UNIX_TIMESTAMP('2025-01-01 00:00:00')),
+        PARTITION p_202501 VALUES LESS THAN (UNIX_TIMESTAMP('2025-02-01 00:00:00')),
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+    );
+-- Les partitions mensuelles suivantes sont creees par TransactionArchiveService au demarrage
+-- du job (REORGANIZE PARTITION p_max), avant que des lignes n'y soient ecrites.
+
+-- Fuseau de la session rendu a sa valeur par defaut pour les migrations suivantes
+SET time_zone = DEFAULT;
@@ -0,0 +1,24 @@
+-- Jeu de donnees de demonstration (profil de developpement uniquement, exclu en production)
+-- Rejouable sans doublon sur une base existante (INSERT IGNORE, NOT EXISTS)
+
+INSERT IGNORE INTO Users (username, email, password_hash, balance) VALUES
+('Alice', 'alice@mail.fr', '$2a$10$aBAzu8boefhmuRiNRaSzKeIGQAgafZ7cDqJxOTj4sdb9WL2rSOk.S', 1000.00),
+('Bob', 'bob@mail.fr', '$2a$10$aBAzu8boefhmuRiNRaSzKeIGQAgafZ7cDqJxOTj4sdb9WL2rSOk.S', 500.00),
+('Charlie', 'charlie@mail.fr', '$2a$10$aBAzu8boefhmuRiNRaSzKeIGQAgafZ7cDqJxOTj4sdb9WL2rSOk.S', 750.00),
+('David', 'david@mail.fr', '$2a$10$aBAzu8boefhmuRiNRaSzKeIGQAgafZ7cDqJxOTj4sdb9WL2rSOk.S', 300.00);
+
+INSERT IGNORE INTO Connections (user_id_1, user_id_2) VALUES
+(1, 2), -- Alice et Bob
+(1, 3), -- Alice et Charlie
+(2, 3), -- Bob et Charlie
+(2, 4), -- Bob et David
+(3, 4); -- Charlie et David
+
+INSERT INTO Transactions (sender_id, receiver_id, amount, description)
+SELECT t.sender_id, t.receiver_id, t.amount, t.description FROM (
+    SELECT 1 AS sender_id, 2 AS receiver_id, 100.00 AS amount, 'Transfert pour le dîner' AS description
+    UNION ALL SELECT 2, 3, 50.00, 'Remboursement de la dette'
+    UNION ALL SELECT 3, 4, 200.00, 'Achat de livres'
+    UNION ALL SELECT 4, 1, 150.00, 'Remboursement de la dette'
+) t
+WHERE NOT EXISTS (SELECT 1 FROM Transactions);
@@ -0,0 +1,126 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.controller.HomeController;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.Transaction;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.service.CustomUserDetailsService;
+import com.openclassrooms.paymybuddy.service.FragmentCacheService;
+import com.openclassrooms.paymybuddy.service.HotAccountStripes;
+import com.openclassrooms.paymybuddy.service.PaymentRequestService;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferLimitService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Mesure du temps de rendu de la page d'accueil (contrôleur + Thymeleaf + layout).
+ * Les sous-classes fixent la configuration (cache des templates, cache de fragments) :
+ * comparer les temps affichés par {@link HomeRenderUncachedBenchmarkTest} et
+ * {@link HomeRenderCachedBenchmarkTest}.
+ * Lancement : {@code ./mvnw test -Pbenchmark}
+ */
+@Tag("benchmark")
+@WebMvcTest(HomeController.class)
+@Import(FragmentCacheService.class)
+abstract class AbstractHomeRenderBenchmark {
+
+    private static final int CONNECTIONS = 50;
+    private static final int TRANSACTIONS = 200;
+    private static final int WARMUP_RENDERS = 200;
+    private static final int MEASURED_RENDERS = 1000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TransactionService transactionService;
+
+    @MockitoBean
+    private PaymentRequestService paymentRequestService;
+
+    @MockitoBean
+    private TransferLimitService transferLimitService;
+
+    @MockitoBean
+    private HotAccountStripes hotAccountStripes; // false -> GET conditionnel actif
+
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setUserId(1);
+        user.setEmail("user@example.com");
+        user.setUsername("Bench User");
+        user.setBalance(Money.of(new BigDecimal("1000.00")));
+        Set<User> connections = new HashSet<>();
+        List<User> friends = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            User friend = new User();
+            friend.setUserId(100 + i);
+            friend.setEmail("friend" + i + "@example.com");
+            friend.setUsername("Friend " + i);
+            connections.add(friend);
+            friends.add(friend);
+        }
+        user.setConnections(connections);
+
+        List<Transaction> history = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction tx = new Transaction();
+            tx.setTransactionId(i);
+            boolean sent = i % 2 == 0;
+            tx.setSender(sent ? user : friends.get(i % CONNECTIONS));
+            tx.setReceiver(sent ? friends.get(i % CONNECTIONS) : user);
+            tx.setAmount(Money.of(new BigDecimal("12.50")));
+            tx.setDescription("Transaction " + i);
+            tx.setTimestamp(LocalDateTime.now().minusHours(i));
+            history.add(tx);
+        }
+
+        when(userService.getDataVersion("user@example.com")).thenReturn(1L);
+        when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getBalance(user)).thenReturn(user.getBalance());
+        when(transactionService.getTransactionHistory("user@example.com")).thenReturn(history);
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com")
+    void renderHomePage() throws Exception {
+        for (int i = 0; i < WARMUP_RENDERS; i++) {
+            mockMvc.perform(get("/home")).andExpect(status().isOk());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RENDERS; i++) {
+            mockMvc.perform(get("/home")).andExpect(status().isOk());
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[benchmark] %s : %d rendus de /home, %.1f µs/rendu%n",
+                getClass().getSimpleName(), MEASURED_RENDERS, elapsed / 1000.0 / MEASURED_RENDERS);
+    }
+}
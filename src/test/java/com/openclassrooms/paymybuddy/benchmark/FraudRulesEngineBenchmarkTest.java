@@ -0,0 +1,73 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.fraud.AmountPerHourRule;
+import com.openclassrooms.paymybuddy.fraud.FraudAuditLog;
+import com.openclassrooms.paymybuddy.fraud.FraudDecision;
+import com.openclassrooms.paymybuddy.fraud.FraudRulesEngine;
+import com.openclassrooms.paymybuddy.fraud.NewRecipientRule;
+import com.openclassrooms.paymybuddy.fraud.TransferBlockedException;
+import com.openclassrooms.paymybuddy.fraud.TransfersPerMinuteRule;
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Temps d'évaluation des règles anti-fraude ({@link FraudRulesEngine#check}) sur 100 000 expéditeurs
+ * dont les agrégats sont déjà en mémoire : le contrôle ne doit coûter que quelques microsecondes par transfert.
+ * Le journal d'audit est remplacé par un journal qui ignore les décisions (pas d'écriture en base).
+ * Lancement : {@code ./mvnw test -Pbenchmark -Dtest=FraudRulesEngineBenchmarkTest}
+ */
+@Tag("benchmark")
+class FraudRulesEngineBenchmarkTest {
+
+    private static final int SENDERS = 100_000;
+    private static final int CHECKS = 1_000_000;
+
+    @Test
+    void printCheckTime() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any())).thenReturn(List.of(1, 2, 3));
+        FraudRulesEngine engine = new FraudRulesEngine(jdbcTemplate,
+                List.of(new TransfersPerMinuteRule(1_000), new AmountPerHourRule(new BigDecimal("100000000.00")),
+                        new NewRecipientRule(1_000)),
+                new FraudAuditLog(jdbcTemplate, 1, 1) {
+                    @Override
+                    public void record(FraudDecision decision) {
+                    }
+                }, true, Duration.ofDays(90), 1_000);
+        Random random = new Random(42);
+
+        int blocked = run(engine, random, CHECKS); // chauffe et chargement des bénéficiaires connus
+        long started = System.nanoTime();
+        blocked += run(engine, random, CHECKS);
+        double micros = (System.nanoTime() - started) / 1_000.0 / CHECKS;
+
+        System.out.printf("[benchmark] %,d expéditeurs : %.2f µs par contrôle (%,d refus)%n", SENDERS, micros, blocked);
+        assertTrue(micros < 50, "Contrôle anti-fraude trop lent : " + micros + " µs");
+    }
+
+    private static int run(FraudRulesEngine engine, Random random, int checks) {
+        int blocked = 0;
+        for (int i = 0; i < checks; i++) {
+            try {
+                engine.check(random.nextInt(SENDERS) + 10, random.nextInt(5) + 1, Money.ofCents(random.nextInt(10_000) + 1));
+            } catch (TransferBlockedException e) {
+                blocked++;
+            }
+        }
+        return blocked;
+    }
+}
@@ -0,0 +1,14 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Rendu de la page d'accueil avec la configuration du profil prod :
+ * cache des templates Thymeleaf et cache de fragments par version de données.
+ */
+@TestPropertySource(properties = {
+        "spring.thymeleaf.cache=true",
+        "paymybuddy.fragment-cache.enabled=true"
+})
+class HomeRenderCachedBenchmarkTest extends AbstractHomeRenderBenchmark {
+}
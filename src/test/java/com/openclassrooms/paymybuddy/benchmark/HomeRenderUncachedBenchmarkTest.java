@@ -0,0 +1,14 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Rendu de la page d'accueil avec la configuration de développement :
+ * templates re-parsés à chaque requête et fragments rendus à chaque fois.
+ */
+@TestPropertySource(properties = {
+        "spring.thymeleaf.cache=false",
+        "paymybuddy.fragment-cache.enabled=false"
+})
+class HomeRenderUncachedBenchmarkTest extends AbstractHomeRenderBenchmark {
+}
@@ -0,0 +1,116 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.service.HotAccountStripes;
+import com.openclassrooms.paymybuddy.service.LedgerConsistencyChecker;
+import com.openclassrooms.paymybuddy.service.LedgerService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Débit de paiements « plusieurs vers un » (tous les expéditeurs paient le même commerçant),
+ * avec le solde du commerçant sur une seule ligne puis réparti en sous-soldes.
+ * Une latence de commit est simulée en fin de transaction (écriture du journal InnoDB sur disque) :
+ * c'est pendant ce temps que le verrou de la ligne créditée bloque les autres transferts.
+ * Lancement : {@code ./mvnw test -Pbenchmark -Dtest=HotAccountContentionBenchmarkTest}
+ */
+@Tag("benchmark")
+class HotAccountContentionBenchmarkTest {
+
+    private static final int MERCHANT = 1;
+    private static final int PLATFORM = 2;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final long COMMIT_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    @Test
+    void printThroughputWithAndWithoutStripes() throws Exception {
+        double single = run(0);
+        double four = run(4);
+        double sixteen = run(16);
+        System.out.printf("[benchmark] paiements vers un compte chaud : 1 ligne = %.0f tr/s, 4 sous-soldes = %.0f tr/s, "
+                + "16 sous-soldes = %.0f tr/s%n", single, four, sixteen);
+    }
+
+    private double run(int stripes) throws Exception {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:mem:hot_" + stripes + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(THREADS + 2);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            createSchema(jdbcTemplate);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            HotAccountStripes hotAccounts = new HotAccountStripes(jdbcTemplate, transactionManager, List.of(), stripes);
+            if (stripes > 0) {
+                hotAccounts.designate(MERCHANT, stripes);
+            }
+            LedgerService ledgerService = new LedgerService(jdbcTemplate, hotAccounts);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+            AtomicInteger transactionIds = new AtomicInteger(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int sender = 100 + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            try {
+                                ledgerService.recordTransfer(transactionIds.getAndIncrement(), sender, MERCHANT,
+                                        Money.ofCents(100), Money.ZERO, PLATFORM);
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                            LockSupport.parkNanos(COMMIT_LATENCY_NANOS);
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            executor.shutdown();
+
+            hotAccounts.compact();
+            assertTrue(new LedgerConsistencyChecker(jdbcTemplate, transactionManager, 4).check().isConsistent());
+            return THREADS * TRANSFERS_PER_THREAD / seconds;
+        }
+    }
+
+    private static void createSchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT PRIMARY KEY, email VARCHAR(255), "
+                + "balance DECIMAL(10, 2) NOT NULL, data_version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE Ledger_Postings (posting_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "transaction_id INT NOT NULL, account_id INT NOT NULL, amount DECIMAL(10, 2) NOT NULL, "
+                + "posting_type VARCHAR(16) NOT NULL, created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE Account_Stripes (account_id INT NOT NULL, stripe_no SMALLINT NOT NULL, "
+                + "balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00, PRIMARY KEY (account_id, stripe_no))");
+        jdbcTemplate.update("INSERT INTO Users (user_id, email, balance) VALUES (1, 'merchant@mail.fr', 0.00), "
+                + "(2, 'platform@paymybuddy.com', 0.00), (3, 'bank@mail.fr', ?)", -THREADS * 1000);
+        jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) VALUES (0, 3, ?, 'OPENING')",
+                -THREADS * 1000);
+        for (int t = 0; t < THREADS; t++) {
+            jdbcTemplate.update("INSERT INTO Users (user_id, email, balance) VALUES (?, ?, 1000.00)", 100 + t, "sender" + t + "@mail.fr");
+            jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) "
+                    + "VALUES (0, ?, 1000.00, 'OPENING')", 100 + t);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Octets alloués par transfert et par ligne d'historique rendue, avec {@link BigDecimal}
+ * (ancienne représentation) et avec {@link Money}.
+ * Les allocations sont mesurées par thread ({@code com.sun.management.ThreadMXBean}) ;
+ * le résultat de chaque itération est consommé pour que le JIT ne supprime pas le calcul.
+ * Lancement : {@code ./mvnw test -Pbenchmark -Dtest=MoneyAllocationBenchmarkTest}
+ */
+@Tag("benchmark")
+class MoneyAllocationBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int MEASURED = 1_000_000;
+    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.005");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void printAllocationsPerOperation() {
+        // Transfert : vérification du solde, débit, crédit, calcul des frais
+        double bigDecimalTransfer = bytesPerOperation(i -> {
+            BigDecimal amount = BigDecimal.valueOf(1_000 + (i & 1023), 2);
+            BigDecimal sender = new BigDecimal("200000.00");
+            BigDecimal receiver = new BigDecimal("50.00");
+            BigDecimal fee = amount.multiply(FEE_PERCENTAGE).setScale(2, RoundingMode.HALF_UP);
+            if (sender.compareTo(amount.add(fee)) < 0) {
+                return 0;
+            }
+            return sender.subtract(amount.add(fee)).unscaledValue().longValue() + receiver.add(amount).scale();
+        });
+        double moneyTransfer = bytesPerOperation(i -> {
+            Money amount = Money.ofCents(1_000 + (i & 1023));
+            Money sender = Money.ofCents(20_000_000);
+            Money receiver = Money.ofCents(5_000);
+            Money fee = amount.percentage(50, RoundingMode.HALF_UP);
+            if (sender.isLessThan(amount.plus(fee))) {
+                return 0;
+            }
+            return sender.minus(amount.plus(fee)).cents() + receiver.plus(amount).cents();
+        });
+
+        // Ligne d'historique : arrondi puis formatage "1,234.50" (équivalent de #numbers.formatDecimal)
+        DecimalFormat decimalFormat = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.ROOT));
+        double bigDecimalRow = bytesPerOperation(i ->
+                decimalFormat.format(BigDecimal.valueOf(100_000 + i, 2).setScale(2, RoundingMode.HALF_UP)).length());
+        double moneyRow = bytesPerOperation(i -> Money.ofCents(100_000 + i).format().length());
+
+        System.out.printf("[benchmark] transfert : BigDecimal %.0f o/op, Money %.0f o/op%n", bigDecimalTransfer, moneyTransfer);
+        System.out.printf("[benchmark] ligne d'historique : BigDecimal %.0f o/op, Money %.0f o/op%n", bigDecimalRow, moneyRow);
+        assertTrue(moneyTransfer < bigDecimalTransfer);
+        assertTrue(moneyRow < bigDecimalRow);
+    }
+
+    private static double bytesPerOperation(LongUnaryOperator operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.applyAsLong(i);
+        }
+        long threadId = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED; i++) {
+            sink += operation.applyAsLong(i);
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - before;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return (double) allocated / MEASURED;
+    }
+}
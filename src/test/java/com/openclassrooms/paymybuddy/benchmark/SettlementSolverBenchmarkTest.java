@@ -0,0 +1,65 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.service.SettlementSolver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Temps de calcul du règlement d'un groupe de dépenses ({@link SettlementSolver}) pour des groupes
+ * de 10, 1 000 et 100 000 membres aux soldes aléatoires. Le temps par membre doit rester quasi constant
+ * ({@code O(n log n)}) et le nombre de transferts inférieur au nombre de membres.
+ * Lancement : {@code ./mvnw test -Pbenchmark -Dtest=SettlementSolverBenchmarkTest}
+ */
+@Tag("benchmark")
+class SettlementSolverBenchmarkTest {
+
+    private static final int[] GROUP_SIZES = {10, 1_000, 100_000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    void printSolveTimePerGroupSize() {
+        for (int members : GROUP_SIZES) {
+            Map<Integer, Money> net = randomBalances(members, new Random(members));
+            int rounds = members >= 100_000 ? MEASURED_ROUNDS : MEASURED_ROUNDS * 100;
+            long sink = 0;
+            for (int i = 0; i < WARMUP_ROUNDS * (members >= 100_000 ? 1 : 100); i++) {
+                sink += SettlementSolver.solve(net).size();
+            }
+            int transfers = 0;
+            long started = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                List<SettlementSolver.Settlement> settlements = SettlementSolver.solve(net);
+                transfers = settlements.size();
+                sink += transfers;
+            }
+            double micros = (System.nanoTime() - started) / 1_000.0 / rounds;
+            System.out.printf("[benchmark] %,d membres : %,.1f µs par règlement (%.3f µs/membre), %,d transferts%n",
+                    members, micros, micros / members, transfers);
+            assertTrue(transfers < members);
+            if (sink == 42) {
+                System.out.println(sink);
+            }
+        }
+    }
+
+    private static Map<Integer, Money> randomBalances(int members, Random random) {
+        Map<Integer, Money> net = new HashMap<>(members * 2);
+        long total = 0;
+        for (int member = 1; member < members; member++) {
+            long cents = random.nextInt(100_001) - 50_000;
+            net.put(member, Money.ofCents(cents));
+            total += cents;
+        }
+        net.put(members, Money.ofCents(-total));
+        return net;
+    }
+}
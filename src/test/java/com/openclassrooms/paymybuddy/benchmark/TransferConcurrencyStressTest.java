@@ -0,0 +1,351 @@
+package com.openclassrooms.paymybuddy.benchmark;
+
+import com.openclassrooms.paymybuddy.fraud.AmountPerHourRule;
+import com.openclassrooms.paymybuddy.fraud.FraudAuditLog;
+import com.openclassrooms.paymybuddy.fraud.FraudRulesEngine;
+import com.openclassrooms.paymybuddy.fraud.NewRecipientRule;
+import com.openclassrooms.paymybuddy.fraud.TransferBlockedException;
+import com.openclassrooms.paymybuddy.fraud.TransfersPerMinuteRule;
+import com.openclassrooms.paymybuddy.migration.H2Migrations;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.Transaction;
+import com.openclassrooms.paymybuddy.service.FeeEngine;
+import com.openclassrooms.paymybuddy.service.FragmentCacheService;
+import com.openclassrooms.paymybuddy.service.HotAccountStripes;
+import com.openclassrooms.paymybuddy.service.InsufficientFundsException;
+import com.openclassrooms.paymybuddy.service.LedgerConsistencyChecker;
+import com.openclassrooms.paymybuddy.service.LedgerService;
+import com.openclassrooms.paymybuddy.service.TransactionSearchService;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferLimitExceededException;
+import com.openclassrooms.paymybuddy.service.TransferLimitService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transferts, ajouts de relations et lectures d'historique concurrents sur une base H2 en mémoire (mode MySQL),
+ * suivis d'un contrôle des invariants : argent conservé, aucun solde négatif, journal cohérent, historique complet.
+ * <p>
+ * Le schéma est celui des migrations ({@link H2Migrations}), et les opérations passent par les services
+ * de l'application et leurs repositories JPA : {@link TransactionService#transferMoney} avec le vrai barème de frais,
+ * le journal en partie double (compte de la plateforme réparti en sous-soldes, compactés en parallèle),
+ * les plafonds, les règles anti-fraude (seuils relevés) et l'index de recherche, {@link UserService#addConnection}
+ * et {@link TransactionService#getTransactionHistory}. Les conflits de verrous
+ * ({@link TransientDataAccessException}) sont rejoués et comptés par type. À relancer après toute optimisation
+ * du verrouillage ou des caches.
+ * Lancement : {@code ./mvnw test -Pbenchmark -Dtest=TransferConcurrencyStressTest}
+ * (taille : {@code -Dstress.threads=16 -Dstress.operations=20000 -Dstress.accounts=50})
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "paymybuddy.migration.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "paymybuddy.ledger.hot-accounts=platform@paymybuddy.com",
+        "paymybuddy.ledger.hot-account-stripes=8",
+        "paymybuddy.limits.daily=100000.00",
+        "paymybuddy.limits.monthly=1000000.00",
+        "paymybuddy.fraud.max-amount-per-hour=100000000.00",
+        "paymybuddy.fraud.max-transfers-per-minute=1000000",
+        "paymybuddy.fraud.max-new-recipients-per-hour=1000000",
+        "paymybuddy.fragment-cache.enabled=false",
+        "logging.level.com.openclassrooms.paymybuddy=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // chaque opération valide sa propre transaction
+@ImportAutoConfiguration(ThymeleafAutoConfiguration.class)
+@Import({TransactionService.class, UserService.class, FeeEngine.class, LedgerService.class, HotAccountStripes.class,
+        TransactionSearchService.class, TransferLimitService.class, LedgerConsistencyChecker.class, FragmentCacheService.class,
+        FraudRulesEngine.class, FraudAuditLog.class, AmountPerHourRule.class, TransfersPerMinuteRule.class,
+        NewRecipientRule.class, TransferConcurrencyStressTest.StressDatabase.class})
+class TransferConcurrencyStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 20_000);
+    private static final int ACCOUNTS = Integer.getInteger("stress.accounts", 50);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String EXTERNAL_EMAIL = "external@paymybuddy.com";
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> refusals = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CommittedTransfer> committed = new ConcurrentLinkedQueue<>();
+    private final LongAdder historyReads = new LongAdder();
+    private final LongAdder incompleteHistories = new LongAdder();
+    private final LongAdder connectionsAdded = new LongAdder();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private HotAccountStripes hotAccounts;
+
+    @Autowired
+    private LedgerConsistencyChecker ledgerConsistencyChecker;
+
+    private Map<Integer, Integer> accountIds;
+
+    @Test
+    void concurrentTransfersShouldKeepBalanceInvariants() throws Exception {
+        accountIds = openAccounts();
+
+        // Compactage des sous-soldes en parallèle des transferts, comme la tâche planifiée
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread compactor = new Thread(() -> {
+            while (running.get()) {
+                hotAccounts.compact();
+                sleep(20);
+            }
+        }, "stress-compactor");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        compactor.start();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> work(thread, new SplittableRandom(thread), OPERATIONS / THREADS)));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        compactor.join();
+        executor.shutdown();
+        hotAccounts.compact();
+
+        System.out.printf("[benchmark] %,d opérations en %.1f s (%,.0f op/s) : %,d transferts validés (%,.0f tr/s), "
+                        + "%,d relations ajoutées, %,d lectures d'historique%n",
+                OPERATIONS / THREADS * THREADS, seconds, OPERATIONS / seconds, committed.size(),
+                committed.size() / seconds, connectionsAdded.sum(), historyReads.sum());
+        System.out.printf("[benchmark] refus : %s, conflits rejoués : %s%n", counts(refusals), counts(retries));
+
+        assertInvariants();
+    }
+
+    private Void work(int thread, SplittableRandom random, int operations) throws Exception {
+        // Transferts validés par ce thread, par participant : visibles dans sa lecture suivante de l'historique
+        Map<Integer, Set<Integer>> ownTransfers = new HashMap<>();
+        for (int i = 0; i < operations; i++) {
+            int draw = random.nextInt(100);
+            int account = random.nextInt(ACCOUNTS);
+            int other = random.nextInt(ACCOUNTS - 1);
+            other = other >= account ? other + 1 : other;
+            if (draw < 80) {
+                Money amount = Money.ofCents(100 + random.nextInt(30_000));
+                Integer transactionId = transfer(account, other, amount, "Stress " + thread + "-" + i);
+                if (transactionId != null) {
+                    ownTransfers.computeIfAbsent(account, a -> new HashSet<>()).add(transactionId);
+                    ownTransfers.computeIfAbsent(other, a -> new HashSet<>()).add(transactionId);
+                }
+            } else if (draw < 90) {
+                addConnection(account, other);
+            } else {
+                List<Transaction> history = withRetries(() -> transactionService.getTransactionHistory(email(account)));
+                historyReads.increment();
+                Set<Integer> seen = new HashSet<>();
+                Integer userId = accountIds.get(account);
+                for (Transaction transaction : history) {
+                    assertTrue(userId.equals(transaction.getSender().getUserId())
+                            || userId.equals(transaction.getReceiver().getUserId()));
+                    seen.add(transaction.getTransactionId());
+                }
+                if (!seen.containsAll(ownTransfers.getOrDefault(account, Set.of()))) {
+                    incompleteHistories.increment();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Integer transfer(int sender, int receiver, Money amount, String description) throws Exception {
+        try {
+            withRetries(() -> {
+                transactionService.transferMoney(email(sender), email(receiver), amount, description);
+                return null;
+            });
+        } catch (InsufficientFundsException | TransferBlockedException e) {
+            String reason = e instanceof TransferLimitExceededException ? "plafond"
+                    : e instanceof TransferBlockedException ? "anti-fraude" : "solde insuffisant";
+            refusals.computeIfAbsent(reason, r -> new LongAdder()).increment();
+            return null;
+        }
+        // La description est propre à l'opération : elle retrouve la transaction validée
+        Integer transactionId = jdbcTemplate.queryForObject(
+                "SELECT transaction_id FROM Transactions WHERE description = ?", Integer.class, description);
+        committed.add(new CommittedTransfer(transactionId, accountIds.get(sender), amount));
+        return transactionId;
+    }
+
+    private void addConnection(int account, int friend) throws Exception {
+        try {
+            withRetries(() -> {
+                userService.addConnection(email(account), email(friend));
+                return null;
+            });
+            connectionsAdded.increment();
+        } catch (DataIntegrityViolationException e) {
+            // Même relation ajoutée au même moment par un autre thread : la clé primaire refuse la seconde
+            refusals.computeIfAbsent("relation ajoutée en parallèle", r -> new LongAdder()).increment();
+        } catch (TransientDataAccessException e) {
+            throw e;
+        } catch (Exception e) {
+            refusals.computeIfAbsent("relation existante", r -> new LongAdder()).increment();
+        }
+    }
+
+    private <T> T withRetries(Callable<T> operation) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.call();
+            } catch (TransientDataAccessException e) {
+                retries.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void assertInvariants() {
+        // Argent conservé : la somme de tous les soldes (sous-soldes compris) reste nulle
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT (SELECT SUM(balance) FROM Users) + "
+                + "(SELECT COALESCE(SUM(balance), 0) FROM Account_Stripes)", BigDecimal.class);
+        assertEquals(0, BigDecimal.ZERO.compareTo(total), "Somme des soldes : " + total);
+        // Aucun solde négatif, hors compte externe (contrepartie des soldes d'ouverture)
+        assertEquals(0, count("SELECT COUNT(*) FROM Users WHERE balance < 0 AND email <> '" + EXTERNAL_EMAIL + "'"));
+        // Chaque transfert validé est dans l'historique, l'index de recherche et le journal, et rien d'autre
+        assertEquals(committed.size(), count("SELECT COUNT(*) FROM Transactions"));
+        assertEquals(committed.size(), count("SELECT COUNT(DISTINCT transaction_id) FROM Ledger_Postings WHERE transaction_id > 0"));
+        assertEquals(2L * committed.size(), count("SELECT COUNT(*) FROM Transaction_Search"));
+        assertEquals(0, incompleteHistories.sum(), "Lectures d'historique sans un transfert déjà validé");
+        assertTrue(ledgerConsistencyChecker.check().isConsistent());
+        // Chaque relation ajoutée est enregistrée une fois
+        assertEquals(connectionsAdded.sum(), count("SELECT COUNT(*) FROM Connections"));
+        // Plafonds : compteurs égaux aux montants envoyés
+        Map<Integer, Long> sent = new HashMap<>();
+        committed.forEach(transfer -> sent.merge(transfer.senderId(), transfer.amount().cents(), Long::sum));
+        sent.forEach((sender, cents) -> assertEquals(0, BigDecimal.valueOf(cents, 2).compareTo(jdbcTemplate.queryForObject(
+                "SELECT month_amount FROM Transfer_Limits WHERE user_id = ?", BigDecimal.class, sender))));
+    }
+
+    /**
+     * Ouvre les comptes du test : soldes d'ouverture inscrits au journal, contrepartie sur le compte externe
+     * (créé par les migrations, comme le compte de la plateforme).
+     *
+     * @return L'identifiant de chaque compte, par numéro de compte du test.
+     */
+    private Map<Integer, Integer> openAccounts() {
+        Map<Integer, Integer> ids = new HashMap<>();
+        for (int account = 0; account < ACCOUNTS; account++) {
+            jdbcTemplate.update("INSERT INTO Users (username, email, password_hash, balance) VALUES (?, ?, '!', ?)",
+                    "Stress " + account, email(account), OPENING_BALANCE);
+            Integer userId = userId(email(account));
+            jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) "
+                    + "VALUES (0, ?, ?, 'OPENING')", userId, OPENING_BALANCE);
+            ids.put(account, userId);
+        }
+        BigDecimal openingTotal = OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS));
+        jdbcTemplate.update("UPDATE Users SET balance = balance - ? WHERE email = ?", openingTotal, EXTERNAL_EMAIL);
+        jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) "
+                + "VALUES (0, ?, ?, 'OPENING')", userId(EXTERNAL_EMAIL), openingTotal.negate());
+        return ids;
+    }
+
+    private Integer userId(String email) {
+        return jdbcTemplate.queryForObject("SELECT user_id FROM Users WHERE email = ?", Integer.class, email);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static String email(int account) {
+        return "stress" + account + "@example.com";
+    }
+
+    private static String counts(Map<String, LongAdder> counters) {
+        Map<String, Long> values = new HashMap<>();
+        counters.forEach((key, value) -> values.put(key, value.sum()));
+        return values.isEmpty() ? "aucun" : values.toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record CommittedTransfer(Integer transactionId, int senderId, Money amount) {
+    }
+
+    /**
+     * Base H2 du test, créée par les migrations de l'application avant le démarrage de Hibernate
+     * (qui valide les entités contre ce schéma).
+     */
+    @TestConfiguration
+    static class StressDatabase {
+
+        @Bean
+        DataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:stress;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000");
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(THREADS + 4);
+            H2Migrations.apply(dataSource);
+            return dataSource;
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyFormatterTest {
+
+    private final MoneyFormatter formatter = new MoneyFormatter();
+
+    @Test
+    void parse_shouldReadPrintedAmounts() {
+        for (long cents : new long[]{0, 5, -99, 123_450, -123_450, 123_456_789_01L}) {
+            Money money = Money.ofCents(cents);
+            String printed = formatter.print(money, Locale.FRANCE);
+            assertEquals(money, formatter.parse(printed, Locale.FRANCE), printed);
+        }
+        assertEquals("1,234.50", formatter.print(Money.ofCents(123_450), Locale.FRANCE));
+    }
+
+    @Test
+    void parse_shouldReadDecimalCommaAndSpaces() {
+        assertEquals(Money.ofCents(1_250), formatter.parse("12,50", Locale.FRANCE));
+        assertEquals(Money.ofCents(123_450), formatter.parse("1 234,5", Locale.FRANCE));
+        assertThrows(NumberFormatException.class, () -> formatter.parse("1,234,50", Locale.FRANCE));
+    }
+}
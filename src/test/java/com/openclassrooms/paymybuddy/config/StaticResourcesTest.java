@@ -0,0 +1,93 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.controller.AuthController;
+import com.openclassrooms.paymybuddy.service.CustomUserDetailsService;
+import com.openclassrooms.paymybuddy.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.DigestUtils;
+
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
+class StaticResourcesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    void precompressedStylesheet_shouldMatchSource() throws Exception {
+        // La variante .gz est produite par le build (maven-antrun-plugin) à partir du CSS source
+        byte[] source = stylesheet();
+        byte[] decompressed;
+        try (InputStream in = new GZIPInputStream(new ClassPathResource("static/css/style.css.gz").getInputStream())) {
+            decompressed = in.readAllBytes();
+        }
+        assertArrayEquals(source, decompressed, "style.css.gz ne correspond pas au CSS source");
+    }
+
+    @Test
+    void fingerprintedStylesheet_shouldBeServedImmutable_withoutAuthentication() throws Exception {
+        // Pas d'utilisateur : les ressources statiques ne passent pas par Spring Security
+        mockMvc.perform(get("/css/style-" + DigestUtils.md5DigestAsHex(stylesheet()) + ".css"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andExpect(header().doesNotExist("Set-Cookie"));
+    }
+
+    @Test
+    void plainStylesheet_shouldBeRevalidated() throws Exception {
+        // Sans empreinte, l'URL ne change pas quand le contenu change : pas de cache immuable
+        mockMvc.perform(get("/css/style.css"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().exists("Last-Modified"));
+    }
+
+    @Test
+    void staleFingerprint_shouldNotBeServed() throws Exception {
+        mockMvc.perform(get("/css/style-00000000000000000000000000000000.css"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void stylesheet_shouldBeServedPrecompressed_whenClientAcceptsGzip() throws Exception {
+        mockMvc.perform(get("/css/style.css").header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")));
+    }
+
+    @Test
+    void loginPage_shouldReferenceFingerprintedStylesheet() throws Exception {
+        mockMvc.perform(get("/login"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(matchesRegex(
+                        "(?s).*href=\"/css/style-[0-9a-f]{32}\\.css\".*")));
+    }
+
+    private static byte[] stylesheet() throws Exception {
+        try (InputStream in = new ClassPathResource("static/css/style.css").getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.paymybuddy.config;
+
+import com.openclassrooms.paymybuddy.pipeline.TransferWriteAheadLog;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransferPipelineConfigTest {
+
+    @Test
+    void transferPipeline_shouldRefuseToStart_whenNodeIdIsNotSet() {
+        // Arrange
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+        // Act & Assert : sans identifiant propre, deux nœuds partageraient le même point de reprise
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new TransferPipelineConfig()
+                .transferPipeline(mock(TransactionService.class), jdbcTemplate, mock(PlatformTransactionManager.class),
+                        mock(TransferWriteAheadLog.class), " ", 100, 10, Duration.ofSeconds(1)));
+        assertTrue(exception.getMessage().startsWith("paymybuddy.transfers.pipeline.node-id doit être défini"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -1,10 +1,15 @@
 package com.openclassrooms.paymybuddy.controller;
 
 
+import com.openclassrooms.paymybuddy.model.Money;
 import com.openclassrooms.paymybuddy.model.Transaction;
 import com.openclassrooms.paymybuddy.model.User;
 import com.openclassrooms.paymybuddy.service.CustomUserDetailsService;
+import com.openclassrooms.paymybuddy.service.FragmentCacheService;
+import com.openclassrooms.paymybuddy.service.HotAccountStripes;
+import com.openclassrooms.paymybuddy.service.PaymentRequestService;
 import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferLimitService;
 import com.openclassrooms.paymybuddy.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,11 +17,13 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -24,6 +31,8 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -42,6 +51,18 @@ class HomeControllerTest {
     @MockitoBean
     private TransactionService transactionService;
 
+    @MockitoBean
+    private FragmentCacheService fragmentCacheService; // null -> le template rend le fragment directement
+
+    @MockitoBean
+    private PaymentRequestService paymentRequestService; // 0 demande non lue
+
+    @MockitoBean
+    private TransferLimitService transferLimitService; // null -> plafond restant non affiché
+
+    @MockitoBean
+    private HotAccountStripes hotAccountStripes; // false -> GET conditionnel actif
+
     @MockitoBean
     private CustomUserDetailsService customUserDetailsService; // Requis pour la config de sécurité
 
@@ -53,8 +74,9 @@ class HomeControllerTest {
         mockUser.setUserId(1);
         mockUser.setEmail("user@example.com");
         mockUser.setUsername("Test User");
-        mockUser.setBalance(new BigDecimal("100.00"));
+        mockUser.setBalance(Money.of(new BigDecimal("100.00")));
         mockUser.setConnections(new HashSet<>()); // Important pour éviter NPE
+        when(transactionService.getBalance(mockUser)).thenReturn(mockUser.getBalance());
     }
 
     @Test
@@ -63,7 +85,7 @@ class HomeControllerTest {
         // Arrange
         Transaction tx1 = new Transaction();
         tx1.setDescription("Payment for stuff");
-        tx1.setAmount(new BigDecimal("10.00"));
+        tx1.setAmount(Money.of(new BigDecimal("10.00")));
         tx1.setSender(mockUser); // Simuler l'utilisateur comme sender
         User receiver = new User(); receiver.setEmail("friend@example.com");
         tx1.setReceiver(receiver);
@@ -71,12 +93,76 @@ class HomeControllerTest {
 
         when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(mockUser));
         when(transactionService.getTransactionHistory("user@example.com")).thenReturn(Arrays.asList(tx1));
+        when(paymentRequestService.countUnread(eq("user@example.com"), anyLong())).thenReturn(2L);
 
         mockMvc.perform(get("/home"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("home"))
                 .andExpect(model().attributeExists("user", "connections", "transactions", "transferDto", "balance"))
-                .andExpect(model().attribute("balance", new BigDecimal("100.00").setScale(2, BigDecimal.ROUND_HALF_UP)));
+                .andExpect(model().attribute("balance", Money.ofCents(10_000)))
+                .andExpect(model().attribute("unreadPaymentRequests", 2L));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com")
+    void homePage_shouldReturnNotModified_whenETagMatches() throws Exception {
+        // Arrange
+        when(userService.getDataVersion("user@example.com")).thenReturn(3L);
+        when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(mockUser));
+        when(transactionService.getTransactionHistory("user@example.com")).thenReturn(Collections.emptyList());
+        MockHttpSession session = new MockHttpSession();
+
+        String etag = mockMvc.perform(get("/home").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert : même version de données -> 304 sans recharger l'utilisateur ni l'historique
+        mockMvc.perform(get("/home").session(session).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(userService, times(1)).findByEmailWithConnections("user@example.com");
+        verify(transactionService, times(1)).getTransactionHistory("user@example.com");
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com")
+    void homePage_shouldRenderAgain_whenDataVersionChanged() throws Exception {
+        // Arrange
+        when(userService.getDataVersion("user@example.com")).thenReturn(3L, 4L);
+        when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(mockUser));
+        when(transactionService.getTransactionHistory("user@example.com")).thenReturn(Collections.emptyList());
+        MockHttpSession session = new MockHttpSession();
+
+        String etag = mockMvc.perform(get("/home").session(session))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert : un transfert a incrémenté la version -> la page est de nouveau rendue
+        mockMvc.perform(get("/home").session(session).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("home"));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com")
+    void homePage_shouldRenderAgain_forHotAccount_evenWhenDataVersionIsUnchanged() throws Exception {
+        // Arrange : les crédits d'un compte chaud vont dans ses sous-soldes sans changer data_version
+        when(hotAccountStripes.isHot("user@example.com")).thenReturn(true);
+        when(userService.getDataVersion("user@example.com")).thenReturn(3L);
+        when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(mockUser));
+        when(transactionService.getTransactionHistory("user@example.com")).thenReturn(Collections.emptyList());
+        MockHttpSession session = new MockHttpSession();
+
+        mockMvc.perform(get("/home").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+
+        // Act & Assert
+        mockMvc.perform(get("/home").session(session).header("If-None-Match", "W/\"home-" + LocalDate.now() + "-3-0\""))
+                .andExpect(status().isOk())
+                .andExpect(view().name("home"));
     }
 
     @Test
@@ -84,7 +170,7 @@ class HomeControllerTest {
     void processTransfer_shouldRedirectToHome_onSuccess() throws Exception {
         // Arrange
         // Pas besoin de mocker transactionService.transferMoney en détail si on vérifie juste la redirection
-        // doNothing().when(transactionService).transferMoney(anyString(), anyString(), any(BigDecimal.class), anyString());
+        // doNothing().when(transactionService).transferMoney(anyString(), anyString(), any(Money.class), anyString());
 
         mockMvc.perform(post("/transfer")
                         .param("receiverEmail", "friend@example.com")
@@ -114,6 +200,22 @@ class HomeControllerTest {
                 .andExpect(model().attributeHasFieldErrors("transferDto", "receiverEmail"));
     }
 
+    @Test
+    @WithMockUser(username = "user@example.com")
+    void processTransfer_shouldReturnHomeView_whenAmountHasFractionOfCent() throws Exception {
+        when(userService.findByEmailWithConnections("user@example.com")).thenReturn(Optional.of(mockUser));
+        when(transactionService.getTransactionHistory("user@example.com")).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(post("/transfer")
+                        .param("receiverEmail", "friend@example.com")
+                        .param("amount", "10.005")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("home"))
+                .andExpect(model().attributeHasFieldErrors("transferDto", "amount"));
+        Mockito.verify(transactionService, Mockito.never()).transferMoney(any(), any(), any(), any());
+    }
+
     @Test
     @WithMockUser(username = "user@example.com")
     void processTransfer_shouldRedirectToHome_onServiceException() throws Exception {
@@ -128,7 +230,7 @@ class HomeControllerTest {
         Mockito.verify(transactionService).transferMoney(
                 eq("user@example.com"), // L'email de @WithMockUser
                 eq("friend@example.com"),
-                eq(new BigDecimal("5000.00")),
+                eq(Money.ofCents(500_000)),
                 isNull() // Si la description est attendue comme null
         );
     }
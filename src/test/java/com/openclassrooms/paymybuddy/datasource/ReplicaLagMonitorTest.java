@@ -0,0 +1,94 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaLagMonitorTest {
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new ReplicaLagMonitor(replicaJdbcTemplate, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void replica_shouldNotBeUsable_beforeFirstCheck() {
+        assertFalse(monitor.isReplicaUsable());
+    }
+
+    @Test
+    void checkLag_shouldMarkReplicaUsable_whenLagWithinLimit() {
+        // Arrange
+        when(replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS")).thenReturn(List.of(status(2L)));
+
+        // Act
+        monitor.checkLag();
+
+        // Assert
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals(2L, monitor.getLastLagSeconds());
+    }
+
+    @Test
+    void checkLag_shouldMarkReplicaUnusable_whenLagTooHigh() {
+        // Arrange
+        when(replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS")).thenReturn(List.of(status(2L)), List.of(status(30L)));
+
+        // Act
+        monitor.checkLag();
+        monitor.checkLag();
+
+        // Assert
+        assertFalse(monitor.isReplicaUsable());
+    }
+
+    @Test
+    void checkLag_shouldMarkReplicaUnusable_whenReplicationStopped() {
+        // Arrange : Seconds_Behind_Source vaut NULL quand les threads de réplication sont arrêtés
+        when(replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS")).thenReturn(List.of(status(null)));
+
+        // Act
+        monitor.checkLag();
+
+        // Assert
+        assertFalse(monitor.isReplicaUsable());
+        assertNull(monitor.getLastLagSeconds());
+    }
+
+    @Test
+    void checkLag_shouldMarkReplicaUnusable_whenReplicaUnreachable() {
+        // Arrange
+        when(replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS"))
+                .thenThrow(new DataAccessResourceFailureException("Connexion refusée"));
+
+        // Act
+        monitor.checkLag();
+
+        // Assert
+        assertFalse(monitor.isReplicaUsable());
+    }
+
+    private static Map<String, Object> status(Long secondsBehindSource) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("Seconds_Behind_Source", secondsBehindSource);
+        return row;
+    }
+}
@@ -0,0 +1,147 @@
+package com.openclassrooms.paymybuddy.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource routingDataSource;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(10));
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, tracker);
+        session = new MockHttpSession();
+        startRequest(session);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUseReplica_whenReplicaIsUpToDate() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        // Act & Assert
+        assertEquals(DataSourceRole.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_shouldFallBackToPrimary_whenReplicaIsLagging() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+
+        // Act & Assert
+        assertEquals(DataSourceRole.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void writeTransaction_shouldUsePrimary_andPinSessionAfterCommit() {
+        // Act
+        Object key = routingDataSource.determineCurrentLookupKey();
+
+        // Assert : pas de fenêtre avant la validation de la transaction
+        assertEquals(DataSourceRole.PRIMARY, key);
+        assertFalse(tracker.isPinned());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(tracker.isPinned());
+        assertNotNull(session.getAttribute(ReadYourWritesTracker.PRIMARY_UNTIL_ATTRIBUTE));
+        verifyNoInteractions(lagMonitor);
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUsePrimary_inNextRequestOfSession() throws Exception {
+        // Arrange : écriture validée, puis nouvelle requête de la même session (sur n'importe quel nœud)
+        tracker.pin();
+        MockHttpServletRequest nextRequest = startRequest(session);
+        new ReadYourWritesFilter(tracker, List.of("/css/**")).doFilter(nextRequest, new MockHttpServletResponse(),
+                (request, response) -> { });
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        // Act & Assert
+        assertEquals(DataSourceRole.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUseReplica_forOtherSessions() {
+        // Arrange
+        tracker.pin();
+        MockHttpServletRequest otherRequest = startRequest(new MockHttpSession());
+        tracker.restore(otherRequest);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        // Act & Assert
+        assertEquals(DataSourceRole.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void pin_shouldExpireAfterWindow() {
+        // Arrange
+        ReadYourWritesTracker noWindow = new ReadYourWritesTracker(Duration.ofMillis(-1));
+
+        // Act
+        noWindow.pin();
+
+        // Assert
+        assertFalse(noWindow.isPinned());
+    }
+
+    @Test
+    void pin_shouldNotCreateSession() {
+        // Arrange
+        MockHttpServletRequest anonymous = startRequest(null);
+
+        // Act
+        tracker.pin();
+
+        // Assert
+        assertNull(anonymous.getSession(false));
+    }
+
+    private static MockHttpServletRequest startRequest(MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+}
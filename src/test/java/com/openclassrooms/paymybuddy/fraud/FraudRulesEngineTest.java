@@ -0,0 +1,152 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudRulesEngineTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private FraudAuditLog auditLog;
+
+    private FraudRulesEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        List<FraudRule> rules = List.of(
+                new TransfersPerMinuteRule(3),
+                new AmountPerHourRule(new BigDecimal("100.00")),
+                new NewRecipientRule(1));
+        engine = new FraudRulesEngine(jdbcTemplate, rules, auditLog, true, Duration.ofDays(90), 1_000);
+        lenient().when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any())).thenReturn(List.of(2, 3, 4));
+    }
+
+    @Test
+    void check_shouldAllowTransfer_andRecordDecision() throws Exception {
+        engine.check(1, 2, Money.ofCents(1_000));
+
+        ArgumentCaptor<FraudDecision> decision = ArgumentCaptor.forClass(FraudDecision.class);
+        verify(auditLog).record(decision.capture());
+        assertTrue(decision.getValue().allowed());
+        assertNull(decision.getValue().rule());
+    }
+
+    @Test
+    void check_shouldLoadKnownRecipientsOnce_perSender() throws Exception {
+        engine.check(1, 2, Money.ofCents(1_000));
+        engine.check(1, 3, Money.ofCents(1_000));
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), eq(1), any());
+    }
+
+    @Test
+    void check_shouldBlock_whenTooManyTransfersPerMinute() throws Exception {
+        engine.check(1, 2, Money.ofCents(100));
+        engine.check(1, 3, Money.ofCents(100));
+        engine.check(1, 4, Money.ofCents(100));
+
+        TransferBlockedException exception = assertThrows(TransferBlockedException.class,
+                () -> engine.check(1, 2, Money.ofCents(100)));
+        assertEquals("TRANSFERS_PER_MINUTE", exception.getRule());
+    }
+
+    @Test
+    void check_shouldBlock_whenHourlyAmountWouldBeExceeded() throws Exception {
+        engine.check(1, 2, Money.ofCents(9_000));
+
+        TransferBlockedException exception = assertThrows(TransferBlockedException.class,
+                () -> engine.check(1, 3, Money.ofCents(1_001)));
+        assertEquals("AMOUNT_PER_HOUR", exception.getRule());
+        ArgumentCaptor<FraudDecision> decisions = ArgumentCaptor.forClass(FraudDecision.class);
+        verify(auditLog, times(2)).record(decisions.capture());
+        assertFalse(decisions.getAllValues().get(1).allowed());
+        assertEquals("AMOUNT_PER_HOUR", decisions.getAllValues().get(1).rule());
+    }
+
+    @Test
+    void check_shouldBlock_whenTooManyNewRecipients() throws Exception {
+        engine.check(1, 50, Money.ofCents(100));
+
+        TransferBlockedException exception = assertThrows(TransferBlockedException.class,
+                () -> engine.check(1, 51, Money.ofCents(100)));
+        assertEquals("NEW_RECIPIENTS_PER_HOUR", exception.getRule());
+        // Bénéficiaire payé depuis : il n'est plus nouveau
+        assertDoesNotThrow(() -> engine.check(1, 50, Money.ofCents(100)));
+    }
+
+    @Test
+    void check_shouldNotCountBlockedTransfers() throws Exception {
+        engine.check(1, 2, Money.ofCents(9_000));
+        assertThrows(TransferBlockedException.class, () -> engine.check(1, 3, Money.ofCents(5_000)));
+
+        assertDoesNotThrow(() -> engine.check(1, 3, Money.ofCents(1_000)));
+    }
+
+    @Test
+    void check_shouldNotLetSimultaneousTransfersAllPassUnderTheThreshold() throws Exception {
+        // 20 transferts simultanés du même expéditeur : la règle de 3 transferts par minute en laisse passer 3
+        int threads = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        engine.check(1, 2, Money.ofCents(100));
+                        allowed.incrementAndGet();
+                    } catch (TransferBlockedException e) {
+                        // refusé : attendu au-delà du seuil
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(3, allowed.get());
+    }
+
+    @Test
+    void check_shouldAllowEverything_whenDisabled() throws Exception {
+        FraudRulesEngine disabled = new FraudRulesEngine(jdbcTemplate, List.of(new TransfersPerMinuteRule(0)), auditLog,
+                false, Duration.ofDays(90), 1_000);
+
+        disabled.check(1, 2, Money.ofCents(100));
+
+        verifyNoInteractions(jdbcTemplate, auditLog);
+    }
+}
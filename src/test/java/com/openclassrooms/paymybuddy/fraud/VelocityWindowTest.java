@@ -0,0 +1,71 @@
+package com.openclassrooms.paymybuddy.fraud;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityWindowTest {
+
+    private static final long NOW = 1_740_000_000_000L;
+
+    @Test
+    void record_shouldCountTransfersAndAmounts_withinTheirWindows() {
+        VelocityWindow window = new VelocityWindow();
+
+        window.record(NOW - 30_000, 1_000, 2, true);
+        window.record(NOW - 10_000, 2_500, 3, false);
+
+        assertEquals(2, window.transfersInLastMinute(NOW));
+        assertEquals(3_500, window.amountCentsInLastHour(NOW));
+        assertEquals(1, window.newRecipientsInLastHour(NOW));
+        assertTrue(window.isKnownRecipient(2));
+        assertTrue(window.isKnownRecipient(3));
+    }
+
+    @Test
+    void transfersInLastMinute_shouldForgetTransfersOlderThanAMinute() {
+        VelocityWindow window = new VelocityWindow();
+
+        window.record(NOW - 120_000, 1_000, 2, false);
+        window.record(NOW, 1_000, 2, false);
+
+        assertEquals(1, window.transfersInLastMinute(NOW));
+        assertEquals(2_000, window.amountCentsInLastHour(NOW));
+        assertEquals(0, window.transfersInLastMinute(NOW + 70_000));
+    }
+
+    @Test
+    void amountCentsInLastHour_shouldReuseExpiredBuckets() {
+        VelocityWindow window = new VelocityWindow();
+
+        window.record(NOW - 3_600_000, 5_000, 2, true); // même compartiment, une heure plus tôt
+        window.record(NOW, 1_000, 2, false);
+
+        assertEquals(1_000, window.amountCentsInLastHour(NOW));
+        assertEquals(0, window.newRecipientsInLastHour(NOW));
+    }
+
+    @Test
+    void record_shouldIgnoreTransfersOlderThanTheBucketAlreadyInUse() {
+        VelocityWindow window = new VelocityWindow();
+
+        window.record(NOW, 1_000, 2, false);
+        window.record(NOW - 3_600_000, 5_000, 2, false);
+
+        assertEquals(1_000, window.amountCentsInLastHour(NOW));
+    }
+
+    @Test
+    void loadKnownRecipients_shouldMarkHistoryAsLoaded() {
+        VelocityWindow window = new VelocityWindow();
+        assertFalse(window.isKnownRecipientsLoaded());
+
+        window.loadKnownRecipients(List.of(7, 8));
+
+        assertTrue(window.isKnownRecipientsLoaded());
+        assertTrue(window.isKnownRecipient(8));
+        assertFalse(window.isKnownRecipient(9));
+    }
+}
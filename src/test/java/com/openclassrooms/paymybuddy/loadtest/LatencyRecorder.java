@@ -0,0 +1,63 @@
+package com.openclassrooms.paymybuddy.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latences mesurées pour un point d'entrée. Non thread-safe : un enregistreur par utilisateur virtuel,
+ * fusionnés à la fin du test ({@link #merge}). Toutes les mesures sont gardées : les percentiles sont exacts.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+    private boolean sorted = true;
+
+    void record(long nanos, boolean success) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        sorted = false;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.samples[i], true);
+        }
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int errors() {
+        return errors;
+    }
+
+    double errorRate() {
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    /**
+     * Retourne le percentile demandé (rang le plus proche), en nanosecondes.
+     *
+     * @param percentile Le percentile, entre 0 exclu et 100.
+     * @return La latence au percentile, 0 sans mesure.
+     */
+    long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return samples[Math.max(0, Math.min(count, rank) - 1)];
+    }
+}
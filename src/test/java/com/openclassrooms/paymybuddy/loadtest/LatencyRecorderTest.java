@@ -0,0 +1,41 @@
+package com.openclassrooms.paymybuddy.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyRecorderTest {
+
+    @Test
+    void percentile_shouldUseNearestRank() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 100; i >= 1; i--) {
+            recorder.record(i, true);
+        }
+
+        assertEquals(50, recorder.percentile(50));
+        assertEquals(95, recorder.percentile(95));
+        assertEquals(99, recorder.percentile(99));
+        assertEquals(100, recorder.percentile(100));
+    }
+
+    @Test
+    void merge_shouldKeepSamplesAndErrors() {
+        LatencyRecorder first = new LatencyRecorder();
+        first.record(10, true);
+        first.record(30, false);
+        LatencyRecorder second = new LatencyRecorder();
+        second.record(20, false);
+
+        first.merge(second);
+
+        assertEquals(3, first.count());
+        assertEquals(2, first.errors());
+        assertEquals(20, first.percentile(50));
+    }
+
+    @Test
+    void percentile_shouldBeZero_withoutSamples() {
+        assertEquals(0, new LatencyRecorder().percentile(99));
+    }
+}
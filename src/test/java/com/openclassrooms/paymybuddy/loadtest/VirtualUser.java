@@ -0,0 +1,125 @@
+package com.openclassrooms.paymybuddy.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Un utilisateur de l'application piloté par le test de charge : sa propre session (cookies),
+ * le jeton CSRF de la dernière page rendue et l'ETag de sa page d'accueil, renvoyé comme le ferait
+ * un navigateur ({@code If-None-Match}). Les redirections ne sont pas suivies : chaque requête est mesurée seule.
+ */
+final class VirtualUser {
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final String email;
+    private String csrfToken;
+    private String homeETag;
+
+    VirtualUser(URI baseUri, String email) {
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUri = baseUri;
+        this.email = email;
+    }
+
+    String email() {
+        return email;
+    }
+
+    /**
+     * Affiche la page de connexion, se connecte puis charge la page d'accueil (nouveau jeton CSRF après connexion).
+     *
+     * @return {@code true} si la connexion a réussi.
+     */
+    boolean login(String password) throws IOException, InterruptedException {
+        HttpResponse<String> page = client.send(get("/login").build(), HttpResponse.BodyHandlers.ofString());
+        csrfToken = csrfToken(page.body());
+        HttpResponse<String> response = client.send(post("/login", "username", email, "password", password),
+                HttpResponse.BodyHandlers.ofString());
+        return isRedirectTo(response, "/home") && home();
+    }
+
+    /**
+     * Charge la page d'accueil (réponse 304 si elle n'a pas changé depuis le dernier affichage).
+     */
+    boolean home() throws IOException, InterruptedException {
+        HttpRequest.Builder request = get("/home");
+        if (homeETag != null) {
+            request.header("If-None-Match", homeETag);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200) {
+            csrfToken = csrfToken(response.body());
+            homeETag = response.headers().firstValue("ETag").orElse(null);
+            return true;
+        }
+        return response.statusCode() == 304;
+    }
+
+    /**
+     * Envoie le formulaire de transfert. Un transfert refusé (solde, plafond, règle anti-fraude)
+     * redirige aussi vers la page d'accueil, avec un message : seule la réponse HTTP est vérifiée.
+     */
+    boolean transfer(String receiverEmail, BigDecimal amount) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(post("/transfer", "receiverEmail", receiverEmail,
+                "amount", amount.toPlainString(), "description", "Test de charge"), HttpResponse.BodyHandlers.ofString());
+        return isRedirectTo(response, "/home");
+    }
+
+    boolean addConnection(String friendEmail) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(post("/connections/add", "friendEmail", friendEmail),
+                HttpResponse.BodyHandlers.ofString());
+        return isRedirectTo(response, "/connections");
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT).GET();
+    }
+
+    private HttpRequest post(String path, String... fields) {
+        StringJoiner form = new StringJoiner("&");
+        for (int i = 0; i < fields.length; i += 2) {
+            form.add(encode(fields[i]) + "=" + encode(fields[i + 1]));
+        }
+        if (csrfToken != null) {
+            form.add("_csrf=" + encode(csrfToken));
+        }
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+                .build();
+    }
+
+    private static boolean isRedirectTo(HttpResponse<?> response, String path) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").map(location -> location.endsWith(path)).orElse(false);
+    }
+
+    private String csrfToken(String html) {
+        Matcher matcher = CSRF_TOKEN.matcher(html);
+        return matcher.find() ? matcher.group(1) : csrfToken;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.paymybuddy.loadtest;
+
+import com.openclassrooms.paymybuddy.seed.DatasetSeeder;
+import com.openclassrooms.paymybuddy.seed.PowerLawGraph;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test de charge des parcours web sur l'application packagée, démarrée à part sur un jeu de données du profil
+ * {@code seed} (voir {@code DatasetSeeder}). Des utilisateurs virtuels se connectent puis enchaînent, selon un
+ * mélange pondéré, l'affichage de {@code /home} (avec {@code If-None-Match}), des transferts vers l'une de leurs
+ * relations et des ajouts de relations. Le débit et les latences p50/p95/p99 de chaque point d'entrée sont comparés
+ * aux seuils (SLO) : un seuil dépassé ou trop d'erreurs fait échouer le build.
+ * <p>
+ * Les paramètres {@code paymybuddy.seed.*} doivent être ceux du chargement : les comptes et leurs relations
+ * sont recalculés à partir de la graine. Les transferts répétés des utilisateurs virtuels dépasseraient les règles
+ * anti-fraude et les plafonds : les désactiver ou les relever pour l'application testée.
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.profiles=seed
+ * ./mvnw -DskipTests package
+ * java -jar target/paymybuddy-*.jar --spring.profiles.active=prod --paymybuddy.fraud.enabled=false \
+ *     --paymybuddy.limits.daily=1000000 --paymybuddy.limits.monthly=1000000
+ * ./mvnw test -Ploadtest -Dloadtest.virtual-users=64 -Dloadtest.duration=PT2M -Dloadtest.slo.home=p95:100,p99:250
+ * </pre>
+ * Lancement : {@code ./mvnw test -Ploadtest -Dtest=WebFlowsLoadTest}
+ */
+@Tag("loadtest")
+class WebFlowsLoadTest {
+
+    private static final String PASSWORD = "Md12345";
+
+    enum Flow {
+        LOGIN("p95:500,p99:1000"),
+        HOME("p95:150,p99:400"),
+        TRANSFER("p95:300,p99:800"),
+        CONNECTION("p95:300,p99:800");
+
+        private final String defaultSlo;
+
+        Flow(String defaultSlo) {
+            this.defaultSlo = defaultSlo;
+        }
+
+        String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final URI baseUri = URI.create(property("loadtest.base-url", "http://localhost:8888/"));
+    private final int virtualUsers = Integer.parseInt(property("loadtest.virtual-users", "32"));
+    private final Duration warmup = Duration.parse(property("loadtest.warmup", "PT15S"));
+    private final Duration duration = Duration.parse(property("loadtest.duration", "PT60S"));
+    private final Duration thinkTime = Duration.parse(property("loadtest.think-time", "PT0S"));
+    private final double maxErrorRate = Double.parseDouble(property("loadtest.max-error-rate", "0.01"));
+    private final long randomSeed = Long.parseLong(property("paymybuddy.seed.random-seed", "42"));
+    private final PowerLawGraph graph = new PowerLawGraph(
+            Integer.parseInt(property("paymybuddy.seed.users", "100000")),
+            Double.parseDouble(property("paymybuddy.seed.mean-connections", "20")),
+            Double.parseDouble(property("paymybuddy.seed.degree-exponent", "2.5")),
+            Integer.parseInt(property("paymybuddy.seed.max-connections", "5000")),
+            randomSeed);
+
+    @Test
+    void webFlowsShouldMeetLatencySlos() throws Exception {
+        Map<Flow, Integer> mix = mix(property("loadtest.mix", "home:70,transfer:20,connection:10"));
+        SplittableRandom random = new SplittableRandom(randomSeed);
+        // Comptes ordinaires (rangs uniformes) et tous différents : une session par utilisateur virtuel
+        Set<Integer> accounts = new HashSet<>();
+        while (accounts.size() < virtualUsers) {
+            accounts.add(random.nextInt(graph.users()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(virtualUsers);
+        List<Future<Map<Flow, LatencyRecorder>>> results = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        try {
+            for (int account : accounts) {
+                SplittableRandom userRandom = random.split();
+                results.add(executor.submit(() -> run(account, mix, userRandom, measureFrom, deadline)));
+            }
+            Map<Flow, LatencyRecorder> total = new EnumMap<>(Flow.class);
+            for (Future<Map<Flow, LatencyRecorder>> result : results) {
+                result.get().forEach((flow, recorder) -> total.computeIfAbsent(flow, f -> new LatencyRecorder()).merge(recorder));
+            }
+            assertSlos(total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Flow, LatencyRecorder> run(int account, Map<Flow, Integer> mix, SplittableRandom random,
+                                           long measureFrom, long deadline) throws Exception {
+        Map<Flow, LatencyRecorder> recorders = new EnumMap<>(Flow.class);
+        VirtualUser user = new VirtualUser(baseUri, DatasetSeeder.email(account, randomSeed));
+        long started = System.nanoTime();
+        boolean loggedIn;
+        try {
+            loggedIn = user.login(PASSWORD);
+        } catch (IOException e) {
+            loggedIn = false;
+        }
+        recorders.computeIfAbsent(Flow.LOGIN, f -> new LatencyRecorder()).record(System.nanoTime() - started, loggedIn);
+        if (!loggedIn) {
+            return recorders;
+        }
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < deadline) {
+            Flow flow = pick(mix, random.nextInt(totalWeight));
+            long requestStarted = System.nanoTime();
+            boolean success;
+            try {
+                success = switch (flow) {
+                    case HOME -> user.home();
+                    case TRANSFER -> user.transfer(DatasetSeeder.email(graph.target(account, random.nextInt(graph.degree(account))), randomSeed),
+                            BigDecimal.valueOf(100 + random.nextInt(1_900), 2));
+                    case CONNECTION -> user.addConnection(DatasetSeeder.email(random.nextInt(graph.users()), randomSeed));
+                    case LOGIN -> user.login(PASSWORD);
+                };
+            } catch (IOException e) {
+                success = false;
+            }
+            if (requestStarted >= measureFrom) {
+                recorders.computeIfAbsent(flow, f -> new LatencyRecorder()).record(System.nanoTime() - requestStarted, success);
+            }
+            if (!thinkTime.isZero()) {
+                Thread.sleep(thinkTime.toMillis());
+            }
+        }
+        return recorders;
+    }
+
+    private void assertSlos(Map<Flow, LatencyRecorder> recorders) {
+        List<String> violations = new ArrayList<>();
+        double seconds = duration.toNanos() / 1e9;
+        for (Map.Entry<Flow, LatencyRecorder> entry : recorders.entrySet()) {
+            Flow flow = entry.getKey();
+            LatencyRecorder recorder = entry.getValue();
+            // La connexion a lieu pendant la montée en charge : pas de débit mesuré
+            String throughput = flow == Flow.LOGIN ? "-" : String.format("%.1f req/s", recorder.count() / seconds);
+            System.out.printf("[loadtest] %-10s %,8d req  %12s  p50 %7.1f ms  p95 %7.1f ms  p99 %7.1f ms  erreurs %.2f %%%n",
+                    flow.key(), recorder.count(), throughput, millis(recorder.percentile(50)),
+                    millis(recorder.percentile(95)), millis(recorder.percentile(99)), recorder.errorRate() * 100);
+            for (Map.Entry<Double, Double> slo : slo(flow).entrySet()) {
+                double measured = millis(recorder.percentile(slo.getKey()));
+                if (measured > slo.getValue()) {
+                    violations.add(String.format("%s : p%s = %.1f ms > %.0f ms", flow.key(),
+                            slo.getKey().intValue(), measured, slo.getValue()));
+                }
+            }
+            if (recorder.errorRate() > maxErrorRate) {
+                violations.add(String.format("%s : %.2f %% d'erreurs > %.2f %%", flow.key(),
+                        recorder.errorRate() * 100, maxErrorRate * 100));
+            }
+        }
+        assertTrue(violations.isEmpty(), "Seuils de latence dépassés :\n" + String.join("\n", violations));
+    }
+
+    /**
+     * Seuils d'un parcours, en millisecondes par percentile : {@code -Dloadtest.slo.home=p50:40,p95:150,p99:400}.
+     */
+    private static Map<Double, Double> slo(Flow flow) {
+        Map<Double, Double> thresholds = new LinkedHashMap<>();
+        for (String threshold : property("loadtest.slo." + flow.key(), flow.defaultSlo).split(",")) {
+            String[] parts = threshold.trim().split(":");
+            thresholds.put(Double.parseDouble(parts[0].substring(1)), Double.parseDouble(parts[1]));
+        }
+        return thresholds;
+    }
+
+    private static Map<Flow, Integer> mix(String mix) {
+        Map<Flow, Integer> weights = new EnumMap<>(Flow.class);
+        for (String weight : mix.split(",")) {
+            String[] parts = weight.trim().split(":");
+            weights.put(Flow.valueOf(parts[0].toUpperCase()), Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    private static Flow pick(Map<Flow, Integer> mix, int draw) {
+        for (Map.Entry<Flow, Integer> weight : mix.entrySet()) {
+            draw -= weight.getValue();
+            if (draw < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Mélange de parcours vide");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
@@ -0,0 +1,111 @@
+package com.openclassrooms.paymybuddy.migration;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applique les migrations de l'application ({@code db/migration}) à une base H2 en mode MySQL, pour les tests
+ * qui ont besoin du schéma réel : le schéma de test suit les migrations sans en recopier les tables.
+ * <p>
+ * Seules les clauses propres à MySQL sont adaptées, script par script :
+ * <ul>
+ *     <li>options de DDL en ligne ({@code ALGORITHM=..., LOCK=...}) et de stockage ({@code ROW_FORMAT}) retirées ;</li>
+ *     <li>index {@code FULLTEXT} retirés (la recherche plein texte n'est pas disponible sur H2) ;</li>
+ *     <li>{@code ALTER TABLE} à plusieurs clauses découpés en une instruction par clause ;</li>
+ *     <li>suppressions d'index ({@code DROP INDEX}) ignorées : H2 refuse de supprimer l'index d'une clé étrangère,
+ *     et un index redondant en plus ne change pas le résultat des requêtes.</li>
+ * </ul>
+ */
+public final class H2Migrations {
+
+    private static final String LOCATION = "classpath:db/migration";
+    private static final Pattern ONLINE_DDL = Pattern.compile("(?i),\\s*ALGORITHM\\s*=\\s*\\w+(\\s*,\\s*LOCK\\s*=\\s*\\w+)?");
+    private static final Pattern ROW_FORMAT = Pattern.compile("(?i)\\)\\s*ROW_FORMAT\\s*=\\s*\\w+(\\s+KEY_BLOCK_SIZE\\s*=\\s*\\d+)?");
+    private static final Pattern FULLTEXT_INDEX = Pattern.compile("(?i),\\s*FULLTEXT\\s+INDEX[^\\n]*");
+    private static final Pattern MULTI_CLAUSE_ALTER = Pattern.compile("(?is)ALTER\\s+TABLE\\s+(\\S+)\\s+((?:ADD|DROP)\\b[^;]*);");
+    private static final Pattern DROP_INDEX = Pattern.compile("(?i)DROP\\s+INDEX\\b");
+    private static final Pattern CLAUSE_SEPARATOR = Pattern.compile("(?i),\\s*\\n\\s*(?=ADD\\b|DROP\\b)");
+
+    private H2Migrations() {
+    }
+
+    /**
+     * Applique toutes les migrations, dans l'ordre des versions.
+     *
+     * @param dataSource La base H2 (URL en {@code MODE=MySQL;DATABASE_TO_LOWER=TRUE}).
+     * @return Le nombre de migrations appliquées.
+     */
+    public static int apply(DataSource dataSource) {
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION + "/V*__*.sql")) {
+                migrations.add(Migration.of(resource));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture des migrations impossible", e);
+        }
+        migrations.sort(null);
+        try (Connection connection = dataSource.getConnection()) {
+            for (Migration migration : migrations) {
+                String script = toH2(read(migration.resource()));
+                if (script.lines().allMatch(line -> line.isBlank() || line.strip().startsWith("--"))) {
+                    continue;
+                }
+                try {
+                    ScriptUtils.executeSqlScript(connection, new EncodedResource(new ByteArrayResource(
+                            script.getBytes(StandardCharsets.UTF_8), migration.resource().getFilename()), StandardCharsets.UTF_8));
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Échec de la migration V" + migration.version() + " sur H2", e);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Migration du schéma H2 impossible", e);
+        }
+        return migrations.size();
+    }
+
+    /**
+     * Adapte un script de migration MySQL à H2.
+     */
+    static String toH2(String script) {
+        script = ONLINE_DDL.matcher(script).replaceAll("");
+        script = ROW_FORMAT.matcher(script).replaceAll(")");
+        script = FULLTEXT_INDEX.matcher(script).replaceAll("");
+        Matcher alter = MULTI_CLAUSE_ALTER.matcher(script);
+        StringBuilder result = new StringBuilder();
+        while (alter.find()) {
+            StringBuilder statements = new StringBuilder();
+            for (String clause : CLAUSE_SEPARATOR.split(alter.group(2).trim())) {
+                if (DROP_INDEX.matcher(clause).lookingAt()) {
+                    continue;
+                }
+                statements.append("ALTER TABLE ").append(alter.group(1)).append(' ').append(clause.trim()).append(";\n");
+            }
+            alter.appendReplacement(result, Matcher.quoteReplacement(statements.toString()));
+        }
+        alter.appendTail(result);
+        return result.toString();
+    }
+
+    private static String read(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture de la migration impossible : " + resource.getFilename(), e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.paymybuddy.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static final List<String> LOCATIONS =
+            List.of("classpath:db/test-migration/schema", "classpath:db/test-migration/seed");
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void migrate_shouldApplyAllMigrationsInVersionOrder_onEmptyDatabase() {
+        // Act
+        int applied = migrator().migrate();
+
+        // Assert : V1, V1.1 (données) puis V2, quel que soit l'emplacement des scripts
+        assertEquals(3, applied);
+        assertEquals(List.of("1", "1.1", "2"), jdbcTemplate.queryForList(
+                "SELECT version FROM Schema_Migrations ORDER BY installed_at, version", String.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Users WHERE balance = 0", Integer.class));
+    }
+
+    @Test
+    void migrate_shouldApplyNothing_whenAlreadyUpToDate() {
+        // Arrange
+        migrator().migrate();
+
+        // Act & Assert
+        assertEquals(0, migrator().migrate());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Users", Integer.class));
+    }
+
+    @Test
+    void migrate_shouldFail_whenAppliedMigrationWasModified() {
+        // Arrange : somme de contrôle enregistrée différente du script actuel
+        migrator().migrate();
+        jdbcTemplate.update("UPDATE Schema_Migrations SET checksum = 42 WHERE version = '2'");
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> migrator().migrate());
+        assertTrue(exception.getMessage().startsWith("La migration V2 (V2__add_balance.sql) a été modifiée"));
+    }
+
+    @Test
+    void migrate_shouldBaselineExistingSchema_andApplyOnlyLaterMigrations() {
+        // Arrange : base créée avant les migrations (table Users déjà présente, sans historique)
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT NOT NULL AUTO_INCREMENT, email VARCHAR(255) NOT NULL, PRIMARY KEY (user_id))");
+
+        // Act
+        int applied = migrator().migrate();
+
+        // Assert : V1 n'est pas rejouée, V1.1 et V2 sont appliquées
+        assertEquals(2, applied);
+        assertEquals(SchemaMigrator.BASELINE_DESCRIPTION, jdbcTemplate.queryForObject(
+                "SELECT description FROM Schema_Migrations WHERE version = '1'", String.class));
+    }
+
+    @Test
+    void migrate_shouldApplyOptionalLocation_addedAfterLaterVersions() {
+        // Arrange : base à jour sans l'emplacement optionnel (cas de db/partitioning activé après coup)
+        new SchemaMigrator(dataSource, List.of("classpath:db/test-migration/schema"), "1", "Users", 10).migrate();
+
+        // Act
+        int applied = migrator().migrate();
+
+        // Assert : V1.1 est appliquée bien que V2 le soit déjà
+        assertEquals(1, applied);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Users", Integer.class));
+    }
+
+    @Test
+    void compareVersions_shouldCompareNumerically() {
+        assertTrue(Migration.compareVersions("1.1", "2") < 0);
+        assertTrue(Migration.compareVersions("1.10", "1.9") > 0);
+        assertEquals(0, Migration.compareVersions("2", "2.0"));
+    }
+
+    @Test
+    void applicationMigrations_shouldApplyOnH2() {
+        // Act : schéma des tests d'intégration (voir H2Migrations)
+        int applied = H2Migrations.apply(dataSource);
+
+        // Assert : comptes techniques créés par les migrations
+        assertTrue(applied > 0);
+        assertEquals(List.of("external@paymybuddy.com", "platform@paymybuddy.com"), jdbcTemplate.queryForList(
+                "SELECT email FROM Users ORDER BY email", String.class));
+    }
+
+    private SchemaMigrator migrator() {
+        return new SchemaMigrator(dataSource, LOCATIONS, "1", "Users", 10);
+    }
+}
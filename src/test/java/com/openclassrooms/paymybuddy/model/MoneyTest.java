@@ -0,0 +1,85 @@
+package com.openclassrooms.paymybuddy.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_shouldConvertExactAmount() {
+        assertEquals(1250L, Money.of(new BigDecimal("12.5")).cents());
+        assertEquals(-1L, Money.of(new BigDecimal("-0.01")).cents());
+        assertEquals(Money.ZERO, Money.of(new BigDecimal("0.000")));
+    }
+
+    @Test
+    void of_shouldRejectFractionOfCent_withoutRoundingMode() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        assertEquals(101L, Money.of(new BigDecimal("1.005"), RoundingMode.HALF_UP).cents());
+        assertEquals(100L, Money.of(new BigDecimal("1.005"), RoundingMode.HALF_EVEN).cents());
+    }
+
+    @Test
+    void plusAndMinus_shouldUseExactArithmetic() {
+        Money balance = Money.ofCents(20_000);
+        assertEquals(Money.ofCents(10_000), balance.minus(Money.ofCents(10_000)));
+        assertEquals(Money.ofCents(25_050), balance.plus(Money.ofCents(5_050)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+    }
+
+    @Test
+    void percentage_shouldRoundWithGivenMode() {
+        // 0.5 % de 1.00 € = 0.5 centime
+        Money amount = Money.ofCents(100);
+        assertEquals(1L, amount.percentage(50, RoundingMode.HALF_UP).cents());
+        assertEquals(0L, amount.percentage(50, RoundingMode.HALF_EVEN).cents());
+        assertEquals(0L, amount.percentage(50, RoundingMode.DOWN).cents());
+        assertEquals(-1L, amount.negate().percentage(50, RoundingMode.HALF_UP).cents());
+        assertEquals(-1L, amount.negate().percentage(50, RoundingMode.FLOOR).cents());
+        assertEquals(50L, Money.ofCents(10_000).percentage(50, RoundingMode.UNNECESSARY).cents());
+        assertThrows(ArithmeticException.class, () -> amount.percentage(50, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void percentage_shouldMatchBigDecimal() {
+        for (long cents = -2_000; cents <= 2_000; cents += 7) {
+            for (RoundingMode mode : new RoundingMode[]{RoundingMode.HALF_UP, RoundingMode.HALF_EVEN,
+                    RoundingMode.HALF_DOWN, RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR}) {
+                BigDecimal expected = BigDecimal.valueOf(cents, 2).multiply(new BigDecimal("0.0033")).setScale(2, mode);
+                assertEquals(Money.of(expected), Money.ofCents(cents).percentage(33, mode), cents + " " + mode);
+            }
+        }
+    }
+
+    @Test
+    void format_shouldGroupThousands() {
+        assertEquals("0.00", Money.ZERO.format());
+        assertEquals("0.05", Money.ofCents(5).format());
+        assertEquals("-0.50", Money.ofCents(-50).format());
+        assertEquals("12.50", Money.ofCents(1_250).format());
+        assertEquals("1,234.50", Money.ofCents(123_450).format());
+        assertEquals("-1,234,567.89", Money.ofCents(-123_456_789).format());
+        assertEquals("-92,233,720,368,547,758.08", Money.ofCents(Long.MIN_VALUE).format());
+    }
+
+    @Test
+    void parse_shouldAcceptCommaOrPoint() {
+        assertEquals(Money.ofCents(1_250), Money.parse("12,5"));
+        assertEquals(Money.ofCents(1_250), Money.parse(" 12.50 "));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12.505"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+    }
+
+    @Test
+    void converter_shouldRoundTripDecimalColumn() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("12.50"), converter.convertToDatabaseColumn(Money.ofCents(1_250)));
+        assertEquals(Money.ofCents(1_250), converter.convertToEntityAttribute(new BigDecimal("12.50")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
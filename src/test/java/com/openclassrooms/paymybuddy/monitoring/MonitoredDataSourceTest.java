@@ -0,0 +1,141 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MonitoredDataSourceTest {
+
+    private static final String SELECT_USER = "SELECT * FROM Users WHERE email = ?";
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private QueryMonitor monitor;
+    private MonitoredDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        monitor = new QueryMonitor(Duration.ofSeconds(1), 3, 10, () -> null);
+        dataSource = new MonitoredDataSource(target, monitor);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(SELECT_USER)).thenReturn(statement);
+    }
+
+    @Test
+    void query_shouldBeAttributedToRepositoryMethod_withRowsRead() throws Exception {
+        // Arrange
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+
+        // Act
+        monitor.enterRepositoryMethod("UserRepository.findByEmail");
+        try (Connection monitored = dataSource.getConnection();
+             PreparedStatement prepared = monitored.prepareStatement(SELECT_USER)) {
+            prepared.setString(1, "alice@mail.fr");
+            try (ResultSet rows = prepared.executeQuery()) {
+                while (rows.next()) {
+                    assertNotNull(rows);
+                }
+            }
+        } finally {
+            monitor.exitRepositoryMethod();
+        }
+
+        // Assert
+        verify(statement).setString(1, "alice@mail.fr");
+        List<QueryMonitor.MethodSummary> top = monitor.topMethods(10);
+        assertEquals(1, top.size());
+        assertEquals("UserRepository.findByEmail", top.get(0).method());
+        assertEquals(1, top.get(0).calls());
+        assertEquals(1, top.get(0).statements());
+        assertEquals(2, top.get(0).rows());
+    }
+
+    @Test
+    void update_shouldCountUpdatedRows_outsideRepositories() throws Exception {
+        // Arrange
+        when(statement.executeUpdate()).thenReturn(3);
+
+        // Act
+        try (Connection monitored = dataSource.getConnection()) {
+            monitored.prepareStatement(SELECT_USER).executeUpdate();
+        }
+
+        // Assert
+        QueryMonitor.MethodSummary summary = monitor.topMethods(1).get(0);
+        assertEquals(QueryMonitor.OUTSIDE_REPOSITORY, summary.method());
+        assertEquals(3, summary.rows());
+    }
+
+    @Test
+    void endRequest_shouldReportRepeatedStatements_aboveThreshold() throws Exception {
+        // Arrange
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        // Act : 4 chargements unitaires (seuil 3) dans la même requête HTTP
+        monitor.beginRequest("GET /home");
+        try (Connection monitored = dataSource.getConnection()) {
+            for (int i = 0; i < 4; i++) {
+                monitor.enterRepositoryMethod("UserRepository.findByEmail");
+                PreparedStatement prepared = monitored.prepareStatement(SELECT_USER);
+                prepared.setString(1, "friend" + i + "@mail.fr");
+                prepared.executeQuery().close();
+                monitor.exitRepositoryMethod();
+            }
+        }
+        List<QueryMonitor.RepeatedStatement> repeated = monitor.endRequest();
+
+        // Assert
+        assertEquals(1, repeated.size());
+        assertEquals("SELECT * FROM Users WHERE email = ?", repeated.get(0).fingerprint());
+        assertEquals("UserRepository.findByEmail", repeated.get(0).method());
+        assertEquals(4, repeated.get(0).count());
+    }
+
+    @Test
+    void endRequest_shouldReportNothing_belowThreshold() throws Exception {
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        monitor.beginRequest("GET /connections");
+        try (Connection monitored = dataSource.getConnection()) {
+            monitored.prepareStatement(SELECT_USER).executeQuery().close();
+        }
+
+        assertTrue(monitor.endRequest().isEmpty());
+    }
+
+    @Test
+    void logSummary_shouldResetCounters() throws Exception {
+        when(statement.executeUpdate()).thenReturn(1);
+        try (Connection monitored = dataSource.getConnection()) {
+            monitored.prepareStatement(SELECT_USER).executeUpdate();
+        }
+
+        monitor.logSummary();
+
+        assertTrue(monitor.topMethods(10).isEmpty());
+    }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.paymybuddy.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFingerprintTest {
+
+    @Test
+    void of_shouldReplaceLiteralsAndCollapseLists() {
+        assertEquals("select u1_0.user_id from Users u1_0 where u1_0.email=? and u1_0.user_id in (?...)",
+                SqlFingerprint.of("select u1_0.user_id\n  from Users u1_0 where u1_0.email='a@b.fr' and u1_0.user_id in (?, ?, ?)"));
+        assertEquals("INSERT INTO Connections (user_id_1, user_id_2) VALUES (?...)+",
+                SqlFingerprint.of("INSERT INTO Connections (user_id_1, user_id_2) VALUES (?, ?), (?, ?), (1, 2)"));
+    }
+
+    @Test
+    void of_shouldGiveSameFingerprint_forStatementsDifferingOnlyByValues() {
+        assertEquals(SqlFingerprint.of("SELECT * FROM Transactions WHERE sender_id = 12 LIMIT 20"),
+                SqlFingerprint.of("SELECT * FROM Transactions WHERE sender_id = 4012 LIMIT 50"));
+    }
+
+    @Test
+    void ofBinds_shouldKeepTypesAndHideValues() {
+        String fingerprint = SqlFingerprint.ofBinds(new Object[]{"alice@mail.fr", 42, null});
+
+        assertTrue(fingerprint.matches("\\[String#[0-9a-f]{4}, Integer#[0-9a-f]{4}, null]"), fingerprint);
+        assertFalse(fingerprint.contains("alice"));
+        assertEquals(fingerprint, SqlFingerprint.ofBinds(new Object[]{"alice@mail.fr", 42, null}));
+        assertEquals("[]", SqlFingerprint.ofBinds(null));
+    }
+}
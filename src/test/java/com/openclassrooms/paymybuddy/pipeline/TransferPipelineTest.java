@@ -0,0 +1,191 @@
+package com.openclassrooms.paymybuddy.pipeline;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.pipeline.TransferWriteAheadLog.LoggedTransfer;
+import com.openclassrooms.paymybuddy.service.InsufficientFundsException;
+import com.openclassrooms.paymybuddy.service.PreparedTransfer;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du pipeline de transferts groupés sur une base H2 en mémoire (mode MySQL).
+ * Le service de transaction est simulé : un transfert insère une ligne puis débite l'expéditeur
+ * sous condition de solde, comme le journal en partie double.
+ */
+class TransferPipelineTest {
+
+    private static final Map<String, Integer> ACCOUNTS = Map.of("alice@example.com", 1, "bob@example.com", 2);
+
+    @TempDir
+    Path directory;
+
+    private DataSourceTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionService transactionService;
+    private TransferWriteAheadLog writeAheadLog;
+    private TransferPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:h2:mem:pipeline_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT PRIMARY KEY, balance BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE Transactions (transaction_id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "sender_id INT NOT NULL, receiver_id INT NOT NULL, amount BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE Transfer_Pipeline_Checkpoints (node_id VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "last_sequence BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.update("INSERT INTO Users (user_id, balance) VALUES (1, 10000), (2, 0)");
+
+        transactionService = mock(TransactionService.class);
+        when(transactionService.prepareTransfer(anyString(), anyString(), any(), any())).thenAnswer(invocation ->
+                new PreparedTransfer(ACCOUNTS.get(invocation.<String>getArgument(0)), invocation.getArgument(0),
+                        ACCOUNTS.get(invocation.<String>getArgument(1)), invocation.getArgument(1),
+                        invocation.getArgument(2), Money.ZERO, invocation.getArgument(3)));
+        when(transactionService.applyTransfer(any())).thenAnswer(invocation -> apply(invocation.getArgument(0)));
+
+        writeAheadLog = new TransferWriteAheadLog(directory.resolve("transfers.wal"), 64 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        writeAheadLog.close();
+    }
+
+    @Test
+    void submit_shouldApplyTransfersInOrder_andRefuseOnlyTheOneWithoutFunds() throws Exception {
+        startPipeline();
+
+        // 3 x 40 € depuis un solde de 100 € : l'ordre de soumission décide lequel est refusé
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(pipeline.submit("alice@example.com", "bob@example.com", Money.ofCents(4_000), "Part " + i));
+        }
+
+        assertNotNull(results.get(0).get(5, TimeUnit.SECONDS));
+        assertNotNull(results.get(1).get(5, TimeUnit.SECONDS));
+        ExecutionException refused = assertThrows(ExecutionException.class, () -> results.get(2).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, refused.getCause());
+
+        assertEquals(2_000L, balance(1));
+        assertEquals(8_000L, balance(2));
+        // Le transfert refusé est annulé jusqu'à son point de sauvegarde : sa ligne n'existe plus
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Transactions", Integer.class));
+        assertEquals(3L, checkpoint());
+    }
+
+    @Test
+    void transfer_shouldApplyConcurrentTransfers_andAdvanceCheckpoint() throws Exception {
+        startPipeline();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    pipeline.transfer("alice@example.com", "bob@example.com", Money.ofCents(100), null);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8_000L, balance(1));
+        assertEquals(2_000L, balance(2));
+        assertEquals(20L, checkpoint());
+    }
+
+    @Test
+    void start_shouldReplayLoggedTransfersNotYetApplied_andSkipAbortedOnes() throws Exception {
+        jdbcTemplate.update("INSERT INTO Transfer_Pipeline_Checkpoints (node_id, last_sequence) VALUES ('node-1', 1)");
+        writeAheadLog.append(List.of(logged(1, 1_000), logged(2, 2_000), logged(3, 3_000)));
+        writeAheadLog.append(List.of(logged(4, 4_000)));
+        writeAheadLog.abort(4, 4);
+
+        startPipeline();
+
+        // Séquence 1 déjà appliquée, 4 annulée : seules 2 et 3 sont rejouées
+        assertEquals(5_000L, balance(1));
+        assertEquals(5_000L, balance(2));
+        assertEquals(3L, checkpoint());
+        verify(transactionService, times(2)).applyTransfer(any());
+
+        // Les nouveaux transferts reprennent après la plus grande séquence journalisée
+        pipeline.transfer("alice@example.com", "bob@example.com", Money.ofCents(500), null);
+        assertEquals(5L, checkpoint());
+    }
+
+    private void startPipeline() {
+        pipeline = new TransferPipeline(transactionService, jdbcTemplate, transactionManager, writeAheadLog,
+                "node-1", 100, 4, Duration.ofSeconds(5));
+        pipeline.start();
+    }
+
+    private Integer apply(PreparedTransfer transfer) throws InsufficientFundsException {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO Transactions (sender_id, receiver_id, amount) VALUES (?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, transfer.senderId());
+            statement.setInt(2, transfer.receiverId());
+            statement.setLong(3, transfer.amount().cents());
+            return statement;
+        }, keyHolder);
+        if (jdbcTemplate.update("UPDATE Users SET balance = balance - ? WHERE user_id = ? AND balance >= ?",
+                transfer.amount().cents(), transfer.senderId(), transfer.amount().cents()) == 0) {
+            throw new InsufficientFundsException(transfer.senderId(), "Solde insuffisant pour effectuer ce transfert.");
+        }
+        jdbcTemplate.update("UPDATE Users SET balance = balance + ? WHERE user_id = ?",
+                transfer.amount().cents(), transfer.receiverId());
+        return keyHolder.getKey().intValue();
+    }
+
+    private long balance(int accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM Users WHERE user_id = ?", Long.class, accountId);
+    }
+
+    private long checkpoint() {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_sequence FROM Transfer_Pipeline_Checkpoints WHERE node_id = 'node-1'", Long.class);
+    }
+
+    private static LoggedTransfer logged(long sequence, long cents) {
+        return new LoggedTransfer(sequence, new PreparedTransfer(1, "alice@example.com", 2, "bob@example.com",
+                Money.ofCents(cents), Money.ZERO, null));
+    }
+}
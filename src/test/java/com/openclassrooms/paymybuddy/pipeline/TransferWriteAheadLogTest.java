@@ -0,0 +1,102 @@
+package com.openclassrooms.paymybuddy.pipeline;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.pipeline.TransferWriteAheadLog.LoggedTransfer;
+import com.openclassrooms.paymybuddy.service.PreparedTransfer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_shouldReturnTransfersAfterCheckpoint_afterReopening() throws Exception {
+        Path file = directory.resolve("transfers.wal");
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(file, 64 * 1024)) {
+            wal.append(List.of(logged(1, "Loyer"), logged(2, null)));
+            wal.append(List.of(logged(3, "Cinéma")));
+        }
+
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(file, 64 * 1024)) {
+            TransferWriteAheadLog.Contents contents = wal.read(1);
+
+            assertEquals(List.of(logged(2, null), logged(3, "Cinéma")), contents.pending());
+            assertEquals(3, contents.maxSequence());
+        }
+    }
+
+    @Test
+    void read_shouldSkipAbortedGroups() throws Exception {
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(directory.resolve("transfers.wal"), 64 * 1024)) {
+            wal.append(List.of(logged(1, "a"), logged(2, "b")));
+            wal.abort(1, 2);
+            wal.append(List.of(logged(3, "c")));
+
+            TransferWriteAheadLog.Contents contents = wal.read(0);
+
+            assertEquals(List.of(logged(3, "c")), contents.pending());
+            assertEquals(3, contents.maxSequence());
+        }
+    }
+
+    @Test
+    void read_shouldStopAtTornRecord() throws Exception {
+        Path file = directory.resolve("transfers.wal");
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(file, 64 * 1024)) {
+            wal.append(List.of(logged(1, "a")));
+            wal.append(List.of(logged(2, "b")));
+        }
+        // Arrêt brutal pendant l'écriture du second enregistrement : son contenu ne correspond plus à son CRC
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            int firstLength = raf.readInt();
+            raf.seek(8 + firstLength + 8 + 2);
+            raf.writeByte(0x7F);
+        }
+
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(file, 64 * 1024)) {
+            assertEquals(List.of(logged(1, "a")), wal.read(0).pending());
+        }
+    }
+
+    @Test
+    void append_shouldWrapAround_whenLogIsFull() throws Exception {
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(directory.resolve("transfers.wal"), 1024)) {
+            for (long sequence = 1; sequence <= 50; sequence++) {
+                wal.append(List.of(logged(sequence, "Transfert " + sequence)));
+            }
+
+            TransferWriteAheadLog.Contents contents = wal.read(0);
+
+            // Seuls les enregistrements écrits depuis le dernier retour au début restent, dans l'ordre
+            assertFalse(contents.pending().isEmpty());
+            assertTrue(contents.pending().size() < 50);
+            assertEquals(50, contents.pending().get(contents.pending().size() - 1).sequence());
+            for (int i = 1; i < contents.pending().size(); i++) {
+                assertEquals(contents.pending().get(i - 1).sequence() + 1, contents.pending().get(i).sequence());
+            }
+        }
+    }
+
+    @Test
+    void reset_shouldEmptyLog() throws Exception {
+        try (TransferWriteAheadLog wal = new TransferWriteAheadLog(directory.resolve("transfers.wal"), 64 * 1024)) {
+            wal.append(List.of(logged(1, "a")));
+            wal.reset();
+
+            assertTrue(wal.read(0).pending().isEmpty());
+        }
+    }
+
+    private static LoggedTransfer logged(long sequence, String description) {
+        return new LoggedTransfer(sequence, new PreparedTransfer(1, "alice@example.com", 2, "bob@example.com",
+                Money.ofCents(1_000 + sequence), Money.ofCents(5), description));
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.paymybuddy.push;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseSubscriptionRegistryTest {
+
+    private SseSubscriptionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SseSubscriptionRegistry(1, Duration.ofMinutes(1), 2, 4, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void subscribe_shouldRegisterConnectionPerUser() {
+        SseEmitter emitter = registry.subscribe("alice@mail.fr");
+
+        assertNotNull(emitter);
+        assertTrue(registry.hasSubscribers("alice@mail.fr"));
+        assertFalse(registry.hasSubscribers("bob@mail.fr"));
+        assertEquals(1, registry.subscriberCount());
+    }
+
+    @Test
+    void subscribe_shouldCloseOldestConnection_whenUserHasTooManyTabs() {
+        registry.subscribe("alice@mail.fr");
+        registry.subscribe("alice@mail.fr");
+        registry.subscribe("alice@mail.fr");
+
+        assertEquals(2, registry.subscriberCount());
+    }
+
+    @Test
+    void publish_shouldIgnoreUsersWithoutConnection() {
+        assertDoesNotThrow(() -> registry.publish("bob@mail.fr", "balance", new TransferPushListener.BalanceUpdate("10.00")));
+        assertEquals(0, registry.subscriberCount());
+    }
+
+    @Test
+    void publish_andHeartbeat_shouldKeepConnectionOpen() {
+        registry.subscribe("alice@mail.fr");
+
+        registry.publish("alice@mail.fr", "balance", new TransferPushListener.BalanceUpdate("10.00"));
+        registry.heartbeat();
+
+        assertTrue(registry.hasSubscribers("alice@mail.fr"));
+        assertEquals(1, registry.subscriberCount());
+    }
+
+    @Test
+    void publish_shouldServeOtherConnections_betweenBatchesOfABacklog() throws Exception {
+        // Un seul thread d'écriture, deux événements d'affilée par connexion
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        CountDownLatch allWritten = new CountDownLatch(7);
+        SseSubscriptionRegistry fairRegistry = new SseSubscriptionRegistry(1, Duration.ofMinutes(1), 2, 8, 2) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                String user = subscriberCount() == 0 ? "alice" : "bob";
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        if (writes.isEmpty()) {
+                            firstWriteStarted.countDown();
+                            awaitQuietly(releaseFirstWrite);
+                        }
+                        writes.add(user);
+                        allWritten.countDown();
+                    }
+                };
+            }
+        };
+        try {
+            // Écriture bloquée sur la connexion d'alice pendant que son arriéré s'accumule
+            fairRegistry.subscribe("alice@mail.fr");
+            assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) {
+                fairRegistry.publish("alice@mail.fr", "balance", new TransferPushListener.BalanceUpdate("10.00"));
+            }
+            fairRegistry.subscribe("bob@mail.fr");
+            fairRegistry.publish("bob@mail.fr", "balance", new TransferPushListener.BalanceUpdate("20.00"));
+            releaseFirstWrite.countDown();
+
+            assertTrue(allWritten.await(5, TimeUnit.SECONDS));
+            // bob est servi après le premier lot d'alice, sans attendre la fin de son arriéré
+            assertEquals(List.of("alice", "alice", "bob", "bob", "alice", "alice", "alice"), writes);
+        } finally {
+            fairRegistry.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.paymybuddy.push;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import com.openclassrooms.paymybuddy.service.TransactionService;
+import com.openclassrooms.paymybuddy.service.TransferCompletedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferPushListenerTest {
+
+    @Mock
+    private SseSubscriptionRegistry registry;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferPushListener listener;
+    private TransferCompletedEvent event;
+
+    @BeforeEach
+    void setUp() {
+        listener = new TransferPushListener(registry, userRepository, transactionService, transactionManager, 10);
+        event = new TransferCompletedEvent(7, "alice@mail.fr", "bob@mail.fr", Money.ofCents(2_500), "Cinéma",
+                LocalDateTime.of(2025, 3, 1, 20, 15));
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.shutdown();
+    }
+
+    @Test
+    void onTransferCompleted_shouldNotReadAnything_whenNoParticipantIsConnected() {
+        when(registry.hasSubscribers(anyString())).thenReturn(false);
+
+        listener.onTransferCompleted(event);
+
+        verifyNoInteractions(userRepository, transactionService, transactionManager);
+        verify(registry, never()).publish(anyString(), anyString(), any());
+    }
+
+    @Test
+    void onTransferCompleted_shouldPushBalanceAndReceivedTransfer_toConnectedReceiver() {
+        when(registry.hasSubscribers("alice@mail.fr")).thenReturn(false);
+        when(registry.hasSubscribers("bob@mail.fr")).thenReturn(true);
+        User alice = user(1, "alice@mail.fr", "Alice");
+        User bob = user(2, "bob@mail.fr", "Bob");
+        when(userRepository.findByEmail("alice@mail.fr")).thenReturn(Optional.of(alice));
+        when(userRepository.findByEmail("bob@mail.fr")).thenReturn(Optional.of(bob));
+        when(transactionService.getBalance(bob)).thenReturn(Money.ofCents(12_500));
+
+        listener.onTransferCompleted(event);
+
+        verify(registry, timeout(1_000)).publish("bob@mail.fr", TransferPushListener.TRANSFER_EVENT,
+                new TransferPushListener.ReceivedTransfer(7, "Alice", "25.00", "Cinéma", "01/03/2025 20:15"));
+        verify(registry).publish("bob@mail.fr", TransferPushListener.BALANCE_EVENT,
+                new TransferPushListener.BalanceUpdate("125.00"));
+        verify(registry, never()).publish(eq("alice@mail.fr"), anyString(), any());
+        verify(transactionService, never()).getBalance(alice);
+    }
+
+    private static User user(int id, String email, String username) {
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail(email);
+        user.setUsername(username);
+        return user;
+    }
+}
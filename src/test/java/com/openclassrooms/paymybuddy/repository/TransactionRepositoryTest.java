@@ -0,0 +1,168 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.Transaction;
+import com.openclassrooms.paymybuddy.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requêtes de {@link TransactionRepository} sur une base H2 créée à partir des entités :
+ * nombre de lignes lues (statistiques Hibernate) proportionnel aux transactions, jamais à leur produit.
+ */
+@DataJpaTest(properties = {
+        "paymybuddy.migration.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+class TransactionRepositoryTest {
+
+    private static final int SENT = 40;
+    private static final int RECEIVED = 30;
+    private static final int FRIENDS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = user("alice@mail.fr");
+        entityManager.persist(user);
+        List<User> friends = new ArrayList<>();
+        for (int i = 0; i < FRIENDS; i++) {
+            User friend = user("friend" + i + "@mail.fr");
+            entityManager.persist(friend);
+            friends.add(friend);
+        }
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < SENT; i++) {
+            entityManager.persist(transaction(user, friends.get(i % FRIENDS), start.plusMinutes(i)));
+        }
+        for (int i = 0; i < RECEIVED; i++) {
+            entityManager.persist(transaction(friends.get(i % FRIENDS), user, start.plusMinutes(i)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        user = userRepository.findByEmail("alice@mail.fr").orElseThrow();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findSentAndReceived_shouldReadOneRowPerTransaction_withCounterpartiesLoaded() {
+        // Act
+        List<Transaction> sent = transactionRepository.findSentWithReceiver(user, PageRequest.of(0, 100));
+        List<Transaction> received = transactionRepository.findReceivedWithSender(user, PageRequest.of(0, 100));
+
+        // Assert : deux requêtes, SENT + RECEIVED lignes (une jointure sur les deux collections en lirait SENT × RECEIVED)
+        assertEquals(SENT, sent.size());
+        assertEquals(RECEIVED, received.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(SENT + RECEIVED, rowsRead());
+        assertTrue(sent.stream().allMatch(tx -> Hibernate.isInitialized(tx.getReceiver())));
+        assertTrue(received.stream().allMatch(tx -> Hibernate.isInitialized(tx.getSender())));
+        // Les autres participants sont chargés par la même requête : aucun chargement unitaire
+        sent.forEach(tx -> assertNotNull(tx.getReceiver().getEmail()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSentWithReceiver_shouldReadOnlyThePage_newestFirst() {
+        // Act
+        List<Transaction> page = transactionRepository.findSentWithReceiver(user, PageRequest.of(1, 15));
+
+        // Assert : la limite est appliquée par la base, pas en mémoire
+        assertEquals(15, page.size());
+        assertEquals(15, rowsRead());
+        for (int i = 1; i < page.size(); i++) {
+            assertFalse(page.get(i).getTimestamp().isAfter(page.get(i - 1).getTimestamp()));
+        }
+    }
+
+    @Test
+    void findHistorySince_shouldLoadBothParticipants_inOneQuery() {
+        // Act
+        List<Transaction> history = transactionRepository.findHistorySince(user, LocalDateTime.now().minusMonths(1));
+
+        // Assert : la vue lit expéditeur et destinataire après la fin de la transaction
+        assertEquals(SENT + RECEIVED, history.size());
+        assertTrue(history.stream().allMatch(tx ->
+                Hibernate.isInitialized(tx.getSender()) && Hibernate.isInitialized(tx.getReceiver())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findHistory_shouldIncludeTransactionsOlderThanRetention() {
+        // Arrange : transaction de plus de deux ans, jamais archivée sans partitionnement
+        User friend = userRepository.findByEmail("friend0@mail.fr").orElseThrow();
+        entityManager.persist(transaction(user, friend, LocalDateTime.now().minusYears(2)));
+        entityManager.flush();
+
+        // Act
+        List<Transaction> history = transactionRepository.findHistory(user);
+
+        // Assert
+        assertEquals(SENT + RECEIVED + 1, history.size());
+        assertTrue(history.get(history.size() - 1).getTimestamp().isBefore(LocalDateTime.now().minusYears(1)));
+        assertEquals(SENT + RECEIVED, transactionRepository.findHistorySince(user, LocalDateTime.now().minusMonths(12)).size());
+    }
+
+    @Test
+    void countBySenderAndReceiver_shouldReturnTotals() {
+        assertEquals(SENT, transactionRepository.countBySender(user));
+        assertEquals(RECEIVED, transactionRepository.countByReceiver(user));
+    }
+
+    private long rowsRead() {
+        return Arrays.stream(statistics.getQueries())
+                .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionRowCount())
+                .sum();
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        return user;
+    }
+
+    private static Transaction transaction(User sender, User receiver, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(Money.of(new BigDecimal("10.00")));
+        transaction.setDescription("Transfert");
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
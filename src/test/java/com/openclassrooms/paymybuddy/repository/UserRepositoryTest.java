@@ -0,0 +1,79 @@
+package com.openclassrooms.paymybuddy.repository;
+
+import com.openclassrooms.paymybuddy.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tampon de version des données ({@code Users.data_version}) sur une base H2 créée à partir des entités :
+ * incrémenté en base, jamais réécrit par une sauvegarde de l'entité.
+ */
+@DataJpaTest(properties = {
+        "paymybuddy.migration.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        alice = persist("alice@mail.fr");
+        bob = persist("bob@mail.fr");
+        carol = persist("carol@mail.fr");
+        // Bob a ajouté Alice ; Carol ne la connaît pas
+        bob.getConnections().add(alice);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void save_shouldNotOverwriteConcurrentIncrement() {
+        // Arrange : entité chargée avant l'incrément d'une autre transaction (transfert, nouvelle demande)
+        User loaded = userRepository.findByEmail("alice@mail.fr").orElseThrow();
+        userRepository.incrementDataVersion(alice.getUserId());
+
+        // Act : sauvegarde du profil avec l'ancienne version en mémoire
+        loaded.setUsername("Alice");
+        userRepository.save(loaded);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1L, userRepository.findDataVersionByEmail("alice@mail.fr").orElseThrow());
+        assertEquals("Alice", userRepository.findByEmail("alice@mail.fr").orElseThrow().getUsername());
+    }
+
+    @Test
+    void incrementConnectedByDataVersions_shouldBumpOnlyUsersListingTheUser() {
+        int updated = userRepository.incrementConnectedByDataVersions(alice.getUserId());
+
+        assertEquals(1, updated);
+        assertEquals(1L, userRepository.findDataVersionByEmail("bob@mail.fr").orElseThrow());
+        assertEquals(0L, userRepository.findDataVersionByEmail("carol@mail.fr").orElseThrow());
+        assertEquals(0L, userRepository.findDataVersionByEmail("alice@mail.fr").orElseThrow());
+    }
+
+    private User persist(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,133 @@
+package com.openclassrooms.paymybuddy.seed;
+
+import com.openclassrooms.paymybuddy.migration.H2Migrations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du chargement de jeux de données sur une base H2 en mémoire (mode MySQL).
+ */
+class DatasetSeederTest {
+
+    private static final String CONTENT_CHECKSUM = "SELECT SUM(MOD(transaction_id * 31 + sender_id * 17 + receiver_id, 1000003)"
+            + " + amount * 100) FROM Transactions";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = newDatabase();
+    }
+
+    @Test
+    void seed_shouldLoadUsersConnectionsAndTransactions_betweenConnectedUsers() throws Exception {
+        DatasetSeeder.SeedResult result = new DatasetSeeder(jdbcTemplate, spec(500, null, 2_000, 3)).seed();
+
+        assertEquals(500, result.users());
+        assertEquals(2_000, result.transactions());
+        assertEquals(result.connections(), count("SELECT COUNT(*) FROM Connections"));
+        assertEquals(502, count("SELECT COUNT(*) FROM Users"));
+        assertEquals(2_000, count("SELECT COUNT(*) FROM Transactions"));
+        assertEquals(4_000, count("SELECT COUNT(*) FROM Transaction_Search"));
+        // Chaque transfert a lieu entre relations, comme dans l'application
+        assertEquals(0, count("SELECT COUNT(*) FROM Transactions t WHERE NOT EXISTS (SELECT 1 FROM Connections c "
+                + "WHERE c.user_id_1 = t.sender_id AND c.user_id_2 = t.receiver_id)"));
+        assertEquals(0, count("SELECT COUNT(*) FROM Connections WHERE user_id_1 = user_id_2"));
+    }
+
+    @Test
+    void seed_shouldKeepLedgerBalanced_withOpeningPostings() throws Exception {
+        new DatasetSeeder(jdbcTemplate, spec(300, null, 100, 2)).seed();
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(amount) FROM Ledger_Postings", BigDecimal.class)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM Users", BigDecimal.class)));
+        assertEquals(0, count("SELECT COUNT(*) FROM Users u WHERE u.balance <> "
+                + "(SELECT COALESCE(SUM(p.amount), 0) FROM Ledger_Postings p WHERE p.account_id = u.user_id)"));
+    }
+
+    @Test
+    void seed_shouldSplitTheOpeningCounterpart_whenOpeningBalancesExceedAPosting() throws Exception {
+        // Un seul paquet de 120 000 comptes : environ 1,2 milliard de centimes, au-delà d'une écriture DECIMAL(10, 2)
+        SeedSpec spec = new SeedSpec(120_000, null, 1, 2.5, 10, 0, Duration.ofDays(30), 42, 2, 500, 120_000, false, false);
+
+        new DatasetSeeder(jdbcTemplate, spec).seed();
+
+        BigDecimal external = jdbcTemplate.queryForObject(
+                "SELECT balance FROM Users WHERE email = 'external@paymybuddy.com'", BigDecimal.class);
+        assertTrue(external.compareTo(new BigDecimal("-100000000.00")) < 0, "Solde du compte externe : " + external);
+        assertTrue(count("SELECT COUNT(*) FROM Ledger_Postings p JOIN Users u ON u.user_id = p.account_id "
+                + "WHERE u.email = 'external@paymybuddy.com'") > 1);
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(amount) FROM Ledger_Postings", BigDecimal.class)));
+        assertEquals(0, count("SELECT COUNT(*) FROM Users u WHERE u.balance <> "
+                + "(SELECT COALESCE(SUM(p.amount), 0) FROM Ledger_Postings p WHERE p.account_id = u.user_id)"));
+    }
+
+    @Test
+    void seed_shouldProduceSameData_whateverTheNumberOfThreads() throws Exception {
+        new DatasetSeeder(jdbcTemplate, spec(400, null, 3_000, 1)).seed();
+        JdbcTemplate other = newDatabase();
+        new DatasetSeeder(other, spec(400, null, 3_000, 4)).seed();
+
+        assertEquals(jdbcTemplate.queryForObject(CONTENT_CHECKSUM, BigDecimal.class),
+                other.queryForObject(CONTENT_CHECKSUM, BigDecimal.class));
+        assertEquals(count("SELECT COUNT(*) FROM Connections"), other.queryForObject("SELECT COUNT(*) FROM Connections", Long.class));
+    }
+
+    @Test
+    void seed_shouldRefuseToLoadTheSameSeedTwice() throws Exception {
+        new DatasetSeeder(jdbcTemplate, spec(100, null, 10, 2)).seed();
+
+        Exception exception = assertThrows(Exception.class, () -> new DatasetSeeder(jdbcTemplate, spec(100, null, 10, 2)).seed());
+
+        assertEquals("Jeu de données déjà chargé pour la graine 42 : utiliser une autre graine ou une base vide.",
+                exception.getMessage());
+    }
+
+    @Test
+    void seed_shouldImportUsersFromCsvFile() throws Exception {
+        Path usersFile = tempDir.resolve("users.csv");
+        Files.writeString(usersFile, "ann@example.com,Ann\nben@example.com,Ben\n\ncid@example.com\n");
+
+        DatasetSeeder.SeedResult result = new DatasetSeeder(jdbcTemplate, spec(0, usersFile, 20, 2)).seed();
+
+        assertEquals(3, result.users());
+        assertEquals("Ben", jdbcTemplate.queryForObject("SELECT username FROM Users WHERE email = 'ben@example.com'", String.class));
+        assertEquals(0, count("SELECT COUNT(*) FROM Transactions t JOIN Users u ON u.user_id = t.sender_id "
+                + "WHERE u.email NOT LIKE '%@example.com'"));
+    }
+
+    private static SeedSpec spec(int users, Path usersFile, long transactions, int threads) {
+        return new SeedSpec(users, usersFile, 5, 2.5, 100, transactions, Duration.ofDays(30), 42, threads,
+                50, 200, true, false);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static JdbcTemplate newDatabase() {
+        String url = "jdbc:h2:mem:seed_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        // Schéma des migrations, avec les comptes externe et plateforme (V7, V8)
+        H2Migrations.apply(dataSource);
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.paymybuddy.seed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PowerLawGraphTest {
+
+    @Test
+    void degree_shouldFollowRank_andAverageTheMeanDegree() {
+        PowerLawGraph graph = new PowerLawGraph(100_000, 20, 2.5, 5_000, 42);
+
+        long total = 0;
+        for (int user = 0; user < graph.users(); user++) {
+            total += graph.degree(user);
+        }
+
+        assertEquals(20.0, (double) total / graph.users(), 1.0);
+        assertTrue(graph.degree(0) > 100 * graph.degree(graph.users() - 1)); // Quelques utilisateurs très connectés
+        assertEquals(5_000, graph.degree(0));
+    }
+
+    @Test
+    void target_shouldBeDeterministic_andNeverTheUserItself() {
+        PowerLawGraph graph = new PowerLawGraph(1_000, 10, 2.5, 500, 7);
+        PowerLawGraph sameSeed = new PowerLawGraph(1_000, 10, 2.5, 500, 7);
+
+        for (int user = 0; user < graph.users(); user++) {
+            for (int j = 0; j < graph.degree(user); j++) {
+                int target = graph.target(user, j);
+                assertTrue(target != user);
+                assertTrue(target >= 0 && target < graph.users());
+                assertEquals(target, sameSeed.target(user, j));
+            }
+        }
+    }
+
+    @Test
+    void target_shouldDependOnSeed() {
+        PowerLawGraph graph = new PowerLawGraph(1_000_000, 10, 2.5, 500, 1);
+        PowerLawGraph otherSeed = new PowerLawGraph(1_000_000, 10, 2.5, 500, 2);
+
+        int same = 0;
+        for (int j = 0; j < 100; j++) {
+            same += graph.target(500, j) == otherSeed.target(500, j) ? 1 : 0;
+        }
+        assertTrue(same < 50);
+    }
+
+    @Test
+    void pick_shouldFavourLowRanks() {
+        PowerLawGraph graph = new PowerLawGraph(1_000, 10, 2.5, 500, 1);
+
+        assertEquals(0, graph.pick(0.0));
+        assertEquals(125, graph.pick(0.5)); // 1000 * 0.5^3
+        assertEquals(999, graph.pick(0.999_999_999));
+    }
+
+    @Test
+    void constructor_shouldRejectExponentWithoutFiniteMean() {
+        assertThrows(IllegalArgumentException.class, () -> new PowerLawGraph(1_000, 10, 2.0, 500, 1));
+    }
+}
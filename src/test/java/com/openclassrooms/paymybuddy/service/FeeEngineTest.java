@@ -0,0 +1,85 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du moteur de frais sur une base H2 en mémoire (mode MySQL).
+ */
+class FeeEngineTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private FeeEngine feeEngine;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:fees_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE Fee_Plans (plan_code VARCHAR(32) PRIMARY KEY, label VARCHAR(100) NOT NULL, "
+                + "is_default BOOLEAN NOT NULL DEFAULT FALSE)");
+        jdbcTemplate.execute("CREATE TABLE Fee_Tiers (plan_code VARCHAR(32) NOT NULL, min_amount DECIMAL(10, 2) NOT NULL, "
+                + "basis_points INT NOT NULL, fixed_fee DECIMAL(10, 2) NOT NULL DEFAULT 0.00, PRIMARY KEY (plan_code, min_amount))");
+        jdbcTemplate.update("INSERT INTO Users (email) VALUES ('platform@paymybuddy.com')");
+        jdbcTemplate.update("INSERT INTO Fee_Plans VALUES ('STANDARD', 'Standard', TRUE), ('PREMIUM', 'Premium', FALSE)");
+        jdbcTemplate.update("INSERT INTO Fee_Tiers VALUES ('STANDARD', 0.00, 50, 0.00), "
+                + "('PREMIUM', 0.00, 0, 0.00), ('PREMIUM', 1000.00, 10, 0.00)");
+        feeEngine = new FeeEngine(jdbcTemplate, "platform@paymybuddy.com");
+    }
+
+    @Test
+    void feeFor_shouldUseUserPlan_orDefaultPlan() {
+        Money amount = Money.ofCents(200_000);
+
+        assertEquals(Money.ofCents(1_000), feeEngine.feeFor(user(null), amount));
+        assertEquals(Money.ofCents(200), feeEngine.feeFor(user("PREMIUM"), amount));
+        assertEquals(Money.ZERO, feeEngine.feeFor(user("PREMIUM"), Money.ofCents(500)));
+        // Plan supprimé : plan par défaut
+        assertEquals(Money.ofCents(1_000), feeEngine.feeFor(user("LEGACY"), amount));
+        assertEquals(1, feeEngine.getPlatformAccountId());
+    }
+
+    @Test
+    void reload_shouldSwapSchedules_withoutRestart() {
+        assertEquals(Money.ofCents(50), feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+
+        jdbcTemplate.update("UPDATE Fee_Tiers SET basis_points = 100 WHERE plan_code = 'STANDARD'");
+        // Rien n'est relu tant que le rechargement n'a pas eu lieu
+        assertEquals(Money.ofCents(50), feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+
+        feeEngine.reload();
+        assertEquals(Money.ofCents(100), feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+    }
+
+    @Test
+    void reload_shouldKeepPreviousSchedules_whenNewOnesAreInvalid() {
+        assertEquals(Money.ofCents(50), feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+
+        jdbcTemplate.update("UPDATE Fee_Plans SET is_default = TRUE WHERE plan_code = 'PREMIUM'");
+        feeEngine.reload();
+
+        assertEquals(Money.ofCents(50), feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+    }
+
+    @Test
+    void feeFor_shouldFail_whenPlatformAccountIsMissing() {
+        jdbcTemplate.update("DELETE FROM Users");
+
+        assertThrows(IllegalStateException.class, () -> feeEngine.feeFor(user(null), Money.ofCents(10_000)));
+    }
+
+    private static User user(String feePlan) {
+        User user = new User();
+        user.setFeePlan(feePlan);
+        return user;
+    }
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeScheduleTest {
+
+    // Paliers volontairement désordonnés : le barème les trie
+    private final FeeSchedule schedule = FeeSchedule.of("TIERED", List.of(
+            new FeeSchedule.Tier(Money.ofCents(100_000), 20, Money.ZERO),      // >= 1000 € : 0.2 %
+            new FeeSchedule.Tier(Money.ofCents(1_000), 50, Money.ZERO),        // >= 10 € : 0.5 %
+            new FeeSchedule.Tier(Money.ofCents(0), 0, Money.ofCents(10))));    // < 10 € : 0.10 € fixes
+
+    @Test
+    void feeFor_shouldApplyTierBelowAmount() {
+        assertEquals(Money.ofCents(10), schedule.feeFor(Money.ofCents(500)));
+        assertEquals(Money.ofCents(50), schedule.feeFor(Money.ofCents(10_000)));
+        assertEquals(Money.ofCents(400), schedule.feeFor(Money.ofCents(200_000)));
+    }
+
+    @Test
+    void feeFor_shouldApplyTierStartingExactlyAtAmount() {
+        assertEquals(Money.ofCents(5), schedule.feeFor(Money.ofCents(1_000)));
+        assertEquals(Money.ofCents(200), schedule.feeFor(Money.ofCents(100_000)));
+        assertEquals(Money.ofCents(10), schedule.feeFor(Money.ofCents(999)));
+    }
+
+    @Test
+    void feeFor_shouldRoundHalfCentUp() {
+        // 0.5 % de 10.01 € = 5.005 centimes
+        assertEquals(Money.ofCents(5), schedule.feeFor(Money.ofCents(1_001)));
+        // 0.5 % de 10.10 € = 5.05 centimes
+        assertEquals(Money.ofCents(5), schedule.feeFor(Money.ofCents(1_010)));
+        // 0.5 % de 10.30 € = 5.15 centimes
+        assertEquals(Money.ofCents(5), schedule.feeFor(Money.ofCents(1_030)));
+        // 0.5 % de 11.00 € = 5.5 centimes
+        assertEquals(Money.ofCents(6), schedule.feeFor(Money.ofCents(1_100)));
+    }
+
+    @Test
+    void feeFor_shouldBeFree_belowFirstTier() {
+        FeeSchedule fromTenEuros = FeeSchedule.of("FROM_10", List.of(new FeeSchedule.Tier(Money.ofCents(1_000), 50, Money.ZERO)));
+        assertEquals(Money.ZERO, fromTenEuros.feeFor(Money.ofCents(999)));
+        assertEquals(Money.ZERO, FeeSchedule.of("EMPTY", List.of()).feeFor(Money.ofCents(999)));
+    }
+
+    @Test
+    void of_shouldRejectDuplicateTiers() {
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.of("DUP", List.of(
+                new FeeSchedule.Tier(Money.ZERO, 50, Money.ZERO),
+                new FeeSchedule.Tier(Money.ZERO, 20, Money.ZERO))));
+    }
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FragmentCacheServiceTest {
+
+    @Mock
+    private ITemplateEngine templateEngine;
+
+    private FragmentCacheService fragmentCacheService;
+
+    private Set<User> connections;
+
+    @BeforeEach
+    void setUp() {
+        fragmentCacheService = new FragmentCacheService(templateEngine, true, 2);
+        User friend = new User();
+        friend.setEmail("friend@example.com");
+        connections = Set.of(friend);
+    }
+
+    @Test
+    void getConnectionOptions_shouldRenderOnce_whenVersionUnchanged() {
+        // Arrange
+        when(templateEngine.process(eq(FragmentCacheService.CONNECTION_OPTIONS_TEMPLATE), anySet(), any(IContext.class)))
+                .thenReturn("<option>friend</option>");
+
+        // Act
+        String first = fragmentCacheService.getConnectionOptions("user@example.com", 1L, connections);
+        String second = fragmentCacheService.getConnectionOptions("user@example.com", 1L, connections);
+
+        // Assert
+        assertEquals("<option>friend</option>", first);
+        assertSame(first, second);
+        verify(templateEngine, times(1)).process(anyString(), anySet(), any(IContext.class));
+    }
+
+    @Test
+    void getConnectionOptions_shouldRenderAgain_whenVersionChangedOrEvicted() {
+        // Arrange
+        when(templateEngine.process(anyString(), anySet(), any(IContext.class))).thenReturn("<option/>");
+
+        // Act
+        fragmentCacheService.getConnectionOptions("user@example.com", 1L, connections);
+        fragmentCacheService.getConnectionOptions("user@example.com", 2L, connections); // nouvelle version
+        fragmentCacheService.evict("user@example.com");
+        fragmentCacheService.getConnectionOptions("user@example.com", 2L, connections); // après invalidation
+
+        // Assert
+        verify(templateEngine, times(3)).process(anyString(), anySet(), any(IContext.class));
+    }
+
+    @Test
+    void getConnectionOptions_shouldEvictLeastRecentlyUsed_whenFull() {
+        // Arrange
+        when(templateEngine.process(anyString(), anySet(), any(IContext.class))).thenReturn("<option/>");
+
+        // Act : capacité de 2 entrées, la troisième chasse la plus ancienne
+        fragmentCacheService.getConnectionOptions("a@example.com", 1L, connections);
+        fragmentCacheService.getConnectionOptions("b@example.com", 1L, connections);
+        fragmentCacheService.getConnectionOptions("c@example.com", 1L, connections);
+        fragmentCacheService.getConnectionOptions("a@example.com", 1L, connections);
+
+        // Assert
+        verify(templateEngine, times(4)).process(anyString(), anySet(), any(IContext.class));
+    }
+
+    @Test
+    void getConnectionOptions_shouldReturnNull_whenDisabled() {
+        // Arrange
+        FragmentCacheService disabled = new FragmentCacheService(templateEngine, false, 10);
+
+        // Act & Assert
+        assertNull(disabled.getConnectionOptions("user@example.com", 1L, connections));
+        verifyNoInteractions(templateEngine);
+    }
+}
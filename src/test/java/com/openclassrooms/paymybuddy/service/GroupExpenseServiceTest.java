@@ -0,0 +1,295 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.ExpenseGroup;
+import com.openclassrooms.paymybuddy.model.GroupExpense;
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.ExpenseGroupRepository;
+import com.openclassrooms.paymybuddy.repository.GroupExpenseRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupExpenseServiceTest {
+
+    @Mock
+    private ExpenseGroupRepository expenseGroupRepository;
+
+    @Mock
+    private GroupExpenseRepository groupExpenseRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private PaymentRequestService paymentRequestService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private GroupExpenseService groupExpenseService;
+
+    private User owner;
+    private User friend;
+    private User roommate;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUserId(1);
+        owner.setEmail("owner@example.com");
+
+        friend = new User();
+        friend.setUserId(2);
+        friend.setEmail("friend@example.com");
+
+        roommate = new User();
+        roommate.setUserId(3);
+        roommate.setEmail("roommate@example.com");
+    }
+
+    @Test
+    void netBalances_shouldSplitEqually_andGiveRemainingCentsToLowestIds() {
+        // 100,00 € avancés par 1, répartis entre 3 membres : 33,34 / 33,33 / 33,33
+        Map<Integer, Money> net = GroupExpenseService.netBalances(List.of(3, 1, 2), Map.of(1, Money.ofCents(10_000)));
+
+        assertEquals(Money.ofCents(6_666), net.get(1));
+        assertEquals(Money.ofCents(-3_333), net.get(2));
+        assertEquals(Money.ofCents(-3_333), net.get(3));
+        assertEquals(0L, net.values().stream().mapToLong(Money::cents).sum());
+    }
+
+    @Test
+    void netBalances_shouldOffsetExpensesPaidByDifferentMembers() {
+        Map<Integer, Money> net = GroupExpenseService.netBalances(List.of(1, 2),
+                Map.of(1, Money.ofCents(3_000), 2, Money.ofCents(1_000)));
+
+        assertEquals(Money.ofCents(1_000), net.get(1));
+        assertEquals(Money.ofCents(-1_000), net.get(2));
+    }
+
+    @Test
+    void createGroup_shouldAddOwnerAsMember_andInviteConnections() throws Exception {
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(userRepository.findByEmail("friend@example.com")).thenReturn(Optional.of(friend));
+        when(userRepository.isConnected(1, 2)).thenReturn(true);
+        when(expenseGroupRepository.saveAndFlush(any(ExpenseGroup.class))).thenAnswer(invocation -> {
+            ExpenseGroup saved = invocation.getArgument(0);
+            saved.setGroupId(7);
+            return saved;
+        });
+
+        ExpenseGroup group = groupExpenseService.createGroup("owner@example.com", "Colocation", List.of("friend@example.com"));
+
+        assertEquals("Colocation", group.getName());
+        assertEquals(owner, group.getOwner());
+        assertEquals(2, group.getMembers().size());
+        assertTrue(group.getMembers().contains(friend));
+        // Seul le créateur a rejoint le groupe : l'ami reste invité tant qu'il n'a pas accepté
+        verify(jdbcTemplate).update(startsWith("UPDATE Expense_Group_Members SET joined_at"), any(Timestamp.class), eq(7), eq(1));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void createGroup_shouldThrowException_whenMemberIsNotAConnection() {
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(userRepository.findByEmail("friend@example.com")).thenReturn(Optional.of(friend));
+        when(userRepository.isConnected(1, 2)).thenReturn(false);
+
+        Exception exception = assertThrows(Exception.class,
+                () -> groupExpenseService.createGroup("owner@example.com", "Voyage", List.of("friend@example.com")));
+
+        assertEquals("Les membres du groupe doivent faire partie de vos relations : friend@example.com", exception.getMessage());
+        verify(expenseGroupRepository, never()).save(any());
+    }
+
+    @Test
+    void join_shouldThrowException_whenThereIsNoPendingInvitation() {
+        when(userRepository.findByEmail("friend@example.com")).thenReturn(Optional.of(friend));
+        when(jdbcTemplate.update(startsWith("UPDATE Expense_Group_Members SET joined_at"), any(Timestamp.class), eq(7), eq(2)))
+                .thenReturn(0);
+
+        Exception exception = assertThrows(Exception.class, () -> groupExpenseService.join("friend@example.com", 7));
+
+        assertEquals("Invitation non trouvée ou déjà acceptée.", exception.getMessage());
+    }
+
+    @Test
+    void addExpense_shouldThrowException_whenUserHasNotJoinedTheGroup() {
+        ExpenseGroup group = group(owner, friend);
+        when(userRepository.findByEmail("friend@example.com")).thenReturn(Optional.of(friend));
+        when(expenseGroupRepository.findWithMembers(7, friend)).thenReturn(Optional.of(group));
+        when(jdbcTemplate.queryForList(startsWith("SELECT user_id FROM Expense_Group_Members"), eq(Integer.class), eq(7)))
+                .thenReturn(List.of(1));
+
+        Exception exception = assertThrows(Exception.class,
+                () -> groupExpenseService.addExpense("friend@example.com", 7, Money.ofCents(5_000), "Courses"));
+
+        assertEquals("Acceptez l'invitation avant de participer aux dépenses du groupe.", exception.getMessage());
+        verify(groupExpenseRepository, never()).save(any());
+    }
+
+    @Test
+    void settle_shouldPayOwnDebt_andSendPaymentRequestsForOtherDebts() throws Exception {
+        // L'ami a avancé 90,00 € pour trois : le créateur et le colocataire lui doivent chacun 30,00 €
+        ExpenseGroup group = group(owner, friend, roommate);
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(expenseGroupRepository.findWithMembers(7, owner)).thenReturn(Optional.of(group));
+        when(jdbcTemplate.queryForList(startsWith("SELECT user_id FROM Expense_Group_Members"), eq(Integer.class), eq(7)))
+                .thenReturn(List.of(1, 2, 3));
+        paidByMember(Map.of(2, new BigDecimal("90.00")));
+        when(jdbcTemplate.update(startsWith("UPDATE Group_Expenses SET settled_at"), any(Timestamp.class), eq(7)))
+                .thenReturn(1);
+
+        GroupExpenseService.Settlement settlement = groupExpenseService.settle("owner@example.com", 7);
+
+        assertEquals(1, settlement.paid().size());
+        assertEquals(1, settlement.requested().size());
+        verify(transactionService).transferMoney("owner@example.com", "friend@example.com", Money.ofCents(3_000),
+                "Règlement du groupe Colocation");
+        verify(transactionService, times(1)).transferMoney(anyString(), anyString(), any(), any());
+        verify(paymentRequestService).requestSettlement(friend, roommate, Money.ofCents(3_000),
+                "Règlement du groupe Colocation");
+    }
+
+    @Test
+    void settle_shouldKeepRequestedShareOpen_untilItsPaymentRequestIsAnswered() throws Exception {
+        ExpenseGroup group = group(owner, friend, roommate);
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(expenseGroupRepository.findWithMembers(7, owner)).thenReturn(Optional.of(group));
+        when(jdbcTemplate.queryForList(startsWith("SELECT user_id FROM Expense_Group_Members"), eq(Integer.class), eq(7)))
+                .thenReturn(List.of(1, 2, 3));
+        paidByMember(Map.of(2, new BigDecimal("90.00")));
+        when(jdbcTemplate.update(startsWith("UPDATE Group_Expenses SET settled_at"), any(Timestamp.class), eq(7)))
+                .thenReturn(1);
+        PaymentRequest request = new PaymentRequest();
+        request.setPaymentRequestId(40);
+        when(paymentRequestService.requestSettlement(friend, roommate, Money.ofCents(3_000), "Règlement du groupe Colocation"))
+                .thenReturn(request);
+
+        groupExpenseService.settle("owner@example.com", 7);
+
+        // La dette du colocataire reste une part non réglée du groupe, liée à la demande
+        ArgumentCaptor<GroupExpense> share = ArgumentCaptor.forClass(GroupExpense.class);
+        verify(groupExpenseRepository).save(share.capture());
+        assertSame(friend, share.getValue().getPayer());
+        assertSame(roommate, share.getValue().getDebtor());
+        assertEquals(Money.ofCents(3_000), share.getValue().getAmount());
+        assertSame(request, share.getValue().getPaymentRequest());
+        assertNull(share.getValue().getSettledAt());
+    }
+
+    @Test
+    void settle_shouldSettleAgainAShareReopenedByADeclinedRequest() throws Exception {
+        // Le colocataire a refusé la demande de 30,00 € de l'ami : la part est rouverte, sans autre dépense
+        ExpenseGroup group = group(owner, friend, roommate);
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(expenseGroupRepository.findWithMembers(7, owner)).thenReturn(Optional.of(group));
+        when(jdbcTemplate.queryForList(startsWith("SELECT user_id FROM Expense_Group_Members"), eq(Integer.class), eq(7)))
+                .thenReturn(List.of(1, 2, 3));
+        paidByMember(Map.of());
+        openShare(2, 3, new BigDecimal("30.00"));
+        when(jdbcTemplate.update(startsWith("UPDATE Group_Expenses SET settled_at"), any(Timestamp.class), eq(7)))
+                .thenReturn(1);
+
+        GroupExpenseService.Settlement settlement = groupExpenseService.settle("owner@example.com", 7);
+
+        // La dette n'a pas disparu : une nouvelle demande est envoyée au colocataire
+        assertTrue(settlement.paid().isEmpty());
+        assertEquals(1, settlement.requested().size());
+        verify(paymentRequestService).requestSettlement(friend, roommate, Money.ofCents(3_000),
+                "Règlement du groupe Colocation");
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void settle_shouldLeaveInviteesOutOfTheSplit() throws Exception {
+        // Le colocataire n'a pas accepté l'invitation : les 90,00 € sont partagés entre le créateur et l'ami
+        ExpenseGroup group = group(owner, friend, roommate);
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(expenseGroupRepository.findWithMembers(7, owner)).thenReturn(Optional.of(group));
+        when(jdbcTemplate.queryForList(startsWith("SELECT user_id FROM Expense_Group_Members"), eq(Integer.class), eq(7)))
+                .thenReturn(List.of(1, 2));
+        paidByMember(Map.of(2, new BigDecimal("90.00")));
+        when(jdbcTemplate.update(startsWith("UPDATE Group_Expenses SET settled_at"), any(Timestamp.class), eq(7)))
+                .thenReturn(1);
+
+        GroupExpenseService.Settlement settlement = groupExpenseService.settle("owner@example.com", 7);
+
+        assertTrue(settlement.requested().isEmpty());
+        verify(transactionService).transferMoney("owner@example.com", "friend@example.com", Money.ofCents(4_500),
+                "Règlement du groupe Colocation");
+        verifyNoInteractions(paymentRequestService);
+    }
+
+    @Test
+    void settle_shouldThrowException_whenUserIsNotAMember() {
+        when(userRepository.findByEmail("owner@example.com")).thenReturn(Optional.of(owner));
+        when(expenseGroupRepository.findWithMembers(7, owner)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(Exception.class, () -> groupExpenseService.settle("owner@example.com", 7));
+
+        assertEquals("Groupe non trouvé.", exception.getMessage());
+        verifyNoInteractions(transactionService, jdbcTemplate);
+    }
+
+    private ExpenseGroup group(User... members) {
+        ExpenseGroup group = new ExpenseGroup();
+        group.setGroupId(7);
+        group.setName("Colocation");
+        group.setOwner(owner);
+        group.getMembers().addAll(List.of(members));
+        return group;
+    }
+
+    private void paidByMember(Map<Integer, BigDecimal> paid) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Integer, BigDecimal> entry : paid.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getInt("payer_id")).thenReturn(entry.getKey());
+                when(rs.getBigDecimal("paid")).thenReturn(entry.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT payer_id, SUM"), any(RowCallbackHandler.class), eq(7));
+    }
+
+    private void openShare(int creditorId, int debtorId, BigDecimal due) {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt("payer_id")).thenReturn(creditorId);
+            when(rs.getInt("debtor_id")).thenReturn(debtorId);
+            when(rs.getBigDecimal("due")).thenReturn(due);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT payer_id, debtor_id"), any(RowCallbackHandler.class), eq(7));
+    }
+}
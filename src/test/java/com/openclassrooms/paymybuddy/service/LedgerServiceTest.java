@@ -0,0 +1,173 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du journal en partie double et de son contrôle de cohérence sur une base H2 en mémoire (mode MySQL).
+ */
+class LedgerServiceTest {
+
+    private static final int ALICE = 1;
+    private static final int BOB = 2;
+    private static final int PLATFORM = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private HotAccountStripes hotAccounts;
+    private LedgerService ledgerService;
+    private LedgerConsistencyChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:ledger_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT PRIMARY KEY, email VARCHAR(255) NOT NULL, balance DECIMAL(10, 2) NOT NULL, "
+                + "data_version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE Ledger_Postings (posting_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "transaction_id INT NOT NULL, account_id INT NOT NULL, amount DECIMAL(10, 2) NOT NULL, "
+                + "posting_type VARCHAR(16) NOT NULL, created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE Account_Stripes (account_id INT NOT NULL, stripe_no SMALLINT NOT NULL, "
+                + "balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00, PRIMARY KEY (account_id, stripe_no))");
+        jdbcTemplate.update("INSERT INTO Users (user_id, email, balance) VALUES (1, 'alice@mail.fr', 100.00), (2, 'bob@mail.fr', 0.00), "
+                + "(3, 'platform@paymybuddy.com', 0.00), (4, 'overdrawn@mail.fr', -100.00)");
+        // Soldes d'ouverture (contrepartie : compte externe 4)
+        jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) "
+                + "VALUES (0, 1, 100.00, 'OPENING'), (0, 4, -100.00, 'OPENING')");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        hotAccounts = new HotAccountStripes(jdbcTemplate, transactionManager, List.of(), 4);
+        ledgerService = new LedgerService(jdbcTemplate, hotAccounts);
+        checker = new LedgerConsistencyChecker(jdbcTemplate, transactionManager, 4);
+    }
+
+    @Test
+    void recordTransfer_shouldWriteBalancedPostings_andIncrementBalances() throws Exception {
+        List<LedgerPosting> postings = ledgerService.recordTransfer(10, ALICE, BOB,
+                Money.ofCents(4_000), Money.ofCents(20), PLATFORM);
+
+        assertEquals(4, postings.size());
+        assertEquals(Money.ZERO, postings.stream().map(LedgerPosting::amount).reduce(Money.ZERO, Money::plus));
+        assertEquals(new BigDecimal("59.80"), balance(ALICE));
+        assertEquals(new BigDecimal("40.00"), balance(BOB));
+        assertEquals(new BigDecimal("0.20"), balance(PLATFORM));
+        // Un seul incrément par compte : l'expéditeur est débité une fois du montant et des frais
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT data_version FROM Users WHERE user_id = 1", Long.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Ledger_Postings WHERE transaction_id = 10", Integer.class));
+        assertTrue(checker.check().isConsistent());
+    }
+
+    @Test
+    void recordTransfer_shouldRefuseDebit_whenBalanceIsInsufficient() {
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class, () ->
+                ledgerService.recordTransfer(11, ALICE, BOB, Money.ofCents(10_000), Money.ofCents(50), PLATFORM));
+
+        assertEquals(ALICE, exception.getAccountId());
+        assertEquals("Solde insuffisant pour effectuer ce transfert (incluant les frais de 0.50 €).", exception.getMessage());
+        assertEquals(new BigDecimal("100.00"), balance(ALICE));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Ledger_Postings WHERE transaction_id = 11", Integer.class));
+    }
+
+    @Test
+    void post_shouldRejectUnbalancedEntry() {
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.post(12, List.of(
+                LedgerPosting.debit(ALICE, Money.ofCents(1_000), LedgerPosting.Type.TRANSFER),
+                LedgerPosting.credit(BOB, Money.ofCents(900), LedgerPosting.Type.TRANSFER)), "Solde insuffisant"));
+        assertEquals(new BigDecimal("100.00"), balance(ALICE));
+    }
+
+    @Test
+    void check_shouldReportUnbalancedEntries_andMismatchedBalances() throws Exception {
+        ledgerService.recordTransfer(13, ALICE, BOB, Money.ofCents(1_000), Money.ZERO, PLATFORM);
+        // Corruptions : écriture orpheline et solde modifié hors du journal
+        jdbcTemplate.update("INSERT INTO Ledger_Postings (transaction_id, account_id, amount, posting_type) VALUES (14, 3, 5.00, 'FEE')");
+        jdbcTemplate.update("UPDATE Users SET balance = balance + 1 WHERE user_id = 2");
+
+        LedgerConsistencyChecker.Report report = checker.check();
+
+        assertFalse(report.isConsistent());
+        assertEquals(Money.ofCents(500), report.unbalancedTransactions().get(14));
+        assertEquals(1, report.unbalancedTransactions().size());
+        assertEquals(new LedgerConsistencyChecker.Mismatch(Money.ofCents(1_100), Money.ofCents(1_000)),
+                report.mismatchedAccounts().get(BOB));
+        assertEquals(new LedgerConsistencyChecker.Mismatch(Money.ZERO, Money.ofCents(500)),
+                report.mismatchedAccounts().get(PLATFORM));
+        assertEquals(2, report.mismatchedAccounts().size());
+    }
+
+    @Test
+    void recordTransfer_shouldCreditHotAccountStripes_andFoldThemBeforeDebit() throws Exception {
+        hotAccounts.designate(PLATFORM, 4);
+        assertTrue(hotAccounts.isHot("platform@paymybuddy.com"));
+        assertFalse(hotAccounts.isHot("alice@mail.fr"));
+
+        for (int transactionId = 20; transactionId < 28; transactionId++) {
+            ledgerService.recordTransfer(transactionId, ALICE, BOB, Money.ofCents(100), Money.ofCents(25), PLATFORM);
+        }
+
+        // Les frais sont répartis sur plusieurs sous-soldes, la ligne principale n'est pas touchée
+        assertEquals(new BigDecimal("0.00"), balance(PLATFORM));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Account_Stripes WHERE account_id = 3 AND balance > 0",
+                Integer.class) > 1);
+        assertEquals(Money.ofCents(200), ledgerService.balanceOf(PLATFORM, Money.ZERO));
+        assertTrue(checker.check().isConsistent());
+
+        // Débit du compte chaud : les sous-soldes sont d'abord repliés sur la ligne principale
+        ledgerService.recordTransfer(30, PLATFORM, BOB, Money.ofCents(150), Money.ZERO, PLATFORM);
+        assertEquals(new BigDecimal("0.50"), balance(PLATFORM));
+        assertEquals(Money.ZERO, hotAccounts.stripedBalance(PLATFORM));
+        assertTrue(checker.check().isConsistent());
+    }
+
+    @Test
+    void compact_shouldFoldStripesIntoMainRow() throws Exception {
+        hotAccounts.designate(BOB, 4);
+        ledgerService.recordTransfer(40, ALICE, BOB, Money.ofCents(1_000), Money.ZERO, PLATFORM);
+        assertEquals(new BigDecimal("0.00"), balance(BOB));
+
+        hotAccounts.compact();
+
+        assertEquals(new BigDecimal("10.00"), balance(BOB));
+        assertEquals(Money.ZERO, hotAccounts.stripedBalance(BOB));
+        assertTrue(checker.check().isConsistent());
+    }
+
+    @Test
+    void isHot_shouldNotCreateStripes_untilConfiguredAccountsAreDesignated() {
+        HotAccountStripes configured = new HotAccountStripes(jdbcTemplate, transactionManager,
+                List.of("platform@paymybuddy.com"), 4);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Première lecture dans une transaction en lecture seule (réplica) : aucune écriture
+        assertEquals(Boolean.FALSE, readOnly.execute(status -> configured.isHot(PLATFORM)));
+        assertEquals(Money.ZERO, readOnly.execute(status -> configured.stripedBalance(PLATFORM)));
+        assertEquals(0, stripeCount(PLATFORM));
+
+        // Au démarrage : sous-soldes créés dans leur propre transaction en écriture
+        configured.designateConfiguredAccounts();
+
+        assertEquals(4, stripeCount(PLATFORM));
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> configured.isHot("platform@paymybuddy.com")));
+    }
+
+    private int stripeCount(int accountId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Account_Stripes WHERE account_id = ?", Integer.class, accountId);
+    }
+
+    private BigDecimal balance(int userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM Users WHERE user_id = ?", BigDecimal.class, userId);
+    }
+}
@@ -0,0 +1,224 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.PaymentRequest;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.GroupExpenseRepository;
+import com.openclassrooms.paymybuddy.repository.PaymentRequestRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentRequestServiceTest {
+
+    @Mock
+    private PaymentRequestRepository paymentRequestRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private GroupExpenseRepository groupExpenseRepository;
+
+    private PaymentRequestService paymentRequestService;
+    private User requester;
+    private User payer;
+
+    @BeforeEach
+    void setUp() {
+        paymentRequestService = new PaymentRequestService(paymentRequestRepository, userRepository, transactionService,
+                groupExpenseRepository, 100);
+
+        requester = new User();
+        requester.setUserId(1);
+        requester.setEmail("requester@example.com");
+
+        payer = new User();
+        payer.setUserId(2);
+        payer.setEmail("payer@example.com");
+    }
+
+    @Test
+    void request_shouldSavePendingRequest_andBumpPayerDataVersion_whenPayerIsAConnection() throws Exception {
+        when(userRepository.findByEmail("requester@example.com")).thenReturn(Optional.of(requester));
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(userRepository.isConnected(1, 2)).thenReturn(true);
+        when(paymentRequestRepository.save(any(PaymentRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest saved = paymentRequestService.request("requester@example.com", "payer@example.com",
+                Money.ofCents(2_500), "Restaurant");
+
+        assertEquals(requester, saved.getRequester());
+        assertEquals(payer, saved.getPayer());
+        assertEquals(PaymentRequest.Status.PENDING, saved.getStatus());
+        assertNull(saved.getReadAt());
+        verify(userRepository).incrementDataVersion(2);
+    }
+
+    @Test
+    void requestSettlement_shouldSavePendingRequest_withoutRequiringAConnection() {
+        when(paymentRequestRepository.save(any(PaymentRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest saved = paymentRequestService.requestSettlement(requester, payer, Money.ofCents(3_000),
+                "Règlement du groupe Colocation");
+
+        assertEquals(PaymentRequest.Status.PENDING, saved.getStatus());
+        assertEquals(payer, saved.getPayer());
+        verify(userRepository, never()).isConnected(any(), any());
+        verify(userRepository).incrementDataVersion(2);
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void request_shouldThrowException_whenPayerIsNotAConnection() {
+        when(userRepository.findByEmail("requester@example.com")).thenReturn(Optional.of(requester));
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(userRepository.isConnected(1, 2)).thenReturn(false);
+
+        Exception exception = assertThrows(Exception.class, () -> paymentRequestService.request("requester@example.com",
+                "payer@example.com", Money.ofCents(2_500), null));
+
+        assertEquals("Vous ne pouvez demander un paiement qu'à l'une de vos relations.", exception.getMessage());
+        verify(paymentRequestRepository, never()).save(any());
+    }
+
+    @Test
+    void getInbox_shouldMarkRequestsAsRead_andKeepPreviousReadState() throws Exception {
+        PaymentRequest unread = pending();
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.findPendingByPayer(payer)).thenReturn(List.of(unread));
+        when(paymentRequestRepository.markReadByPayer(eq(payer), any(LocalDateTime.class))).thenReturn(1);
+
+        List<PaymentRequest> inbox = paymentRequestService.getInbox("payer@example.com");
+
+        assertEquals(1, inbox.size());
+        assertNull(inbox.get(0).getReadAt()); // Affichée comme nouvelle
+        verify(userRepository).incrementDataVersion(2);
+    }
+
+    @Test
+    void getInbox_shouldNotUpdate_whenAllRequestsAreRead() throws Exception {
+        PaymentRequest read = pending();
+        read.setReadAt(LocalDateTime.now().minusDays(1));
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.findPendingByPayer(payer)).thenReturn(List.of(read));
+
+        paymentRequestService.getInbox("payer@example.com");
+
+        verify(paymentRequestRepository, never()).markReadByPayer(any(), any());
+        verify(userRepository, never()).incrementDataVersion(any());
+    }
+
+    @Test
+    void countUnread_shouldQueryOncePerDataVersion() {
+        when(paymentRequestRepository.countUnreadByPayerEmail("payer@example.com")).thenReturn(3L, 0L);
+
+        assertEquals(3L, paymentRequestService.countUnread("payer@example.com", 5L));
+        assertEquals(3L, paymentRequestService.countUnread("payer@example.com", 5L));
+        assertEquals(0L, paymentRequestService.countUnread("payer@example.com", 6L));
+
+        verify(paymentRequestRepository, times(2)).countUnreadByPayerEmail("payer@example.com");
+    }
+
+    @Test
+    void accept_shouldMarkAccepted_thenTransferFromPayerToRequester() throws Exception {
+        PaymentRequest request = pending();
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.findById(10)).thenReturn(Optional.of(request));
+        when(paymentRequestRepository.respondIfPending(eq(10), eq(payer), eq(PaymentRequest.Status.ACCEPTED), any()))
+                .thenReturn(1);
+
+        paymentRequestService.accept("payer@example.com", 10);
+
+        verify(transactionService).transferMoney("payer@example.com", "requester@example.com",
+                Money.ofCents(2_500), "Restaurant");
+        // Part d'un règlement de groupe éventuellement liée à la demande : réglée
+        verify(groupExpenseRepository).settleRequestedShare(eq(request), any(LocalDateTime.class));
+        verify(userRepository, never()).findByEmailWithConnections(anyString());
+    }
+
+    @Test
+    void decline_shouldReopenTheGroupShareOfTheRequest() throws Exception {
+        PaymentRequest request = pending();
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.respondIfPending(eq(10), eq(payer), eq(PaymentRequest.Status.DECLINED), any()))
+                .thenReturn(1);
+        when(paymentRequestRepository.getReferenceById(10)).thenReturn(request);
+        when(groupExpenseRepository.reopenRequestedShare(request)).thenReturn(1);
+
+        paymentRequestService.decline("payer@example.com", 10);
+
+        // La dette reste due dans le groupe, sans transfert
+        verify(groupExpenseRepository).reopenRequestedShare(request);
+        verify(groupExpenseRepository, never()).settleRequestedShare(any(), any());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void decline_shouldNotReopenAnything_whenRequestIsNoLongerPending() {
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.respondIfPending(eq(10), eq(payer), eq(PaymentRequest.Status.DECLINED), any()))
+                .thenReturn(0);
+
+        Exception exception = assertThrows(Exception.class, () -> paymentRequestService.decline("payer@example.com", 10));
+
+        assertEquals("Demande de paiement non trouvée ou déjà traitée.", exception.getMessage());
+        verifyNoInteractions(groupExpenseRepository);
+    }
+
+    @Test
+    void accept_shouldNotTransfer_whenRequestIsNoLongerPending() throws Exception {
+        PaymentRequest request = pending();
+        when(userRepository.findByEmail("payer@example.com")).thenReturn(Optional.of(payer));
+        when(paymentRequestRepository.findById(10)).thenReturn(Optional.of(request));
+        when(paymentRequestRepository.respondIfPending(eq(10), eq(payer), eq(PaymentRequest.Status.ACCEPTED), any()))
+                .thenReturn(0);
+
+        Exception exception = assertThrows(Exception.class, () -> paymentRequestService.accept("payer@example.com", 10));
+
+        assertEquals("Cette demande de paiement n'est plus en attente.", exception.getMessage());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void accept_shouldThrowException_whenRequestIsAddressedToAnotherUser() {
+        User other = new User();
+        other.setUserId(3);
+        other.setEmail("other@example.com");
+        when(userRepository.findByEmail("other@example.com")).thenReturn(Optional.of(other));
+        when(paymentRequestRepository.findById(10)).thenReturn(Optional.of(pending()));
+
+        Exception exception = assertThrows(Exception.class, () -> paymentRequestService.accept("other@example.com", 10));
+
+        assertEquals("Demande de paiement non trouvée.", exception.getMessage());
+        verify(paymentRequestRepository, never()).respondIfPending(any(), any(), any(), any());
+        verifyNoInteractions(transactionService);
+    }
+
+    private PaymentRequest pending() {
+        PaymentRequest request = new PaymentRequest();
+        request.setPaymentRequestId(10);
+        request.setRequester(requester);
+        request.setPayer(payer);
+        request.setAmount(Money.ofCents(2_500));
+        request.setDescription("Restaurant");
+        return request;
+    }
+}
@@ -0,0 +1,214 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du planificateur des virements programmés sur une base H2 en mémoire (mode MySQL).
+ * Le service de transaction est simulé : un transfert débite l'expéditeur sous condition de solde
+ * et crédite le destinataire, dans la transaction ouverte par le planificateur.
+ */
+class ScheduledTransferRunnerTest {
+
+    private static final Map<String, Integer> ACCOUNTS = Map.of("alice@example.com", 1, "bob@example.com", 2);
+
+    private JdbcTemplate jdbcTemplate;
+    private ScheduledTransferRunner runner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:h2:mem:scheduled_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE Users (user_id INT PRIMARY KEY, email VARCHAR(100) NOT NULL, balance BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE Scheduled_Transfers (scheduled_transfer_id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "sender_id INT NOT NULL, receiver_id INT NOT NULL, amount DECIMAL(10,2) NOT NULL, description VARCHAR(255), "
+                + "frequency VARCHAR(16) NOT NULL, first_run_at DATETIME NOT NULL, occurrences INT NOT NULL DEFAULT 0, "
+                + "next_run_at DATETIME NOT NULL, status VARCHAR(16) NOT NULL DEFAULT 'ACTIVE', attempts INT NOT NULL DEFAULT 0, "
+                + "last_error VARCHAR(255), lease_until DATETIME NULL)");
+        jdbcTemplate.update("INSERT INTO Users (user_id, email, balance) VALUES "
+                + "(1, 'alice@example.com', 10000), (2, 'bob@example.com', 0)");
+
+        TransactionService transactionService = mock(TransactionService.class);
+        doAnswer(invocation -> {
+            int senderId = ACCOUNTS.get(invocation.<String>getArgument(0));
+            long cents = invocation.<Money>getArgument(2).cents();
+            if (jdbcTemplate.update("UPDATE Users SET balance = balance - ? WHERE user_id = ? AND balance >= ?",
+                    cents, senderId, cents) == 0) {
+                throw new InsufficientFundsException(senderId, "Solde insuffisant pour effectuer ce transfert.");
+            }
+            jdbcTemplate.update("UPDATE Users SET balance = balance + ? WHERE user_id = ?",
+                    cents, ACCOUNTS.get(invocation.<String>getArgument(1)));
+            return null;
+        }).when(transactionService).transferMoney(anyString(), anyString(), any(), any());
+
+        // Paquets de 2 virements : le passage doit enchaîner plusieurs réservations
+        runner = new ScheduledTransferRunner(jdbcTemplate, transactionService, new DataSourceTransactionManager(dataSource),
+                2, 2, Duration.ofMinutes(10), 3, Duration.ofMinutes(15), Duration.ofDays(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void runDue_shouldExecuteDueTransfers_andMoveToNextOccurrence() {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusHours(1).withNano(0);
+        int monthly = insert(3_000, "MONTHLY", firstRunAt, 0, firstRunAt, 0);
+        int weekly = insert(1_000, "WEEKLY", firstRunAt, 0, firstRunAt, 0);
+        int once = insert(2_000, "ONCE", firstRunAt, 0, firstRunAt, 0);
+        int notDue = insert(500, "ONCE", firstRunAt.plusDays(1), 0, firstRunAt.plusDays(1), 0);
+
+        runner.runDue();
+
+        assertEquals(4_000L, balance(1));
+        assertEquals(6_000L, balance(2));
+        assertEquals(firstRunAt.plusMonths(1), nextRunAt(monthly));
+        assertEquals(firstRunAt.plusWeeks(1), nextRunAt(weekly));
+        assertEquals("COMPLETED", column(once, "status"));
+        assertEquals(1, ((Number) column(once, "occurrences")).intValue());
+        assertNull(column(monthly, "lease_until"));
+        assertEquals(0, ((Number) column(notDue, "occurrences")).intValue());
+
+        ScheduledTransferRunner.RunStats stats = runner.getLastRun();
+        assertEquals(3, stats.executed());
+        assertEquals(0, stats.retried());
+        assertTrue(stats.lag().compareTo(Duration.ofMinutes(59)) > 0);
+        assertEquals(Duration.ZERO, runner.currentLag());
+    }
+
+    @Test
+    void runDue_shouldRetryLater_whenFundsAreInsufficient() {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusHours(1).withNano(0);
+        int scheduled = insert(20_000, "MONTHLY", firstRunAt, 0, firstRunAt, 0);
+
+        runner.runDue();
+
+        assertEquals(10_000L, balance(1));
+        assertEquals("ACTIVE", column(scheduled, "status"));
+        assertEquals(1, ((Number) column(scheduled, "attempts")).intValue());
+        assertEquals(0, ((Number) column(scheduled, "occurrences")).intValue());
+        assertEquals("Solde insuffisant pour effectuer ce transfert.", column(scheduled, "last_error"));
+        LocalDateTime retryAt = nextRunAt(scheduled);
+        assertTrue(retryAt.isAfter(LocalDateTime.now().plusMinutes(14)));
+        assertTrue(retryAt.isBefore(LocalDateTime.now().plusMinutes(16)));
+        assertEquals(1, runner.getLastRun().retried());
+    }
+
+    @Test
+    void runDue_shouldSkipOccurrence_afterLastAttempt_ofRecurringTransfer() {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusWeeks(1).minusHours(1).withNano(0);
+        int scheduled = insert(20_000, "WEEKLY", firstRunAt, 1, LocalDateTime.now().minusMinutes(1).withNano(0), 2);
+
+        runner.runDue();
+
+        assertEquals(10_000L, balance(1));
+        assertEquals("ACTIVE", column(scheduled, "status"));
+        assertEquals(2, ((Number) column(scheduled, "occurrences")).intValue());
+        assertEquals(0, ((Number) column(scheduled, "attempts")).intValue());
+        assertEquals(firstRunAt.plusWeeks(2), nextRunAt(scheduled));
+        assertTrue(((String) column(scheduled, "last_error"))
+                .startsWith("Échéance du " + firstRunAt.plusWeeks(1).toLocalDate() + " non exécutée"));
+        assertEquals(1, runner.getLastRun().failed());
+    }
+
+    @Test
+    void runDue_shouldMarkOneOffTransferFailed_afterLastAttempt() {
+        LocalDateTime dueAt = LocalDateTime.now().minusMinutes(1).withNano(0);
+        int scheduled = insert(20_000, "ONCE", dueAt, 0, dueAt, 2);
+
+        runner.runDue();
+
+        assertEquals("FAILED", column(scheduled, "status"));
+        assertEquals(10_000L, balance(1));
+        assertArrayEquals(new long[]{0, 0, 1, 0}, runner.getTotals());
+    }
+
+    @Test
+    void runDue_shouldSkipOccurrencesOlderThanCatchUpWindow_andRunOnlyTheLatestOne() {
+        // Planificateur arrêté trois semaines : seule l'échéance d'il y a une heure est dans la fenêtre d'un jour
+        LocalDateTime firstRunAt = LocalDateTime.now().minusWeeks(3).minusHours(1).withNano(0);
+        int scheduled = insert(1_000, "WEEKLY", firstRunAt, 0, firstRunAt, 0);
+
+        runner.runDue();
+
+        assertEquals(9_000L, balance(1));
+        assertEquals(1_000L, balance(2));
+        assertEquals(4, ((Number) column(scheduled, "occurrences")).intValue());
+        assertEquals(firstRunAt.plusWeeks(4), nextRunAt(scheduled));
+        assertEquals("3 échéance(s) manquée(s) depuis le " + firstRunAt.toLocalDate() + " non exécutée(s) : reprise au "
+                + firstRunAt.plusWeeks(3).toLocalDate(), column(scheduled, "last_error"));
+        assertEquals(1, runner.getLastRun().executed());
+        assertEquals(3, runner.getLastRun().skipped());
+
+        // Le passage suivant ne rejoue rien
+        runner.runDue();
+        assertEquals(9_000L, balance(1));
+    }
+
+    @Test
+    void runDue_shouldResumeAtNextOccurrence_whenNoMissedOccurrenceIsInsideCatchUpWindow() {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusMonths(1).minusDays(2).withNano(0);
+        int scheduled = insert(1_000, "MONTHLY", firstRunAt, 0, firstRunAt, 0);
+
+        runner.runDue();
+
+        assertEquals(10_000L, balance(1));
+        assertEquals(2, ((Number) column(scheduled, "occurrences")).intValue());
+        assertEquals(firstRunAt.plusMonths(2), nextRunAt(scheduled));
+        assertNull(column(scheduled, "lease_until"));
+        assertArrayEquals(new long[]{0, 0, 0, 2}, runner.getTotals());
+    }
+
+    @Test
+    void runDue_shouldStillExecuteLateOneOffTransfer() {
+        LocalDateTime dueAt = LocalDateTime.now().minusWeeks(2).withNano(0);
+        int scheduled = insert(1_000, "ONCE", dueAt, 0, dueAt, 0);
+
+        runner.runDue();
+
+        assertEquals("COMPLETED", column(scheduled, "status"));
+        assertEquals(9_000L, balance(1));
+    }
+
+    private int insert(long cents, String frequency, LocalDateTime firstRunAt, int occurrences,
+                       LocalDateTime nextRunAt, int attempts) {
+        jdbcTemplate.update("INSERT INTO Scheduled_Transfers (sender_id, receiver_id, amount, frequency, first_run_at, "
+                        + "occurrences, next_run_at, attempts) VALUES (1, 2, ?, ?, ?, ?, ?, ?)",
+                BigDecimal.valueOf(cents, 2), frequency, Timestamp.valueOf(firstRunAt), occurrences,
+                Timestamp.valueOf(nextRunAt), attempts);
+        return jdbcTemplate.queryForObject("SELECT MAX(scheduled_transfer_id) FROM Scheduled_Transfers", Integer.class);
+    }
+
+    private long balance(int accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM Users WHERE user_id = ?", Long.class, accountId);
+    }
+
+    private LocalDateTime nextRunAt(int id) {
+        return ((Timestamp) column(id, "next_run_at")).toLocalDateTime();
+    }
+
+    private Object column(int id, String name) {
+        return jdbcTemplate.queryForObject("SELECT " + name + " FROM Scheduled_Transfers WHERE scheduled_transfer_id = ?",
+                Object.class, id);
+    }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.ScheduledTransfer;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.ScheduledTransferRepository;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferServiceTest {
+
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private ScheduledTransferService scheduledTransferService;
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        scheduledTransferService = new ScheduledTransferService(scheduledTransferRepository, userRepository, LocalTime.of(2, 0));
+
+        sender = new User();
+        sender.setUserId(1);
+        sender.setEmail("sender@example.com");
+
+        receiver = new User();
+        receiver.setUserId(2);
+        receiver.setEmail("receiver@example.com");
+    }
+
+    @Test
+    void schedule_shouldSaveActiveTransfer_dueAtRunTimeOfFirstDate() throws Exception {
+        LocalDate firstRunDate = LocalDate.now().plusDays(3);
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(scheduledTransferRepository.save(any(ScheduledTransfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ScheduledTransfer scheduled = scheduledTransferService.schedule("sender@example.com", "receiver@example.com",
+                Money.ofCents(50_000), "Loyer", firstRunDate, ScheduledTransfer.Frequency.MONTHLY);
+
+        assertEquals(sender, scheduled.getSender());
+        assertEquals(receiver, scheduled.getReceiver());
+        assertEquals(Money.ofCents(50_000), scheduled.getAmount());
+        assertEquals(ScheduledTransfer.Status.ACTIVE, scheduled.getStatus());
+        assertEquals(LocalDateTime.of(firstRunDate, LocalTime.of(2, 0)), scheduled.getFirstRunAt());
+        assertEquals(scheduled.getFirstRunAt(), scheduled.getNextRunAt());
+        assertEquals(0, scheduled.getOccurrences());
+    }
+
+    @Test
+    void schedule_shouldThrowException_whenFirstDateIsPast() {
+        Exception exception = assertThrows(Exception.class, () -> scheduledTransferService.schedule("sender@example.com",
+                "receiver@example.com", Money.ofCents(1_000), null, LocalDate.now().minusDays(1),
+                ScheduledTransfer.Frequency.ONCE));
+
+        assertEquals("La date de la première échéance ne peut pas être passée.", exception.getMessage());
+        verify(scheduledTransferRepository, never()).save(any());
+    }
+
+    @Test
+    void schedule_shouldThrowException_whenSenderIsReceiver() {
+        Exception exception = assertThrows(Exception.class, () -> scheduledTransferService.schedule("sender@example.com",
+                "SENDER@example.com", Money.ofCents(1_000), null, LocalDate.now(), ScheduledTransfer.Frequency.WEEKLY));
+
+        assertEquals("Vous ne pouvez pas programmer un virement vers vous-même.", exception.getMessage());
+        verifyNoInteractions(userRepository, scheduledTransferRepository);
+    }
+
+    @Test
+    void cancel_shouldCancelActiveTransfer_ofSender() throws Exception {
+        ScheduledTransfer scheduled = new ScheduledTransfer();
+        scheduled.setScheduledTransferId(7);
+        scheduled.setSender(sender);
+        when(scheduledTransferRepository.findById(7)).thenReturn(Optional.of(scheduled));
+        when(scheduledTransferRepository.cancelIfActive(7)).thenReturn(1);
+
+        scheduledTransferService.cancel("sender@example.com", 7);
+
+        verify(scheduledTransferRepository).cancelIfActive(7);
+    }
+
+    @Test
+    void cancel_shouldThrowException_whenTransferBelongsToAnotherUser() {
+        ScheduledTransfer scheduled = new ScheduledTransfer();
+        scheduled.setScheduledTransferId(7);
+        scheduled.setSender(sender);
+        when(scheduledTransferRepository.findById(7)).thenReturn(Optional.of(scheduled));
+
+        Exception exception = assertThrows(Exception.class, () -> scheduledTransferService.cancel("receiver@example.com", 7));
+
+        assertEquals("Virement programmé non trouvé.", exception.getMessage());
+        verify(scheduledTransferRepository, never()).cancelIfActive(any());
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementSolverTest {
+
+    @Test
+    void solve_shouldPayLargestCreditorFromLargestDebtor() {
+        Map<Integer, Money> net = Map.of(
+                1, Money.ofCents(6_000),
+                2, Money.ofCents(-1_000),
+                3, Money.ofCents(-2_000),
+                4, Money.ofCents(-3_000));
+
+        List<SettlementSolver.Settlement> settlements = SettlementSolver.solve(net);
+
+        assertEquals(List.of(
+                new SettlementSolver.Settlement(4, 1, Money.ofCents(3_000)),
+                new SettlementSolver.Settlement(3, 1, Money.ofCents(2_000)),
+                new SettlementSolver.Settlement(2, 1, Money.ofCents(1_000))), settlements);
+    }
+
+    @Test
+    void solve_shouldReturnNoTransfer_whenEveryoneIsEven() {
+        assertTrue(SettlementSolver.solve(Map.of(1, Money.ZERO, 2, Money.ZERO)).isEmpty());
+        assertTrue(SettlementSolver.solve(Map.of()).isEmpty());
+    }
+
+    @Test
+    void solve_shouldClearAllBalances_withAtMostNMinusOneTransfers() {
+        Random random = new Random(42);
+        Map<Integer, Money> net = new HashMap<>();
+        long total = 0;
+        for (int member = 1; member < 500; member++) {
+            long cents = random.nextInt(200_001) - 100_000;
+            net.put(member, Money.ofCents(cents));
+            total += cents;
+        }
+        net.put(500, Money.ofCents(-total));
+
+        List<SettlementSolver.Settlement> settlements = SettlementSolver.solve(net);
+
+        Map<Integer, Long> remaining = new HashMap<>();
+        net.forEach((member, balance) -> remaining.put(member, balance.cents()));
+        for (SettlementSolver.Settlement settlement : settlements) {
+            assertTrue(settlement.amount().isPositive());
+            remaining.merge(settlement.fromAccountId(), settlement.amount().cents(), Long::sum);
+            remaining.merge(settlement.toAccountId(), -settlement.amount().cents(), Long::sum);
+        }
+        assertTrue(remaining.values().stream().allMatch(cents -> cents == 0));
+        assertTrue(settlements.size() <= net.size() - 1);
+    }
+
+    @Test
+    void solve_shouldRejectUnbalancedInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SettlementSolver.solve(Map.of(1, Money.ofCents(100), 2, Money.ofCents(-99))));
+    }
+}
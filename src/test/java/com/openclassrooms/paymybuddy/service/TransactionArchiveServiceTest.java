@@ -0,0 +1,114 @@
+package com.openclassrooms.paymybuddy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+
+    private static final YearMonth NOW = YearMonth.of(2026, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new TransactionArchiveService(jdbcTemplate, 12, 2);
+    }
+
+    @Test
+    void maintainPartitions_shouldArchiveThenDropExpiredPartitions() throws Exception {
+        // Arrange : partitions de septembre 2025 (expirée) à décembre 2026 (à jour)
+        List<String[]> partitions = new ArrayList<>();
+        for (YearMonth month = YearMonth.of(2025, 9); !month.isAfter(YearMonth.of(2026, 12)); month = month.plusMonths(1)) {
+            partitions.add(partition(month));
+        }
+        partitions.add(new String[]{"p_max", "MAXVALUE"});
+        stubPartitions(partitions);
+
+        // Act
+        archiveService.maintainPartitions(NOW);
+
+        // Assert : seules les partitions antérieures à octobre 2025 sont archivées
+        verify(jdbcTemplate).update("INSERT IGNORE INTO Transactions_Archive (transaction_id, sender_id, receiver_id, amount, "
+                + "fee, description, timestamp) SELECT transaction_id, sender_id, receiver_id, amount, fee, description, timestamp "
+                + "FROM Transactions PARTITION (p_202509)");
+        verify(jdbcTemplate).execute("ALTER TABLE Transactions DROP PARTITION p_202509");
+        verify(jdbcTemplate, times(1)).update(anyString());
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE Transactions REORGANIZE"));
+    }
+
+    @Test
+    void maintainPartitions_shouldCreateMissingFuturePartitionsFromMax() throws Exception {
+        // Arrange : dernière partition mensuelle = août 2026, le job n'a pas tourné depuis
+        stubPartitions(List.of(partition(YearMonth.of(2026, 8)), new String[]{"p_max", "MAXVALUE"}));
+
+        // Act
+        archiveService.maintainPartitions(NOW);
+
+        // Assert : septembre à décembre 2026 créés en découpant p_max
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).execute(ddl.capture());
+        assertEquals("ALTER TABLE Transactions REORGANIZE PARTITION p_max INTO ("
+                + "PARTITION p_202609 VALUES LESS THAN (" + startOf(YearMonth.of(2026, 10)) + "), "
+                + "PARTITION p_202610 VALUES LESS THAN (" + startOf(YearMonth.of(2026, 11)) + "), "
+                + "PARTITION p_202611 VALUES LESS THAN (" + startOf(YearMonth.of(2026, 12)) + "), "
+                + "PARTITION p_202612 VALUES LESS THAN (" + startOf(YearMonth.of(2027, 1)) + "), "
+                + "PARTITION p_max VALUES LESS THAN MAXVALUE)", ddl.getValue());
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    void maintainPartitions_shouldDoNothing_whenTableIsNotPartitioned() {
+        // Arrange
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of());
+
+        // Act
+        archiveService.maintainPartitions(NOW);
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    private void stubPartitions(List<String[]> partitions) throws Exception {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            List<Object> rows = new ArrayList<>();
+            for (String[] partition : partitions) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("PARTITION_NAME")).thenReturn(partition[0]);
+                when(rs.getString("PARTITION_DESCRIPTION")).thenReturn(partition[1]);
+                rows.add(mapper.mapRow(rs, rows.size()));
+            }
+            return rows;
+        });
+    }
+
+    private static String[] partition(YearMonth month) {
+        return new String[]{TransactionArchiveService.partitionName(month), String.valueOf(startOf(month.plusMonths(1)))};
+    }
+
+    private static long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+}
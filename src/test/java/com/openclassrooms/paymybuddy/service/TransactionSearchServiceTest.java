@@ -0,0 +1,146 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import com.openclassrooms.paymybuddy.model.User;
+import com.openclassrooms.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSearchServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TransactionSearchService transactionSearchService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transactionSearchService = new TransactionSearchService(jdbcTemplate, userRepository, 2);
+        user = new User();
+        user.setUserId(1);
+        user.setEmail("user@example.com");
+    }
+
+    @Test
+    void booleanQuery_shouldRequireAccountTokenAndEveryKeywordAsPrefix() {
+        assertEquals("+usr1 +dîner* +resto*", TransactionSearchService.booleanQuery(1, "Dîner au RESTO !"));
+    }
+
+    @Test
+    void booleanQuery_shouldIgnoreUserOperators() {
+        assertEquals("+usr7 +loyer* +mars*", TransactionSearchService.booleanQuery(7, "-loyer \"mars\"*"));
+    }
+
+    @Test
+    void booleanQuery_shouldReturnNull_whenNoKeywordIsIndexable() {
+        assertNull(TransactionSearchService.booleanQuery(1, null));
+        assertNull(TransactionSearchService.booleanQuery(1, "  a de "));
+    }
+
+    @Test
+    void cursor_shouldRoundTrip() throws Exception {
+        TransactionSearchService.Cursor cursor = new TransactionSearchService.Cursor(LocalDateTime.of(2025, 3, 1, 12, 30), 42);
+        assertEquals(cursor, TransactionSearchService.Cursor.parse(cursor.format()));
+    }
+
+    @Test
+    void cursor_shouldRejectMalformedValue() {
+        Exception exception = assertThrows(Exception.class, () -> TransactionSearchService.Cursor.parse("page-2"));
+        assertEquals("Page de résultats invalide.", exception.getMessage());
+    }
+
+    @Test
+    void index_shouldWriteOneRowPerParticipant() {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 1, 12, 30);
+
+        transactionSearchService.index(10, 1, 2, Money.ofCents(1500), "Cinéma", timestamp);
+
+        ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(anyString(), params.capture());
+        Object[] values = params.getValue();
+        assertEquals(16, values.length);
+        assertEquals(List.of(1, 10, 2, "S", "usr1 Cinéma"), List.of(values[0], values[2], values[3], values[4], values[7]));
+        assertEquals(List.of(2, 10, 1, "R", "usr2 Cinéma"), List.of(values[8], values[10], values[11], values[12], values[15]));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_shouldApplyFilters_andReturnNextCursor_whenMoreHitsThanPageSize() throws Exception {
+        User friend = new User();
+        friend.setUserId(2);
+        friend.setEmail("friend@example.com");
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail("friend@example.com")).thenReturn(Optional.of(friend));
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<TransactionSearchService.SearchHit> rows = List.of(
+                new TransactionSearchService.SearchHit(30, now, true, Money.ofCents(2000), "Resto", "Friend"),
+                new TransactionSearchService.SearchHit(20, now.minusDays(1), false, Money.ofCents(1000), "Resto", "Friend"),
+                new TransactionSearchService.SearchHit(10, now.minusDays(2), true, Money.ofCents(500), "Resto", "Friend"));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(rows);
+
+        TransactionSearchService.SearchPage page = transactionSearchService.search("user@example.com",
+                new TransactionSearchService.SearchCriteria("resto", "friend@example.com", Money.ofCents(100), null,
+                        LocalDate.of(2025, 1, 1), null), null);
+
+        assertEquals(2, page.hits().size());
+        assertEquals(new TransactionSearchService.Cursor(now.minusDays(1), 20).format(), page.nextCursor());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), params.capture());
+        assertTrue(sql.getValue().contains("MATCH(s.search_text) AGAINST (? IN BOOLEAN MODE)"));
+        assertTrue(sql.getValue().contains("s.counterparty_id = ?"));
+        assertFalse(sql.getValue().contains("s.amount <= ?"));
+        assertEquals(List.of(1, "+usr1 +resto*", 2), List.of(params.getValue()).subList(0, 3));
+        assertEquals(3, params.getValue()[params.getValue().length - 1]); // pageSize + 1
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_shouldReturnLastPage_whenFewerHitsThanPageSize() throws Exception {
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+                new TransactionSearchService.SearchHit(10, LocalDateTime.now(), true, Money.ofCents(500), null, "Friend")));
+
+        TransactionSearchService.SearchPage page = transactionSearchService.search("user@example.com",
+                new TransactionSearchService.SearchCriteria(null, null, null, null, null, null), "2025-03-01T12:00_42");
+
+        assertEquals(1, page.hits().size());
+        assertNull(page.nextCursor());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), any(Object[].class));
+        assertFalse(sql.getValue().contains("MATCH"));
+        assertTrue(sql.getValue().contains("s.transaction_id < ?"));
+    }
+
+    @Test
+    void search_shouldThrow_whenCounterpartyNotFound() {
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(Exception.class, () -> transactionSearchService.search("user@example.com",
+                new TransactionSearchService.SearchCriteria(null, "unknown@example.com", null, null, null, null), null));
+        assertEquals("Relation non trouvée.", exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
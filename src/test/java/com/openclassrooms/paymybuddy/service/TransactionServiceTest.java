@@ -1,6 +1,9 @@
 package com.openclassrooms.paymybuddy.service;
 
 
+import com.openclassrooms.paymybuddy.fraud.FraudRulesEngine;
+import com.openclassrooms.paymybuddy.fraud.TransferBlockedException;
+import com.openclassrooms.paymybuddy.model.Money;
 import com.openclassrooms.paymybuddy.model.Transaction;
 import com.openclassrooms.paymybuddy.model.User;
 import com.openclassrooms.paymybuddy.repository.TransactionRepository;
@@ -9,18 +12,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,55 +38,72 @@ class TransactionServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private FeeEngine feeEngine;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private TransactionSearchService transactionSearchService;
+
+    @Mock
+    private FraudRulesEngine fraudRulesEngine;
+
+    @Mock
+    private TransferLimitService transferLimitService;
+
     private TransactionService transactionService;
 
     private User sender;
     private User receiver;
-    private final BigDecimal feePercentage = new BigDecimal("0.005"); // Doit correspondre à la constante dans le service
 
     @BeforeEach
     void setUp() {
+        transactionService = new TransactionService(transactionRepository, userRepository, eventPublisher, feeEngine, ledgerService, transactionSearchService,
+                fraudRulesEngine, transferLimitService, false, 12);
+        // Comptes ordinaires : le solde est celui de l'entité (pas de sous-soldes)
+        lenient().when(ledgerService.balanceOf(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
         sender = new User();
         sender.setUserId(1);
         sender.setEmail("sender@example.com");
-        sender.setBalance(new BigDecimal("200.00"));
+        sender.setBalance(Money.of(new BigDecimal("200.00")));
 
         receiver = new User();
         receiver.setUserId(2);
         receiver.setEmail("receiver@example.com");
-        receiver.setBalance(new BigDecimal("50.00"));
+        receiver.setBalance(Money.of(new BigDecimal("50.00")));
     }
 
     @Test
     void transferMoney_shouldSucceed_whenValid() throws Exception {
         // Arrange
-        BigDecimal amountToTransfer = new BigDecimal("100.00");
+        Money amountToTransfer = Money.of(new BigDecimal("100.00"));
         String description = "Test transfer";
 
         when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
         when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
             Transaction tx = invocation.getArgument(0);
             tx.setTransactionId(1); // Simuler la génération d'ID
             return tx;
         });
 
-        /* for V1
-        BigDecimal expectedFee = amountToTransfer.multiply(feePercentage).setScale(4, RoundingMode.HALF_UP);
-        BigDecimal expectedTotalDeducted = amountToTransfer.add(expectedFee);
-         */
-
-        BigDecimal expectedSenderBalanceAfter = sender.getBalance().subtract(amountToTransfer);
-        BigDecimal expectedReceiverBalanceAfter = receiver.getBalance().add(amountToTransfer);
+        Money expectedFee = Money.of(new BigDecimal("0.50"));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(expectedFee);
+        when(feeEngine.getPlatformAccountId()).thenReturn(99);
 
         // Act
         transactionService.transferMoney("sender@example.com", "receiver@example.com", amountToTransfer, description);
 
-        // Assert
-        assertEquals(expectedSenderBalanceAfter.setScale(2, RoundingMode.HALF_UP), sender.getBalance().setScale(2, RoundingMode.HALF_UP));
-        assertEquals(expectedReceiverBalanceAfter.setScale(2, RoundingMode.HALF_UP), receiver.getBalance().setScale(2, RoundingMode.HALF_UP));
+        // Assert : les soldes sont mis à jour par le journal, jamais sur les entités
+        assertEquals(Money.of(new BigDecimal("200.00")), sender.getBalance());
+        assertEquals(Money.of(new BigDecimal("50.00")), receiver.getBalance());
+        verify(ledgerService).recordTransfer(1, 1, 2, amountToTransfer, expectedFee, 99);
 
         ArgumentCaptor<Transaction> transactionCaptor = ArgumentCaptor.forClass(Transaction.class);
         verify(transactionRepository, times(1)).save(transactionCaptor.capture());
@@ -88,22 +111,23 @@ class TransactionServiceTest {
 
         assertEquals(sender, savedTransaction.getSender());
         assertEquals(receiver, savedTransaction.getReceiver());
-        assertEquals(amountToTransfer.setScale(2, RoundingMode.HALF_UP), savedTransaction.getAmount().setScale(2, RoundingMode.HALF_UP));
+        assertEquals(amountToTransfer, savedTransaction.getAmount());
         assertEquals(description, savedTransaction.getDescription());
-        /* for V1
-        assertEquals(expectedFee.setScale(4, RoundingMode.HALF_UP), savedTransaction.getFee().setScale(4, RoundingMode.HALF_UP));
-         */
-        assertEquals(amountToTransfer.setScale(2, RoundingMode.HALF_UP), savedTransaction.getSender().getBalance().setScale(2, RoundingMode.HALF_UP));
+        assertEquals(expectedFee, savedTransaction.getFee());
 
-        verify(userRepository, times(2)).save(any(User.class)); // sender et receiver
+        verify(userRepository, never()).save(any(User.class));
+        verify(eventPublisher, times(1)).publishEvent(
+                new TransferCompletedEvent(1, "sender@example.com", "receiver@example.com", amountToTransfer,
+                        description, savedTransaction.getTimestamp()));
     }
 
     @Test
-    void transferMoney_shouldThrowException_whenSenderHasInsufficientBalance() {
+    void transferMoney_shouldThrowException_whenSenderHasInsufficientBalance() throws Exception {
         // Arrange
-        BigDecimal amountToTransfer = new BigDecimal("300.00"); // Plus que le solde du sender
+        Money amountToTransfer = Money.of(new BigDecimal("300.00")); // Plus que le solde du sender
         when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
         when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(Money.of(new BigDecimal("1.50")));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -112,13 +136,111 @@ class TransactionServiceTest {
         assertTrue(exception.getMessage().startsWith("Solde insuffisant"));
 
         verify(transactionRepository, never()).save(any(Transaction.class));
-        verify(userRepository, never()).save(any(User.class));
+        verify(ledgerService, never()).recordTransfer(any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void transferMoney_shouldNotRecordTransaction_whenFraudRuleBlocksTransfer() throws Exception {
+        Money amountToTransfer = Money.of(new BigDecimal("50.00"));
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(Money.ZERO);
+        doThrow(new TransferBlockedException("TRANSFERS_PER_MINUTE", "Trop de transferts en peu de temps."))
+                .when(fraudRulesEngine).check(1, 2, amountToTransfer);
+
+        Exception exception = assertThrows(TransferBlockedException.class, () ->
+                transactionService.transferMoney("sender@example.com", "receiver@example.com", amountToTransfer, "Test"));
+        assertEquals("Trop de transferts en peu de temps.", exception.getMessage());
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(ledgerService, never()).recordTransfer(any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(eventPublisher, transactionSearchService);
+    }
+
+    @Test
+    void transferMoney_shouldFail_whenLedgerRefusesDebit() throws Exception {
+        // Arrange : un transfert concurrent a vidé le compte après le chargement de l'entité
+        Money amountToTransfer = Money.of(new BigDecimal("100.00"));
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(Money.ZERO);
+        when(feeEngine.getPlatformAccountId()).thenReturn(99);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction tx = invocation.getArgument(0);
+            tx.setTransactionId(7);
+            return tx;
+        });
+        doThrow(new InsufficientFundsException(1, "Solde insuffisant pour effectuer ce transfert."))
+                .when(ledgerService).recordTransfer(7, 1, 2, amountToTransfer, Money.ZERO, 99);
+
+        // Act & Assert : l'exception annule la transaction (rollbackFor = Exception.class)
+        assertThrows(InsufficientFundsException.class, () ->
+                transactionService.transferMoney("sender@example.com", "receiver@example.com", amountToTransfer, "Test"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void transferMoney_shouldThrowException_whenFeeExceedsRemainingBalance() throws Exception {
+        // Arrange : le montant seul passe, pas le montant augmenté des frais
+        Money amountToTransfer = Money.of(new BigDecimal("200.00"));
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(Money.of(new BigDecimal("1.00")));
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () ->
+                transactionService.transferMoney("sender@example.com", "receiver@example.com", amountToTransfer, "Test"));
+        assertEquals("Solde insuffisant pour effectuer ce transfert (incluant les frais de 1.00 €).", exception.getMessage());
+        verify(ledgerService, never()).recordTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void prepareTransfer_shouldValidateAndComputeFee_withoutRecording() throws Exception {
+        Money amountToTransfer = Money.of(new BigDecimal("100.00"));
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
+        when(feeEngine.feeFor(sender, amountToTransfer)).thenReturn(Money.of(new BigDecimal("0.50")));
+
+        PreparedTransfer transfer = transactionService.prepareTransfer(
+                "sender@example.com", "receiver@example.com", amountToTransfer, "Test");
+
+        assertEquals(new PreparedTransfer(1, "sender@example.com", 2, "receiver@example.com",
+                amountToTransfer, Money.of(new BigDecimal("0.50")), "Test"), transfer);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(ledgerService, never()).recordTransfer(any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void applyTransfer_shouldRecordPreparedTransfer_withoutReloadingUsers() throws Exception {
+        Money amountToTransfer = Money.of(new BigDecimal("30.00"));
+        Money fee = Money.of(new BigDecimal("0.15"));
+        when(userRepository.getReferenceById(1)).thenReturn(sender);
+        when(userRepository.getReferenceById(2)).thenReturn(receiver);
+        when(feeEngine.getPlatformAccountId()).thenReturn(99);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction tx = invocation.getArgument(0);
+            tx.setTransactionId(5);
+            tx.setTimestamp(LocalDateTime.of(2025, 3, 1, 12, 0));
+            return tx;
+        });
+
+        Integer transactionId = transactionService.applyTransfer(new PreparedTransfer(
+                1, "sender@example.com", 2, "receiver@example.com", amountToTransfer, fee, "Groupé"));
+
+        assertEquals(5, transactionId);
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(ledgerService).recordTransfer(5, 1, 2, amountToTransfer, fee, 99);
+        verify(eventPublisher).publishEvent(
+                new TransferCompletedEvent(5, "sender@example.com", "receiver@example.com", amountToTransfer,
+                        "Groupé", LocalDateTime.of(2025, 3, 1, 12, 0)));
     }
 
     @Test
     void transferMoney_shouldThrowException_whenSenderIsReceiver() {
         // Arrange
-        BigDecimal amountToTransfer = new BigDecimal("10.00");
+        Money amountToTransfer = Money.of(new BigDecimal("10.00"));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -131,8 +253,8 @@ class TransactionServiceTest {
     @Test
     void transferMoney_shouldThrowException_whenAmountIsZeroOrNegative() {
         // Arrange
-        BigDecimal zeroAmount = BigDecimal.ZERO;
-        BigDecimal negativeAmount = new BigDecimal("-10.00");
+        Money zeroAmount = Money.ZERO;
+        Money negativeAmount = Money.of(new BigDecimal("-10.00"));
 
         // Act & Assert for zero
         Exception exceptionZero = assertThrows(Exception.class, () -> {
@@ -151,34 +273,58 @@ class TransactionServiceTest {
 
 
     @Test
-    void getTransactionHistory_shouldReturnTransactions_whenUserExists() throws Exception {
+    void getTransactionHistory_shouldReturnWholeHistory_whenArchiveIsDisabled() throws Exception {
         // Arrange
         Transaction tx1 = new Transaction();
         tx1.setSender(sender);
         tx1.setReceiver(receiver);
-        tx1.setAmount(new BigDecimal("10.00"));
+        tx1.setAmount(Money.of(new BigDecimal("10.00")));
 
         Transaction tx2 = new Transaction();
         tx2.setSender(receiver); // L'utilisateur testé est le receiver ici
         tx2.setReceiver(sender);
-        tx2.setAmount(new BigDecimal("20.00"));
+        tx2.setAmount(Money.of(new BigDecimal("20.00")));
 
         List<Transaction> expectedTransactions = Arrays.asList(tx1, tx2);
 
         when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
-        when(transactionRepository.findBySenderOrReceiverOrderByTimestampDesc(sender, sender))
+        when(transactionRepository.findHistory(sender)).thenReturn(expectedTransactions);
+
+        // Act
+        List<Transaction> actualTransactions = transactionService.getTransactionHistory("sender@example.com");
+
+        // Assert : rien n'est archivé, aucune borne de date
+        assertEquals(expectedTransactions, actualTransactions);
+        verify(userRepository, times(1)).findByEmail("sender@example.com");
+        verify(transactionRepository, never()).findHistorySince(any(User.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void getTransactionHistory_shouldReadOnlyRecentMonths_whenArchiveIsEnabled() throws Exception {
+        // Arrange
+        transactionService = new TransactionService(transactionRepository, userRepository, eventPublisher, feeEngine, ledgerService, transactionSearchService,
+                fraudRulesEngine, transferLimitService, true, 12);
+        Transaction tx1 = new Transaction();
+        tx1.setSender(sender);
+        tx1.setReceiver(receiver);
+        tx1.setAmount(Money.of(new BigDecimal("10.00")));
+        List<Transaction> expectedTransactions = List.of(tx1);
+
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(transactionRepository.findHistorySince(eq(sender), any(LocalDateTime.class)))
                 .thenReturn(expectedTransactions);
 
         // Act
         List<Transaction> actualTransactions = transactionService.getTransactionHistory("sender@example.com");
 
         // Assert
-        assertNotNull(actualTransactions);
-        assertEquals(2, actualTransactions.size());
         assertEquals(expectedTransactions, actualTransactions);
-
-        verify(userRepository, times(1)).findByEmail("sender@example.com");
-        verify(transactionRepository, times(1)).findBySenderOrReceiverOrderByTimestampDesc(sender, sender);
+        // Historique limité aux mois non archivés : seules les partitions récentes sont lues
+        ArgumentCaptor<LocalDateTime> sinceCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(transactionRepository, times(1)).findHistorySince(eq(sender), sinceCaptor.capture());
+        LocalDateTime expectedSince = LocalDateTime.now().minusMonths(12);
+        assertTrue(Math.abs(Duration.between(expectedSince, sinceCaptor.getValue()).toSeconds()) < 60);
+        verify(transactionRepository, never()).findHistory(any(User.class));
     }
 
     @Test
@@ -192,6 +338,92 @@ class TransactionServiceTest {
         });
         assertEquals("Utilisateur non trouvé.", exception.getMessage());
 
-        verify(transactionRepository, never()).findBySenderOrReceiverOrderByTimestampDesc(any(User.class), any(User.class));
+        verify(transactionRepository, never()).findHistory(any(User.class));
+    }
+
+    @Test
+    void getTransactionOverview_shouldCapPageSize_andSkipCounts_whenPageIsNotFull() throws Exception {
+        // Arrange
+        Transaction sent = new Transaction();
+        sent.setSender(sender);
+        sent.setReceiver(receiver);
+        Transaction received = new Transaction();
+        received.setSender(receiver);
+        received.setReceiver(sender);
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(transactionRepository.findSentWithReceiver(eq(sender), any(Pageable.class))).thenReturn(List.of(sent));
+        when(transactionRepository.findReceivedWithSender(eq(sender), any(Pageable.class))).thenReturn(List.of(received));
+
+        // Act
+        TransactionOverview overview = transactionService.getTransactionOverview("sender@example.com", 0, 100_000);
+
+        // Assert
+        ArgumentCaptor<Pageable> pageCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(transactionRepository).findSentWithReceiver(eq(sender), pageCaptor.capture());
+        assertEquals(TransactionService.MAX_OVERVIEW_PAGE_SIZE, pageCaptor.getValue().getPageSize());
+        assertEquals(List.of(sent), overview.sent());
+        assertEquals(List.of(received), overview.received());
+        assertEquals(1, overview.sentCount());
+        assertEquals(1, overview.receivedCount());
+        assertFalse(overview.hasNextPage());
+        // Page incomplète : les totaux sont connus sans requête de comptage
+        verify(transactionRepository, never()).countBySender(any(User.class));
+        verify(transactionRepository, never()).countByReceiver(any(User.class));
+        verify(userRepository, never()).findByEmailWithConnections(any());
+    }
+
+    @Test
+    void getTransactionOverview_shouldCountTotals_whenPageIsFull() throws Exception {
+        // Arrange
+        Transaction sent = new Transaction();
+        sent.setSender(sender);
+        sent.setReceiver(receiver);
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(transactionRepository.findSentWithReceiver(eq(sender), any(Pageable.class))).thenReturn(List.of(sent));
+        when(transactionRepository.findReceivedWithSender(eq(sender), any(Pageable.class))).thenReturn(List.of());
+        when(transactionRepository.countBySender(sender)).thenReturn(5L);
+        when(transactionRepository.countByReceiver(sender)).thenReturn(0L);
+
+        // Act
+        TransactionOverview overview = transactionService.getTransactionOverview("sender@example.com", 1, 1);
+
+        // Assert
+        ArgumentCaptor<Pageable> pageCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(transactionRepository).findReceivedWithSender(eq(sender), pageCaptor.capture());
+        assertEquals(1, pageCaptor.getValue().getOffset());
+        assertEquals(5, overview.sentCount());
+        // Page vide au-delà de la première : le total est compté, et non déduit du décalage
+        assertEquals(0, overview.receivedCount());
+        assertTrue(overview.hasNextPage());
+    }
+
+    @Test
+    void getTransactionOverview_shouldCountTotals_whenPageIsPastTheEnd() throws Exception {
+        // Arrange : 30 transactions dans chaque sens, page 10 de 20 demandée
+        when(userRepository.findByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(transactionRepository.findSentWithReceiver(eq(sender), any(Pageable.class))).thenReturn(List.of());
+        when(transactionRepository.findReceivedWithSender(eq(sender), any(Pageable.class))).thenReturn(List.of());
+        when(transactionRepository.countBySender(sender)).thenReturn(30L);
+        when(transactionRepository.countByReceiver(sender)).thenReturn(30L);
+
+        // Act
+        TransactionOverview overview = transactionService.getTransactionOverview("sender@example.com", 10, 20);
+
+        // Assert
+        assertTrue(overview.sent().isEmpty());
+        assertEquals(30, overview.sentCount());
+        assertEquals(30, overview.receivedCount());
+        assertFalse(overview.hasNextPage());
+    }
+
+    @Test
+    void getTransactionOverview_shouldThrowException_whenUserNotFound() {
+        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(Exception.class,
+                () -> transactionService.getTransactionOverview("unknown@example.com", 0, 20));
+
+        assertEquals("Utilisateur non trouvé.", exception.getMessage());
+        verify(transactionRepository, never()).findSentWithReceiver(any(User.class), any(Pageable.class));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.openclassrooms.paymybuddy.service;
+
+import com.openclassrooms.paymybuddy.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des plafonds de transferts sur une base H2 en mémoire (mode MySQL).
+ */
+class TransferLimitServiceTest {
+
+    private static final int ALICE = 1;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransferLimitService transferLimitService;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:limits_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE Transfer_Limits (user_id INT PRIMARY KEY, day_start DATE NOT NULL, "
+                + "day_amount DECIMAL(12, 2) NOT NULL DEFAULT 0, month_start DATE NOT NULL, "
+                + "month_amount DECIMAL(12, 2) NOT NULL DEFAULT 0, daily_limit DECIMAL(12, 2) NULL, "
+                + "monthly_limit DECIMAL(12, 2) NULL)");
+        transferLimitService = new TransferLimitService(jdbcTemplate, new BigDecimal("100.00"), new BigDecimal("250.00"), 100);
+    }
+
+    @Test
+    void consume_shouldCreateCounters_andAddAmount() throws Exception {
+        transferLimitService.consume(ALICE, Money.ofCents(4_000));
+        transferLimitService.consume(ALICE, Money.ofCents(1_000));
+
+        assertEquals(new BigDecimal("50.00"), counter("day_amount"));
+        assertEquals(new BigDecimal("50.00"), counter("month_amount"));
+    }
+
+    @Test
+    void consume_shouldRefuse_whenDailyLimitWouldBeExceeded() throws Exception {
+        transferLimitService.consume(ALICE, Money.ofCents(8_000));
+
+        TransferLimitExceededException exception = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.consume(ALICE, Money.ofCents(2_001)));
+
+        assertEquals(ALICE, exception.getAccountId());
+        assertEquals("Plafond de transferts atteint : il vous reste 20.00 € aujourd'hui et 170.00 € ce mois-ci.",
+                exception.getMessage());
+        assertEquals(new BigDecimal("80.00"), counter("day_amount"));
+    }
+
+    @Test
+    void consume_shouldResetDailyCounter_onNewDay_andKeepMonthlyCounter() throws Exception {
+        LocalDate today = LocalDate.now();
+        // Jour précédent du même mois (le 1er du mois : aucun jour précédent, le compteur du mois est remis à zéro aussi)
+        LocalDate previousDay = today.getDayOfMonth() > 1 ? today.minusDays(1) : today.minusMonths(1);
+        jdbcTemplate.update("INSERT INTO Transfer_Limits (user_id, day_start, day_amount, month_start, month_amount) "
+                + "VALUES (?, ?, 100.00, ?, 200.00)", ALICE, Date.valueOf(previousDay), Date.valueOf(previousDay.withDayOfMonth(1)));
+
+        transferLimitService.consume(ALICE, Money.ofCents(3_000));
+
+        assertEquals(new BigDecimal("30.00"), counter("day_amount"));
+        assertEquals(today.getDayOfMonth() > 1 ? new BigDecimal("230.00") : new BigDecimal("30.00"), counter("month_amount"));
+    }
+
+    @Test
+    void consume_shouldRefuse_whenMonthlyLimitWouldBeExceeded() {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.update("INSERT INTO Transfer_Limits (user_id, day_start, day_amount, month_start, month_amount) "
+                + "VALUES (?, ?, 0, ?, 240.00)", ALICE, Date.valueOf(today), Date.valueOf(today.withDayOfMonth(1)));
+
+        assertThrows(TransferLimitExceededException.class, () -> transferLimitService.consume(ALICE, Money.ofCents(1_500)));
+    }
+
+    @Test
+    void consume_shouldUseUserLimits_whenSet() throws Exception {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.update("INSERT INTO Transfer_Limits (user_id, day_start, month_start, daily_limit, monthly_limit) "
+                + "VALUES (?, ?, ?, 500.00, 1000.00)", ALICE, Date.valueOf(today), Date.valueOf(today.withDayOfMonth(1)));
+
+        transferLimitService.consume(ALICE, Money.ofCents(40_000));
+
+        assertEquals(new BigDecimal("400.00"), counter("day_amount"));
+    }
+
+    @Test
+    void getAllowance_shouldReturnRemainingAmounts_andReadOncePerDataVersion() throws Exception {
+        assertEquals(Money.ofCents(10_000), transferLimitService.getAllowance(ALICE, 0L).remainingToday());
+
+        transferLimitService.consume(ALICE, Money.ofCents(2_500));
+
+        // Même version : valeur en cache ; le débit a incrémenté la version : valeur relue
+        assertEquals(Money.ofCents(10_000), transferLimitService.getAllowance(ALICE, 0L).remainingToday());
+        TransferLimitService.Allowance allowance = transferLimitService.getAllowance(ALICE, 1L);
+        assertEquals(Money.ofCents(7_500), allowance.remainingToday());
+        assertEquals(Money.ofCents(22_500), allowance.remainingThisMonth());
+    }
+
+    @Test
+    void allowance_shouldBoundRemainingToday_byRemainingThisMonth() {
+        TransferLimitService.Allowance allowance = TransferLimitService.Allowance.of(
+                Money.ofCents(10_000), Money.ZERO, Money.ofCents(25_000), Money.ofCents(24_000));
+
+        assertEquals(Money.ofCents(1_000), allowance.remainingToday());
+    }
+
+    private BigDecimal counter(String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM Transfer_Limits WHERE user_id = ?", BigDecimal.class, ALICE);
+    }
+}
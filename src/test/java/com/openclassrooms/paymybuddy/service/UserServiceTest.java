@@ -1,6 +1,7 @@
 package com.openclassrooms.paymybuddy.service;
 
 import com.openclassrooms.paymybuddy.dto.UserRegistrationDto;
+import com.openclassrooms.paymybuddy.model.Money;
 import com.openclassrooms.paymybuddy.model.User;
 import com.openclassrooms.paymybuddy.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +31,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private FragmentCacheService fragmentCacheService;
+
     @InjectMocks // Mockito va injecter les mocks ci-dessus dans cette instance
     private UserService userService;
 
@@ -49,7 +53,7 @@ class UserServiceTest {
         user1.setEmail("user1@example.com");
         user1.setUsername("userOne");
         user1.setPasswordHash("hashedPassword1");
-        user1.setBalance(new BigDecimal("100.00"));
+        user1.setBalance(Money.of(new BigDecimal("100.00")));
         user1.setConnections(new HashSet<>()); // Initialiser pour éviter NPE
 
         user2 = new User();
@@ -57,7 +61,7 @@ class UserServiceTest {
         user2.setEmail("user2@example.com");
         user2.setUsername("userTwo");
         user2.setPasswordHash("hashedPassword2");
-        user2.setBalance(new BigDecimal("50.00"));
+        user2.setBalance(Money.of(new BigDecimal("50.00")));
         user2.setConnections(new HashSet<>());
     }
 
@@ -76,7 +80,7 @@ class UserServiceTest {
         assertEquals(registrationDto.getEmail(), registeredUser.getEmail());
         assertEquals(registrationDto.getUsername(), registeredUser.getUsername());
         assertEquals("encodedPassword", registeredUser.getPasswordHash());
-        assertEquals(BigDecimal.ZERO.setScale(2), registeredUser.getBalance().setScale(2)); // Vérifier le solde initial
+        assertEquals(Money.ZERO, registeredUser.getBalance()); // Vérifier le solde initial
 
         verify(userRepository, times(1)).findByEmail(registrationDto.getEmail());
         verify(passwordEncoder, times(1)).encode(registrationDto.getPassword());
@@ -151,6 +155,8 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByEmailWithConnections(user1.getEmail());
         verify(userRepository, times(1)).findByEmail(user2.getEmail());
         verify(userRepository, times(1)).save(user1); // Vérifie que user1 (avec la nouvelle connexion) est sauvegardé
+        verify(userRepository).incrementDataVersion(user1.getUserId()); // La page des relations doit être re-rendue
+        verify(fragmentCacheService, times(1)).evict(user1.getEmail()); // Options du sélecteur d'amis invalidées
     }
 
     @Test
@@ -214,7 +220,29 @@ class UserServiceTest {
 
         // Assert
         assertEquals(newUsername, user1.getUsername());
+        verify(userRepository).incrementDataVersion(user1.getUserId());
+        // Les utilisateurs qui l'ont ajouté affichent son nom : leurs pages doivent être re-rendues
+        verify(userRepository).incrementConnectedByDataVersions(user1.getUserId());
         verify(userRepository, times(1)).findByEmail(user1.getEmail());
         verify(userRepository, times(1)).save(user1);
     }
+
+    @Test
+    void getDataVersion_shouldReturnVersion_whenUserExists() {
+        // Arrange
+        when(userRepository.findDataVersionByEmail(user1.getEmail())).thenReturn(Optional.of(7L));
+
+        // Act & Assert
+        assertEquals(7L, userService.getDataVersion(user1.getEmail()));
+        verify(userRepository, never()).findByEmail(anyString()); // Projection seule, pas de chargement de l'entité
+    }
+
+    @Test
+    void getDataVersion_shouldThrowRuntimeException_whenUserNotExists() {
+        // Arrange
+        when(userRepository.findDataVersionByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> userService.getDataVersion("nonexistent@example.com"));
+    }
 }
\ No newline at end of file
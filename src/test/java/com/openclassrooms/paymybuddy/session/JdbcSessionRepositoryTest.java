@@ -0,0 +1,108 @@
+package com.openclassrooms.paymybuddy.session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcSessionRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JdbcSessionRepository(jdbcTemplate, Duration.ofMinutes(30), 500);
+    }
+
+    @Test
+    void save_shouldInsert_whenSessionIsNew() {
+        // Arrange
+        JdbcSessionRepository.JdbcSession session = repository.createSession();
+        session.setAttribute("key", "value");
+
+        // Act
+        repository.save(session);
+
+        // Assert
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO Http_Sessions"), any(Object[].class));
+    }
+
+    @Test
+    void save_shouldDeferWrite_whenOnlyLastAccessChanged() {
+        // Arrange
+        JdbcSessionRepository.JdbcSession session = repository.createSession();
+        repository.save(session);
+        clearInvocations(jdbcTemplate);
+
+        // Act : plusieurs requêtes qui ne font que toucher la session
+        session.setLastAccessedTime(Instant.now());
+        repository.save(session);
+        session.setLastAccessedTime(Instant.now());
+        repository.save(session);
+
+        // Assert : aucune écriture immédiate, une seule ligne écrite au flush
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        repository.flushLastAccessTimes();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("UPDATE Http_Sessions SET last_access_time"), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals(session.getId(), batch.getValue().get(0)[2]);
+    }
+
+    @Test
+    void save_shouldUpdateWithOriginalId_whenSessionIdChanged() {
+        // Arrange
+        JdbcSessionRepository.JdbcSession session = repository.createSession();
+        repository.save(session);
+        String originalId = session.getId();
+        clearInvocations(jdbcTemplate);
+
+        // Act : changement d'identifiant à la connexion (protection contre la fixation de session)
+        String newId = session.changeSessionId();
+        repository.save(session);
+
+        // Assert
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE Http_Sessions SET session_id"), args.capture());
+        assertEquals(newId, args.getValue()[0]);
+        assertEquals(originalId, args.getValue()[6]);
+    }
+
+    @Test
+    void flushLastAccessTimes_shouldDoNothing_whenNothingPending() {
+        repository.flushLastAccessTimes();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void deleteExpiredSessions_shouldDeleteInBatches() {
+        // Arrange : un paquet complet puis un paquet partiel
+        when(jdbcTemplate.update(startsWith("DELETE FROM Http_Sessions WHERE expiry_time"), any(Object[].class)))
+                .thenReturn(500, 12);
+
+        // Act
+        repository.deleteExpiredSessions();
+
+        // Assert
+        verify(jdbcTemplate, times(2)).update(startsWith("DELETE FROM Http_Sessions WHERE expiry_time"), any(Object[].class));
+    }
+}
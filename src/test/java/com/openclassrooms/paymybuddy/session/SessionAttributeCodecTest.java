@@ -0,0 +1,87 @@
+package com.openclassrooms.paymybuddy.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionAttributeCodecTest {
+
+    private static final String CONTEXT_KEY = "SPRING_SECURITY_CONTEXT";
+
+    @Test
+    void securityContext_shouldRoundTrip_withUsernameAndAuthorities() {
+        // Arrange
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        User principal = new User("alice@mail.fr", "", authorities);
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+
+        // Act
+        Map<String, Object> decoded = SessionAttributeCodec.decode(SessionAttributeCodec.encode(Map.of(CONTEXT_KEY, context)));
+
+        // Assert
+        SecurityContext restored = (SecurityContext) decoded.get(CONTEXT_KEY);
+        assertTrue(restored.getAuthentication().isAuthenticated());
+        assertEquals("alice@mail.fr", restored.getAuthentication().getName());
+        assertEquals("alice@mail.fr", ((User) restored.getAuthentication().getPrincipal()).getUsername());
+        assertEquals(authorities, new ArrayList<>(restored.getAuthentication().getAuthorities()));
+    }
+
+    @Test
+    void securityContext_shouldBeMuchSmallerThanJavaSerialization() throws Exception {
+        // Arrange
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        SecurityContext context = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                new User("alice@mail.fr", "", authorities), null, authorities));
+        ByteArrayOutputStream javaSerialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(javaSerialized)) {
+            out.writeObject(context);
+        }
+
+        // Act
+        byte[] compact = SessionAttributeCodec.encode(Map.of(CONTEXT_KEY, context));
+
+        // Assert
+        assertTrue(compact.length * 10 < javaSerialized.size(),
+                "compact=" + compact.length + " octets, java=" + javaSerialized.size() + " octets");
+    }
+
+    @Test
+    void otherAttributes_shouldRoundTrip() {
+        // Arrange
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("csrf", new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "abc123"));
+        attributes.put("text", "valeur");
+        attributes.put("number", 42L);
+
+        // Act
+        Map<String, Object> decoded = SessionAttributeCodec.decode(SessionAttributeCodec.encode(attributes));
+
+        // Assert
+        CsrfToken token = (CsrfToken) decoded.get("csrf");
+        assertEquals("X-CSRF-TOKEN", token.getHeaderName());
+        assertEquals("_csrf", token.getParameterName());
+        assertEquals("abc123", token.getToken());
+        assertEquals("valeur", decoded.get("text"));
+        assertEquals(42L, decoded.get("number"));
+    }
+
+    @Test
+    void decode_shouldReturnEmptyMap_whenNoData() {
+        assertTrue(SessionAttributeCodec.decode(null).isEmpty());
+    }
+}
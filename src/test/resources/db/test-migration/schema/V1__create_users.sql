@@ -0,0 +1,5 @@
+CREATE TABLE Users (
+    user_id INT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    PRIMARY KEY (user_id)
+);
@@ -0,0 +1,3 @@
+-- Commentaire ignore
+ALTER TABLE Users ADD COLUMN balance DECIMAL(10, 2) NOT NULL DEFAULT 0.00;
+CREATE INDEX idx_users_email ON Users (email);
@@ -0,0 +1 @@
+INSERT INTO Users (email) VALUES ('alice@mail.fr'), ('bob@mail.fr');